@@ -0,0 +1,106 @@
+package org.codehaus.modello.benchmarks;
+
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.codehaus.modello.benchmarks.catalog.Catalog;
+import org.codehaus.modello.benchmarks.catalog.io.dom4j.CatalogDom4jReader;
+import org.codehaus.modello.benchmarks.catalog.io.dom4j.CatalogDom4jWriter;
+import org.codehaus.modello.benchmarks.catalog.io.jackson.CatalogJacksonReader;
+import org.codehaus.modello.benchmarks.catalog.io.jackson.CatalogJacksonWriter;
+import org.codehaus.modello.benchmarks.catalog.io.jdom.CatalogJDOMWriter;
+import org.codehaus.modello.benchmarks.catalog.io.sax.CatalogSaxWriter;
+import org.codehaus.modello.benchmarks.catalog.io.snakeyaml.CatalogSnakeYamlReader;
+import org.codehaus.modello.benchmarks.catalog.io.snakeyaml.CatalogSnakeYamlWriter;
+import org.codehaus.modello.benchmarks.catalog.io.stax.CatalogStaxReader;
+import org.codehaus.modello.benchmarks.catalog.io.stax.CatalogStaxWriter;
+import org.codehaus.modello.benchmarks.catalog.io.xpp3.CatalogXpp3Reader;
+import org.codehaus.modello.benchmarks.catalog.io.xpp3.CatalogXpp3Writer;
+import org.jdom.Document;
+import org.jdom.Element;
+
+/**
+ * The codec of the synthetic catalog model, which has a reader and a writer for every format.
+ */
+public class CatalogCodec
+    implements Codec<Catalog>
+{
+    public Catalog read( Format format, InputStream in )
+        throws Exception
+    {
+        switch ( format )
+        {
+            case XPP3:
+                return new CatalogXpp3Reader().read( in );
+            case STAX:
+                return new CatalogStaxReader().read( in );
+            case JACKSON:
+                return new CatalogJacksonReader().read( in );
+            case SNAKEYAML:
+                return new CatalogSnakeYamlReader().read( in );
+            case DOM4J:
+                return new CatalogDom4jReader().read( in );
+            default:
+                throw new UnsupportedOperationException( "No " + format + " reader for the catalog model" );
+        }
+    }
+
+    public void write( Format format, OutputStream out, Catalog catalog )
+        throws Exception
+    {
+        switch ( format )
+        {
+            case XPP3:
+                new CatalogXpp3Writer().write( out, catalog );
+                break;
+            case STAX:
+                new CatalogStaxWriter().write( out, catalog );
+                break;
+            case JACKSON:
+                new CatalogJacksonWriter().write( out, catalog );
+                break;
+            case SNAKEYAML:
+                new CatalogSnakeYamlWriter().write( out, catalog );
+                break;
+            case DOM4J:
+                new CatalogDom4jWriter().write( out, catalog );
+                break;
+            case SAX:
+                new CatalogSaxWriter().write( out, catalog );
+                break;
+            case JDOM:
+                Writer writer = new OutputStreamWriter( out, "UTF-8" );
+                new CatalogJDOMWriter().write( catalog, new Document( new Element( "catalog" ) ), writer,
+                                               org.jdom.output.Format.getRawFormat() );
+                writer.flush();
+                break;
+            default:
+                throw new UnsupportedOperationException( "No " + format + " writer for the catalog model" );
+        }
+    }
+}
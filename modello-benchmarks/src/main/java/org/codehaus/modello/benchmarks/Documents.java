@@ -0,0 +1,158 @@
+package org.codehaus.modello.benchmarks;
+
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+import org.codehaus.modello.benchmarks.catalog.Catalog;
+import org.codehaus.modello.benchmarks.catalog.Part;
+import org.codehaus.modello.benchmarks.catalog.Product;
+import org.codehaus.modello.test.features.Features;
+import org.codehaus.modello.test.features.io.xpp3.ModelloFeaturesTestXpp3Reader;
+import org.codehaus.modello.test.model.Dependency;
+import org.codehaus.modello.test.model.Developer;
+import org.codehaus.modello.test.model.Model;
+
+/**
+ * Builds the benchmarked documents: the catalog and maven documents grow with their size, the features document is
+ * the one of <code>modello-test</code>.
+ */
+public final class Documents
+{
+    private Documents()
+    {
+    }
+
+    /**
+     * @param size the number of products
+     * @return a catalog with <code>size</code> products, each with tags, properties and parts
+     */
+    public static Catalog catalog( int size )
+    {
+        Catalog catalog = new Catalog();
+        catalog.setName( "catalog-" + size );
+        catalog.setDescription( "Synthetic catalog & its <" + size + "> products" );
+        catalog.setRevision( size );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            Product product = new Product();
+            product.setId( "p" + i );
+            product.setName( "Product " + i );
+            product.setDescription( "Description of product " + i );
+            product.setPrice( i * 1.25 );
+            product.setQuantity( i % 100 );
+            product.setWeight( i / 8f );
+            product.setAvailable( i % 2 == 0 );
+            product.addTag( "tag" + ( i % 10 ) );
+            product.addTag( "tag" + ( i % 7 ) );
+            product.addProperty( "origin", "factory-" + ( i % 3 ) );
+
+            for ( int j = 0; j < 3; j++ )
+            {
+                Part part = new Part();
+                part.setCode( "p" + i + "-" + j );
+                part.setCount( j + 1L );
+                product.addPart( part );
+            }
+
+            catalog.addProduct( product );
+        }
+
+        return catalog;
+    }
+
+    /**
+     * @param size the number of dependencies
+     * @return a maven model with <code>size</code> dependencies and a developer for every ten dependencies
+     */
+    public static Model maven( int size )
+    {
+        Model model = new Model();
+        model.setModelVersion( "4.0.0" );
+        model.setGroupId( "org.codehaus.modello" );
+        model.setArtifactId( "modello-benchmarks" );
+        model.setVersion( "1.0" );
+        model.setName( "Benchmark " + size );
+        model.setDescription( "Maven model with " + size + " dependencies" );
+        model.setUrl( "http://modello.codehaus.org/" );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            Dependency dependency = new Dependency();
+            dependency.setGroupId( "org.example.group" + ( i % 20 ) );
+            dependency.setArtifactId( "artifact-" + i );
+            dependency.setVersion( "1." + i );
+            dependency.setType( "jar" );
+            dependency.addProperty( "scope", "compile" );
+            model.addDependency( dependency );
+
+            if ( i % 10 == 0 )
+            {
+                Developer developer = new Developer();
+                developer.setId( "dev" + i );
+                developer.setName( "Developer " + i );
+                developer.setEmail( "dev" + i + "@example.org" );
+                model.addDeveloper( developer );
+            }
+        }
+
+        return model;
+    }
+
+    /**
+     * @return the features model read from <code>features.xml</code>
+     */
+    public static Features features()
+        throws Exception
+    {
+        InputStream in = Documents.class.getResourceAsStream( "/features.xml" );
+        try
+        {
+            return new ModelloFeaturesTestXpp3Reader().read( in );
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * @return the bytes of the model written in the given format
+     */
+    public static <T> byte[] toBytes( Codec<T> codec, Format format, T model )
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write( format, out, model );
+        return out.toByteArray();
+    }
+
+    public static InputStream open( byte[] document )
+    {
+        return new ByteArrayInputStream( document );
+    }
+}
@@ -0,0 +1,96 @@
+package org.codehaus.modello.benchmarks;
+
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.codehaus.modello.test.features.Features;
+import org.codehaus.modello.test.features.io.dom4j.ModelloFeaturesTestDom4jReader;
+import org.codehaus.modello.test.features.io.dom4j.ModelloFeaturesTestDom4jWriter;
+import org.codehaus.modello.test.features.io.jackson.ModelloFeaturesTestJacksonWriter;
+import org.codehaus.modello.test.features.io.jdom.ModelloFeaturesTestJDOMWriter;
+import org.codehaus.modello.test.features.io.sax.ModelloFeaturesTestSaxWriter;
+import org.codehaus.modello.test.features.io.stax.ModelloFeaturesTestStaxReader;
+import org.codehaus.modello.test.features.io.stax.ModelloFeaturesTestStaxWriter;
+import org.codehaus.modello.test.features.io.xpp3.ModelloFeaturesTestXpp3Reader;
+import org.codehaus.modello.test.features.io.xpp3.ModelloFeaturesTestXpp3Writer;
+import org.jdom.Document;
+import org.jdom.Element;
+
+/**
+ * The codec of the features model (<code>maven.mdo</code>): SnakeYaml is missing, as it does not support DOM fields.
+ */
+public class FeaturesCodec
+    implements Codec<Features>
+{
+    public Features read( Format format, InputStream in )
+        throws Exception
+    {
+        switch ( format )
+        {
+            case XPP3:
+                return new ModelloFeaturesTestXpp3Reader().read( in );
+            case STAX:
+                return new ModelloFeaturesTestStaxReader().read( in );
+            case DOM4J:
+                return new ModelloFeaturesTestDom4jReader().read( in );
+            default:
+                throw new UnsupportedOperationException( "No " + format + " reader for the features model" );
+        }
+    }
+
+    public void write( Format format, OutputStream out, Features features )
+        throws Exception
+    {
+        switch ( format )
+        {
+            case XPP3:
+                new ModelloFeaturesTestXpp3Writer().write( out, features );
+                break;
+            case STAX:
+                new ModelloFeaturesTestStaxWriter().write( out, features );
+                break;
+            case JACKSON:
+                new ModelloFeaturesTestJacksonWriter().write( out, features );
+                break;
+            case DOM4J:
+                new ModelloFeaturesTestDom4jWriter().write( out, features );
+                break;
+            case SAX:
+                new ModelloFeaturesTestSaxWriter().write( out, features );
+                break;
+            case JDOM:
+                Writer writer = new OutputStreamWriter( out, "UTF-8" );
+                new ModelloFeaturesTestJDOMWriter().write( features, new Document( new Element( "features-demo" ) ), writer,
+                                               org.jdom.output.Format.getRawFormat() );
+                writer.flush();
+                break;
+            default:
+                throw new UnsupportedOperationException( "No " + format + " writer for the features model" );
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.codehaus.modello.benchmarks;
+
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.codehaus.modello.plugin.java.javasource.JClass;
+import org.codehaus.modello.plugin.java.javasource.JMethod;
+import org.codehaus.modello.plugin.java.javasource.JSourceWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Builds and prints a class with many methods and imports, added in random order like a reader generator adds its
+ * <code>parseX</code> methods and helpers: method and import registration must not grow quadratic with the size of the
+ * class.
+ */
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 1 )
+@State( Scope.Benchmark )
+public class JClassBenchmark
+{
+    @Param( { "500", "5000" } )
+    private int methods;
+
+    private List<String> names;
+
+    @Setup
+    public void setUp()
+    {
+        names = new ArrayList<String>( methods );
+        for ( int i = 0; i < methods; i++ )
+        {
+            names.add( "parseType" + i );
+        }
+        Collections.shuffle( names, new Random( 0 ) );
+    }
+
+    @Benchmark
+    public JClass addMethods()
+    {
+        JClass jClass = new JClass( "org.codehaus.modello.benchmarks.Generated" );
+
+        for ( int i = 0; i < methods; i++ )
+        {
+            String name = names.get( i );
+
+            JMethod jMethod = new JMethod( name );
+            if ( i % 3 != 0 )
+            {
+                jMethod.getModifiers().makePrivate();
+            }
+            jClass.addMethod( jMethod );
+
+            jClass.addImport( "org.codehaus.modello.benchmarks.model" + ( i % 100 ) + ".Type" + i );
+        }
+
+        return jClass;
+    }
+
+    @Benchmark
+    public String addMethodsAndPrint()
+    {
+        StringWriter writer = new StringWriter();
+
+        addMethods().print( new JSourceWriter( writer ) );
+
+        return writer.toString();
+    }
+}
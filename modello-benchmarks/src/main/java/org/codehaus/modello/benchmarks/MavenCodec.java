@@ -0,0 +1,99 @@
+package org.codehaus.modello.benchmarks;
+
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.codehaus.modello.test.model.Model;
+import org.codehaus.modello.test.model.io.dom4j.MavenDom4jReader;
+import org.codehaus.modello.test.model.io.dom4j.MavenDom4jWriter;
+import org.codehaus.modello.test.model.io.jackson.MavenJacksonReader;
+import org.codehaus.modello.test.model.io.jackson.MavenJacksonWriter;
+import org.codehaus.modello.test.model.io.jdom.MavenJDOMWriter;
+import org.codehaus.modello.test.model.io.sax.MavenSaxWriter;
+import org.codehaus.modello.test.model.io.stax.MavenStaxReader;
+import org.codehaus.modello.test.model.io.stax.MavenStaxWriter;
+import org.codehaus.modello.test.model.io.xpp3.MavenXpp3Reader;
+import org.codehaus.modello.test.model.io.xpp3.MavenXpp3Writer;
+import org.jdom.Document;
+import org.jdom.Element;
+
+/**
+ * The codec of the maven model (<code>maven.mdo</code>): SnakeYaml is missing, as it does not support DOM fields.
+ */
+public class MavenCodec
+    implements Codec<Model>
+{
+    public Model read( Format format, InputStream in )
+        throws Exception
+    {
+        switch ( format )
+        {
+            case XPP3:
+                return new MavenXpp3Reader().read( in );
+            case STAX:
+                return new MavenStaxReader().read( in );
+            case JACKSON:
+                return new MavenJacksonReader().read( in );
+            case DOM4J:
+                return new MavenDom4jReader().read( in );
+            default:
+                throw new UnsupportedOperationException( "No " + format + " reader for the maven model" );
+        }
+    }
+
+    public void write( Format format, OutputStream out, Model model )
+        throws Exception
+    {
+        switch ( format )
+        {
+            case XPP3:
+                new MavenXpp3Writer().write( out, model );
+                break;
+            case STAX:
+                new MavenStaxWriter().write( out, model );
+                break;
+            case JACKSON:
+                new MavenJacksonWriter().write( out, model );
+                break;
+            case DOM4J:
+                new MavenDom4jWriter().write( out, model );
+                break;
+            case SAX:
+                new MavenSaxWriter().write( out, model );
+                break;
+            case JDOM:
+                Writer writer = new OutputStreamWriter( out, "UTF-8" );
+                new MavenJDOMWriter().write( model, new Document( new Element( "mavenModel" ) ), writer,
+                                               org.jdom.output.Format.getRawFormat() );
+                writer.flush();
+                break;
+            default:
+                throw new UnsupportedOperationException( "No " + format + " writer for the maven model" );
+        }
+    }
+}
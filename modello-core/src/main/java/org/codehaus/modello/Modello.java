@@ -22,10 +22,13 @@ package org.codehaus.modello;
  * SOFTWARE.
  */
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
 import java.util.Properties;
 
+import org.codehaus.modello.core.ModelCache;
 import org.codehaus.modello.core.ModelloCore;
 import org.codehaus.modello.model.Model;
 import org.codehaus.modello.model.ModelValidationException;
@@ -42,6 +45,8 @@ public class Modello
 
     private ModelloCore core;
 
+    private final ModelCache modelCache = new ModelCache();
+
     public Modello()
         throws ModelloException
     {
@@ -65,6 +70,68 @@ public class Modello
         core.generate( model, outputType, parameters );
     }
 
+    /**
+     * Generates from a model file. The loaded model is kept and reused by the next calls for the same file, as long as
+     * the file is unchanged.
+     *
+     * @since 1.9
+     */
+    public void generate( File modelFile, String outputType, Properties parameters )
+        throws ModelloException, ModelValidationException
+    {
+        Model model;
+        try
+        {
+            model = modelCache.getModel( modelFile, core );
+        }
+        catch ( IOException e )
+        {
+            throw new ModelloException( "Error while reading model " + modelFile + ": " + e.getMessage(), e );
+        }
+
+        core.generate( model, outputType, parameters );
+    }
+
+    /**
+     * Drops the model kept for a file, so that the next generation loads it again.
+     *
+     * @return <code>true</code> if a model was kept for the file
+     * @since 1.9
+     */
+    public boolean invalidate( File modelFile )
+        throws ModelloException
+    {
+        try
+        {
+            return modelCache.invalidate( modelFile );
+        }
+        catch ( IOException e )
+        {
+            throw new ModelloException( "Error while resolving model " + modelFile + ": " + e.getMessage(), e );
+        }
+    }
+
+    /**
+     * @return the number of models kept for reuse
+     * @since 1.9
+     */
+    public int getLoadedModelCount()
+    {
+        return modelCache.size();
+    }
+
+    /**
+     * Stops the container.
+     *
+     * @since 1.9
+     */
+    public void dispose()
+    {
+        modelCache.clear();
+
+        container.dispose();
+    }
+
     public void translate( Reader reader, Writer writer, String outputType, Properties parameters )
         throws ModelloException, ModelValidationException
     {
@@ -26,6 +26,7 @@ import org.codehaus.plexus.util.ReaderFactory;
 import org.codehaus.plexus.util.StringUtils;
 
 import java.io.File;
+import java.util.Arrays;
 import java.util.Properties;
 
 /**
@@ -42,6 +43,13 @@ public class ModelloCli
     public static void main( String[] args )
         throws Exception
     {
+        if ( args.length > 0 && args[0].startsWith( "--" ) )
+        {
+            daemon( args );
+
+            return;
+        }
+
         Modello modello = new Modello();
 
         parseArgumentsFromCommandLine( args );
@@ -123,6 +131,65 @@ public class ModelloCli
         }
     }
 
+    // ----------------------------------------------------------------------
+    // Daemon
+    // ----------------------------------------------------------------------
+
+    private static void daemon( String[] args )
+        throws Exception
+    {
+        if ( args.length < 2 )
+        {
+            usage();
+
+            System.exit( 1 );
+        }
+
+        File portFile = new File( args[1] );
+
+        if ( "--daemon".equals( args[0] ) )
+        {
+            long idleTimeout = ModelloDaemon.DEFAULT_IDLE_TIMEOUT;
+
+            if ( args.length > 2 )
+            {
+                idleTimeout = Long.parseLong( args[2] ) * 60 * 1000;
+            }
+
+            Modello modello = new Modello();
+
+            ModelloDaemon daemon = new ModelloDaemon( modello, portFile, idleTimeout );
+
+            System.out.println( "Modello daemon listening on port " + daemon.start() + "." );
+
+            try
+            {
+                daemon.run();
+            }
+            finally
+            {
+                modello.dispose();
+            }
+        }
+        else if ( "--client".equals( args[0] ) )
+        {
+            parseArgumentsFromCommandLine( (String[]) Arrays.asList( args ).subList( 2, args.length ).toArray(
+                new String[0] ) );
+
+            System.out.println( new ModelloDaemonClient( portFile ).generate( modelFile, outputType, parameters ) );
+        }
+        else if ( "--stop".equals( args[0] ) )
+        {
+            System.out.println( new ModelloDaemonClient( portFile ).stop() );
+        }
+        else
+        {
+            usage();
+
+            System.exit( 1 );
+        }
+    }
+
     // ----------------------------------------------------------------------
     //
     // ----------------------------------------------------------------------
@@ -131,5 +198,9 @@ public class ModelloCli
     {
         System.err.println( "Usage: modello <model> <outputType> <output directory> <modelVersion> <packageWithVersion>"
                             + "<useJava5> [<encoding>]" );
+        System.err.println( "       modello --daemon <portFile> [<idleTimeoutMinutes>]" );
+        System.err.println( "       modello --client <portFile> <model> <outputType> <output directory> <modelVersion>"
+                            + " <packageWithVersion> <useJava5> [<encoding>]" );
+        System.err.println( "       modello --stop <portFile>" );
     }
 }
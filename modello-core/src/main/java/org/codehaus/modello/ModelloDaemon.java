@@ -0,0 +1,357 @@
+package org.codehaus.modello;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.model.ModelValidationException;
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+import java.util.Properties;
+
+/**
+ * A long-lived Modello process, keeping the Plexus container, the generators and the loaded models warm between the
+ * generations requested by {@link ModelloDaemonClient}s.
+ * <p>
+ * The daemon listens on a loopback socket. Its port and a random token, that clients must send with every request, are
+ * written to a port file: it should be put in a directory readable by its owner only, since the token is what keeps
+ * other local users from running generations. Requests are handled one at a time:
+ * <ul>
+ * <li>a model is reloaded as soon as its file changes, and can be dropped explicitly,</li>
+ * <li>the daemon stops when asked to, or when no request was received during the idle timeout.</li>
+ * </ul>
+ *
+ * @since 1.9
+ */
+public class ModelloDaemon
+{
+    public static final String COMMAND = "modello.daemon.command";
+
+    public static final String TOKEN = "modello.daemon.token";
+
+    public static final String MODEL = "modello.daemon.model";
+
+    public static final String OUTPUT_TYPE = "modello.daemon.outputType";
+
+    public static final String GENERATE = "generate";
+
+    public static final String INVALIDATE = "invalidate";
+
+    public static final String STATUS = "status";
+
+    public static final String STOP = "stop";
+
+    /** The port file entries. */
+    static final String PORT_ENTRY = "port";
+
+    static final String TOKEN_ENTRY = "token";
+
+    /** The response status of a successful request, followed by the message on the next lines. */
+    static final String OK = "OK";
+
+    static final String ERROR = "ERROR";
+
+    public static final long DEFAULT_IDLE_TIMEOUT = 3 * 60 * 60 * 1000L;
+
+    private static final int READ_TIMEOUT = 60 * 1000;
+
+    private final Modello modello;
+
+    private final File portFile;
+
+    private final long idleTimeout;
+
+    private ServerSocket serverSocket;
+
+    private String token;
+
+    private volatile boolean stopped;
+
+    private long lastRequest;
+
+    /**
+     * @param modello the Modello instance running the generations
+     * @param portFile the file to write the port and token to, for the clients
+     * @param idleTimeout the time in milliseconds without request after which the daemon stops, <code>0</code> to
+     *            never stop
+     */
+    public ModelloDaemon( Modello modello, File portFile, long idleTimeout )
+    {
+        this.modello = modello;
+        this.portFile = portFile;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Starts listening and writes the port file.
+     *
+     * @return the port
+     */
+    public int start()
+        throws IOException
+    {
+        serverSocket = new ServerSocket( 0, 50, InetAddress.getByName( null ) );
+
+        token = newToken();
+
+        writePortFile( serverSocket.getLocalPort() );
+
+        lastRequest = System.currentTimeMillis();
+
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Handles requests until the daemon is stopped or idle for too long, then deletes the port file.
+     */
+    public void run()
+        throws IOException
+    {
+        try
+        {
+            while ( !stopped )
+            {
+                int timeout = 0;
+                if ( idleTimeout > 0 )
+                {
+                    long remaining = idleTimeout - ( System.currentTimeMillis() - lastRequest );
+                    if ( remaining <= 0 )
+                    {
+                        break;
+                    }
+                    timeout = (int) Math.min( remaining, Integer.MAX_VALUE );
+                }
+                serverSocket.setSoTimeout( timeout );
+
+                Socket socket;
+                try
+                {
+                    socket = serverSocket.accept();
+                }
+                catch ( SocketTimeoutException e )
+                {
+                    continue;
+                }
+                catch ( SocketException e )
+                {
+                    if ( stopped )
+                    {
+                        break;
+                    }
+                    throw e;
+                }
+
+                try
+                {
+                    handle( socket );
+                }
+                catch ( IOException e )
+                {
+                    System.err.println( "Error while handling Modello daemon request: " + e.getMessage() );
+                }
+                finally
+                {
+                    socket.close();
+                    lastRequest = System.currentTimeMillis();
+                }
+            }
+        }
+        finally
+        {
+            close();
+        }
+    }
+
+    /**
+     * Stops the daemon: the current request, if any, is completed.
+     */
+    public void stop()
+    {
+        stopped = true;
+
+        close();
+    }
+
+    private synchronized void close()
+    {
+        if ( serverSocket != null )
+        {
+            try
+            {
+                serverSocket.close();
+            }
+            catch ( IOException e )
+            {
+                // ignore
+            }
+        }
+
+        portFile.delete();
+    }
+
+    private void handle( Socket socket )
+        throws IOException
+    {
+        socket.setSoTimeout( READ_TIMEOUT );
+
+        Properties request = new Properties();
+        request.load( socket.getInputStream() );
+
+        String status = OK;
+        String message;
+        try
+        {
+            message = execute( request );
+        }
+        catch ( Exception e )
+        {
+            status = ERROR;
+            message = ( e.getMessage() != null ) ? e.getMessage() : e.toString();
+        }
+
+        Writer writer = new OutputStreamWriter( socket.getOutputStream(), "UTF-8" );
+        writer.write( status );
+        writer.write( '\n' );
+        writer.write( message );
+        writer.flush();
+    }
+
+    private String execute( Properties request )
+        throws ModelloException, ModelValidationException
+    {
+        if ( !token.equals( request.getProperty( TOKEN ) ) )
+        {
+            throw new ModelloException( "Invalid Modello daemon token." );
+        }
+
+        String command = request.getProperty( COMMAND );
+
+        if ( GENERATE.equals( command ) )
+        {
+            File model = new File( getRequired( request, MODEL ) );
+            String outputType = getRequired( request, OUTPUT_TYPE );
+
+            Properties parameters = new Properties();
+            for ( Object key : request.keySet() )
+            {
+                String name = (String) key;
+                if ( !name.startsWith( "modello.daemon." ) )
+                {
+                    parameters.setProperty( name, request.getProperty( name ) );
+                }
+            }
+
+            modello.generate( model, outputType, parameters );
+
+            return "Generated " + outputType + " from " + model + ".";
+        }
+        else if ( INVALIDATE.equals( command ) )
+        {
+            File model = new File( getRequired( request, MODEL ) );
+
+            return modello.invalidate( model ) ? "Dropped model " + model + "." : "Model " + model + " not loaded.";
+        }
+        else if ( STATUS.equals( command ) )
+        {
+            return "Modello daemon running, " + modello.getLoadedModelCount() + " model(s) loaded.";
+        }
+        else if ( STOP.equals( command ) )
+        {
+            stopped = true;
+
+            return "Modello daemon stopping.";
+        }
+
+        throw new ModelloException( "Unknown Modello daemon command: " + command );
+    }
+
+    private static String getRequired( Properties request, String name )
+        throws ModelloException
+    {
+        String value = request.getProperty( name );
+
+        if ( value == null )
+        {
+            throw new ModelloException( "Missing Modello daemon request parameter: " + name );
+        }
+
+        return value;
+    }
+
+    private void writePortFile( int port )
+        throws IOException
+    {
+        File parent = portFile.getAbsoluteFile().getParentFile();
+        if ( parent != null )
+        {
+            parent.mkdirs();
+        }
+
+        // the token grants access to the daemon: only the owner may read it, before it is written
+        portFile.delete();
+        if ( !portFile.createNewFile() )
+        {
+            throw new IOException( "Unable to create the Modello daemon port file " + portFile );
+        }
+        portFile.setReadable( false, false );
+        portFile.setReadable( true, true );
+        portFile.setWritable( false, false );
+        portFile.setWritable( true, true );
+
+        OutputStream out = new FileOutputStream( portFile );
+        try
+        {
+            Properties entries = new Properties();
+            entries.setProperty( PORT_ENTRY, Integer.toString( port ) );
+            entries.setProperty( TOKEN_ENTRY, token );
+            entries.store( out, "Modello daemon" );
+        }
+        finally
+        {
+            IOUtil.close( out );
+        }
+    }
+
+    private static String newToken()
+    {
+        byte[] bytes = new byte[16];
+        new SecureRandom().nextBytes( bytes );
+
+        StringBuilder buffer = new StringBuilder();
+        for ( byte b : bytes )
+        {
+            buffer.append( Character.forDigit( ( b >> 4 ) & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+        }
+        return buffer.toString();
+    }
+}
@@ -0,0 +1,167 @@
+package org.codehaus.modello;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.plexus.util.IOUtil;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Properties;
+
+/**
+ * A thin client of a {@link ModelloDaemon}, found through its port file: no container is started on the client side.
+ *
+ * @since 1.9
+ */
+public class ModelloDaemonClient
+{
+    private final int port;
+
+    private final String token;
+
+    public ModelloDaemonClient( File portFile )
+        throws IOException
+    {
+        Properties entries = new Properties();
+
+        InputStream in = new FileInputStream( portFile );
+        try
+        {
+            entries.load( in );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+
+        String port = entries.getProperty( ModelloDaemon.PORT_ENTRY );
+        token = entries.getProperty( ModelloDaemon.TOKEN_ENTRY );
+
+        if ( port == null || token == null )
+        {
+            throw new IOException( "Invalid Modello daemon port file: " + portFile );
+        }
+
+        try
+        {
+            this.port = Integer.parseInt( port );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new IOException( "Invalid Modello daemon port in " + portFile + ": " + port );
+        }
+    }
+
+    /**
+     * Generates from a model file in the daemon. Since the daemon may not share the working directory of the client,
+     * the model file and the output directory are made absolute first.
+     *
+     * @return the daemon message
+     */
+    public String generate( File modelFile, String outputType, Properties parameters )
+        throws IOException, ModelloException
+    {
+        Properties request = new Properties();
+        request.putAll( parameters );
+
+        String outputDirectory = parameters.getProperty( ModelloParameterConstants.OUTPUT_DIRECTORY );
+        if ( outputDirectory != null )
+        {
+            request.setProperty( ModelloParameterConstants.OUTPUT_DIRECTORY,
+                                 new File( outputDirectory ).getAbsolutePath() );
+        }
+
+        request.setProperty( ModelloDaemon.MODEL, modelFile.getAbsolutePath() );
+        request.setProperty( ModelloDaemon.OUTPUT_TYPE, outputType );
+
+        return send( ModelloDaemon.GENERATE, request );
+    }
+
+    /**
+     * Drops a model from the daemon, to have it reloaded on next generation.
+     *
+     * @return the daemon message
+     */
+    public String invalidate( File modelFile )
+        throws IOException, ModelloException
+    {
+        Properties request = new Properties();
+        request.setProperty( ModelloDaemon.MODEL, modelFile.getAbsolutePath() );
+
+        return send( ModelloDaemon.INVALIDATE, request );
+    }
+
+    public String status()
+        throws IOException, ModelloException
+    {
+        return send( ModelloDaemon.STATUS, new Properties() );
+    }
+
+    public String stop()
+        throws IOException, ModelloException
+    {
+        return send( ModelloDaemon.STOP, new Properties() );
+    }
+
+    private String send( String command, Properties request )
+        throws IOException, ModelloException
+    {
+        request.setProperty( ModelloDaemon.COMMAND, command );
+        request.setProperty( ModelloDaemon.TOKEN, token );
+
+        String response;
+
+        Socket socket = new Socket( InetAddress.getByName( null ), port );
+        try
+        {
+            request.store( socket.getOutputStream(), null );
+            socket.shutdownOutput();
+
+            response = IOUtil.toString( new InputStreamReader( socket.getInputStream(), "UTF-8" ) );
+        }
+        finally
+        {
+            socket.close();
+        }
+
+        int eol = response.indexOf( '\n' );
+        if ( eol < 0 )
+        {
+            throw new IOException( "Invalid Modello daemon response: " + response );
+        }
+
+        String message = response.substring( eol + 1 );
+
+        if ( !ModelloDaemon.OK.equals( response.substring( 0, eol ) ) )
+        {
+            throw new ModelloException( message );
+        }
+
+        return message;
+    }
+}
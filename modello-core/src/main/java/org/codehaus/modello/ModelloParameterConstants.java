@@ -65,6 +65,16 @@ public class ModelloParameterConstants
      */
     public static final String DOM_AS_XPP3 = "modello.dom.xpp3";
 
+    /**
+     * @since 1.9
+     */
+    public static final String XPP3_INDEXED_DISPATCH = "modello.xpp3.indexed.dispatch";
+
+    /**
+     * @since 1.9
+     */
+    public static final String XPP3_PARALLEL = "modello.xpp3.parallel";
+
     private ModelloParameterConstants()
     {
     }
@@ -39,6 +39,7 @@ import org.codehaus.modello.model.ModelDefault;
 import org.codehaus.modello.model.ModelField;
 import org.codehaus.modello.model.ModelInterface;
 import org.codehaus.modello.model.ModelValidationException;
+import org.codehaus.modello.plugin.AbstractModelloGenerator;
 import org.codehaus.modello.plugin.ModelloGenerator;
 import org.codehaus.plexus.util.IOUtil;
 import org.codehaus.plexus.util.ReaderFactory;
@@ -47,10 +48,19 @@ import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l</a>
@@ -59,6 +69,24 @@ import java.util.Properties;
 public class DefaultModelloCore
     extends AbstractModelloCore
 {
+    /**
+     * Minimum number of classes and interfaces per thread when applying the metadata plugins: below that, starting
+     * the threads costs more than it saves.
+     */
+    private static final int MIN_TASKS_PER_THREAD = 8;
+
+    private static final ThreadFactory METADATA_THREAD_FACTORY = new ThreadFactory()
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread( Runnable r )
+        {
+            Thread thread = new Thread( r, "modello-metadata-" + count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    };
+
     /**
      * @requirement
      */
@@ -188,14 +216,15 @@ public class DefaultModelloCore
     }
 
     /**
-     * Handle Plugins Metadata.
+     * Handle Plugins Metadata. Model metadata is applied first; classes and interfaces then only write to their
+     * own elements, so they are handled as independent tasks which may run in parallel.
      *
      * @throws ModelloException
      */
-    private void handlePluginsMetadata( ModelReader modelReader, Model model )
+    private void handlePluginsMetadata( final ModelReader modelReader, Model model )
         throws ModelloException
     {
-        Collection<MetadataPlugin> plugins = metadataPluginManager.getPlugins().values();
+        final Collection<MetadataPlugin> plugins = metadataPluginManager.getPlugins().values();
 
         for ( MetadataPlugin plugin : plugins )
         {
@@ -213,98 +242,212 @@ public class DefaultModelloCore
             model.addMetadata( metadata );
         }
 
-        for ( ModelClass clazz : model.getAllClasses() )
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+
+        for ( final ModelClass clazz : model.getAllClasses() )
         {
-            Map<String, String> attributes = modelReader.getAttributesForClass( clazz );
+            tasks.add( new Callable<Void>()
+            {
+                public Void call()
+                    throws ModelloException
+                {
+                    handlePluginsMetadata( modelReader, clazz, plugins );
 
-            attributes = Collections.unmodifiableMap( attributes );
+                    return null;
+                }
+            } );
+        }
 
-            for ( MetadataPlugin plugin : plugins )
+        for ( final ModelInterface iface : model.getAllInterfaces() )
+        {
+            tasks.add( new Callable<Void>()
             {
-                ClassMetadata metadata = plugin.getClassMetadata( clazz, attributes );
-
-                if ( metadata == null )
+                public Void call()
+                    throws ModelloException
                 {
-                    throw new ModelloException( "A meta data plugin must not return null." );
+                    handlePluginsMetadata( modelReader, iface, plugins );
+
+                    return null;
                 }
+            } );
+        }
 
-                clazz.addMetadata( metadata );
-            }
+        invokeAll( tasks );
+    }
 
-            for ( ModelField field : clazz.getAllFields() )
-            {
-                if ( field instanceof ModelAssociation )
-                {
-                    ModelAssociation modelAssociation = (ModelAssociation) field;
+    private void handlePluginsMetadata( ModelReader modelReader, ModelClass clazz, Collection<MetadataPlugin> plugins )
+        throws ModelloException
+    {
 
-                    Map<String, String> fieldAttributes = modelReader.getAttributesForField( modelAssociation );
+        Map<String, String> attributes = modelReader.getAttributesForClass( clazz );
 
-                    fieldAttributes = Collections.unmodifiableMap( fieldAttributes );
+        attributes = Collections.unmodifiableMap( attributes );
 
-                    Map<String, String> associationAttributes = modelReader.getAttributesForAssociation( modelAssociation );
+        for ( MetadataPlugin plugin : plugins )
+        {
+            ClassMetadata metadata = plugin.getClassMetadata( clazz, attributes );
 
-                    associationAttributes = Collections.unmodifiableMap( associationAttributes );
+            if ( metadata == null )
+            {
+                throw new ModelloException( "A meta data plugin must not return null." );
+            }
 
-                    for ( MetadataPlugin plugin : plugins )
-                    {
-                        FieldMetadata fieldMetadata = plugin.getFieldMetadata( modelAssociation, fieldAttributes );
+            clazz.addMetadata( metadata );
+        }
 
-                        if ( fieldMetadata == null )
-                        {
-                            throw new ModelloException( "A meta data plugin must not return null." );
-                        }
+        for ( ModelField field : clazz.getAllFields() )
+        {
+            if ( field instanceof ModelAssociation )
+            {
+                ModelAssociation modelAssociation = (ModelAssociation) field;
 
-                        modelAssociation.addMetadata( fieldMetadata );
+                Map<String, String> fieldAttributes = modelReader.getAttributesForField( modelAssociation );
 
-                        AssociationMetadata associationMetadata = plugin.getAssociationMetadata( modelAssociation, associationAttributes );
+                fieldAttributes = Collections.unmodifiableMap( fieldAttributes );
 
-                        if ( associationMetadata == null )
-                        {
-                            throw new ModelloException( "A meta data plugin must not return null." );
-                        }
+                Map<String, String> associationAttributes = modelReader.getAttributesForAssociation( modelAssociation );
 
-                        modelAssociation.addMetadata( associationMetadata );
-                    }
-                }
-                else
+                associationAttributes = Collections.unmodifiableMap( associationAttributes );
+
+                for ( MetadataPlugin plugin : plugins )
                 {
-                    attributes = modelReader.getAttributesForField( field );
+                    FieldMetadata fieldMetadata = plugin.getFieldMetadata( modelAssociation, fieldAttributes );
+
+                    if ( fieldMetadata == null )
+                    {
+                        throw new ModelloException( "A meta data plugin must not return null." );
+                    }
 
-                    attributes = Collections.unmodifiableMap( attributes );
+                    modelAssociation.addMetadata( fieldMetadata );
 
-                    for ( MetadataPlugin plugin : plugins )
+                    AssociationMetadata associationMetadata = plugin.getAssociationMetadata( modelAssociation, associationAttributes );
+
+                    if ( associationMetadata == null )
                     {
-                        FieldMetadata metadata = plugin.getFieldMetadata( field, attributes );
+                        throw new ModelloException( "A meta data plugin must not return null." );
+                    }
 
-                        if ( metadata == null )
-                        {
-                            throw new ModelloException( "A meta data plugin must not return null." );
-                        }
+                    modelAssociation.addMetadata( associationMetadata );
+                }
+            }
+            else
+            {
+                attributes = modelReader.getAttributesForField( field );
+
+                attributes = Collections.unmodifiableMap( attributes );
+
+                for ( MetadataPlugin plugin : plugins )
+                {
+                    FieldMetadata metadata = plugin.getFieldMetadata( field, attributes );
 
-                        field.addMetadata( metadata );
+                    if ( metadata == null )
+                    {
+                        throw new ModelloException( "A meta data plugin must not return null." );
                     }
+
+                    field.addMetadata( metadata );
                 }
             }
         }
+    }
 
-        for ( ModelInterface iface : model.getAllInterfaces() )
-        {
-            Map<String, String> attributes = modelReader.getAttributesForInterface( iface );
+    private void handlePluginsMetadata( ModelReader modelReader, ModelInterface iface,
+                                        Collection<MetadataPlugin> plugins )
+        throws ModelloException
+    {
 
-            attributes = Collections.unmodifiableMap( attributes );
+        Map<String, String> attributes = modelReader.getAttributesForInterface( iface );
+
+        attributes = Collections.unmodifiableMap( attributes );
+
+        for ( MetadataPlugin plugin : plugins )
+        {
+            InterfaceMetadata metadata = plugin.getInterfaceMetadata( iface, attributes );
 
-            for ( MetadataPlugin plugin : plugins )
+            if ( metadata == null )
             {
-                InterfaceMetadata metadata = plugin.getInterfaceMetadata( iface, attributes );
+                throw new ModelloException( "A meta data plugin must not return null." );
+            }
+
+            iface.addMetadata( metadata );
+        }
+    }
+
+    /**
+     * Run the metadata tasks, on a short-lived thread pool when there are enough of them to be worth it. Failures
+     * are reported in task order, so the exception thrown is the one a serial run would have stopped at.
+     *
+     * @throws ModelloException
+     */
+    private static void invokeAll( List<Callable<Void>> tasks )
+        throws ModelloException
+    {
+        invokeAll( tasks, Math.min( Runtime.getRuntime().availableProcessors(), tasks.size() / MIN_TASKS_PER_THREAD ) );
+    }
 
-                if ( metadata == null )
+    static void invokeAll( List<Callable<Void>> tasks, int threads )
+        throws ModelloException
+    {
+        if ( threads <= 1 )
+        {
+            for ( Callable<Void> task : tasks )
+            {
+                try
+                {
+                    task.call();
+                }
+                catch ( Exception e )
                 {
-                    throw new ModelloException( "A meta data plugin must not return null." );
+                    throw rethrow( e );
                 }
+            }
+
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool( threads, METADATA_THREAD_FACTORY );
 
-                iface.addMetadata( metadata );
+        try
+        {
+            for ( Future<Void> future : executor.invokeAll( tasks ) )
+            {
+                try
+                {
+                    future.get();
+                }
+                catch ( ExecutionException e )
+                {
+                    throw rethrow( e.getCause() );
+                }
             }
         }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+
+            throw new ModelloException( "Interrupted while applying the metadata plugins.", e );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    private static ModelloException rethrow( Throwable t )
+    {
+        if ( t instanceof ModelloException )
+        {
+            return (ModelloException) t;
+        }
+        if ( t instanceof RuntimeException )
+        {
+            throw (RuntimeException) t;
+        }
+        if ( t instanceof Error )
+        {
+            throw (Error) t;
+        }
+        return new ModelloException( "Error while applying the metadata plugins.", t );
     }
 
     /**
@@ -373,6 +516,33 @@ public class DefaultModelloCore
 
         ModelloGenerator generator = generatorPluginManager.getGeneratorPlugin( outputType );
 
-        generator.generate( model, parameters );
+        if ( !( generator instanceof AbstractModelloGenerator ) )
+        {
+            generator.generate( model, parameters );
+        }
+        else
+        {
+            AbstractModelloGenerator abstractGenerator = (AbstractModelloGenerator) generator;
+            try
+            {
+                if ( abstractGenerator.isUpToDate( model, parameters ) )
+                {
+                    getLogger().debug( "Skipping generation, the model and the generated files are unchanged." );
+                }
+                else
+                {
+                    generator.generate( model, parameters );
+                }
+
+                for ( File stale : abstractGenerator.removeStaleFiles() )
+                {
+                    getLogger().info( "Removed stale generated file: " + stale );
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new ModelloException( "Unable to check the generated files: " + e.getMessage(), e );
+            }
+        }
     }
 }
@@ -0,0 +1,180 @@
+package org.codehaus.modello.core;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.ModelloException;
+import org.codehaus.modello.model.Model;
+import org.codehaus.modello.model.ModelValidationException;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.ReaderFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache of loaded models, to parse, upgrade, decorate with metadata and validate each model file only once when it is
+ * used by several generators. Entries are keyed by canonical path and are only reused while the file size,
+ * modification time and content hash are unchanged. Cached models are {@link Model#makeReadOnly() read-only}, since
+ * the same instance is handed out to every caller, possibly from several threads.
+ *
+ * @since 1.9
+ */
+public class ModelCache
+{
+    private final Map<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    private Object session;
+
+    /**
+     * Starts using the cache for a build session: entries loaded by a previous session are dropped.
+     *
+     * @param session an object identifying the session, compared with {@link Object#equals(Object)}
+     */
+    public synchronized void startSession( Object session )
+    {
+        if ( session == null ? this.session != null : !session.equals( this.session ) )
+        {
+            entries.clear();
+        }
+        this.session = session;
+    }
+
+    /**
+     * Returns the read-only model for a file, loading it with the given core if it has not been loaded yet or has
+     * changed since.
+     */
+    public Model getModel( File file, ModelloCore modelloCore )
+        throws IOException, ModelloException, ModelValidationException
+    {
+        String path = file.getCanonicalPath();
+        long length = file.length();
+        long lastModified = file.lastModified();
+
+        byte[] content = readFully( file );
+        byte[] hash = hash( content );
+
+        Entry entry = entries.get( path );
+        if ( entry != null && entry.matches( length, lastModified, hash ) )
+        {
+            return entry.model;
+        }
+
+        Reader reader = null;
+        Model model;
+        try
+        {
+            reader = ReaderFactory.newXmlReader( new ByteArrayInputStream( content ) );
+            model = modelloCore.loadModel( reader );
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+
+        model.makeReadOnly();
+
+        entries.put( path, new Entry( length, lastModified, hash, model ) );
+
+        return model;
+    }
+
+    /**
+     * Drops the model loaded from a file, if any.
+     *
+     * @return <code>true</code> if a model was dropped
+     */
+    public boolean invalidate( File file )
+        throws IOException
+    {
+        return entries.remove( file.getCanonicalPath() ) != null;
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    public void clear()
+    {
+        entries.clear();
+    }
+
+    private static byte[] readFully( File file )
+        throws IOException
+    {
+        InputStream in = new FileInputStream( file );
+        try
+        {
+            return IOUtil.toByteArray( in );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private static byte[] hash( byte[] content )
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" ).digest( content );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 not supported: " + e.getMessage() );
+        }
+    }
+
+    private static class Entry
+    {
+        private final long length;
+
+        private final long lastModified;
+
+        private final byte[] hash;
+
+        private final Model model;
+
+        Entry( long length, long lastModified, byte[] hash, Model model )
+        {
+            this.length = length;
+            this.lastModified = lastModified;
+            this.hash = hash;
+            this.model = model;
+        }
+
+        boolean matches( long length, long lastModified, byte[] hash )
+        {
+            return this.length == length && this.lastModified == lastModified && Arrays.equals( this.hash, hash );
+        }
+    }
+}
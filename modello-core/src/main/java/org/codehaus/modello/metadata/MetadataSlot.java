@@ -0,0 +1,117 @@
+package org.codehaus.modello.metadata;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A metadata type with the index of its slot in the metadata of the model elements: getting the metadata of an element
+ * through its slot is an array access, and typed. The slots are shared by all models, and a type keeps its slot once
+ * assigned.
+ *
+ * @param <T> the metadata type
+ * @since 1.9
+ */
+public final class MetadataSlot<T extends Metadata>
+{
+    private static final Object LOCK = new Object();
+
+    /** The slots by key: copied on write, to be read without locking. */
+    private static volatile Map<String, MetadataSlot<?>> slots = Collections.emptyMap();
+
+    private final Class<T> type;
+
+    private final int index;
+
+    private MetadataSlot( Class<T> type, int index )
+    {
+        this.type = type;
+        this.index = index;
+    }
+
+    /**
+     * Gets the slot of a metadata type, assigning it on first call.
+     */
+    @SuppressWarnings( "unchecked" )
+    public static <T extends Metadata> MetadataSlot<T> of( Class<T> type )
+    {
+        MetadataSlot<?> slot = slots.get( type.getName() );
+
+        if ( slot == null )
+        {
+            synchronized ( LOCK )
+            {
+                slot = slots.get( type.getName() );
+
+                if ( slot == null )
+                {
+                    slot = new MetadataSlot<T>( type, slots.size() );
+
+                    Map<String, MetadataSlot<?>> copy = new HashMap<String, MetadataSlot<?>>( slots );
+                    copy.put( type.getName(), slot );
+                    slots = copy;
+                }
+            }
+        }
+
+        if ( slot.type != type )
+        {
+            // same type loaded by another class loader
+            return new MetadataSlot<T>( type, slot.index );
+        }
+
+        return (MetadataSlot<T>) slot;
+    }
+
+    /**
+     * Gets the slot of a metadata key, which is the name of the metadata type.
+     *
+     * @return the slot, or <code>null</code> if no metadata of this type has been used yet
+     */
+    public static MetadataSlot<?> forKey( String key )
+    {
+        return slots.get( key );
+    }
+
+    public Class<T> getType()
+    {
+        return type;
+    }
+
+    public String getKey()
+    {
+        return type.getName();
+    }
+
+    public int getIndex()
+    {
+        return index;
+    }
+
+    public String toString()
+    {
+        return getKey() + '#' + index;
+    }
+}
@@ -24,10 +24,11 @@ package org.codehaus.modello.model;
 
 import org.codehaus.modello.ModelloRuntimeException;
 import org.codehaus.modello.metadata.Metadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -51,10 +52,15 @@ public abstract class BaseElement
 
     private Version deprecatedVersion;
 
-    private transient Map<String, Metadata> metadata = new HashMap<String, Metadata>();
+    private static final Metadata[] NO_METADATA = new Metadata[0];
+
+    /** The metadata by {@link MetadataSlot#getIndex() slot}. */
+    private transient Metadata[] metadata = NO_METADATA;
 
     private boolean nameRequired;
 
+    private transient boolean readOnly;
+
     public abstract void validateElement()
         throws ModelValidationException;
 
@@ -79,6 +85,8 @@ public abstract class BaseElement
 
     public void setName( String name )
     {
+        checkWritable();
+
         this.name = name;
     }
 
@@ -89,6 +97,8 @@ public abstract class BaseElement
 
     public void setDescription( String description )
     {
+        checkWritable();
+
         this.description = description;
     }
 
@@ -99,11 +109,15 @@ public abstract class BaseElement
 
     public void setVersionRange( VersionRange versionRange )
     {
+        checkWritable();
+
         this.versionRange = versionRange;
     }
 
     public void setDeprecatedVersion( Version deprecatedVersion )
     {
+        checkWritable();
+
         this.deprecatedVersion = deprecatedVersion;
     }
 
@@ -119,23 +133,81 @@ public abstract class BaseElement
 
     public void setComment( String comment )
     {
+        checkWritable();
+
         this.comment = comment;
     }
 
     public boolean hasMetadata( String key )
     {
-        return metadata.containsKey( key );
+        MetadataSlot<?> slot = MetadataSlot.forKey( key );
+
+        return slot != null && metadataAt( slot.getIndex() ) != null;
+    }
+
+    /**
+     * Adds metadata to this element. Several threads may add metadata concurrently, as the metadata plugins do while
+     * the model is loaded; readers see it once loading has completed.
+     */
+    public synchronized void addMetadata( Metadata metadata )
+    {
+        checkWritable();
+
+        int index = MetadataSlot.of( metadata.getClass() ).getIndex();
+
+        if ( index >= this.metadata.length )
+        {
+            Metadata[] grown = new Metadata[index + 1];
+            System.arraycopy( this.metadata, 0, grown, 0, this.metadata.length );
+            this.metadata = grown;
+        }
+
+        this.metadata[index] = metadata;
     }
 
-    public void addMetadata( Metadata metadata )
+    /**
+     * @return all the metadata of this element
+     * @since 1.9
+     */
+    public Collection<Metadata> getAllMetadata()
     {
-        this.metadata.put( metadata.getClass().getName(), metadata );
+        List<Metadata> all = new ArrayList<Metadata>( metadata.length );
+
+        for ( Metadata m : metadata )
+        {
+            if ( m != null )
+            {
+                all.add( m );
+            }
+        }
+
+        return Collections.unmodifiableCollection( all );
+    }
+
+    /**
+     * Gets the metadata of a type from its slot, without lookup.
+     *
+     * @since 1.9
+     */
+    public <T extends Metadata> T getMetadata( MetadataSlot<T> slot )
+    {
+        return checkMetadata( slot.getType(), slot.getKey(), metadataAt( slot.getIndex() ) );
     }
 
     protected <T extends Metadata> T getMetadata( Class<T> type, String key )
     {
-        Metadata metadata = this.metadata.get( key );
+        MetadataSlot<?> slot = MetadataSlot.forKey( key );
+
+        return checkMetadata( type, key, ( slot == null ) ? null : metadataAt( slot.getIndex() ) );
+    }
 
+    private Metadata metadataAt( int index )
+    {
+        return ( index < metadata.length ) ? metadata[index] : null;
+    }
+
+    private <T extends Metadata> T checkMetadata( Class<T> type, String key, Metadata metadata )
+    {
         if ( metadata == null )
         {
             throw new ModelloRuntimeException( "No such metadata: '" + key + "' for element: '" + getName() + "'." );
@@ -150,6 +222,41 @@ public abstract class BaseElement
         return type.cast( metadata );
     }
 
+    // ----------------------------------------------------------------------
+    // Read-only
+    // ----------------------------------------------------------------------
+
+    /**
+     * @return <code>true</code> if this element can't be changed any more
+     * @since 1.9
+     */
+    public boolean isReadOnly()
+    {
+        return readOnly;
+    }
+
+    /**
+     * Makes this element and all its child elements read-only: setters and <code>add</code> methods throw a
+     * {@link ModelloRuntimeException} and returned collections are unmodifiable. This is used to share a loaded model
+     * between generators, that only read it. Metadata instances are not covered.
+     *
+     * @since 1.9
+     */
+    public void makeReadOnly()
+    {
+        readOnly = true;
+
+        annotations = Collections.unmodifiableList( annotations );
+    }
+
+    protected void checkWritable()
+    {
+        if ( readOnly )
+        {
+            throw new ModelloRuntimeException( "Element '" + getName() + "' is read-only." );
+        }
+    }
+
     // ----------------------------------------------------------------------
     // Validation utils
     // ----------------------------------------------------------------------
@@ -229,6 +336,8 @@ public abstract class BaseElement
      */
     public void setAnnotations( List<String> annotations )
     {
+        checkWritable();
+
         this.annotations = annotations;
     }
 }
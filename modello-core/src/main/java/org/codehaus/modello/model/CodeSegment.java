@@ -42,6 +42,8 @@ public class CodeSegment
 
     public void setCode( String code )
     {
+        checkWritable();
+
         this.code = code;
     }
 
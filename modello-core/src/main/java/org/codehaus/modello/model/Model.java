@@ -28,6 +28,7 @@ import org.codehaus.modello.plugin.model.ModelClassMetadata;
 import org.codehaus.plexus.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +54,8 @@ public class Model
 
     private transient Map<String, List<ModelInterface>> interfaceMap = new HashMap<String, List<ModelInterface>>();
 
+    private transient Map<Version, ModelView> views = new HashMap<Version, ModelView>();
+
     private VersionDefinition versionDefinition;
 
     public Model()
@@ -67,6 +70,8 @@ public class Model
 
     public void setId( String id )
     {
+        checkWritable();
+
         this.id = id;
     }
 
@@ -77,6 +82,8 @@ public class Model
 
     public void setVersionDefinition( VersionDefinition versionDefinition )
     {
+        checkWritable();
+
         this.versionDefinition = versionDefinition;
     }
 
@@ -97,7 +104,7 @@ public class Model
 
             try
             {
-                metadata = (ModelClassMetadata) currentClass.getMetadata( ModelClassMetadata.ID );
+                metadata = currentClass.getMetadata( ModelClassMetadata.SLOT );
             }
             catch ( Exception e )
             {
@@ -134,6 +141,34 @@ public class Model
         return getDefaultPackageName( withVersion, version );
     }
 
+    /**
+     * Returns the classes, interfaces and fields of this model in a version, indexed for lookups. The view of a
+     * read-only model is built once per version; the view of a writable model is a snapshot of its current content.
+     *
+     * @since 1.9
+     */
+    public ModelView view( Version version )
+    {
+        if ( !isReadOnly() )
+        {
+            return new ModelView( this, version );
+        }
+
+        synchronized ( views )
+        {
+            ModelView view = views.get( version );
+
+            if ( view == null )
+            {
+                view = new ModelView( this, version );
+
+                views.put( version, view );
+            }
+
+            return view;
+        }
+    }
+
     public List<ModelClass> getAllClasses()
     {
         return classes;
@@ -221,6 +256,8 @@ public class Model
 
     public void addClass( ModelClass modelClass )
     {
+        checkWritable();
+
         if ( classMap.containsKey( modelClass.getName() ) )
         {
             List<ModelClass> classList = classMap.get( modelClass.getName() );
@@ -275,6 +312,8 @@ public class Model
 
     public void addDefault( ModelDefault modelDefault )
     {
+        checkWritable();
+
         if ( defaultMap.containsKey( modelDefault.getKey() ) )
         {
             throw new ModelloRuntimeException( "Duplicate default: " + modelDefault.getKey() + "." );
@@ -360,6 +399,8 @@ public class Model
 
     public void addInterface( ModelInterface modelInterface )
     {
+        checkWritable();
+
         if ( interfaceMap.containsKey( modelInterface.getName() ) )
         {
             List<ModelInterface> interfaceList = interfaceMap.get( modelInterface.getName() );
@@ -426,6 +467,35 @@ public class Model
     {
     }
 
+    public void makeReadOnly()
+    {
+        super.makeReadOnly();
+
+        for ( ModelClass modelClass : classes )
+        {
+            modelClass.makeReadOnly();
+        }
+
+        for ( ModelInterface modelInterface : interfaces )
+        {
+            modelInterface.makeReadOnly();
+        }
+
+        for ( ModelDefault modelDefault : defaults )
+        {
+            modelDefault.makeReadOnly();
+        }
+
+        if ( versionDefinition != null )
+        {
+            versionDefinition.makeReadOnly();
+        }
+
+        classes = Collections.unmodifiableList( classes );
+        defaults = Collections.unmodifiableList( defaults );
+        interfaces = Collections.unmodifiableList( interfaces );
+    }
+
     public ModelClass getLocationTracker( Version version )
     {
         List<ModelClass> modelClasses = getClasses( version );
@@ -434,7 +504,7 @@ public class Model
 
         for ( ModelClass modelClass : modelClasses )
         {
-            ModelClassMetadata metadata = (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+            ModelClassMetadata metadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
 
             if ( metadata != null && StringUtils.isNotEmpty( metadata.getLocationTracker() ) )
             {
@@ -462,7 +532,7 @@ public class Model
 
         for ( ModelClass modelClass : modelClasses )
         {
-            ModelClassMetadata metadata = (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+            ModelClassMetadata metadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
 
             if ( metadata != null && StringUtils.isNotEmpty( metadata.getSourceTracker() ) )
             {
@@ -55,6 +55,8 @@ public class ModelAssociation
      */
     public void setTo( String to )
     {
+        checkWritable();
+
         this.to = to;
     }
 
@@ -91,6 +93,8 @@ public class ModelAssociation
      */
     public void setMultiplicity( String multiplicity )
     {
+        checkWritable();
+
         this.multiplicity = multiplicity;
     }
 
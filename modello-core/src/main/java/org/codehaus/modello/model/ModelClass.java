@@ -27,6 +27,7 @@ import org.codehaus.modello.metadata.ClassMetadata;
 import org.codehaus.plexus.util.StringUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,6 +66,8 @@ public class ModelClass
 
     public void setSuperClass( String superClass )
     {
+        checkWritable();
+
         this.superClass = superClass;
     }
 
@@ -89,6 +92,8 @@ public class ModelClass
 
     public void addInterface( String modelInterface )
     {
+        checkWritable();
+
         if ( getInterfaces().contains( modelInterface ) )
         {
             throw new ModelloRuntimeException( "Duplicate interface in " + getName() + ": " + modelInterface + "." );
@@ -163,6 +168,8 @@ public class ModelClass
 
     public void addField( ModelField modelField )
     {
+        checkWritable();
+
         if ( fieldMap.containsKey( modelField.getName() ) )
         {
             List<ModelField> fieldList = fieldMap.get( modelField.getName() );
@@ -206,6 +213,19 @@ public class ModelClass
         return getMetadata( ClassMetadata.class, key );
     }
 
+    public void makeReadOnly()
+    {
+        super.makeReadOnly();
+
+        for ( ModelField modelField : getAllFields() )
+        {
+            modelField.makeReadOnly();
+        }
+
+        fields = Collections.unmodifiableList( getAllFields() );
+        interfaces = Collections.unmodifiableList( getInterfaces() );
+    }
+
     public void initialize( Model model )
     {
         super.initialize( model );
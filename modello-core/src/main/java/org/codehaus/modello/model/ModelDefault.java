@@ -22,6 +22,8 @@ package org.codehaus.modello.model;
  * SOFTWARE.
  */
 
+import org.codehaus.modello.ModelloRuntimeException;
+
 /**
  * Default values for a model, that can be overrided with <code>defaults</code> element of the model descriptor.
  *
@@ -61,6 +63,8 @@ public class ModelDefault
 
     private String value;
 
+    private transient boolean readOnly;
+
     public static ModelDefault getDefault( String key )
         throws ModelValidationException
     {
@@ -104,6 +108,8 @@ public class ModelDefault
 
     public void setKey( String key )
     {
+        checkWritable();
+
         this.key = key;
     }
 
@@ -114,6 +120,8 @@ public class ModelDefault
 
     public void setValue( String value )
     {
+        checkWritable();
+
         this.value = value;
     }
 
@@ -164,4 +172,21 @@ public class ModelDefault
     {
         return string == null || string.trim().length() == 0;
     }
+
+    /**
+     * @see BaseElement#makeReadOnly()
+     * @since 1.9
+     */
+    public void makeReadOnly()
+    {
+        readOnly = true;
+    }
+
+    private void checkWritable()
+    {
+        if ( readOnly )
+        {
+            throw new ModelloRuntimeException( "The default is read-only." );
+        }
+    }
 }
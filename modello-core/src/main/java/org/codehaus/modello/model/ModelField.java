@@ -72,6 +72,8 @@ public class ModelField
 
     public void setType( String type )
     {
+        checkWritable();
+
         this.type = type;
     }
 
@@ -82,6 +84,8 @@ public class ModelField
 
     public void setDefaultValue( String defaultValue )
     {
+        checkWritable();
+
         this.defaultValue = defaultValue;
     }
 
@@ -92,6 +96,8 @@ public class ModelField
 
     public void setTypeValidator( String typeValidator )
     {
+        checkWritable();
+
         this.typeValidator = typeValidator;
     }
 
@@ -102,6 +108,8 @@ public class ModelField
 
     public void setRequired( boolean required )
     {
+        checkWritable();
+
         this.required = required;
     }
 
@@ -112,6 +120,8 @@ public class ModelField
 
     public void setIdentifier( boolean identifier )
     {
+        checkWritable();
+
         this.identifier = identifier;
     }
 
@@ -122,6 +132,8 @@ public class ModelField
 
     public void setAlias( String alias )
     {
+        checkWritable();
+
         this.alias = alias;
     }
     // ----------------------------------------------------------------------
@@ -47,6 +47,8 @@ public class ModelInterface
 
     public void setSuperInterface( String superInterface )
     {
+        checkWritable();
+
         this.superInterface = superInterface;
     }
 
@@ -23,6 +23,7 @@ package org.codehaus.modello.model;
  */
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +91,8 @@ public abstract class ModelType
 
     public void setPackageName( String packageName )
     {
+        checkWritable();
+
         this.packageName = packageName;
     }
 
@@ -140,6 +143,8 @@ public abstract class ModelType
 
     public void addCodeSegment( CodeSegment codeSegment )
     {
+        checkWritable();
+
         getAllCodeSegments().add( codeSegment );
 
         codeSegmentMap.put( codeSegment.getName(), codeSegment );
@@ -254,6 +259,18 @@ public abstract class ModelType
     //
     // ----------------------------------------------------------------------
 
+    public void makeReadOnly()
+    {
+        super.makeReadOnly();
+
+        for ( CodeSegment codeSegment : getAllCodeSegments() )
+        {
+            codeSegment.makeReadOnly();
+        }
+
+        codeSegments = Collections.unmodifiableList( getAllCodeSegments() );
+    }
+
     public void initialize( Model model )
     {
         this.model = model;
@@ -0,0 +1,374 @@
+package org.codehaus.modello.model;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.ModelloRuntimeException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The classes, interfaces and fields of a model in one version, resolved and indexed once, so that generators don't
+ * check the version ranges of the whole model on every lookup. All the lists are unmodifiable.
+ * <p>
+ * A view is a snapshot: it doesn't follow later changes of a writable model.
+ *
+ * @see Model#view(Version)
+ * @since 1.9
+ */
+public class ModelView
+{
+    private final Model model;
+
+    private final Version version;
+
+    private final List<ModelClass> classes;
+
+    private final List<ModelInterface> interfaces;
+
+    private final Map<String, ModelClass> classMap = new HashMap<String, ModelClass>();
+
+    private final Map<String, ModelInterface> interfaceMap = new HashMap<String, ModelInterface>();
+
+    private final Map<ModelType, TypeView> typeViews = new IdentityHashMap<ModelType, TypeView>();
+
+    ModelView( Model model, Version version )
+    {
+        this.model = model;
+        this.version = version;
+
+        List<ModelClass> classes = new ArrayList<ModelClass>();
+        for ( ModelClass modelClass : model.getAllClasses() )
+        {
+            if ( version.inside( modelClass.getVersionRange() ) )
+            {
+                classes.add( modelClass );
+                classMap.put( modelClass.getName(), modelClass );
+            }
+        }
+        this.classes = Collections.unmodifiableList( classes );
+
+        List<ModelInterface> interfaces = new ArrayList<ModelInterface>();
+        for ( ModelInterface modelInterface : model.getAllInterfaces() )
+        {
+            if ( version.inside( modelInterface.getVersionRange() ) )
+            {
+                interfaces.add( modelInterface );
+                if ( !interfaceMap.containsKey( modelInterface.getName() ) )
+                {
+                    interfaceMap.put( modelInterface.getName(), modelInterface );
+                }
+            }
+        }
+        this.interfaces = Collections.unmodifiableList( interfaces );
+
+        for ( ModelClass modelClass : classes )
+        {
+            typeViews.put( modelClass, new TypeView( modelClass ) );
+        }
+        for ( ModelInterface modelInterface : interfaces )
+        {
+            typeViews.put( modelInterface, new TypeView( modelInterface ) );
+        }
+
+        // the fields of the superclasses need the views of all the classes
+        for ( ModelClass modelClass : classes )
+        {
+            typeViews.get( modelClass ).resolveSuperClasses( modelClass );
+        }
+    }
+
+    public Model getModel()
+    {
+        return model;
+    }
+
+    public Version getVersion()
+    {
+        return version;
+    }
+
+    // ----------------------------------------------------------------------
+    // Types
+    // ----------------------------------------------------------------------
+
+    /**
+     * @see Model#getClasses(Version)
+     */
+    public List<ModelClass> getClasses()
+    {
+        return classes;
+    }
+
+    /**
+     * @see Model#getClass(String, Version)
+     */
+    public ModelClass getClass( String type )
+    {
+        return getClass( type, false );
+    }
+
+    /**
+     * @see Model#getClass(String, Version, boolean)
+     */
+    public ModelClass getClass( String type, boolean optionnal )
+    {
+        ModelClass value = classMap.get( type );
+
+        if ( value == null && !optionnal )
+        {
+            // the model reports the error
+            return model.getClass( type, version );
+        }
+
+        return value;
+    }
+
+    /**
+     * @see Model#hasClass(String, Version)
+     */
+    public boolean hasClass( String type )
+    {
+        return classMap.containsKey( type );
+    }
+
+    /**
+     * @see Model#getInterfaces(Version)
+     */
+    public List<ModelInterface> getInterfaces()
+    {
+        return interfaces;
+    }
+
+    /**
+     * @see Model#getInterface(String, Version)
+     */
+    public ModelInterface getInterface( String type )
+    {
+        ModelInterface value = interfaceMap.get( type );
+
+        if ( value == null )
+        {
+            return model.getInterface( type, version );
+        }
+
+        return value;
+    }
+
+    /**
+     * @see Model#getType(String, Version)
+     */
+    public ModelType getType( String type )
+    {
+        ModelType value = classMap.get( type );
+
+        if ( value == null )
+        {
+            value = interfaceMap.get( type );
+        }
+
+        if ( value == null )
+        {
+            return model.getType( type, version );
+        }
+
+        return value;
+    }
+
+    // ----------------------------------------------------------------------
+    // Fields
+    // ----------------------------------------------------------------------
+
+    /**
+     * @see ModelType#getFields(Version)
+     */
+    public List<ModelField> getFields( ModelType modelType )
+    {
+        TypeView typeView = typeViews.get( modelType );
+
+        return ( typeView == null ) ? modelType.getFields( version ) : typeView.fields;
+    }
+
+    /**
+     * @see ModelType#getAllFields(Version, boolean)
+     */
+    public List<ModelField> getAllFields( ModelType modelType, boolean withInheritedField )
+    {
+        TypeView typeView = typeViews.get( modelType );
+
+        if ( typeView == null || ( withInheritedField && typeView.inheritedFields == null ) )
+        {
+            return modelType.getAllFields( version, withInheritedField );
+        }
+
+        return withInheritedField ? typeView.inheritedFields : typeView.fields;
+    }
+
+    /**
+     * Returns the fields of a class and of its superclasses in this version, starting with the fields of the class.
+     */
+    public List<ModelField> getFieldsForClass( ModelClass modelClass )
+    {
+        TypeView typeView = typeViews.get( modelClass );
+
+        if ( typeView != null && typeView.superClassesFields != null )
+        {
+            return typeView.superClassesFields;
+        }
+
+        List<ModelField> fields = new ArrayList<ModelField>();
+
+        while ( modelClass != null )
+        {
+            fields.addAll( getFields( modelClass ) );
+
+            String superClass = modelClass.getSuperClass();
+            modelClass = ( superClass != null ) ? getClass( superClass ) : null;
+        }
+
+        return Collections.unmodifiableList( fields );
+    }
+
+    /**
+     * @see ModelType#getField(String, Version)
+     */
+    public ModelField getField( ModelType modelType, String name )
+    {
+        TypeView typeView = typeViews.get( modelType );
+
+        ModelField field = ( typeView == null ) ? null : typeView.fieldMap.get( name );
+
+        return ( field == null ) ? modelType.getField( name, version ) : field;
+    }
+
+    /**
+     * @see ModelType#hasField(String, Version)
+     */
+    public boolean hasField( ModelType modelType, String name )
+    {
+        TypeView typeView = typeViews.get( modelType );
+
+        return ( typeView == null ) ? modelType.hasField( name, version ) : typeView.fieldMap.containsKey( name );
+    }
+
+    /**
+     * @see ModelType#getIdentifierFields(Version)
+     */
+    public List<ModelField> getIdentifierFields( ModelType modelType )
+    {
+        TypeView typeView = typeViews.get( modelType );
+
+        return ( typeView == null ) ? modelType.getIdentifierFields( version ) : typeView.identifierFields;
+    }
+
+    /**
+     * The fields of a type in the version of the view.
+     */
+    private class TypeView
+    {
+        private final List<ModelField> fields;
+
+        private final List<ModelField> identifierFields;
+
+        private final Map<String, ModelField> fieldMap = new HashMap<String, ModelField>();
+
+        /** The fields of the model superclasses, <code>null</code> if they can't be resolved. */
+        private List<ModelField> inheritedFields;
+
+        /** The fields of the superclasses in this version, <code>null</code> if they can't be resolved. */
+        private List<ModelField> superClassesFields;
+
+        TypeView( ModelType modelType )
+        {
+            List<ModelField> fields = new ArrayList<ModelField>();
+            List<ModelField> identifierFields = new ArrayList<ModelField>();
+
+            for ( ModelField field : modelType.getAllFields() )
+            {
+                if ( version.inside( field.getVersionRange() ) )
+                {
+                    fields.add( field );
+
+                    if ( field.isIdentifier() )
+                    {
+                        identifierFields.add( field );
+                    }
+
+                    if ( !fieldMap.containsKey( field.getName() ) )
+                    {
+                        fieldMap.put( field.getName(), field );
+                    }
+                }
+            }
+
+            this.fields = Collections.unmodifiableList( fields );
+            this.identifierFields = Collections.unmodifiableList( identifierFields );
+
+            if ( modelType instanceof ModelInterface )
+            {
+                inheritedFields = this.fields;
+            }
+        }
+
+        void resolveSuperClasses( ModelClass modelClass )
+        {
+            List<ModelField> superClassesFields = new ArrayList<ModelField>( fields );
+            int depth = 0;
+            for ( ModelClass c = modelClass; c.getSuperClass() != null; )
+            {
+                c = classMap.get( c.getSuperClass() );
+                if ( c == null || ++depth > classes.size() )
+                {
+                    superClassesFields = null;
+                    break;
+                }
+                superClassesFields.addAll( typeViews.get( c ).fields );
+            }
+            if ( superClassesFields != null )
+            {
+                this.superClassesFields = Collections.unmodifiableList( superClassesFields );
+            }
+
+            try
+            {
+                List<ModelField> inheritedFields = new ArrayList<ModelField>();
+                for ( ModelField field : modelClass.getAllFields( true ) )
+                {
+                    if ( version.inside( field.getVersionRange() ) )
+                    {
+                        inheritedFields.add( field );
+                    }
+                }
+                this.inheritedFields = Collections.unmodifiableList( inheritedFields );
+            }
+            catch ( ModelloRuntimeException e )
+            {
+                // reported by the model on use
+            }
+        }
+    }
+}
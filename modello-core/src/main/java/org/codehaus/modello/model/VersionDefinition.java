@@ -22,6 +22,8 @@ package org.codehaus.modello.model;
  * SOFTWARE.
  */
 
+import org.codehaus.modello.ModelloRuntimeException;
+
 public class VersionDefinition
 {
     private static final String FIELD = "field";
@@ -34,6 +36,8 @@ public class VersionDefinition
 
     private String value;
 
+    private transient boolean readOnly;
+
     public String getType()
     {
         return type;
@@ -41,6 +45,8 @@ public class VersionDefinition
 
     public void setType( String type )
     {
+        checkWritable();
+
         this.type = type;
     }
 
@@ -51,6 +57,8 @@ public class VersionDefinition
 
     public void setValue( String value )
     {
+        checkWritable();
+
         this.value = value;
     }
     
@@ -74,4 +82,20 @@ public class VersionDefinition
         return FIELD.equals( type ) || FIELD_NAMESPACE.equals( type );
     }
 
+    /**
+     * @see BaseElement#makeReadOnly()
+     * @since 1.9
+     */
+    public void makeReadOnly()
+    {
+        readOnly = true;
+    }
+
+    private void checkWritable()
+    {
+        if ( readOnly )
+        {
+            throw new ModelloRuntimeException( "The version definition is read-only." );
+        }
+    }
 }
@@ -23,9 +23,13 @@ package org.codehaus.modello.plugin;
  */
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 
 import org.codehaus.modello.ModelloException;
 import org.codehaus.modello.ModelloParameterConstants;
@@ -35,6 +39,8 @@ import org.codehaus.modello.model.ModelAssociation;
 import org.codehaus.modello.model.ModelClass;
 import org.codehaus.modello.model.ModelDefault;
 import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.model.ModelInterface;
+import org.codehaus.modello.model.ModelView;
 import org.codehaus.modello.model.Version;
 import org.codehaus.plexus.PlexusConstants;
 import org.codehaus.plexus.PlexusContainer;
@@ -60,27 +66,173 @@ public abstract class AbstractModelloGenerator
 
     private Version generatedVersion;
 
+    private ModelView view;
+
     private boolean packageWithVersion;
 
     private String encoding;
 
     private BuildContext buildContext;
 
+    private GeneratedFiles generatedFiles;
+
+    private Properties parameters;
+
     protected void initialize( Model model, Properties parameters )
         throws ModelloException
     {
         this.model = model;
 
+        this.parameters = parameters;
+
         outputDirectory = new File( getParameter( parameters, ModelloParameterConstants.OUTPUT_DIRECTORY ) );
 
         String version = getParameter( parameters, ModelloParameterConstants.VERSION );
 
         generatedVersion = new Version( version );
 
+        view = model.view( generatedVersion );
+
         packageWithVersion = Boolean.valueOf(
             getParameter( parameters, ModelloParameterConstants.PACKAGE_WITH_VERSION ) ).booleanValue();
 
         encoding = parameters.getProperty( ModelloParameterConstants.ENCODING );
+
+        generatedFiles = new GeneratedFiles( outputDirectory, model.getId() + ':' + getClass().getName() + ':'
+            + generatedVersion + ( packageWithVersion ? ":packaged" : "" ), buildContext );
+        generatedFiles.setFingerprint( getModelFingerprint() );
+    }
+
+    /**
+     * Checks if the files generated by the previous run of this generator with the same model and parameters are still
+     * up to date, in which case there's no need to run the generator again.
+     *
+     * @since 1.9
+     */
+    public boolean isUpToDate( Model model, Properties parameters )
+        throws ModelloException, IOException
+    {
+        initialize( model, parameters );
+
+        return generatedFiles.isUpToDate();
+    }
+
+    /**
+     * Creates a fingerprint initialized with the generator implementation and the parameters.
+     *
+     * @since 1.9
+     */
+    protected Fingerprint newFingerprint()
+    {
+        Fingerprint fingerprint = new Fingerprint();
+
+        // a rebuilt or upgraded generator may generate different content
+        for ( Class<?> c = getClass(); c != AbstractLogEnabled.class; c = c.getSuperclass() )
+        {
+            fingerprint.add( c.getName() );
+            fingerprint.add( ( c.getPackage() == null ) ? null : c.getPackage().getImplementationVersion() );
+
+            try
+            {
+                File location = new File( c.getProtectionDomain().getCodeSource().getLocation().toURI() );
+                if ( location.isFile() )
+                {
+                    fingerprint.add( location.getPath() + '@' + location.lastModified() );
+                }
+            }
+            catch ( Exception e )
+            {
+                // no code source: only rely on the version
+            }
+        }
+
+        return fingerprint.add( parameters );
+    }
+
+    /**
+     * Computes the fingerprint of the whole model and generator parameters.
+     *
+     * @since 1.9
+     */
+    protected String getModelFingerprint()
+    {
+        Fingerprint fingerprint = newFingerprint().addModel( model, true );
+
+        for ( ModelInterface modelInterface : model.getAllInterfaces() )
+        {
+            fingerprint.addTypeWithFields( modelInterface, true );
+        }
+
+        for ( ModelClass modelClass : model.getAllClasses() )
+        {
+            fingerprint.addTypeWithFields( modelClass, true );
+        }
+
+        return fingerprint.digest();
+    }
+
+    /**
+     * Checks if a file generated by the previous run of this generator from the same fingerprint still exists, in
+     * which case it doesn't need to be generated again.
+     *
+     * @param file the file to generate
+     * @param fingerprint the fingerprint of the model elements the file is generated from
+     * @since 1.9
+     */
+    protected boolean isUpToDate( File file, String fingerprint )
+        throws IOException
+    {
+        return ( generatedFiles != null ) && generatedFiles.isUpToDate( file, fingerprint );
+    }
+
+    /**
+     * Creates a stream to write a generated file, that leaves the file untouched if its content didn't change.
+     *
+     * @param file the file to generate
+     * @return the stream to write the content to, the file is written on close
+     * @since 1.9
+     */
+    protected OutputStream newOutputStream( File file )
+        throws IOException
+    {
+        return newOutputStream( file, null );
+    }
+
+    /**
+     * Creates a stream to write a generated file, recording the fingerprint of the model elements it is generated
+     * from.
+     *
+     * @see #newOutputStream(File)
+     * @see #isUpToDate(File, String)
+     * @since 1.9
+     */
+    protected OutputStream newOutputStream( File file, String fingerprint )
+        throws IOException
+    {
+        if ( generatedFiles == null )
+        {
+            return buildContext.newFileOutputStream( file );
+        }
+
+        return generatedFiles.newOutputStream( file, fingerprint );
+    }
+
+    /**
+     * Deletes the files written to the output directory by the previous run of this generator on the same model and
+     * version that were not generated again.
+     *
+     * @return the deleted files
+     * @since 1.9
+     */
+    public Set<File> removeStaleFiles()
+        throws IOException
+    {
+        if ( generatedFiles == null )
+        {
+            return Collections.emptySet();
+        }
+
+        return generatedFiles.removeStaleFiles();
     }
 
     protected Model getModel()
@@ -93,6 +245,15 @@ public abstract class AbstractModelloGenerator
         return generatedVersion;
     }
 
+    /**
+     * @return the model in the generated version, for the lookups of the generator
+     * @since 1.9
+     */
+    protected ModelView getView()
+    {
+        return view;
+    }
+
     protected boolean isPackageWithVersion()
     {
         return packageWithVersion;
@@ -119,6 +280,11 @@ public abstract class AbstractModelloGenerator
 
     protected boolean isClassInModel( String fieldType, Model model )
     {
+        if ( model == this.model )
+        {
+            return view.hasClass( fieldType );
+        }
+
         try
         {
             return model.getClass( fieldType, generatedVersion ) != null;
@@ -137,24 +303,7 @@ public abstract class AbstractModelloGenerator
      */
     protected List<ModelField> getFieldsForClass( ModelClass modelClass )
     {
-        List<ModelField> fields = new ArrayList<ModelField>();
-
-        while ( modelClass != null )
-        {
-            fields.addAll( modelClass.getFields( getGeneratedVersion() ) );
-
-            String superClass = modelClass.getSuperClass();
-            if ( superClass != null )
-            {
-                modelClass = getModel().getClass( superClass, getGeneratedVersion() );
-            }
-            else
-            {
-                modelClass = null;
-            }
-        }
-
-        return fields;
+        return new ArrayList<ModelField>( view.getFieldsForClass( modelClass ) );
     }
 
     protected boolean isInnerAssociation( ModelField field )
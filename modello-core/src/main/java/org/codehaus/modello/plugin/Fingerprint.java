@@ -0,0 +1,298 @@
+package org.codehaus.modello.plugin;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.metadata.Metadata;
+import org.codehaus.modello.model.BaseElement;
+import org.codehaus.modello.model.CodeSegment;
+import org.codehaus.modello.model.Model;
+import org.codehaus.modello.model.ModelAssociation;
+import org.codehaus.modello.model.ModelClass;
+import org.codehaus.modello.model.ModelDefault;
+import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.model.ModelInterface;
+import org.codehaus.modello.model.ModelType;
+
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Digest of the model elements a generated file depends on, used to detect the files that need to be generated again
+ * after a model change. Elements can be added with or without their documentation (description and comment), to
+ * ignore documentation changes of elements that only contribute their structure.
+ *
+ * @since 1.9
+ */
+public class Fingerprint
+{
+    private static final Comparator<Field> FIELD_ORDER = new Comparator<Field>()
+    {
+        public int compare( Field f1, Field f2 )
+        {
+            return f1.getName().compareTo( f2.getName() );
+        }
+    };
+
+    private final MessageDigest digest;
+
+    public Fingerprint()
+    {
+        try
+        {
+            digest = MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 not supported: " + e.getMessage() );
+        }
+    }
+
+    public Fingerprint add( String value )
+    {
+        if ( value == null )
+        {
+            digest.update( (byte) 0 );
+            return this;
+        }
+
+        try
+        {
+            byte[] bytes = value.getBytes( "UTF-8" );
+
+            digest.update( (byte) 1 );
+            digest.update( (byte) ( bytes.length >>> 24 ) );
+            digest.update( (byte) ( bytes.length >>> 16 ) );
+            digest.update( (byte) ( bytes.length >>> 8 ) );
+            digest.update( (byte) bytes.length );
+            digest.update( bytes );
+        }
+        catch ( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( "UTF-8 not supported: " + e.getMessage() );
+        }
+
+        return this;
+    }
+
+    public Fingerprint add( Object value )
+    {
+        return add( ( value == null ) ? null : value.toString() );
+    }
+
+    /**
+     * Adds parameters, sorted by name.
+     */
+    public Fingerprint add( Properties parameters )
+    {
+        for ( Map.Entry<Object, Object> parameter : new TreeMap<Object, Object>( parameters ).entrySet() )
+        {
+            add( parameter.getKey() );
+            add( parameter.getValue() );
+        }
+
+        return add( "--" );
+    }
+
+    /**
+     * Adds the model-level definition: id, name, defaults, version definition and metadata, without its types.
+     */
+    public Fingerprint addModel( Model model, boolean documentation )
+    {
+        addElement( model, documentation );
+
+        add( model.getId() );
+
+        if ( model.getVersionDefinition() != null )
+        {
+            add( model.getVersionDefinition().getType() );
+            add( model.getVersionDefinition().getValue() );
+        }
+
+        for ( ModelDefault modelDefault : model.getDefaults() )
+        {
+            add( modelDefault.getKey() );
+            add( modelDefault.getValue() );
+        }
+
+        return add( "--" );
+    }
+
+    /**
+     * Adds a class or interface definition, without its fields.
+     */
+    public Fingerprint addType( ModelType type, boolean documentation )
+    {
+        addElement( type, documentation );
+
+        add( type.getPackageName() );
+
+        if ( type instanceof ModelClass )
+        {
+            ModelClass modelClass = (ModelClass) type;
+
+            add( modelClass.getSuperClass() );
+            add( modelClass.getInterfaces() );
+        }
+        else if ( type instanceof ModelInterface )
+        {
+            add( ( (ModelInterface) type ).getSuperInterface() );
+        }
+
+        for ( CodeSegment codeSegment : type.getAllCodeSegments() )
+        {
+            addElement( codeSegment, documentation );
+            add( codeSegment.getCode() );
+        }
+
+        return add( "--" );
+    }
+
+    /**
+     * Adds a class or interface definition with its fields.
+     */
+    public Fingerprint addTypeWithFields( ModelType type, boolean documentation )
+    {
+        addType( type, documentation );
+
+        for ( ModelField field : type.getAllFields() )
+        {
+            addField( field, documentation );
+        }
+
+        return add( "--" );
+    }
+
+    public Fingerprint addField( ModelField field, boolean documentation )
+    {
+        addElement( field, documentation );
+
+        add( field.getType() );
+        add( field.getDefaultValue() );
+        add( field.getTypeValidator() );
+        add( field.getAlias() );
+        add( field.isRequired() );
+        add( field.isIdentifier() );
+
+        if ( field instanceof ModelAssociation )
+        {
+            ModelAssociation association = (ModelAssociation) field;
+
+            add( association.getTo() );
+            add( association.getMultiplicity() );
+        }
+
+        return add( "--" );
+    }
+
+    private void addElement( BaseElement element, boolean documentation )
+    {
+        add( element.getClass().getName() );
+        add( element.getName() );
+        add( element.getVersionRange() );
+        add( element.getDeprecatedVersion() );
+        add( element.getAnnotations() );
+
+        if ( documentation )
+        {
+            add( element.getDescription() );
+            add( element.getComment() );
+        }
+
+        List<Metadata> metadata = new ArrayList<Metadata>( element.getAllMetadata() );
+        Collections.sort( metadata, new Comparator<Metadata>()
+        {
+            public int compare( Metadata m1, Metadata m2 )
+            {
+                return m1.getClass().getName().compareTo( m2.getClass().getName() );
+            }
+        } );
+
+        for ( Metadata m : metadata )
+        {
+            addMetadata( m );
+        }
+    }
+
+    /**
+     * Adds the values of all the fields of a metadata instance, which are simple values.
+     */
+    private void addMetadata( Metadata metadata )
+    {
+        add( metadata.getClass().getName() );
+
+        for ( Class<?> c = metadata.getClass(); c != null && c != Object.class; c = c.getSuperclass() )
+        {
+            Field[] fields = c.getDeclaredFields();
+            Arrays.sort( fields, FIELD_ORDER );
+
+            for ( Field field : fields )
+            {
+                if ( Modifier.isStatic( field.getModifiers() ) )
+                {
+                    continue;
+                }
+
+                field.setAccessible( true );
+
+                add( field.getName() );
+                try
+                {
+                    add( field.get( metadata ) );
+                }
+                catch ( IllegalAccessException e )
+                {
+                    throw new IllegalStateException( "Unable to read metadata field " + field + ": " + e.getMessage() );
+                }
+            }
+        }
+    }
+
+    /**
+     * Completes the digest: the fingerprint can't be changed any more.
+     *
+     * @return the digest as an hexadecimal string
+     */
+    public String digest()
+    {
+        byte[] bytes = digest.digest();
+
+        StringBuilder sb = new StringBuilder( bytes.length * 2 );
+        for ( byte b : bytes )
+        {
+            sb.append( Character.forDigit( ( b >> 4 ) & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+        }
+
+        return sb.toString();
+    }
+}
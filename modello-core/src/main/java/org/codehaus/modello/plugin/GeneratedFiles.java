@@ -0,0 +1,489 @@
+package org.codehaus.modello.plugin;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.ModelloRuntimeException;
+import org.codehaus.plexus.util.IOUtil;
+import org.sonatype.plexus.build.incremental.BuildContext;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Tracks the files written by one generator run, identified by a key (model, generator and version), in an output
+ * directory.
+ * <ul>
+ * <li>Files are rendered in memory and only written when their content digest differs from the existing file, so
+ * unchanged sources keep their timestamp and don't trigger recompilation.</li>
+ * <li>Written files are recorded per key in a <code>.modello-manifest</code> file of the output directory: at the end
+ * of the run, files recorded by the previous run of the same key that were not generated again are deleted.</li>
+ * <li>The run and every file can be recorded with a {@link Fingerprint} of the model elements they are generated
+ * from, so that an unchanged run or file can be skipped without rendering it again. The content digest of every file
+ * is recorded too: a file edited since it was generated is never considered up to date.</li>
+ * </ul>
+ *
+ * @since 1.9
+ */
+public class GeneratedFiles
+{
+    public static final String MANIFEST = ".modello-manifest";
+
+    private final File outputDirectory;
+
+    private final String key;
+
+    private final BuildContext buildContext;
+
+    private final Entry entry = new Entry();
+
+    private Entry previous;
+
+    public GeneratedFiles( File outputDirectory, String key, BuildContext buildContext )
+    {
+        this.outputDirectory = outputDirectory;
+        this.key = key;
+        this.buildContext = buildContext;
+    }
+
+    /**
+     * Sets the fingerprint of everything this run is generated from.
+     */
+    public void setFingerprint( String fingerprint )
+    {
+        entry.fingerprint = fingerprint;
+    }
+
+    /**
+     * Checks if the previous run with the same key had the same fingerprint and all its files still exist unchanged:
+     * the files are then kept as generated by this run.
+     */
+    public boolean isUpToDate()
+        throws IOException
+    {
+        Entry previous = getPrevious();
+
+        if ( previous == null || entry.fingerprint == null || !entry.fingerprint.equals( previous.fingerprint ) )
+        {
+            return false;
+        }
+
+        for ( String path : previous.files.keySet() )
+        {
+            if ( !isUnchanged( toFile( path ), previous.digests.get( path ) ) )
+            {
+                return false;
+            }
+        }
+
+        synchronized ( entry )
+        {
+            entry.files.putAll( previous.files );
+            entry.digests.putAll( previous.digests );
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks if a file was generated by the previous run with the same key from the same fingerprint and still exists
+     * unchanged: it is then kept as generated by this run.
+     */
+    public boolean isUpToDate( File file, String fingerprint )
+        throws IOException
+    {
+        Entry previous = getPrevious();
+
+        String path = toPath( file );
+
+        if ( previous == null || fingerprint == null || !fingerprint.equals( previous.files.get( path ) )
+            || !isUnchanged( file, previous.digests.get( path ) ) )
+        {
+            return false;
+        }
+
+        synchronized ( entry )
+        {
+            entry.files.put( path, fingerprint );
+            entry.digests.put( path, previous.digests.get( path ) );
+        }
+
+        return true;
+    }
+
+    /**
+     * Creates a stream for a generated file: the content is kept in memory and written to the file on close, unless the
+     * file already has the same content.
+     */
+    public OutputStream newOutputStream( File file )
+    {
+        return newOutputStream( file, null );
+    }
+
+    /**
+     * Creates a stream for a generated file, recording the fingerprint of the elements it is generated from.
+     *
+     * @see #newOutputStream(File)
+     */
+    public OutputStream newOutputStream( File file, String fingerprint )
+    {
+        synchronized ( entry )
+        {
+            entry.files.put( toPath( file ), fingerprint );
+        }
+
+        return new GeneratedFileOutputStream( file );
+    }
+
+    /**
+     * Deletes the files generated by the previous run with the same key that were not generated by this run, and
+     * records the files generated by this run in the manifest. Files recorded by another key are kept.
+     *
+     * @return the deleted files
+     */
+    public Set<File> removeStaleFiles()
+        throws IOException
+    {
+        Set<File> deleted = new TreeSet<File>();
+
+        // the manifest is shared by all generators writing to the same output directory
+        synchronized ( GeneratedFiles.class )
+        {
+            File manifest = new File( outputDirectory, MANIFEST );
+
+            Map<String, Entry> entries = readManifest( manifest );
+
+            Entry previous = entries.remove( key );
+
+            if ( previous == null && entry.files.isEmpty() )
+            {
+                return deleted;
+            }
+
+            if ( previous != null )
+            {
+                Set<String> claimed = new HashSet<String>( entry.files.keySet() );
+                for ( Entry other : entries.values() )
+                {
+                    claimed.addAll( other.files.keySet() );
+                }
+
+                for ( String path : previous.files.keySet() )
+                {
+                    if ( !claimed.contains( path ) )
+                    {
+                        File file = toFile( path );
+                        if ( file.delete() )
+                        {
+                            buildContext.refresh( file );
+                            deleted.add( file );
+                        }
+                    }
+                }
+            }
+
+            if ( !entry.files.isEmpty() )
+            {
+                entries.put( key, entry );
+            }
+
+            writeManifest( manifest, entries );
+        }
+
+        return deleted;
+    }
+
+    private Entry getPrevious()
+        throws IOException
+    {
+        if ( previous == null )
+        {
+            synchronized ( GeneratedFiles.class )
+            {
+                previous = readManifest( new File( outputDirectory, MANIFEST ) ).get( key );
+            }
+
+            if ( previous == null )
+            {
+                previous = new Entry();
+            }
+        }
+
+        return previous;
+    }
+
+    /**
+     * Checks if a file still has the content digest recorded when it was generated.
+     */
+    private static boolean isUnchanged( File file, String digest )
+        throws IOException
+    {
+        if ( digest == null || !file.isFile() )
+        {
+            return false;
+        }
+
+        InputStream in = new FileInputStream( file );
+        try
+        {
+            return digest.equals( toHex( digest( in ) ) );
+        }
+        finally
+        {
+            IOUtil.close( in );
+        }
+    }
+
+    private String toPath( File file )
+    {
+        String path = file.getAbsolutePath();
+        String base = outputDirectory.getAbsolutePath() + File.separatorChar;
+
+        if ( path.startsWith( base ) )
+        {
+            return path.substring( base.length() ).replace( File.separatorChar, '/' );
+        }
+
+        return path;
+    }
+
+    private File toFile( String path )
+    {
+        File file = new File( path );
+
+        return file.isAbsolute() ? file : new File( outputDirectory, path );
+    }
+
+    /**
+     * Reads the manifest: a <code>[key]</code> line, followed by the fingerprint of the run if any, starts the section
+     * of a key, then every file of the key is listed on its own line, followed by its fingerprint if any (empty
+     * otherwise) and its content digest. Values are separated by tabs.
+     */
+    private static Map<String, Entry> readManifest( File manifest )
+        throws IOException
+    {
+        Map<String, Entry> entries = new TreeMap<String, Entry>();
+
+        if ( !manifest.isFile() )
+        {
+            return entries;
+        }
+
+        BufferedReader reader = new BufferedReader( new FileReader( manifest ) );
+        try
+        {
+            Entry current = null;
+
+            String line;
+            while ( ( line = reader.readLine() ) != null )
+            {
+                if ( line.length() == 0 || line.startsWith( "#" ) )
+                {
+                    continue;
+                }
+
+                String[] values = line.split( "\t" );
+                String value = values[0];
+                String fingerprint = ( values.length < 2 || values[1].length() == 0 ) ? null : values[1];
+
+                if ( value.startsWith( "[" ) && value.endsWith( "]" ) )
+                {
+                    current = new Entry();
+                    current.fingerprint = fingerprint;
+                    entries.put( value.substring( 1, value.length() - 1 ), current );
+                }
+                else if ( current != null )
+                {
+                    current.files.put( value, fingerprint );
+                    if ( values.length > 2 )
+                    {
+                        current.digests.put( value, values[2] );
+                    }
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( reader );
+        }
+
+        return entries;
+    }
+
+    private static void writeManifest( File manifest, Map<String, Entry> entries )
+        throws IOException
+    {
+        if ( entries.isEmpty() )
+        {
+            manifest.delete();
+            return;
+        }
+
+        manifest.getParentFile().mkdirs();
+
+        PrintWriter writer = new PrintWriter( new FileWriter( manifest ) );
+        try
+        {
+            writer.println( "# Files generated by Modello, per model, generator and version" );
+
+            for ( Map.Entry<String, Entry> entry : entries.entrySet() )
+            {
+                writer.println( withFingerprint( '[' + entry.getKey() + ']', entry.getValue().fingerprint ) );
+
+                for ( Map.Entry<String, String> file : entry.getValue().files.entrySet() )
+                {
+                    String digest = entry.getValue().digests.get( file.getKey() );
+
+                    String fingerprint = ( file.getValue() == null ) ? "" : file.getValue();
+
+                    writer.println( ( digest == null ) ? withFingerprint( file.getKey(), file.getValue() )
+                                    : ( file.getKey() + '\t' + fingerprint + '\t' + digest ) );
+                }
+            }
+        }
+        finally
+        {
+            IOUtil.close( writer );
+        }
+    }
+
+    private static String withFingerprint( String value, String fingerprint )
+    {
+        return ( fingerprint == null ) ? value : ( value + '\t' + fingerprint );
+    }
+
+    private static byte[] digest( InputStream in )
+        throws IOException
+    {
+        MessageDigest digest = newDigest();
+
+        byte[] buffer = new byte[8192];
+        int n;
+        while ( ( n = in.read( buffer ) ) >= 0 )
+        {
+            digest.update( buffer, 0, n );
+        }
+
+        return digest.digest();
+    }
+
+    private static String toHex( byte[] bytes )
+    {
+        StringBuilder hex = new StringBuilder( 2 * bytes.length );
+
+        for ( byte b : bytes )
+        {
+            hex.append( Character.forDigit( ( b >> 4 ) & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+        }
+
+        return hex.toString();
+    }
+
+    private static MessageDigest newDigest()
+    {
+        try
+        {
+            return MessageDigest.getInstance( "SHA-1" );
+        }
+        catch ( NoSuchAlgorithmException e )
+        {
+            throw new IllegalStateException( "SHA-1 not supported: " + e.getMessage() );
+        }
+    }
+
+    private static class Entry
+    {
+        private String fingerprint;
+
+        private final Map<String, String> files = new TreeMap<String, String>();
+
+        private final Map<String, String> digests = new TreeMap<String, String>();
+    }
+
+    private class GeneratedFileOutputStream
+        extends ByteArrayOutputStream
+    {
+        private final File file;
+
+        private boolean closed;
+
+        GeneratedFileOutputStream( File file )
+        {
+            this.file = file;
+        }
+
+        /**
+         * Writes the content to the file if it changed. Failures are thrown as {@link ModelloRuntimeException}, since
+         * writers like <code>JSourceWriter</code> ignore <code>IOException</code>s on close.
+         */
+        public void close()
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+
+            try
+            {
+                String digest = toHex( newDigest().digest( toByteArray() ) );
+
+                synchronized ( entry )
+                {
+                    entry.digests.put( toPath( file ), digest );
+                }
+
+                if ( file.length() != size() || !isUnchanged( file, digest ) )
+                {
+                    OutputStream out = buildContext.newFileOutputStream( file );
+                    try
+                    {
+                        writeTo( out );
+                    }
+                    finally
+                    {
+                        out.close();
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new ModelloRuntimeException( "Error writing " + file + ": " + e.getMessage(), e );
+            }
+        }
+    }
+}
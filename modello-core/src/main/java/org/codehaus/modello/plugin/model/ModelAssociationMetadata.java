@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.model;
  */
 
 import org.codehaus.modello.metadata.AssociationMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:evenisse@codehaus.org">Emmanuel Venisse</a>
@@ -31,4 +32,6 @@ public class ModelAssociationMetadata
     implements AssociationMetadata
 {
     public static final String ID = ModelAssociationMetadata.class.getName();
+
+    public static final MetadataSlot<ModelAssociationMetadata> SLOT = MetadataSlot.of( ModelAssociationMetadata.class );
 }
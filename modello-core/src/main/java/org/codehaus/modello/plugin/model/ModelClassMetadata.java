@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.model;
  */
 
 import org.codehaus.modello.metadata.ClassMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:evenisse@codehaus.org">Emmanuel Venisse</a>
@@ -32,6 +33,8 @@ public class ModelClassMetadata
 {
     public static final String ID = ModelClassMetadata.class.getName();
 
+    public static final MetadataSlot<ModelClassMetadata> SLOT = MetadataSlot.of( ModelClassMetadata.class );
+
     private boolean rootElement = false;
 
     private String locationTracker;
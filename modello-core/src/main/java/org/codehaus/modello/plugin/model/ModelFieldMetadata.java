@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.model;
  */
 
 import org.codehaus.modello.metadata.FieldMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:evenisse@codehaus.org">Emmanuel Venisse</a>
@@ -31,4 +32,6 @@ public class ModelFieldMetadata
     implements FieldMetadata
 {
     public static final String ID = ModelFieldMetadata.class.getName();
+
+    public static final MetadataSlot<ModelFieldMetadata> SLOT = MetadataSlot.of( ModelFieldMetadata.class );
 }
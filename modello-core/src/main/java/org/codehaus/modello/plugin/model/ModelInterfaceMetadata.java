@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.model;
  */
 
 import org.codehaus.modello.metadata.InterfaceMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:evenisse@codehaus.org">Emmanuel Venisse</a>
@@ -31,4 +32,6 @@ public class ModelInterfaceMetadata
     implements InterfaceMetadata
 {
     public static final String ID = ModelInterfaceMetadata.class.getName();
+
+    public static final MetadataSlot<ModelInterfaceMetadata> SLOT = MetadataSlot.of( ModelInterfaceMetadata.class );
 }
@@ -22,6 +22,7 @@ package org.codehaus.modello.plugin.model;
  * SOFTWARE.
  */
 
+import org.codehaus.modello.metadata.MetadataSlot;
 import org.codehaus.modello.metadata.ModelMetadata;
 
 /**
@@ -31,4 +32,6 @@ public class ModelModelMetadata
     implements ModelMetadata
 {
     public static final String ID = ModelModelMetadata.class.getName();
+
+    public static final MetadataSlot<ModelModelMetadata> SLOT = MetadataSlot.of( ModelModelMetadata.class );
 }
@@ -0,0 +1,169 @@
+package org.codehaus.modello;
+
+/*
+ * Copyright (c) 2004, Jason van Zyl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Properties;
+
+public class ModelloDaemonTest
+    extends PlexusTestCase
+{
+    private Modello modello;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        modello = new Modello();
+    }
+
+    protected void tearDown()
+        throws Exception
+    {
+        modello.dispose();
+
+        super.tearDown();
+    }
+
+    public void testRequests()
+        throws Exception
+    {
+        File portFile = getTestFile( "target/modello-daemon/requests.port" );
+
+        ModelloDaemon daemon = new ModelloDaemon( modello, portFile, 0 );
+        Thread thread = start( daemon );
+
+        assertTrue( portFile.exists() );
+
+        if ( FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) )
+        {
+            assertEquals( PosixFilePermissions.fromString( "rw-------" ),
+                          Files.getPosixFilePermissions( portFile.toPath() ) );
+        }
+
+        ModelloDaemonClient client = new ModelloDaemonClient( portFile );
+        assertEquals( "Modello daemon running, 0 model(s) loaded.", client.status() );
+
+        File model = getTestFile( "src/test/resources/models/simple.mdo" );
+        Properties parameters = new Properties();
+        parameters.setProperty( ModelloParameterConstants.OUTPUT_DIRECTORY, "target/modello-daemon" );
+        try
+        {
+            client.generate( model, "unknown", parameters );
+
+            fail( "Expected an unknown generator error" );
+        }
+        catch ( ModelloException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().indexOf( "unknown" ) >= 0 );
+        }
+
+        // the model was loaded before the generator lookup failed, and is kept
+        assertEquals( "Modello daemon running, 1 model(s) loaded.", client.status() );
+
+        assertEquals( "Dropped model " + model.getAbsolutePath() + ".", client.invalidate( model ) );
+        assertEquals( "Modello daemon running, 0 model(s) loaded.", client.status() );
+
+        assertEquals( "Modello daemon stopping.", client.stop() );
+
+        thread.join( 10000 );
+        assertFalse( thread.isAlive() );
+        assertFalse( portFile.exists() );
+    }
+
+    public void testInvalidToken()
+        throws Exception
+    {
+        File portFile = getTestFile( "target/modello-daemon/token.port" );
+
+        ModelloDaemon daemon = new ModelloDaemon( modello, portFile, 0 );
+        Thread thread = start( daemon );
+
+        File forgedPortFile = getTestFile( "target/modello-daemon/forged.port" );
+        FileUtils.fileWrite( forgedPortFile.getPath(), "ISO-8859-1",
+                             FileUtils.fileRead( portFile, "ISO-8859-1" ).replaceAll( "token=.*", "token=forged" ) );
+
+        try
+        {
+            new ModelloDaemonClient( forgedPortFile ).status();
+
+            fail( "Expected an invalid token error" );
+        }
+        catch ( ModelloException e )
+        {
+            assertEquals( "Invalid Modello daemon token.", e.getMessage() );
+        }
+
+        daemon.stop();
+
+        thread.join( 10000 );
+        assertFalse( thread.isAlive() );
+        assertFalse( portFile.exists() );
+    }
+
+    public void testIdleTimeout()
+        throws Exception
+    {
+        File portFile = getTestFile( "target/modello-daemon/idle.port" );
+
+        ModelloDaemon daemon = new ModelloDaemon( modello, portFile, 500 );
+        Thread thread = start( daemon );
+
+        new ModelloDaemonClient( portFile ).status();
+
+        thread.join( 10000 );
+        assertFalse( thread.isAlive() );
+        assertFalse( portFile.exists() );
+    }
+
+    private static Thread start( final ModelloDaemon daemon )
+        throws Exception
+    {
+        daemon.start();
+
+        Thread thread = new Thread( "modello-daemon" )
+        {
+            public void run()
+            {
+                try
+                {
+                    daemon.run();
+                }
+                catch ( Exception e )
+                {
+                    e.printStackTrace();
+                }
+            }
+        };
+        thread.start();
+
+        return thread;
+    }
+}
@@ -22,9 +22,15 @@ package org.codehaus.modello.core;
  * SOFTWARE.
  */
 
+import org.codehaus.modello.ModelloException;
 import org.codehaus.modello.ModelloRuntimeException;
 import org.codehaus.plexus.PlexusTestCase;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l</a>
  */
@@ -81,4 +87,81 @@ public class DefaultModelloCoreTest
             assertEquals( "Duplicate field in MyClass: MyAssociation.", ex.getMessage() );
         }
     }
+
+    public void testMetadataTasksAllRunInParallel()
+        throws Exception
+    {
+        final AtomicInteger count = new AtomicInteger();
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            tasks.add( new Callable<Void>()
+            {
+                public Void call()
+                {
+                    count.incrementAndGet();
+                    return null;
+                }
+            } );
+        }
+
+        DefaultModelloCore.invokeAll( tasks, 4 );
+
+        assertEquals( 100, count.get() );
+    }
+
+    public void testMetadataTaskFailureIsTheFirstInOrder()
+        throws Exception
+    {
+        for ( int threads = 1; threads <= 4; threads++ )
+        {
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for ( int i = 0; i < 20; i++ )
+            {
+                final int n = i;
+                tasks.add( new Callable<Void>()
+                {
+                    public Void call()
+                        throws ModelloException
+                    {
+                        if ( n == 5 )
+                        {
+                            // the later failure finishes first
+                            sleep( 50 );
+                            throw new ModelloException( "task " + n );
+                        }
+                        if ( n == 12 )
+                        {
+                            throw new IllegalStateException( "task " + n );
+                        }
+                        return null;
+                    }
+                } );
+            }
+
+            try
+            {
+                DefaultModelloCore.invokeAll( tasks, threads );
+
+                fail( "Expected ModelloException." );
+            }
+            catch ( ModelloException ex )
+            {
+                assertEquals( "task 5", ex.getMessage() );
+            }
+        }
+    }
+
+    private static void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
 }
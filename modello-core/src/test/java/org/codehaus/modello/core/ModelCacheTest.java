@@ -0,0 +1,134 @@
+package org.codehaus.modello.core;
+
+/*
+ * Copyright (c) 2004, Jason van Zyl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.ModelloRuntimeException;
+import org.codehaus.modello.model.Model;
+import org.codehaus.modello.model.ModelClass;
+import org.codehaus.modello.model.ModelField;
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+
+import java.io.File;
+
+public class ModelCacheTest
+    extends PlexusTestCase
+{
+    public void testModelIsLoadedOnce()
+        throws Exception
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        ModelCache cache = new ModelCache();
+
+        File file = getTestFile( "src/test/resources/models/simple.mdo" );
+
+        Model model = cache.getModel( file, modello );
+
+        assertTrue( model.isReadOnly() );
+        assertSame( model, cache.getModel( file, modello ) );
+        assertSame( model, cache.getModel( new File( file.getParentFile(), "../models/simple.mdo" ), modello ) );
+        assertEquals( 1, cache.size() );
+
+        cache.startSession( "next" );
+
+        assertEquals( 0, cache.size() );
+        assertNotSame( model, cache.getModel( file, modello ) );
+    }
+
+    public void testChangedModelIsReloaded()
+        throws Exception
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        ModelCache cache = new ModelCache();
+
+        File file = getTestFile( "target/model-cache/simple.mdo" );
+        FileUtils.copyFile( getTestFile( "src/test/resources/models/simple.mdo" ), file );
+
+        Model model = cache.getModel( file, modello );
+        assertEquals( "simple", model.getId() );
+
+        long lastModified = file.lastModified();
+        FileUtils.fileWrite( file.getPath(), "UTF-8",
+                             FileUtils.fileRead( file, "UTF-8" ).replace( "<id>simple</id>", "<id>edited</id>" ) );
+        file.setLastModified( lastModified );
+
+        Model reloaded = cache.getModel( file, modello );
+        assertNotSame( model, reloaded );
+        assertEquals( "edited", reloaded.getId() );
+    }
+
+    public void testCachedModelIsReadOnly()
+        throws Exception
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        Model model = new ModelCache().getModel( getTestFile( "src/test/resources/models/simple.mdo" ), modello );
+
+        ModelClass boy = model.getAllClasses().get( 0 );
+        ModelField name = boy.getAllFields().get( 0 );
+
+        try
+        {
+            model.addClass( new ModelClass( model, "Other" ) );
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException ex )
+        {
+            assertEquals( "Element 'Simple Modello Test Model' is read-only.", ex.getMessage() );
+        }
+
+        try
+        {
+            model.getAllClasses().clear();
+            fail( "Expected UnsupportedOperationException." );
+        }
+        catch ( UnsupportedOperationException ex )
+        {
+            // expected
+        }
+
+        try
+        {
+            boy.setSuperClass( "Other" );
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException ex )
+        {
+            assertEquals( "Element 'Boy' is read-only.", ex.getMessage() );
+        }
+
+        try
+        {
+            name.setType( "int" );
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException ex )
+        {
+            assertEquals( "Element 'name' is read-only.", ex.getMessage() );
+        }
+
+        assertEquals( "String", name.getType() );
+    }
+}
@@ -0,0 +1,98 @@
+package org.codehaus.modello.metadata;
+
+/*
+ * Copyright (c) 2004, Jason van Zyl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.modello.ModelloRuntimeException;
+import org.codehaus.modello.model.ModelClass;
+import org.codehaus.modello.model.ModelField;
+
+public class MetadataSlotTest
+    extends TestCase
+{
+    public static class FirstMetadata
+        implements FieldMetadata
+    {
+    }
+
+    public static class SecondMetadata
+        implements FieldMetadata
+    {
+    }
+
+    public static class UnusedMetadata
+        implements FieldMetadata
+    {
+    }
+
+    public void testSlots()
+    {
+        MetadataSlot<FirstMetadata> first = MetadataSlot.of( FirstMetadata.class );
+        MetadataSlot<SecondMetadata> second = MetadataSlot.of( SecondMetadata.class );
+
+        assertSame( first, MetadataSlot.of( FirstMetadata.class ) );
+        assertSame( first, MetadataSlot.forKey( FirstMetadata.class.getName() ) );
+        assertEquals( FirstMetadata.class.getName(), first.getKey() );
+        assertTrue( first.getIndex() != second.getIndex() );
+    }
+
+    public void testElementMetadata()
+    {
+        ModelField field = new ModelField( new ModelClass(), "field" );
+
+        SecondMetadata second = new SecondMetadata();
+        field.addMetadata( second );
+
+        assertSame( second, field.getMetadata( MetadataSlot.of( SecondMetadata.class ) ) );
+        assertSame( second, field.getMetadata( SecondMetadata.class.getName() ) );
+        assertTrue( field.hasMetadata( SecondMetadata.class.getName() ) );
+        assertEquals( 1, field.getAllMetadata().size() );
+
+        assertFalse( field.hasMetadata( FirstMetadata.class.getName() ) );
+        assertFalse( field.hasMetadata( "unknown" ) );
+
+        try
+        {
+            field.getMetadata( MetadataSlot.of( FirstMetadata.class ) );
+
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException e )
+        {
+            assertEquals( "No such metadata: '" + FirstMetadata.class.getName() + "' for element: 'field'.",
+                          e.getMessage() );
+        }
+
+        try
+        {
+            field.getMetadata( UnusedMetadata.class.getName() );
+
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException e )
+        {
+            assertEquals( "No such metadata: '" + UnusedMetadata.class.getName() + "' for element: 'field'.",
+                          e.getMessage() );
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package org.codehaus.modello.model;
+
+/*
+ * Copyright (c) 2004, Jason van Zyl
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import junit.framework.TestCase;
+import org.codehaus.modello.ModelloRuntimeException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ModelViewTest
+    extends TestCase
+{
+    private static final Version V1_0 = new Version( "1.0.0" );
+
+    private static final Version V1_1 = new Version( "1.1.0" );
+
+    private Model model;
+
+    protected void setUp()
+        throws Exception
+    {
+        model = new Model();
+        model.setId( "view" );
+
+        ModelClass parent = addClass( "Parent", "1.0.0+", null );
+        addField( parent, "id", "1.0.0+" ).setIdentifier( true );
+        addField( parent, "removed", "1.0.0/1.0.0" );
+
+        ModelClass child = addClass( "Child", "1.0.0/1.0.0", "Parent" );
+        addField( child, "name", "1.0.0" );
+
+        child = addClass( "Child", "1.1.0+", "Parent" );
+        addField( child, "name", "1.1.0+" );
+        addField( child, "added", "1.1.0+" );
+
+        addClass( "External", "1.0.0+", "java.lang.Object" );
+
+        ModelInterface named = new ModelInterface( model, "Named" );
+        named.setVersionRange( new VersionRange( "1.1.0+" ) );
+        model.addInterface( named );
+
+        model.initialize();
+
+        for ( ModelClass modelClass : model.getAllClasses() )
+        {
+            modelClass.validateElement();
+        }
+    }
+
+    public void testViewMatchesModelLookups()
+    {
+        for ( Version version : Arrays.asList( V1_0, V1_1 ) )
+        {
+            ModelView view = model.view( version );
+
+            assertEquals( model.getClasses( version ), view.getClasses() );
+            assertEquals( model.getInterfaces( version ), view.getInterfaces() );
+
+            for ( ModelClass modelClass : model.getClasses( version ) )
+            {
+                assertSame( modelClass, view.getClass( modelClass.getName() ) );
+                assertEquals( modelClass.getFields( version ), view.getFields( modelClass ) );
+                assertEquals( modelClass.getIdentifierFields( version ), view.getIdentifierFields( modelClass ) );
+                assertEquals( modelClass.getAllFields( version, false ), view.getAllFields( modelClass, false ) );
+                assertEquals( modelClass.getAllFields( version, true ), view.getAllFields( modelClass, true ) );
+
+                for ( ModelField field : modelClass.getFields( version ) )
+                {
+                    assertSame( field, view.getField( modelClass, field.getName() ) );
+                    assertTrue( view.hasField( modelClass, field.getName() ) );
+                }
+            }
+        }
+    }
+
+    public void testFieldsForClass()
+    {
+        ModelView view = model.view( V1_1 );
+
+        ModelClass child = view.getClass( "Child" );
+
+        assertSame( model.getClass( "Child", V1_1 ), child );
+        assertEquals( Arrays.asList( "name", "added", "id" ), getNames( view.getFieldsForClass( child ) ) );
+
+        view = model.view( V1_0 );
+
+        assertEquals( Arrays.asList( "name", "id", "removed" ),
+                      getNames( view.getFieldsForClass( view.getClass( "Child" ) ) ) );
+    }
+
+    public void testMissingElements()
+    {
+        ModelView view = model.view( V1_0 );
+
+        assertFalse( view.hasClass( "Missing" ) );
+        assertNull( view.getClass( "Missing", true ) );
+        assertFalse( view.hasField( view.getClass( "Child" ), "added" ) );
+
+        try
+        {
+            view.getClass( "Missing" );
+
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException e )
+        {
+            assertEquals( "There is no class 'Missing' in the version range '1.0.0'.", e.getMessage() );
+        }
+
+        try
+        {
+            view.getInterface( "Named" );
+
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException e )
+        {
+            // Named only exists from 1.1.0
+        }
+
+        try
+        {
+            view.getFieldsForClass( view.getClass( "External" ) );
+
+            fail( "Expected ModelloRuntimeException." );
+        }
+        catch ( ModelloRuntimeException e )
+        {
+            // the superclass is not in the model
+        }
+    }
+
+    public void testReadOnlyModelViewIsShared()
+    {
+        assertNotSame( model.view( V1_0 ), model.view( V1_0 ) );
+
+        model.makeReadOnly();
+
+        assertSame( model.view( V1_0 ), model.view( V1_0 ) );
+        assertNotSame( model.view( V1_0 ), model.view( V1_1 ) );
+    }
+
+    private ModelClass addClass( String name, String versionRange, String superClass )
+    {
+        ModelClass modelClass = new ModelClass( model, name );
+        modelClass.setVersionRange( new VersionRange( versionRange ) );
+        modelClass.setSuperClass( superClass );
+        model.addClass( modelClass );
+
+        return modelClass;
+    }
+
+    private static ModelField addField( ModelClass modelClass, String name, String versionRange )
+    {
+        ModelField field = new ModelField( modelClass, name );
+        field.setVersionRange( new VersionRange( versionRange ) );
+        modelClass.addField( field );
+
+        return field;
+    }
+
+    private static List<String> getNames( List<ModelField> fields )
+    {
+        List<String> names = new ArrayList<String>();
+
+        for ( ModelField field : fields )
+        {
+            names.add( field.getName() );
+        }
+
+        return names;
+    }
+}
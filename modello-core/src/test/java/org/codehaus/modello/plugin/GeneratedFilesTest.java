@@ -0,0 +1,145 @@
+package org.codehaus.modello.plugin;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.plexus.PlexusTestCase;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+import org.sonatype.plexus.build.incremental.DefaultBuildContext;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.util.Collections;
+
+public class GeneratedFilesTest
+    extends PlexusTestCase
+{
+    private static final long TIMESTAMP = 1000000000000L;
+
+    private File outputDirectory;
+
+    protected void setUp()
+        throws Exception
+    {
+        super.setUp();
+
+        outputDirectory = getTestFile( "target/generated-files-test" );
+
+        FileUtils.deleteDirectory( outputDirectory );
+        outputDirectory.mkdirs();
+    }
+
+    public void testUnchangedFileIsNotRewritten()
+        throws Exception
+    {
+        File a = new File( outputDirectory, "a/A.java" );
+        a.getParentFile().mkdirs();
+
+        generate( "model:gen", new String[] { "a/A.java" }, "class A {}" );
+        assertEquals( "class A {}", FileUtils.fileRead( a ) );
+        a.setLastModified( TIMESTAMP );
+
+        generate( "model:gen", new String[] { "a/A.java" }, "class A {}" );
+        assertEquals( TIMESTAMP, a.lastModified() );
+
+        generate( "model:gen", new String[] { "a/A.java" }, "class A { int i; }" );
+        assertEquals( "class A { int i; }", FileUtils.fileRead( a ) );
+        assertTrue( a.lastModified() != TIMESTAMP );
+    }
+
+    public void testStaleFilesAreRemoved()
+        throws Exception
+    {
+        new File( outputDirectory, "a" ).mkdirs();
+
+        generate( "model:gen", new String[] { "a/A.java", "a/B.java" }, "class X {}" );
+        generate( "other:gen", new String[] { "a/C.java" }, "class X {}" );
+
+        assertTrue( new File( outputDirectory, GeneratedFiles.MANIFEST ).isFile() );
+
+        // B moved from model to other, C and A are not generated any more by their previous owners
+        GeneratedFiles files = new GeneratedFiles( outputDirectory, "model:gen", new DefaultBuildContext() );
+        IOUtil.close( files.newOutputStream( new File( outputDirectory, "a/A.java" ) ) );
+        assertEquals( Collections.singleton( new File( outputDirectory, "a/B.java" ) ), files.removeStaleFiles() );
+
+        assertTrue( new File( outputDirectory, "a/A.java" ).exists() );
+        assertFalse( new File( outputDirectory, "a/B.java" ).exists() );
+        assertTrue( new File( outputDirectory, "a/C.java" ).exists() );
+
+        files = new GeneratedFiles( outputDirectory, "other:gen", new DefaultBuildContext() );
+        IOUtil.close( files.newOutputStream( new File( outputDirectory, "a/A.java" ) ) );
+        assertEquals( Collections.singleton( new File( outputDirectory, "a/C.java" ) ), files.removeStaleFiles() );
+
+        // A is claimed by both keys now: removing it from one keeps the file
+        files = new GeneratedFiles( outputDirectory, "model:gen", new DefaultBuildContext() );
+        assertTrue( files.removeStaleFiles().isEmpty() );
+        assertTrue( new File( outputDirectory, "a/A.java" ).exists() );
+
+        files = new GeneratedFiles( outputDirectory, "other:gen", new DefaultBuildContext() );
+        assertEquals( Collections.singleton( new File( outputDirectory, "a/A.java" ) ), files.removeStaleFiles() );
+        assertFalse( new File( outputDirectory, GeneratedFiles.MANIFEST ).exists() );
+    }
+
+    public void testEditedFileIsNotUpToDate()
+        throws Exception
+    {
+        File a = new File( outputDirectory, "a/A.java" );
+        a.getParentFile().mkdirs();
+
+        GeneratedFiles files = new GeneratedFiles( outputDirectory, "model:gen", new DefaultBuildContext() );
+        files.setFingerprint( "run" );
+        OutputStream out = files.newOutputStream( a, "a" );
+        out.write( "class A {}".getBytes( "UTF-8" ) );
+        out.close();
+        files.removeStaleFiles();
+
+        files = new GeneratedFiles( outputDirectory, "model:gen", new DefaultBuildContext() );
+        files.setFingerprint( "run" );
+        assertTrue( files.isUpToDate() );
+        assertTrue( files.isUpToDate( a, "a" ) );
+        assertFalse( files.isUpToDate( a, "b" ) );
+        files.removeStaleFiles();
+
+        FileUtils.fileAppend( a.getPath(), "// edited" );
+
+        files = new GeneratedFiles( outputDirectory, "model:gen", new DefaultBuildContext() );
+        files.setFingerprint( "run" );
+        assertFalse( files.isUpToDate() );
+        assertFalse( files.isUpToDate( a, "a" ) );
+    }
+
+    private void generate( String key, String[] paths, String content )
+        throws Exception
+    {
+        GeneratedFiles files = new GeneratedFiles( outputDirectory, key, new DefaultBuildContext() );
+
+        for ( String path : paths )
+        {
+            OutputStream out = files.newOutputStream( new File( outputDirectory, path ) );
+            out.write( content.getBytes( "UTF-8" ) );
+            out.close();
+        }
+
+        files.removeStaleFiles();
+    }
+}
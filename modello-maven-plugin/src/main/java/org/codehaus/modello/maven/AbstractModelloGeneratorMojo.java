@@ -27,8 +27,20 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.maven.model.Resource;
 import org.apache.maven.plugin.AbstractMojo;
@@ -36,11 +48,16 @@ import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
-import org.codehaus.modello.ModelloException;
 import org.codehaus.modello.ModelloParameterConstants;
+import org.codehaus.modello.core.ModelCache;
 import org.codehaus.modello.core.ModelloCore;
 import org.codehaus.modello.model.Model;
-import org.codehaus.modello.model.ModelValidationException;
+import org.codehaus.plexus.PlexusConstants;
+import org.codehaus.plexus.PlexusContainer;
+import org.codehaus.plexus.component.repository.exception.ComponentLookupException;
+import org.codehaus.plexus.context.Context;
+import org.codehaus.plexus.context.ContextException;
+import org.codehaus.plexus.personality.plexus.lifecycle.phase.Contextualizable;
 import org.codehaus.plexus.util.StringUtils;
 import org.sonatype.plexus.build.incremental.BuildContext;
 
@@ -49,6 +66,7 @@ import org.sonatype.plexus.build.incremental.BuildContext;
  */
 public abstract class AbstractModelloGeneratorMojo
     extends AbstractMojo
+    implements Contextualizable
 {
     // ----------------------------------------------------------------------
     // Parameters
@@ -103,12 +121,63 @@ public abstract class AbstractModelloGeneratorMojo
     @Component
     private BuildContext buildContext;
 
+    /**
+     * Spread the work over several threads: every model is loaded and every (model, version, generator)
+     * combination is generated as a separate work item, each one using its own Modello core and generator
+     * instances.
+     *
+     * @since 1.9
+     */
+    @Parameter( property = "modello.parallel", defaultValue = "false" )
+    private boolean parallel;
+
+    /**
+     * Maximum number of threads used when <code>parallel</code> is enabled. Defaults to the number of available
+     * processors.
+     *
+     * @since 1.9
+     */
+    @Parameter( property = "modello.threads", defaultValue = "0" )
+    private int threads;
+
+    /**
+     * Reuse the models already loaded by other Modello executions in the same build instead of loading them again,
+     * as long as the model file is unchanged. Cached models are read-only.
+     *
+     * @since 1.9
+     */
+    @Parameter( property = "modello.modelCache", defaultValue = "true" )
+    private boolean useModelCache = true;
+
+    /**
+     * Identifies the build session the model cache belongs to.
+     */
+    @Parameter( defaultValue = "${session.startTime}", readonly = true )
+    private Date sessionStartTime;
+
+    private PlexusContainer container;
+
+    /**
+     * Models loaded in the current build session, shared by all executions and modules using this plugin realm.
+     */
+    private static final ModelCache MODEL_CACHE = new ModelCache();
+
     // ----------------------------------------------------------------------
     // Overridables
     // ----------------------------------------------------------------------
 
     protected abstract String getGeneratorType();
 
+    /**
+     * The generators to run on every model and version, by default only {@link #getGeneratorType()}.
+     *
+     * @since 1.9
+     */
+    protected List<String> getGeneratorTypes()
+    {
+        return Collections.singletonList( getGeneratorType() );
+    }
+
     public abstract File getOutputDirectory();
 
     protected boolean producesCompilableResult()
@@ -178,24 +247,44 @@ public abstract class AbstractModelloGeneratorMojo
         
         customizeParameters( parameters );
 
+        if ( useModelCache )
+        {
+            MODEL_CACHE.startSession( sessionStartTime );
+        }
+
         // ----------------------------------------------------------------------
         //
         // ----------------------------------------------------------------------
 
-        MojoExecutionException firstError = null;
-        for ( String modelStr : models )
+        int threadCount = ( threads > 0 ) ? threads : Runtime.getRuntime().availableProcessors();
+
+        if ( parallel && threadCount > 1 && container == null )
         {
-            try
-            {
-                doExecute( modelStr, outputDirectory, parameters );
-            }
-            catch ( MojoExecutionException e )
+            getLog().warn( "No Plexus container available to isolate generators per thread, generating sequentially" );
+        }
+
+        MojoExecutionException firstError;
+        if ( parallel && threadCount > 1 && container != null )
+        {
+            firstError = executeParallel( outputDirectory, parameters, threadCount );
+        }
+        else
+        {
+            firstError = null;
+            for ( String modelStr : models )
             {
-                if ( firstError == null )
+                try
                 {
-                    firstError = e;
+                    doExecute( modelStr, outputDirectory, parameters );
+                }
+                catch ( MojoExecutionException e )
+                {
+                    if ( firstError == null )
+                    {
+                        firstError = e;
+                    }
+                    getLog().error( e );
                 }
-                getLog().error( e );
             }
         }
         if ( firstError != null )
@@ -223,77 +312,314 @@ public abstract class AbstractModelloGeneratorMojo
 
         try
         {
-            Model model = modelloCore.loadModel( modelFile );
+            Model model = loadModel( modelloCore, modelFile );
 
             // TODO: dynamically resolve/load the generator type
-            getLog().info( "Generating current version: " + version );
-            modelloCore.generate( model, getGeneratorType(), parameters );
-
-            for ( String version : packagedVersions )
+            for ( String generatorType : getGeneratorTypes() )
             {
                 parameters.setProperty( ModelloParameterConstants.VERSION, version );
 
-                parameters.setProperty( ModelloParameterConstants.PACKAGE_WITH_VERSION, Boolean.toString( true ) );
+                parameters.setProperty( ModelloParameterConstants.PACKAGE_WITH_VERSION,
+                                        Boolean.toString( packageWithVersion ) );
+
+                getLog().info( "Generating current version: " + version );
+                modelloCore.generate( model, generatorType, parameters );
+
+                for ( String version : packagedVersions )
+                {
+                    parameters.setProperty( ModelloParameterConstants.VERSION, version );
+
+                    parameters.setProperty( ModelloParameterConstants.PACKAGE_WITH_VERSION, Boolean.toString( true ) );
+
+                    getLog().info( "Generating packaged version: " + version );
+                    modelloCore.generate( model, generatorType, parameters );
+                }
+            }
+
+            addOutputDirectory( outputDirectory );
+        }
+        catch ( Exception e )
+        {
+            throw reportError( modelFile, e );
+        }
+    }
+
+    /**
+     * Performs execute on all models, loading each model and generating each (model, version, generator) work item
+     * on a bounded thread pool. Every work item borrows a dedicated Modello core, since generators keep their state in
+     * instance fields. Errors are reported on the calling thread, in model order.
+     *
+     * @return the first error, or <code>null</code> if every model was generated
+     */
+    private MojoExecutionException executeParallel( String outputDirectory, final Properties parameters,
+                                                    int threadCount )
+        throws MojoExecutionException
+    {
+        Map<File, Future<Model>> loads = new LinkedHashMap<File, Future<Model>>();
+
+        for ( String modelStr : models )
+        {
+            if ( !buildContext.hasDelta( modelStr ) )
+            {
+                getLog().debug( "Skipping unchanged model: " + modelStr );
+                continue;
+            }
+
+            File modelFile = new File( basedir, modelStr );
+            buildContext.removeMessages( modelFile );
+
+            loads.put( modelFile, null );
+        }
+
+        if ( loads.isEmpty() )
+        {
+            return null;
+        }
+
+        final BlockingQueue<ModelloCore> cores = new ArrayBlockingQueue<ModelloCore>( threadCount );
+        try
+        {
+            for ( int i = 0; i < threadCount; i++ )
+            {
+                cores.add( (ModelloCore) container.lookup( ModelloCore.ROLE ) );
+            }
+        }
+        catch ( ComponentLookupException e )
+        {
+            throw new MojoExecutionException( "Unable to lookup Modello core: " + e.getMessage(), e );
+        }
+
+        getLog().info( "Generating " + loads.size() + " model(s) using " + threadCount + " threads" );
+
+        ExecutorService executor = Executors.newFixedThreadPool( threadCount, new ModelloThreadFactory() );
+        try
+        {
+            for ( final File modelFile : loads.keySet() )
+            {
+                loads.put( modelFile, executor.submit( new Callable<Model>()
+                {
+                    public Model call()
+                        throws Exception
+                    {
+                        ModelloCore core = cores.take();
+                        try
+                        {
+                            return loadModel( core, modelFile );
+                        }
+                        finally
+                        {
+                            cores.add( core );
+                        }
+                    }
+                } ) );
+            }
+
+            Map<File, List<Future<?>>> generations = new LinkedHashMap<File, List<Future<?>>>();
+            Map<File, Exception> errors = new LinkedHashMap<File, Exception>();
+
+            for ( Map.Entry<File, Future<Model>> load : loads.entrySet() )
+            {
+                File modelFile = load.getKey();
+
+                final Model model;
+                try
+                {
+                    model = await( load.getValue() );
+                }
+                catch ( Exception e )
+                {
+                    errors.put( modelFile, e );
+                    continue;
+                }
+
+                getLog().info( "Working on model: " + modelFile );
 
-                getLog().info( "Generating packaged version: " + version );
-                modelloCore.generate( model, getGeneratorType(), parameters );
+                List<Future<?>> items = new ArrayList<Future<?>>();
+                for ( final String generatorType : getGeneratorTypes() )
+                {
+                    final Properties current = new Properties();
+                    current.putAll( parameters );
+                    current.setProperty( ModelloParameterConstants.VERSION, version );
+                    current.setProperty( ModelloParameterConstants.PACKAGE_WITH_VERSION,
+                                         Boolean.toString( packageWithVersion ) );
+                    items.add( executor.submit( new GenerateCallable( cores, model, generatorType, current ) ) );
+
+                    for ( String version : packagedVersions )
+                    {
+                        Properties packaged = new Properties();
+                        packaged.putAll( parameters );
+                        packaged.setProperty( ModelloParameterConstants.VERSION, version );
+                        packaged.setProperty( ModelloParameterConstants.PACKAGE_WITH_VERSION,
+                                              Boolean.toString( true ) );
+                        items.add( executor.submit( new GenerateCallable( cores, model, generatorType, packaged ) ) );
+                    }
+                }
+                generations.put( modelFile, items );
             }
 
-            if ( producesCompilableResult() && project != null )
+            for ( Map.Entry<File, List<Future<?>>> generation : generations.entrySet() )
             {
-                project.addCompileSourceRoot( outputDirectory );
+                try
+                {
+                    for ( Future<?> item : generation.getValue() )
+                    {
+                        await( item );
+                    }
+                    addOutputDirectory( outputDirectory );
+                }
+                catch ( Exception e )
+                {
+                    errors.put( generation.getKey(), e );
+                }
             }
 
-            if ( producesResources() && project != null )
+            MojoExecutionException firstError = null;
+            for ( Map.Entry<File, Exception> error : errors.entrySet() )
             {
-                Resource resource = new Resource();
-                resource.setDirectory( outputDirectory );
-                project.addResource( resource );
+                MojoExecutionException e = reportError( error.getKey(), error.getValue() );
+                if ( firstError == null )
+                {
+                    firstError = e;
+                }
+                getLog().error( e );
             }
+            return firstError;
         }
-        catch ( FileNotFoundException e )
+        finally
         {
-            MojoExecutionException mojoExecutionException = new MojoExecutionException( e.getMessage(), e );
-            buildContext.addMessage( modelFile, 1 /* line */, 1 /* column */, mojoExecutionException.getMessage(),
-                                     BuildContext.SEVERITY_ERROR, mojoExecutionException );
-            throw mojoExecutionException;
+            executor.shutdownNow();
         }
-        catch ( ModelloException e )
+    }
+
+    private Model loadModel( ModelloCore core, File modelFile )
+        throws Exception
+    {
+        if ( useModelCache )
+        {
+            return MODEL_CACHE.getModel( modelFile, core );
+        }
+        return core.loadModel( modelFile );
+    }
+
+    private static <T> T await( Future<T> future )
+        throws Exception
+    {
+        try
         {
-            MojoExecutionException mojoExecutionException =
-                new MojoExecutionException( "Error generating: " + e.getMessage(), e );
-            // TODO: Provide actual line/column numbers
-            buildContext.addMessage( modelFile, 1 /* line */, 1 /* column */, mojoExecutionException.getMessage(),
-                                     BuildContext.SEVERITY_ERROR, mojoExecutionException );
-            throw mojoExecutionException;
+            return future.get();
         }
-        catch ( ModelValidationException e )
+        catch ( ExecutionException e )
         {
-            MojoExecutionException mojoExecutionException =
-                new MojoExecutionException( "Error generating: " + e.getMessage(), e );
-            // TODO: Provide actual line/column numbers
-            buildContext.addMessage( modelFile, 1 /* line */, 1 /* column */, mojoExecutionException.getMessage(),
-                                     BuildContext.SEVERITY_ERROR, mojoExecutionException );
-            throw mojoExecutionException;
+            Throwable cause = e.getCause();
+            if ( cause instanceof Exception )
+            {
+                throw (Exception) cause;
+            }
+            throw (Error) cause;
         }
-        catch ( IOException e )
+    }
+
+    private void addOutputDirectory( String outputDirectory )
+    {
+        if ( producesCompilableResult() && project != null )
         {
-            MojoExecutionException mojoExecutionException =
-                new MojoExecutionException( "Couldn't read file: " + e.getMessage(), e );
-            buildContext.addMessage( modelFile, 1 /* line */, 1 /* column */, mojoExecutionException.getMessage(),
-                                     BuildContext.SEVERITY_ERROR, mojoExecutionException );
-            throw mojoExecutionException;
+            project.addCompileSourceRoot( outputDirectory );
         }
-        catch ( RuntimeException e )
+
+        if ( producesResources() && project != null )
         {
-            MojoExecutionException mojoExecutionException =
-                new MojoExecutionException( "Error generating: " + e.getMessage(), e );
-            buildContext.addMessage( modelFile, 1 /* line */, 1 /* column */, mojoExecutionException.getMessage(),
-                                     BuildContext.SEVERITY_ERROR, mojoExecutionException );
-            throw mojoExecutionException;
+            Resource resource = new Resource();
+            resource.setDirectory( outputDirectory );
+            project.addResource( resource );
         }
     }
 
+    /**
+     * Reports a failure on a model through the build context.
+     *
+     * @return the exception to throw for this failure
+     */
+    private MojoExecutionException reportError( File modelFile, Exception e )
+    {
+        MojoExecutionException mojoExecutionException;
+        if ( e instanceof MojoExecutionException )
+        {
+            mojoExecutionException = (MojoExecutionException) e;
+        }
+        else if ( e instanceof FileNotFoundException )
+        {
+            mojoExecutionException = new MojoExecutionException( e.getMessage(), e );
+        }
+        else if ( e instanceof IOException )
+        {
+            mojoExecutionException = new MojoExecutionException( "Couldn't read file: " + e.getMessage(), e );
+        }
+        else
+        {
+            // ModelloException, ModelValidationException or RuntimeException
+            mojoExecutionException = new MojoExecutionException( "Error generating: " + e.getMessage(), e );
+        }
+
+        // TODO: Provide actual line/column numbers
+        buildContext.addMessage( modelFile, 1 /* line */, 1 /* column */, mojoExecutionException.getMessage(),
+                                 BuildContext.SEVERITY_ERROR, mojoExecutionException );
+        return mojoExecutionException;
+    }
+
+    private static class GenerateCallable
+        implements Callable<Object>
+    {
+        private final BlockingQueue<ModelloCore> cores;
+
+        private final Model model;
+
+        private final String generatorType;
+
+        private final Properties parameters;
+
+        GenerateCallable( BlockingQueue<ModelloCore> cores, Model model, String generatorType, Properties parameters )
+        {
+            this.cores = cores;
+            this.model = model;
+            this.generatorType = generatorType;
+            this.parameters = parameters;
+        }
+
+        public Object call()
+            throws Exception
+        {
+            ModelloCore core = cores.take();
+            try
+            {
+                core.generate( model, generatorType, parameters );
+                return null;
+            }
+            finally
+            {
+                cores.add( core );
+            }
+        }
+    }
+
+    private static class ModelloThreadFactory
+        implements ThreadFactory
+    {
+        private final AtomicInteger count = new AtomicInteger();
+
+        public Thread newThread( Runnable r )
+        {
+            Thread thread = new Thread( r, "modello-" + count.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        }
+    }
+
+    public void contextualize( Context context )
+        throws ContextException
+    {
+        container = (PlexusContainer) context.get( PlexusConstants.PLEXUS_KEY );
+    }
+
     // ----------------------------------------------------------------------
     // Accessors
     // ----------------------------------------------------------------------
@@ -353,6 +679,36 @@ public abstract class AbstractModelloGeneratorMojo
         this.project = project;
     }
 
+    public boolean isParallel()
+    {
+        return parallel;
+    }
+
+    public void setParallel( boolean parallel )
+    {
+        this.parallel = parallel;
+    }
+
+    public int getThreads()
+    {
+        return threads;
+    }
+
+    public void setThreads( int threads )
+    {
+        this.threads = threads;
+    }
+
+    public boolean isUseModelCache()
+    {
+        return useModelCache;
+    }
+
+    public void setUseModelCache( boolean useModelCache )
+    {
+        this.useModelCache = useModelCache;
+    }
+
     public void setPackagedVersions( List<String> packagedVersions )
     {
         this.packagedVersions = Collections.unmodifiableList( packagedVersions );
@@ -28,7 +28,10 @@ import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.codehaus.modello.plugin.ModelloGenerator;
+import org.codehaus.plexus.util.StringUtils;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -93,21 +96,43 @@ public class ModelloGenerateMojo
     @Parameter( property = "modello.generator.id", defaultValue = "java" )
     private String generatorId;
 
+    /**
+     * Several generators to run in this execution, instead of <code>generatorId</code>. Combined with
+     * <code>parallel</code>, each (model, version, generator) is generated concurrently.
+     *
+     * @since 1.9
+     */
+    @Parameter
+    private List<String> generatorIds;
+
     protected String getGeneratorType()
     {
         return generatorId;
     }
 
+    protected List<String> getGeneratorTypes()
+    {
+        if ( generatorIds == null || generatorIds.isEmpty() )
+        {
+            return Collections.singletonList( generatorId );
+        }
+        return generatorIds;
+    }
+
     public void execute()
         throws MojoExecutionException
     {
-        if ( !generatorMap.containsKey( generatorId ) )
+        for ( String id : getGeneratorTypes() )
         {
-            throw new MojoExecutionException( "Unable to execute modello, generator id [" + generatorId
-                            + "] not found.  (Available generator ids : " + generatorMap.keySet() + ")" );
+            if ( !generatorMap.containsKey( id ) )
+            {
+                throw new MojoExecutionException( "Unable to execute modello, generator id [" + id
+                                + "] not found.  (Available generator ids : " + generatorMap.keySet() + ")" );
+            }
         }
 
-        getLog().info( "[modello:generate {generator: " + generatorId + "}]" );
+        getLog().info( "[modello:generate {generator: " + StringUtils.join( getGeneratorTypes().iterator(), ", " )
+            + "}]" );
 
         super.execute();
     }
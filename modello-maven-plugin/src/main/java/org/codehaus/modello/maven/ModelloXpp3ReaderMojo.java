@@ -22,8 +22,12 @@ package org.codehaus.modello.maven;
  * SOFTWARE.
  */
 
+import java.util.Properties;
+
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.codehaus.modello.ModelloParameterConstants;
 
 /**
  * Creates an XPP3 reader from the model.
@@ -34,8 +38,33 @@ import org.apache.maven.plugins.annotations.Mojo;
 public class ModelloXpp3ReaderMojo
     extends AbstractModelloSourceGeneratorMojo
 {
+    /**
+     * Dispatch child elements with a <code>switch</code> on an index looked up by tag name, instead of a chain of
+     * tag name comparisons: parsing cost then doesn't grow with the number of fields of a class.
+     * @since 1.9
+     */
+    @Parameter( property = "xpp3IndexedDispatch", defaultValue = "false" )
+    private boolean indexedDispatch;
+
+    /**
+     * Generate a reader able to parse the items of the root element associations in parallel, on the
+     * <code>ForkJoinPool</code> given to the reader. The generated code then requires Java 7.
+     * @since 1.9
+     */
+    @Parameter( property = "xpp3Parallel", defaultValue = "false" )
+    private boolean parallel;
+
     protected String getGeneratorType()
     {
         return "xpp3-reader";
     }
+
+    @Override
+    protected void customizeParameters( Properties parameters )
+    {
+        super.customizeParameters( parameters );
+
+        parameters.setProperty( ModelloParameterConstants.XPP3_INDEXED_DISPATCH, Boolean.toString( indexedDispatch ) );
+        parameters.setProperty( ModelloParameterConstants.XPP3_PARALLEL, Boolean.toString( parallel ) );
+    }
 }
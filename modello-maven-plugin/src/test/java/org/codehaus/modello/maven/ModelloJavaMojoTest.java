@@ -38,6 +38,18 @@ public class ModelloJavaMojoTest
 {
     public void testModelloJavaMojo()
         throws Exception
+    {
+        executeModelloJavaMojo( "target/java-test", false );
+    }
+
+    public void testModelloJavaMojoParallel()
+        throws Exception
+    {
+        executeModelloJavaMojo( "target/java-test-parallel", true );
+    }
+
+    private void executeModelloJavaMojo( String output, boolean parallel )
+        throws Exception
     {
         ModelloCore modelloCore = (ModelloCore) lookup( ModelloCore.ROLE );
 
@@ -45,7 +57,7 @@ public class ModelloJavaMojoTest
 
         ModelloJavaMojo mojo = new ModelloJavaMojo();
 
-        File outputDirectory = getTestFile( "target/java-test" );
+        File outputDirectory = getTestFile( output );
 
         FileUtils.deleteDirectory( outputDirectory );
 
@@ -69,6 +81,15 @@ public class ModelloJavaMojoTest
         
         mojo.setBuildContext( buildContext );
 
+        if ( parallel )
+        {
+            mojo.contextualize( getContainer().getContext() );
+
+            mojo.setParallel( true );
+
+            mojo.setThreads( 4 );
+        }
+
         mojo.execute();
 
         // ----------------------------------------------------------------------
@@ -30,6 +30,7 @@ import org.codehaus.modello.model.ModelAssociation;
 import org.codehaus.modello.model.ModelClass;
 import org.codehaus.modello.model.ModelDefault;
 import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.model.ModelView;
 import org.codehaus.modello.model.Version;
 import org.codehaus.modello.model.VersionDefinition;
 import org.codehaus.modello.plugin.java.AbstractJavaModelloGenerator;
@@ -124,9 +125,11 @@ public class ConverterGenerator
 
         VersionDefinition versionDefinition = objectModel.getVersionDefinition();
 
-        for ( ModelClass modelClass : objectModel.getClasses( fromVersion ) )
+        ModelView toView = ( toVersion == null ) ? null : objectModel.view( toVersion );
+
+        for ( ModelClass modelClass : getView().getClasses() )
         {
-            JavaClassMetadata javaClassMetadata = (JavaClassMetadata) modelClass.getMetadata( JavaClassMetadata.ID );
+            JavaClassMetadata javaClassMetadata = modelClass.getMetadata( JavaClassMetadata.SLOT );
 
             if ( !javaClassMetadata.isEnabled() )
             {
@@ -147,6 +150,10 @@ public class ConverterGenerator
             String targetClass =
                 modelClass.getPackageName( toVersion != null, toVersion ) + "." + modelClass.getName();
 
+            // immutable objects are filled through their builder, then created once converted
+            boolean immutable = isImmutable( modelClass );
+            String targetImplementation = immutable ? targetClass + ".Builder" : targetClass;
+
             if ( !javaClassMetadata.isAbstract() )
             {
                 // Don't generate converter for abstract classes.
@@ -162,13 +169,13 @@ public class ConverterGenerator
 
                 JSourceCode sc = jMethod.getSourceCode();
 
-                sc.add( "return " + methodName + "( " + parameterName + ", new " + targetClass + "() );" );
+                sc.add( "return " + methodName + "( " + parameterName + ", new " + targetImplementation + "() );" );
             }
 
             // Actual conversion method, takes implementation as a parameter to facilitate being called as a superclass
             JMethod jMethod = new JMethod( methodName, new JType( targetClass ), null );
             jMethod.addParameter( new JParameter( new JType( sourceClass ), parameterName ) );
-            jMethod.addParameter( new JParameter( new JType( targetClass ), "value" ) );
+            jMethod.addParameter( new JParameter( new JType( targetImplementation ), "value" ) );
             basicConverterClass.addMethod( jMethod );
 
             JSourceCode sc = jMethod.getSourceCode();
@@ -193,7 +200,7 @@ public class ConverterGenerator
                 sc.add( "" );
             }
 
-            for ( ModelField modelField : modelClass.getFields( fromVersion ) )
+            for ( ModelField modelField : getView().getFields( modelClass ) )
             {
                 String name = capitalise( modelField.getName() );
 
@@ -217,7 +224,7 @@ public class ConverterGenerator
                     ModelField newField = null;
                     try
                     {
-                        newField = modelClass.getField( modelField.getName(), toVersion );
+                        newField = toView.getField( modelClass, modelField.getName() );
                     }
                     catch ( ModelloRuntimeException e )
                     {
@@ -245,7 +252,10 @@ public class ConverterGenerator
 
                             sc.indent();
 
-                            sc.add( assoc.getType() + " list = " + assoc.getDefaultValue() + ";" );
+                            if ( !immutable )
+                            {
+                                sc.add( assoc.getType() + " list = " + assoc.getDefaultValue() + ";" );
+                            }
 
                             sc.add( "for ( java.util.Iterator i = " + parameterName + ".get" + name
                                 + "().iterator(); i.hasNext(); )" );
@@ -264,20 +274,26 @@ public class ConverterGenerator
                                 sc.add( assoc.getTo() + " v = (" + assoc.getTo() + ") i.next();" );
                             }
 
+                            String adder = immutable ? "value.add" + capitalise( singular( modelField.getName() ) )
+                                            : "list.add";
+
                             if ( isClassInModel( assoc.getTo(), objectModel ) )
                             {
-                                sc.add( "list.add( convert" + assoc.getTo() + "( v ) );" );
+                                sc.add( adder + "( convert" + assoc.getTo() + "( v ) );" );
                             }
                             else
                             {
-                                sc.add( "list.add( v );" );
+                                sc.add( adder + "( v );" );
                             }
 
                             sc.unindent();
 
                             sc.add( "}" );
 
-                            sc.add( "value.set" + name + "( list );" );
+                            if ( !immutable )
+                            {
+                                sc.add( "value.set" + name + "( list );" );
+                            }
 
                             sc.unindent();
 
@@ -290,7 +306,10 @@ public class ConverterGenerator
                             sc.indent();
 
                             // Map or Properties
-                            sc.add( assoc.getType() + " map = " + assoc.getDefaultValue() + ";" );
+                            if ( !immutable )
+                            {
+                                sc.add( assoc.getType() + " map = " + assoc.getDefaultValue() + ";" );
+                            }
 
                             sc.add( "for ( java.util.Iterator i = " + parameterName + ".get" + name
                                 + "().entrySet().iterator(); i.hasNext(); )" );
@@ -311,20 +330,26 @@ public class ConverterGenerator
                                 sc.add( assoc.getTo() + " v = (" + assoc.getTo() + ") entry.getValue();" );
                             }
 
+                            String adder = immutable ? "value.add" + capitalise( singular( modelField.getName() ) )
+                                            : "map.put";
+
                             if ( isClassInModel( assoc.getTo(), objectModel ) )
                             {
-                                sc.add( "map.put( entry.getKey(), convert" + assoc.getTo() + "( v ) );" );
+                                sc.add( adder + "( entry.getKey(), convert" + assoc.getTo() + "( v ) );" );
                             }
                             else
                             {
-                                sc.add( "map.put( entry.getKey(), v );" );
+                                sc.add( adder + "( entry.getKey(), v );" );
                             }
 
                             sc.unindent();
 
                             sc.add( "}" );
 
-                            sc.add( "value.set" + name + "( map );" );
+                            if ( !immutable )
+                            {
+                                sc.add( "value.set" + name + "( map );" );
+                            }
 
                             sc.unindent();
 
@@ -341,8 +366,7 @@ public class ConverterGenerator
                 {
                     sc.add( "// Convert field " + modelField.getName() );
 
-                    JavaFieldMetadata javaFieldMetadata =
-                        (JavaFieldMetadata) modelField.getMetadata( JavaFieldMetadata.ID );
+                    JavaFieldMetadata javaFieldMetadata = modelField.getMetadata( JavaFieldMetadata.SLOT );
                     String value = parameterName + "." + getPrefix( javaFieldMetadata ) + name + "()";
                     sc.add( "value.set" + name + "( " + value + " );" );
                 }
@@ -350,7 +374,7 @@ public class ConverterGenerator
 
             sc.add( "" );
 
-            sc.add( "return value;" );
+            sc.add( "return value" + ( immutable ? ".build()" : "" ) + ";" );
         }
 
         JSourceWriter interfaceWriter = null;
@@ -377,7 +401,7 @@ public class ConverterGenerator
         Model objectModel = getModel();
         String root = objectModel.getRoot( getGeneratedVersion() );
 
-        ModelClass rootClass = objectModel.getClass( root, getGeneratedVersion() );
+        ModelClass rootClass = getView().getClass( root );
 
 
         String basePackage = objectModel.getDefaultPackageName( false, null );
@@ -0,0 +1,76 @@
+package org.codehaus.modello.plugin.converters;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.AbstractModelloJavaGeneratorTest;
+import org.codehaus.modello.ModelloParameterConstants;
+import org.codehaus.modello.core.ModelloCore;
+import org.codehaus.modello.model.Model;
+
+import java.util.Properties;
+
+/**
+ * Converts immutable classes, which are filled through the builder of the target version.
+ */
+public class ImmutableConverterGeneratorTest
+    extends AbstractModelloJavaGeneratorTest
+{
+    public ImmutableConverterGeneratorTest()
+    {
+        super( "immutable" );
+    }
+
+    public void testImmutableConverterGenerator()
+        throws Throwable
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        Model model = modello.loadModel( getXmlResourceReader( "/models/immutable.mdo" ) );
+
+        Properties parameters = new Properties();
+        parameters.setProperty( ModelloParameterConstants.OUTPUT_DIRECTORY, getOutputDirectory().getAbsolutePath() );
+        parameters.setProperty( ModelloParameterConstants.ALL_VERSIONS, "1.0.0,1.1.0" );
+
+        String[] outputTypes = { "java", "stax-reader", "stax-writer", "converters" };
+        for ( String outputType : outputTypes )
+        {
+            parameters.setProperty( ModelloParameterConstants.PACKAGE_WITH_VERSION, Boolean.toString( false ) );
+            parameters.setProperty( ModelloParameterConstants.VERSION, "1.1.0" );
+            modello.generate( model, outputType, parameters );
+
+            parameters.setProperty( ModelloParameterConstants.PACKAGE_WITH_VERSION, Boolean.toString( true ) );
+            parameters.setProperty( ModelloParameterConstants.VERSION, "1.0.0" );
+            modello.generate( model, outputType, parameters );
+
+            parameters.setProperty( ModelloParameterConstants.VERSION, "1.1.0" );
+            modello.generate( model, outputType, parameters );
+        }
+
+        addDependency( "stax", "stax-api" );
+        addDependency( "org.codehaus.woodstox", "wstx-asl" );
+
+        compileGeneratedSources();
+
+        verifyCompiledGeneratedSources( "ImmutableConvertersVerifier" );
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.verifier.Verifier;
+
+import junit.framework.Assert;
+import java.io.File;
+
+public class ImmutableConvertersVerifier
+    extends Verifier
+{
+    public void verify()
+        throws Exception
+    {
+        verifyConverter();
+
+        verifyConverterTool();
+    }
+
+    public void verifyConverter()
+    {
+        org.codehaus.modello.test.immutable.v1_0_0.Dependency dependency =
+            new org.codehaus.modello.test.immutable.v1_0_0.Dependency.Builder().setGroupId( "junit" )
+                .setArtifactId( "junit" ).setType( "pom" ).build();
+        org.codehaus.modello.test.immutable.v1_0_0.Project project =
+            new org.codehaus.modello.test.immutable.v1_0_0.Project.Builder().setModelVersion( "1.0.0" )
+                .setName( "modello" ).addModule( "core" ).addDependency( dependency ).addProperty( "key", "value" )
+                .build();
+
+        org.codehaus.modello.test.immutable.v1_1_0.Project converted =
+            new org.codehaus.modello.test.immutable.v1_0_0.convert.BasicVersionConverter().convertProject( project );
+
+        assertProject( converted );
+    }
+
+    public void verifyConverterTool()
+        throws Exception
+    {
+        File file = new File( "src/test/verifiers/immutable/input.xml" );
+
+        org.codehaus.modello.test.immutable.convert.ConverterTool convert =
+            new org.codehaus.modello.test.immutable.convert.ConverterTool();
+
+        org.codehaus.modello.test.immutable.v1_0_0.Project projectV1 = convert.convertFromFile_v1_0_0( file );
+        Assert.assertEquals( "modello", projectV1.getName() );
+
+        assertProject( convert.convertFromFile_v1_1_0( file ) );
+
+        org.codehaus.modello.test.immutable.Project project = convert.convertFromFile( file );
+        Assert.assertEquals( "1.1.0", project.getModelVersion() );
+        Assert.assertEquals( "modello", project.getName() );
+        Assert.assertEquals( 1, project.getDependencies().size() );
+    }
+
+    private void assertProject( org.codehaus.modello.test.immutable.v1_1_0.Project project )
+    {
+        Assert.assertEquals( "1.1.0", project.getModelVersion() );
+        Assert.assertEquals( "modello", project.getName() );
+        Assert.assertEquals( "1.0", project.getVersion() );
+        Assert.assertNull( project.getDescription() );
+        Assert.assertEquals( 1, project.getModules().size() );
+        Assert.assertEquals( "core", project.getModules().get( 0 ) );
+        Assert.assertEquals( 1, project.getDependencies().size() );
+
+        org.codehaus.modello.test.immutable.v1_1_0.Dependency dependency =
+            (org.codehaus.modello.test.immutable.v1_1_0.Dependency) project.getDependencies().get( 0 );
+        Assert.assertEquals( "junit", dependency.getGroupId() );
+        Assert.assertEquals( "pom", dependency.getType() );
+        Assert.assertFalse( dependency.isOptional() );
+
+        Assert.assertEquals( "value", project.getProperties().get( "key" ) );
+    }
+}
@@ -106,7 +106,7 @@ public class Dom4jReaderGenerator
 
         addModelImports( jClass, null );
 
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
         JClass rootType = new JClass( root.getName() );
 
         // ----------------------------------------------------------------------
@@ -132,7 +132,14 @@ public class Dom4jReaderGenerator
         sc.add( className + ' ' + variableName + " = parse" + root.getName() + "( \"" + resolveTagName( root )
                 + "\", document.getRootElement(), strict );" );
 
-        sc.add( variableName + ".setModelEncoding( encoding );" );
+        if ( isImmutable( root ) )
+        {
+            sc.add( variableName + " = " + variableName + ".withModelEncoding( encoding );" );
+        }
+        else
+        {
+            sc.add( variableName + ".setModelEncoding( encoding );" );
+        }
 
         sc.add( "return " + variableName + ";" );
 
@@ -261,6 +268,8 @@ public class Dom4jReaderGenerator
 
         writeHelpers( jClass );
 
+        writeDateFormatHelper( jClass );
+
         if ( requiresDomSupport )
         {
             jClass.addImport( "org.codehaus.plexus.util.xml.Xpp3Dom" );
@@ -278,7 +287,7 @@ public class Dom4jReaderGenerator
 
     private void writeAllClassesParser( Model objectModel, JClass jClass )
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         for ( ModelClass clazz : getClasses( objectModel ) )
         {
@@ -306,7 +315,17 @@ public class Dom4jReaderGenerator
 
         JSourceCode sc = unmarshall.getSourceCode();
 
-        sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        boolean immutable = isImmutable( modelClass );
+
+        if ( immutable )
+        {
+            // the fields are collected by the builder, creating the object at the end
+            sc.add( className + ".Builder " + uncapClassName + " = new " + className + ".Builder();" );
+        }
+        else
+        {
+            sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        }
 
         ModelField contentField = null;
 
@@ -315,7 +334,7 @@ public class Dom4jReaderGenerator
         // read all XML attributes first
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isAttribute() )
             {
@@ -384,7 +403,7 @@ public class Dom4jReaderGenerator
 
             for ( ModelField field : modelFields )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
                 if ( !xmlFieldMetadata.isAttribute() )
                 {
@@ -417,7 +436,7 @@ public class Dom4jReaderGenerator
             sc.add( "}" );
         }
 
-        sc.add( "return " + uncapClassName + ";" );
+        sc.add( "return " + uncapClassName + ( immutable ? ".build()" : "" ) + ";" );
 
         jClass.addMethod( unmarshall );
     }
@@ -473,8 +492,7 @@ public class Dom4jReaderGenerator
             {
                 //MANY_MULTIPLICITY
 
-                XmlAssociationMetadata xmlAssociationMetadata =
-                    (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
                 String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
 
@@ -484,6 +502,13 @@ public class Dom4jReaderGenerator
                 {
                     boolean wrappedItems = xmlAssociationMetadata.isWrappedItems();
 
+                    // the builder of an immutable class has no getters, and only adders for collections
+                    boolean immutable = isImmutable( field.getModelClass() );
+
+                    String items = immutable ? objectName : associationName;
+
+                    String adder = immutable ? "add" + capitalise( singular( associationName ) ) : "add";
+
                     if ( wrappedItems )
                     {
                         sc.add( tagComparison );
@@ -491,9 +516,12 @@ public class Dom4jReaderGenerator
                         sc.add( "{" );
                         sc.indent();
 
-                        sc.add( type + " " + associationName + " = " + association.getDefaultValue() + ";" );
+                        if ( !immutable )
+                        {
+                            sc.add( type + " " + associationName + " = " + association.getDefaultValue() + ";" );
 
-                        sc.add( objectName + ".set" + capFieldName + "( " + associationName + " );" );
+                            sc.add( objectName + ".set" + capFieldName + "( " + associationName + " );" );
+                        }
 
                         sc.add( "for ( Iterator j = childElement.nodeIterator(); j.hasNext(); )" );
 
@@ -525,29 +553,33 @@ public class Dom4jReaderGenerator
 
                         sc.add( "Element listElement = childElement;" );
 
-                        sc.add( type + " " + associationName + " = " + objectName + ".get" + capFieldName + "();" );
+                        if ( !immutable )
+                        {
+                            sc.add( type + " " + associationName + " = " + objectName + ".get" + capFieldName
+                                + "();" );
 
-                        sc.add( "if ( " + associationName + " == null )" );
+                            sc.add( "if ( " + associationName + " == null )" );
 
-                        sc.add( "{" );
-                        sc.indent();
+                            sc.add( "{" );
+                            sc.indent();
 
-                        sc.add( associationName + " = " + association.getDefaultValue() + ";" );
+                            sc.add( associationName + " = " + association.getDefaultValue() + ";" );
 
-                        sc.add( objectName + ".set" + capFieldName + "( " + associationName + " );" );
+                            sc.add( objectName + ".set" + capFieldName + "( " + associationName + " );" );
 
-                        sc.unindent();
-                        sc.add( "}" );
+                            sc.unindent();
+                            sc.add( "}" );
+                        }
                     }
 
                     if ( isClassInModel( association.getTo(), field.getModelClass().getModel() ) )
                     {
-                        sc.add( associationName + ".add( parse" + association.getTo() + "( \"" + valuesTagName
+                        sc.add( items + "." + adder + "( parse" + association.getTo() + "( \"" + valuesTagName
                             + "\", listElement, strict ) );" );
                     }
                     else
                     {
-                        writePrimitiveField( association, association.getTo(), associationName, "add", sc, jClass,
+                        writePrimitiveField( association, association.getTo(), items, adder, sc, jClass,
                                              "childElement", "listElement" );
                     }
 
@@ -720,7 +752,7 @@ public class Dom4jReaderGenerator
     private void writePrimitiveField( ModelField field, String type, String objectName, String setterName,
                                       JSourceCode sc, JClass jClass, String parentElementName, String childElementName )
     {
-        XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+        XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
         String tagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -107,7 +107,7 @@ public class Dom4jWriterGenerator
 
         String root = objectModel.getRoot( getGeneratedVersion() );
 
-        ModelClass rootClass = objectModel.getClass( root, getGeneratedVersion() );
+        ModelClass rootClass = getView().getClass( root );
 
         String rootElement = resolveTagName( rootClass );
         String variableName = uncapitalise( root );
@@ -167,6 +167,8 @@ public class Dom4jWriterGenerator
 
         writeAllClasses( objectModel, jClass );
 
+        writeDateFormatHelper( jClass );
+
         if ( requiresDomSupport )
         {
             jClass.addImport( "org.codehaus.plexus.util.xml.Xpp3Dom" );
@@ -200,7 +202,7 @@ public class Dom4jWriterGenerator
         marshall.addParameter( new JParameter( new JClass( className ), uncapClassName ) );
         marshall.addParameter( new JParameter( new JClass( "String" ), "tagName" ) );
 
-        ModelClassMetadata classMetadata = (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+        ModelClassMetadata classMetadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
 
         marshall.addParameter( new JParameter( new JClass( "org.dom4j.Branch" ), "parentElement" ) );
 
@@ -213,7 +215,7 @@ public class Dom4jWriterGenerator
         sc.add( "{" );
         sc.indent();
 
-        XmlModelMetadata xmlModelMetadata = (XmlModelMetadata) modelClass.getModel().getMetadata( XmlModelMetadata.ID );
+        XmlModelMetadata xmlModelMetadata = modelClass.getModel().getMetadata( XmlModelMetadata.SLOT );
 
         // add namespace information for root element only
         if ( classMetadata.isRootElement() && ( xmlModelMetadata.getNamespace() != null ) )
@@ -244,9 +246,9 @@ public class Dom4jWriterGenerator
         // XML attributes
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -274,14 +276,14 @@ public class Dom4jWriterGenerator
 
         if ( contentField != null )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) contentField.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = contentField.getMetadata( XmlFieldMetadata.SLOT );
             sc.add( "element.setText( " + getValue( contentField.getType(), contentValue, xmlFieldMetadata ) + " );" );
         }
 
         // XML tags
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isContent() )
             {
@@ -305,7 +307,7 @@ public class Dom4jWriterGenerator
                                JSourceCode sc, ModelClass modelClass, JClass jClass )
         throws ModelloException
     {
-        JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+        JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
         String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -331,8 +333,7 @@ public class Dom4jWriterGenerator
             {
                 //MANY_MULTIPLICITY
 
-                XmlAssociationMetadata xmlAssociationMetadata =
-                    (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
                 String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
 
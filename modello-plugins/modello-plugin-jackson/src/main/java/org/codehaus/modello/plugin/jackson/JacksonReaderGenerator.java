@@ -74,6 +74,12 @@ public class JacksonReaderGenerator
         return false;
     }
 
+    @Override
+    protected String getParserPosition()
+    {
+        return "parser.getTokenLocation().getLineNr(), parser.getTokenLocation().getColumnNr()";
+    }
+
     public void generate( Model model, Properties parameters )
         throws ModelloException
     {
@@ -93,8 +99,7 @@ public class JacksonReaderGenerator
                                                 + ", cannot generate extended reader." );
             }
 
-            locationField =
-                ( (ModelClassMetadata) locationTracker.getMetadata( ModelClassMetadata.ID ) ).getLocationTracker();
+            locationField = locationTracker.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
 
             sourceTracker = model.getSourceTracker( getGeneratedVersion() );
 
@@ -116,7 +121,7 @@ public class JacksonReaderGenerator
 
     private void writeAllClassesReaders( Model objectModel, JClass jClass )
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         for ( ModelClass clazz : getClasses( objectModel ) )
         {
@@ -140,7 +145,7 @@ public class JacksonReaderGenerator
             return;
         }
 
-        XmlClassMetadata xmlClassMetadata = (XmlClassMetadata) modelClass.getMetadata( XmlClassMetadata.ID );
+        XmlClassMetadata xmlClassMetadata = modelClass.getMetadata( XmlClassMetadata.SLOT );
         if ( !rootElement && !xmlClassMetadata.isStandaloneRead() )
         {
             return;
@@ -202,18 +207,23 @@ public class JacksonReaderGenerator
 
         sc.add( "JsonParser parser = factory.createParser( reader );" );
 
-        sc.add( "return " + readerMethodName + "( parser, strict );" );
+        sc.add( "return " + readerMethodName + "( parser, strict" + trackingArgs + " );" );
 
-        jClass.addMethod( unmarshall );unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
+        jClass.addMethod( unmarshall );
 
-        unmarshall.addParameter( new JParameter( new JClass( "Reader" ), "reader" ) );
+        if ( locationTracker == null )
+        {
+            unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
 
-        unmarshall.addException( new JClass( "IOException" ) );
+            unmarshall.addParameter( new JParameter( new JClass( "Reader" ), "reader" ) );
 
-        sc = unmarshall.getSourceCode();
-        sc.add( "return " + readerMethodName + "( reader, true );" );
+            unmarshall.addException( new JClass( "IOException" ) );
 
-        jClass.addMethod( unmarshall );
+            sc = unmarshall.getSourceCode();
+            sc.add( "return " + readerMethodName + "( reader, true );" );
+
+            jClass.addMethod( unmarshall );
+        }
 
         // ----------------------------------------------------------------------
         // Write the read(InputStream[,boolean]) methods which will do the unmarshalling.
@@ -231,17 +241,22 @@ public class JacksonReaderGenerator
 
         sc.add( "return " + readerMethodName + "( new InputStreamReader( in ), strict" + trackingArgs + " );" );
 
-        jClass.addMethod( unmarshall );unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
+        jClass.addMethod( unmarshall );
 
-        unmarshall.addParameter( new JParameter( new JClass( "InputStream" ), "in" ) );
+        if ( locationTracker == null )
+        {
+            unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
 
-        unmarshall.addException( new JClass( "IOException" ) );
+            unmarshall.addParameter( new JParameter( new JClass( "InputStream" ), "in" ) );
 
-        sc = unmarshall.getSourceCode();
+            unmarshall.addException( new JClass( "IOException" ) );
 
-        sc.add( "return " + readerMethodName + "( in, true );" );
+            sc = unmarshall.getSourceCode();
 
-        jClass.addMethod( unmarshall );
+            sc.add( "return " + readerMethodName + "( in, true );" );
+
+            jClass.addMethod( unmarshall );
+        }
 
         // --------------------------------------------------------------------
     }
@@ -312,6 +327,8 @@ public class JacksonReaderGenerator
 
         writeHelpers( jClass );
 
+        writeLocationFactory( jClass, locationTracker, sourceTracker );
+
         // ----------------------------------------------------------------------
         // DOM support
         // ----------------------------------------------------------------------
@@ -332,7 +349,7 @@ public class JacksonReaderGenerator
 
     private void writeAllClassesParser( Model objectModel, JClass jClass )
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         for ( ModelClass clazz : getClasses( objectModel ) )
         {
@@ -380,7 +397,17 @@ public class JacksonReaderGenerator
                         + "' data to start with an Object\", parser.getCurrentLocation() );" );
         sc.add( "}" );
 
-        sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        boolean immutable = isImmutable( modelClass );
+
+        if ( immutable )
+        {
+            // the fields are collected by the builder, creating the object at the end
+            sc.add( className + ".Builder " + uncapClassName + " = new " + className + ".Builder();" );
+        }
+        else
+        {
+            sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        }
 
         if ( locationTracker != null )
         {
@@ -393,22 +420,22 @@ public class JacksonReaderGenerator
         {
             //Write other fields
 
-            sc.add( "Set<String> parsed = new HashSet<String>();" );
+            sc.add( getParsedFieldsDeclaration( "parsed", modelFields.size() ) );
 
             sc.add( "while ( JsonToken.END_OBJECT != parser.nextToken() )" );
 
             sc.add( "{" );
             sc.indent();
 
-            boolean addElse = false;
+            boolean addElse = !modelFields.isEmpty();
 
-            for ( ModelField field : modelFields )
+            for ( int i = 0; i < modelFields.size(); i++ )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+                ModelField field = modelFields.get( i );
 
-                processField( field, xmlFieldMetadata, addElse, sc, uncapClassName, jClass );
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-                addElse = true;
+                processField( field, xmlFieldMetadata, i, modelFields.size(), sc, uncapClassName, jClass );
             }
 
             if ( addElse )
@@ -431,7 +458,7 @@ public class JacksonReaderGenerator
             sc.add( "}" );
         }
 
-        sc.add( "return " + uncapClassName + ";" );
+        sc.add( "return " + uncapClassName + ( immutable ? ".build()" : "" ) + ";" );
 
         jClass.addMethod( unmarshall );
     }
@@ -441,14 +468,18 @@ public class JacksonReaderGenerator
      *
      * @param field            the field to process
      * @param xmlFieldMetadata its XML metadata
-     * @param addElse          add an <code>else</code> statement before generating a new <code>if</code>
+     * @param fieldIndex       the index of the field: an <code>else</code> statement is added before generating a
+     *                         new <code>if</code> if not the first one
+     * @param fieldCount       the number of fields
      * @param sc               the method source code to add to
      * @param objectName       the object name in the source
      * @param jClass           the generated class source file
      */
-    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, boolean addElse, JSourceCode sc,
-                               String objectName, JClass jClass )
+    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, int fieldIndex, int fieldCount,
+                               JSourceCode sc, String objectName, JClass jClass )
     {
+        boolean addElse = fieldIndex > 0;
+
         String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
         String capFieldName = capitalise( field.getName() );
@@ -467,7 +498,9 @@ public class JacksonReaderGenerator
 
         String tagComparison =
             ( addElse ? "else " : "" ) + "if ( checkFieldWithDuplicate( parser, \"" + fieldTagName + "\", " + alias
-                + ", parsed ) )";
+                + ", " + getFieldParsedCheck( "parsed", fieldIndex, fieldCount ) + " ) )";
+
+        String parsedMark = getFieldParsedMark( "parsed", fieldIndex, fieldCount );
 
         if ( !( field instanceof ModelAssociation ) )
         { // model field
@@ -477,6 +510,8 @@ public class JacksonReaderGenerator
 
             sc.indent();
 
+            sc.add( parsedMark );
+
             writePrimitiveField( field, field.getType(), objectName, objectName, "\"" + field.getName() + "\"",
                                  "set" + capFieldName, sc, false );
 
@@ -494,17 +529,21 @@ public class JacksonReaderGenerator
                 sc.add( tagComparison );
 
                 sc.add( "{" );
-                sc.addIndented(
-                    objectName + ".set" + capFieldName + "( parse" + association.getTo() + "( parser, strict"
-                        + trackingArgs + " ) );" );
+                sc.indent();
+
+                sc.add( parsedMark );
+
+                sc.add( objectName + ".set" + capFieldName + "( parse" + association.getTo() + "( parser, strict"
+                            + trackingArgs + " ) );" );
+
+                sc.unindent();
                 sc.add( "}" );
             }
             else
             {
                 //MANY_MULTIPLICITY
 
-                XmlAssociationMetadata xmlAssociationMetadata =
-                    (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
                 String type = association.getType();
 
@@ -512,15 +551,13 @@ public class JacksonReaderGenerator
                 {
                     boolean inModel = isClassInModel( association.getTo(), field.getModelClass().getModel() );
 
-                    sc.add( ( addElse ? "else " : "" ) + "if ( checkFieldWithDuplicate( parser, \""
-                            + fieldTagName
-                            + "\", "
-                            + alias
-                            + ", parsed ) )" );
+                    sc.add( tagComparison );
 
                     sc.add( "{" );
                     sc.indent();
 
+                    sc.add( parsedMark );
+
                     sc.add( "if ( JsonToken.START_ARRAY != parser.nextToken() )" );
                     sc.add( "{" );
                     sc.addIndented( "throw new JsonParseException( \"Expected '"
@@ -528,11 +565,18 @@ public class JacksonReaderGenerator
                                     + "' data to start with an Array\", parser.getCurrentLocation() );" );
                     sc.add( "}" );
 
-                    JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) association.getMetadata( JavaFieldMetadata.ID );
+                    JavaFieldMetadata javaFieldMetadata = association.getMetadata( JavaFieldMetadata.SLOT );
+
+                    boolean immutable = isImmutable( field.getModelClass() );
 
                     String adder;
 
-                    if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
+                    if ( immutable )
+                    {
+                        // the builder of an immutable class has no getters, and only adders for collections
+                        adder = objectName + ".add" + capitalise( singular( associationName ) );
+                    }
+                    else if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
                     {
                         sc.add( type + " " + associationName + " = " + objectName + ".get" + capFieldName + "();" );
 
@@ -589,8 +633,16 @@ public class JacksonReaderGenerator
                             key = ( useJava5 ? "Integer.valueOf" : "new java.lang.Integer" ) + "( " + associationName
                                 + ".size() )";
                         }
-                        writePrimitiveField( association, association.getTo(), associationName, LOCATION_VAR + "s", key,
-                                             "add", sc, true );
+                        if ( immutable )
+                        {
+                            writePrimitiveField( association, association.getTo(), objectName, LOCATION_VAR + "s",
+                                                 key, "add" + capitalise( singular( associationName ) ), sc, true );
+                        }
+                        else
+                        {
+                            writePrimitiveField( association, association.getTo(), associationName,
+                                                 LOCATION_VAR + "s", key, "add", sc, true );
+                        }
                     }
 
                     sc.unindent();
@@ -608,6 +660,8 @@ public class JacksonReaderGenerator
                     sc.add( "{" );
                     sc.indent();
 
+                    sc.add( parsedMark );
+
                     if ( locationTracker != null )
                     {
                         sc.add( locationTracker.getName() + " " + LOCATION_VAR + "s;" );
@@ -641,16 +695,18 @@ public class JacksonReaderGenerator
 
                         sc.add( "String value = null;" );
 
-                        sc.add( "Set<String> parsedPropertiesElements = new HashSet<String>();" );
+                        sc.add( getParsedFieldsDeclaration( "parsedPropertiesElements", 2 ) );
 
                         sc.add( "while ( JsonToken.END_OBJECT != parser.nextToken() )" );
 
                         sc.add( "{" );
                         sc.indent();
 
-                        sc.add( "if ( checkFieldWithDuplicate( parser, \"key\", \"\", parsedPropertiesElements ) )" );
+                        sc.add( "if ( checkFieldWithDuplicate( parser, \"key\", \"\", "
+                                + getFieldParsedCheck( "parsedPropertiesElements", 0, 2 ) + " ) )" );
 
                         sc.add( "{" );
+                        sc.addIndented( getFieldParsedMark( "parsedPropertiesElements", 0, 2 ) );
                         sc.addIndented( "parser.nextToken();" );
 
                         String parserGetter = "parser.getText()";
@@ -663,9 +719,11 @@ public class JacksonReaderGenerator
                         sc.addIndented( "key = " + parserGetter + ";" );
                         sc.add( "}" );
 
-                        sc.add( "else if ( checkFieldWithDuplicate( parser, \"value\", \"\", parsedPropertiesElements ) )" );
+                        sc.add( "else if ( checkFieldWithDuplicate( parser, \"value\", \"\", "
+                                + getFieldParsedCheck( "parsedPropertiesElements", 1, 2 ) + " ) )" );
 
                         sc.add( "{" );
+                        sc.addIndented( getFieldParsedMark( "parsedPropertiesElements", 1, 2 ) );
                         sc.addIndented( "parser.nextToken();" );
 
                         parserGetter = "parser.getText()";
@@ -731,7 +789,7 @@ public class JacksonReaderGenerator
     private void writePrimitiveField( ModelField field, String type, String objectName, String locatorName,
                                       String locationKey, String setterName, JSourceCode sc, boolean wrappedItem )
     {
-        XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+        XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
         String parserGetter = null;
         if ( "boolean".equals( type ) || "Boolean".equals( type ) )
@@ -872,7 +930,7 @@ public class JacksonReaderGenerator
         method.addParameter( new JParameter( new JClass( "JsonParser" ), "parser" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "tagName" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "alias" ) );
-        method.addParameter( new JParameter( new JClass( "Set" ), "parsed" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "parsed" ) );
         method.addException( new JClass( "IOException" ) );
 
         sc = method.getSourceCode();
@@ -887,7 +945,7 @@ public class JacksonReaderGenerator
         sc.addIndented( "return false;" );
         sc.add( "}" );
 
-        sc.add( "if ( !parsed.add( tagName ) )" );
+        sc.add( "if ( parsed )" );
 
         sc.add( "{" );
         sc.addIndented( "throw new JsonParseException( \"Duplicated tag: '\" + tagName + \"'\", parser.getCurrentLocation() );" );
@@ -982,22 +1040,32 @@ public class JacksonReaderGenerator
 
     private void writeNewSetLocation( String key, String objectName, String trackerVariable, JSourceCode sc )
     {
-        writeNewLocation( trackerVariable, sc );
+        writeNewLocation( trackerVariable, "\"\"".equals( key ), sc );
         writeSetLocation( key, objectName, trackerVariable, sc );
     }
 
     private void writeNewLocation( String trackerVariable, JSourceCode sc )
+    {
+        writeNewLocation( trackerVariable, false, sc );
+    }
+
+    private void writeNewLocation( String trackerVariable, boolean element, JSourceCode sc )
     {
         if ( locationTracker == null )
         {
             return;
         }
 
-        String constr = "new " + locationTracker.getName() + "( parser.getLineNumber(), parser.getColumnNumber()";
-        constr += ( sourceTracker != null ) ? ", " + SOURCE_PARAM : "";
-        constr += " )";
+        String variable = ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR;
+
+        if ( LOCATION_VAR.equals( variable ) )
+        {
+            // single locations may be shared, not the ones receiving the locations of collection items
+            sc.add( variable + " = " + getNewLocation( sourceTracker, SOURCE_PARAM, element ) + ";" );
+            return;
+        }
 
-        sc.add( ( ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR ) + " = " + constr + ";" );
+        sc.add( variable + " = " + getNewItemsLocation( sourceTracker, SOURCE_PARAM ) + ";" );
     }
 
     private void writeSetLocation( String key, String objectName, String trackerVariable, JSourceCode sc )
@@ -1009,7 +1077,21 @@ public class JacksonReaderGenerator
 
         String variable = ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR;
 
-        sc.add( objectName + ".set" + capitalise( singular( locationField ) ) + "( " + key + ", " + variable + " );" );
+        String setLocation =
+            objectName + ".set" + capitalise( singular( locationField ) ) + "( " + key + ", " + variable + " );";
+
+        if ( ( LOCATION_VAR + "s" ).equals( objectName ) )
+        {
+            // no locations of collection items in coarse mode
+            sc.add( "if ( " + objectName + " != null )" );
+            sc.add( "{" );
+            sc.addIndented( setLocation );
+            sc.add( "}" );
+        }
+        else
+        {
+            sc.add( setLocation );
+        }
     }
 
 }
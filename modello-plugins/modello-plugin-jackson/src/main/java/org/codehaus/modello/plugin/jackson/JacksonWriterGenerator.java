@@ -212,9 +212,9 @@ public class JacksonWriterGenerator
         // XML tags
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -240,7 +240,7 @@ public class JacksonWriterGenerator
                     //MANY_MULTIPLICITY
 
                     XmlAssociationMetadata xmlAssociationMetadata =
-                        (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                        association.getMetadata( XmlAssociationMetadata.SLOT );
 
                     type = association.getType();
                     String toType = association.getTo();
@@ -318,7 +318,7 @@ public class JacksonWriterGenerator
                             }
                             else
                             {
-                                entryTypeBuilder.append( "String, " ).append( association.getTo() );
+                                entryTypeBuilder.append( "Object, " ).append( association.getTo() );
                             }
 
                             entryTypeBuilder.append( '>' );
@@ -0,0 +1,104 @@
+package org.codehaus.modello.generator.jackson;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.codehaus.modello.test.immutable.Dependency;
+import org.codehaus.modello.test.immutable.Project;
+import org.codehaus.modello.test.immutable.io.jackson.ImmutableJacksonReader;
+import org.codehaus.modello.test.immutable.io.jackson.ImmutableJacksonWriter;
+import org.codehaus.modello.verifier.Verifier;
+
+/**
+ * Checks that the Jackson reader fills <code>java.immutable</code> classes through their builder.
+ */
+public class JacksonImmutableVerifier
+    extends Verifier
+{
+    public void verify()
+        throws Exception
+    {
+        Project built = new Project.Builder().setName( "modello" ).addModule( "core" ).addModule( "plugins" )
+            .addDependency( new Dependency.Builder().setGroupId( "org.codehaus" ).setArtifactId( "plexus" )
+                                .setOptional( true ).build() )
+            .addDependency( new Dependency.Builder().setGroupId( "junit" ).setArtifactId( "junit" )
+                                .setType( "pom" ).build() )
+            .addProperty( "key", "value" ).build();
+
+        String written = write( built );
+
+        Project read = read( written );
+        Assert.assertEquals( "modello", read.getName() );
+        verifyContent( read );
+
+        Assert.assertEquals( written, write( read ) );
+    }
+
+    private Project read( String content )
+        throws Exception
+    {
+        return new ImmutableJacksonReader().read( new StringReader( content ), true );
+    }
+
+    private String write( Project project )
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        new ImmutableJacksonWriter().write( writer, project );
+        return writer.toString();
+    }
+
+    private void verifyContent( Project project )
+    {
+        Assert.assertEquals( 2, project.getModules().size() );
+        Assert.assertEquals( "core", project.getModules().get( 0 ) );
+        Assert.assertEquals( "plugins", project.getModules().get( 1 ) );
+
+        Assert.assertEquals( 2, project.getDependencies().size() );
+        Dependency plexus = (Dependency) project.getDependencies().get( 0 );
+        Assert.assertEquals( "org.codehaus", plexus.getGroupId() );
+        Assert.assertEquals( "plexus", plexus.getArtifactId() );
+        Assert.assertEquals( "jar", plexus.getType() );
+        Assert.assertTrue( plexus.isOptional() );
+        Dependency junit = (Dependency) project.getDependencies().get( 1 );
+        Assert.assertEquals( "pom", junit.getType() );
+        Assert.assertFalse( junit.isOptional() );
+
+        Assert.assertEquals( "value", project.getProperties().get( "key" ) );
+
+        try
+        {
+            project.getModules().add( "other" );
+            Assert.fail( "collections of immutable objects can't be changed" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+    }
+
+}
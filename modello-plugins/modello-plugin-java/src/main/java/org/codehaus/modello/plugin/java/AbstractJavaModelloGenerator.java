@@ -31,9 +31,11 @@ import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.Set;
 
 import org.codehaus.modello.ModelloException;
 import org.codehaus.modello.ModelloParameterConstants;
@@ -46,6 +48,7 @@ import org.codehaus.modello.model.ModelField;
 import org.codehaus.modello.model.ModelInterface;
 import org.codehaus.modello.model.ModelType;
 import org.codehaus.modello.plugin.AbstractModelloGenerator;
+import org.codehaus.modello.plugin.Fingerprint;
 import org.codehaus.modello.plugin.java.javasource.JClass;
 import org.codehaus.modello.plugin.java.javasource.JComment;
 import org.codehaus.modello.plugin.java.javasource.JInterface;
@@ -71,6 +74,11 @@ public abstract class AbstractJavaModelloGenerator
 
     protected boolean domAsXpp3 = true;
 
+    /**
+     * The part of the fingerprints shared by every type of the model, computed once per run.
+     */
+    private String typesFingerprint;
+
     protected void initialize( Model model, Properties parameters )
         throws ModelloException
     {
@@ -80,6 +88,8 @@ public abstract class AbstractJavaModelloGenerator
                                                   ModelloParameterConstants.USE_JAVA5, "false" ) ).booleanValue();
 
         domAsXpp3 = !"false".equals( parameters.getProperty( ModelloParameterConstants.DOM_AS_XPP3 ) );
+
+        typesFingerprint = null;
     }
 
     /**
@@ -93,16 +103,31 @@ public abstract class AbstractJavaModelloGenerator
     protected JSourceWriter newJSourceWriter( String packageName, String className )
         throws IOException
     {
-        String directory = packageName.replace( '.', File.separatorChar );
+        return newJSourceWriter( packageName, className, null );
+    }
 
-        File f = new File( new File( getOutputDirectory(), directory ), className + ".java" );
+    /**
+     * Create a new java source file writer, with configured encoding, recording the fingerprint of the model elements
+     * the source file is generated from.
+     *
+     * @param packageName the package of the source file to create
+     * @param className the class of the source file to create
+     * @param fingerprint the fingerprint of the model elements, as computed by {@link #getFingerprint(ModelType)}
+     * @return a JSourceWriter with configured encoding
+     * @throws IOException
+     * @since 1.9
+     */
+    protected JSourceWriter newJSourceWriter( String packageName, String className, String fingerprint )
+        throws IOException
+    {
+        File f = getJavaFile( packageName, className );
 
         if ( !f.getParentFile().exists() )
         {
             f.getParentFile().mkdirs();
         }
 
-        OutputStream os = getBuildContext().newFileOutputStream( f );
+        OutputStream os = newOutputStream( f, fingerprint );
 
         Writer writer = ( getEncoding() == null ) ? WriterFactory.newPlatformWriter( os )
                         : WriterFactory.newWriter( os, getEncoding() );
@@ -110,6 +135,97 @@ public abstract class AbstractJavaModelloGenerator
         return new JSourceWriter( writer );
     }
 
+    /**
+     * Checks if a java source file generated by a previous run from the same fingerprint still exists.
+     *
+     * @param packageName the package of the source file
+     * @param className the class of the source file
+     * @param fingerprint the fingerprint of the model elements, as computed by {@link #getFingerprint(ModelType)}
+     * @return <code>true</code> if the source file doesn't need to be generated again
+     * @throws IOException
+     * @since 1.9
+     */
+    protected boolean isUpToDate( String packageName, String className, String fingerprint )
+        throws IOException
+    {
+        return isUpToDate( getJavaFile( packageName, className ), fingerprint );
+    }
+
+    private File getJavaFile( String packageName, String className )
+    {
+        String directory = packageName.replace( '.', File.separatorChar );
+
+        return new File( new File( getOutputDirectory(), directory ), className + ".java" );
+    }
+
+    /**
+     * Computes the fingerprint of the model elements the java source of a class or interface is generated from: the
+     * type itself with its documentation, the names of every other type that can be imported, and the structure of
+     * its super classes, of the classes it is associated to and of the location trackers.
+     *
+     * @param type the class or interface
+     * @return the fingerprint
+     * @since 1.9
+     */
+    protected String getFingerprint( ModelType type )
+    {
+        Model objectModel = getModel();
+
+        if ( typesFingerprint == null )
+        {
+            Fingerprint fingerprint = newFingerprint().addModel( objectModel, false );
+
+            for ( ModelInterface modelInterface : objectModel.getAllInterfaces() )
+            {
+                fingerprint.addType( modelInterface, false );
+            }
+
+            for ( ModelClass modelClass : objectModel.getAllClasses() )
+            {
+                fingerprint.addType( modelClass, false );
+            }
+
+            typesFingerprint = fingerprint.digest();
+        }
+
+        Fingerprint fingerprint = new Fingerprint().add( typesFingerprint );
+
+        fingerprint.addTypeWithFields( type, true );
+
+        if ( type instanceof ModelClass )
+        {
+            Set<ModelClass> related = new LinkedHashSet<ModelClass>();
+
+            for ( ModelClass modelClass = (ModelClass) type; modelClass != null; )
+            {
+                for ( ModelField field : modelClass.getAllFields() )
+                {
+                    if ( field instanceof ModelAssociation && isClassInModel( ( (ModelAssociation) field ).getTo(),
+                                                                              objectModel ) )
+                    {
+                        related.add( getView().getClass( ( (ModelAssociation) field ).getTo(), true ) );
+                    }
+                }
+
+                modelClass = modelClass.hasSuperClass() && modelClass.isInternalSuperClass()
+                    ? getView().getClass( modelClass.getSuperClass(), true ) : null;
+
+                related.add( modelClass );
+            }
+
+            related.add( objectModel.getLocationTracker( getGeneratedVersion() ) );
+            related.add( objectModel.getSourceTracker( getGeneratedVersion() ) );
+            related.remove( null );
+
+            for ( ModelClass modelClass : related )
+            {
+                fingerprint.addTypeWithFields( modelClass, false );
+            }
+        }
+
+        return fingerprint.digest();
+    }
+
     private JComment getHeaderComment()
     {
         JComment comment = new JComment();
@@ -129,7 +245,7 @@ public abstract class AbstractJavaModelloGenerator
 
     protected void suppressAllWarnings( Model objectModel, JStructure structure )
     {
-        JavaModelMetadata javaModelMetadata = (JavaModelMetadata) objectModel.getMetadata( JavaModelMetadata.ID );
+        JavaModelMetadata javaModelMetadata = objectModel.getMetadata( JavaModelMetadata.SLOT );
 
         if ( useJava5 && javaModelMetadata.isSuppressAllWarnings() )
         {
@@ -147,7 +263,7 @@ public abstract class AbstractJavaModelloGenerator
         }
 
         // import interfaces
-        for ( ModelInterface modelInterface : getModel().getInterfaces( getGeneratedVersion() ) )
+        for ( ModelInterface modelInterface : getView().getInterfaces() )
         {
             addModelImport( jClass, modelInterface, basePackageName );
         }
@@ -339,7 +455,10 @@ public abstract class AbstractJavaModelloGenerator
     {
         List<ModelClass> modelClasses = new ArrayList<ModelClass>();
 
-        for ( ModelClass modelClass : model.getClasses( getGeneratedVersion() ) )
+        List<ModelClass> classes =
+            ( model == getModel() ) ? getView().getClasses() : model.getClasses( getGeneratedVersion() );
+
+        for ( ModelClass modelClass : classes )
         {
             if ( isRelevant( modelClass ) )
             {
@@ -357,13 +476,27 @@ public abstract class AbstractJavaModelloGenerator
 
     protected boolean isJavaEnabled( ModelClass modelClass )
     {
-        JavaClassMetadata javaClassMetadata = (JavaClassMetadata) modelClass.getMetadata( JavaClassMetadata.ID );
+        JavaClassMetadata javaClassMetadata = modelClass.getMetadata( JavaClassMetadata.SLOT );
         return javaClassMetadata.isEnabled();
     }
 
+    /**
+     * Check if a class is generated immutable, with final fields filled through its <code>Builder</code>, as set by
+     * <code>java.immutable</code>.
+     *
+     * @param modelClass the class to check
+     * @return <code>true</code> if the class is immutable
+     * @since 1.9
+     */
+    protected boolean isImmutable( ModelClass modelClass )
+    {
+        JavaClassMetadata javaClassMetadata = modelClass.getMetadata( JavaClassMetadata.SLOT );
+        return javaClassMetadata.isImmutable();
+    }
+
     protected boolean isTrackingSupport( ModelClass modelClass )
     {
-        ModelClassMetadata modelClassMetadata = (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+        ModelClassMetadata modelClassMetadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
         if ( StringUtils.isNotEmpty( modelClassMetadata.getLocationTracker() ) )
         {
             return true;
@@ -24,6 +24,7 @@ package org.codehaus.modello.plugin.java;
 
 import java.io.IOException;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -94,12 +95,13 @@ public class JavaModelloGenerator
 
         ModelClass locationTrackerClass = objectModel.getLocationTracker( getGeneratedVersion() );
         ModelClass sourceTrackerClass = objectModel.getSourceTracker( getGeneratedVersion() );
+        boolean packedLocations = isPackedLocations( locationTrackerClass );
 
         // ----------------------------------------------------------------------
         // Generate the interfaces.
         // ----------------------------------------------------------------------
 
-        for ( ModelInterface modelInterface : objectModel.getInterfaces( getGeneratedVersion() ) )
+        for ( ModelInterface modelInterface : getView().getInterfaces() )
         {
             generateInterface( modelInterface );
         }
@@ -110,9 +112,9 @@ public class JavaModelloGenerator
         // Generate the classes.
         // ----------------------------------------------------------------------
 
-        for ( ModelClass modelClass : objectModel.getClasses( getGeneratedVersion() ) )
+        for ( ModelClass modelClass : getView().getClasses() )
         {
-            JavaClassMetadata javaClassMetadata = (JavaClassMetadata) modelClass.getMetadata( JavaClassMetadata.ID );
+            JavaClassMetadata javaClassMetadata = modelClass.getMetadata( JavaClassMetadata.SLOT );
 
             if ( !javaClassMetadata.isEnabled() )
             {
@@ -122,7 +124,15 @@ public class JavaModelloGenerator
 
             String packageName = modelClass.getPackageName( isPackageWithVersion(), getGeneratedVersion() );
 
-            JSourceWriter sourceWriter = newJSourceWriter( packageName, modelClass.getName() );
+            String fingerprint = getFingerprint( modelClass );
+
+            if ( isUpToDate( packageName, modelClass.getName(), fingerprint ) )
+            {
+                // Skip generation of those classes that didn't change since the previous generation.
+                continue;
+            }
+
+            JSourceWriter sourceWriter = newJSourceWriter( packageName, modelClass.getName(), fingerprint );
 
             JClass jClass = new JClass( packageName + '.' + modelClass.getName() );
 
@@ -146,6 +156,8 @@ public class JavaModelloGenerator
                 superClassInModel = isClassInModel( modelClass.getSuperClass(), objectModel );
             }
 
+            checkImmutable( modelClass, superClassInModel, locationTrackerClass );
+
             for ( String implementedInterface : modelClass.getInterfaces() )
             {
                 jClass.addInterface( implementedInterface );
@@ -163,15 +175,31 @@ public class JavaModelloGenerator
 
             JSourceCode jConstructorSource = new JSourceCode();
 
-            for ( ModelField modelField : modelClass.getFields( getGeneratedVersion() ) )
+            if ( javaClassMetadata.isImmutable() )
+            {
+                // since 1.9
+                generateImmutableFields( jClass, modelClass, getImmutableFields( modelClass ) );
+            }
+            else
             {
-                if ( modelField instanceof ModelAssociation )
+                for ( ModelField modelField : getView().getFields( modelClass ) )
                 {
-                    createAssociation( jClass, (ModelAssociation) modelField, jConstructorSource );
+                    if ( modelField instanceof ModelAssociation )
+                    {
+                        createAssociation( jClass, (ModelAssociation) modelField, jConstructorSource );
+                    }
+                    else
+                    {
+                        createField( jClass, modelField );
+                    }
                 }
-                else
+
+                if ( !getSharedFields( modelClass ).isEmpty() )
                 {
-                    createField( jClass, modelField );
+                    JField cloneSharedFields = new JField( JType.LONG, "cloneSharedFields" );
+                    cloneSharedFields.setComment( "The fields still shared with a lazy clone or its original, one bit"
+                        + " each, copied on first access." );
+                    jClass.addField( cloneSharedFields );
                 }
             }
 
@@ -191,10 +219,21 @@ public class JavaModelloGenerator
             // equals() / hashCode() / toString()
             // ----------------------------------------------------------------------
 
-            List<ModelField> identifierFields = modelClass.getIdentifierFields( getGeneratedVersion() );
+            List<ModelField> identifierFields = getView().getIdentifierFields( modelClass );
 
             if ( identifierFields.size() != 0 )
             {
+                if ( isHashCached( modelClass ) )
+                {
+                    checkHashCache( modelClass );
+
+                    JField cachedHashCode = new JField( JType.INT, "cachedHashCode" );
+                    cachedHashCode.getModifiers().setTransient( true );
+                    cachedHashCode.setComment( "The hash code of the identifier fields of this class, 0 if not computed"
+                        + " since they were last set." );
+                    jClass.addField( cachedHashCode );
+                }
+
                 JMethod equals = generateEquals( modelClass );
 
                 jClass.addMethod( equals );
@@ -227,7 +266,8 @@ public class JavaModelloGenerator
             // since 1.8
             // ----------------------------------------------------------------------
 
-            if ( javaClassMetadata.isGenerateBuilder() )
+            // immutable classes can only be filled field by field through their builder
+            if ( javaClassMetadata.isGenerateBuilder() || javaClassMetadata.isImmutable() )
             {
                 generateBuilder( modelClass, jClass.createInnerClass( "Builder" ), jConstructor );
             }
@@ -258,18 +298,13 @@ public class JavaModelloGenerator
                 }
             }
 
-            ModelClassMetadata modelClassMetadata =
-                (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+            ModelClassMetadata modelClassMetadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
 
             if ( modelClassMetadata != null )
             {
-                if ( modelClassMetadata.isRootElement() )
+                if ( modelClassMetadata.isRootElement() && !javaClassMetadata.isImmutable() )
                 {
-                    ModelField modelEncoding = new ModelField( modelClass, "modelEncoding" );
-                    modelEncoding.setType( "String" );
-                    modelEncoding.setDefaultValue( "UTF-8" );
-                    modelEncoding.addMetadata( new JavaFieldMetadata() );
-                    createField( jClass, modelEncoding );
+                    createField( jClass, newModelEncodingField( modelClass ) );
                 }
             }
 
@@ -277,15 +312,33 @@ public class JavaModelloGenerator
             {
                 jClass.addInterface( locationTrackerInterface );
 
-                generateLocationBean( jClass, modelClass, sourceTrackerClass );
+                generateLocationBean( jClass, modelClass, sourceTrackerClass, packedLocations );
 
-                generateLocationTracking( jClass, modelClass, locationTrackerClass );
+                if ( packedLocations )
+                {
+                    generatePackedLocationIndices( jClass, modelClass, sourceTrackerClass );
+                }
+                else
+                {
+                    generateLocationTracking( jClass, modelClass, locationTrackerClass );
+                }
             }
             else if ( locationTrackerClass != null && modelClass != sourceTrackerClass && !superClassInModel )
             {
                 jClass.addInterface( locationTrackerInterface );
 
-                generateLocationTracking( jClass, modelClass, locationTrackerClass );
+                if ( packedLocations )
+                {
+                    generatePackedLocationTracking( jClass, modelClass, locationTrackerClass, sourceTrackerClass );
+                }
+                else
+                {
+                    generateLocationTracking( jClass, modelClass, locationTrackerClass );
+                }
+            }
+            else if ( packedLocations && modelClass != sourceTrackerClass )
+            {
+                generatePackedLocationSlots( jClass, modelClass, locationTrackerClass, sourceTrackerClass );
             }
 
             jClass.print( sourceWriter );
@@ -301,7 +354,14 @@ public class JavaModelloGenerator
 
         String packageName = modelInterface.getPackageName( isPackageWithVersion(), getGeneratedVersion() );
 
-        JSourceWriter sourceWriter = newJSourceWriter( packageName, modelInterface.getName() );
+        String fingerprint = getFingerprint( modelInterface );
+
+        if ( isUpToDate( packageName, modelInterface.getName(), fingerprint ) )
+        {
+            return;
+        }
+
+        JSourceWriter sourceWriter = newJSourceWriter( packageName, modelInterface.getName(), fingerprint );
 
         JInterface jInterface = new JInterface( packageName + '.' + modelInterface.getName() );
 
@@ -315,7 +375,7 @@ public class JavaModelloGenerator
             try
             {
                 ModelInterface superInterface =
-                    objectModel.getInterface( modelInterface.getSuperInterface(), getGeneratedVersion() );
+                    getView().getInterface( modelInterface.getSuperInterface() );
                 String superPackageName =
                     superInterface.getPackageName( isPackageWithVersion(), getGeneratedVersion() );
 
@@ -372,17 +432,37 @@ public class JavaModelloGenerator
         sc.add( "}" );
         sc.add( "" );
         sc.add( modelClass.getName() + " that = (" + modelClass.getName() + ") other;" );
+
+        if ( isHashCached( modelClass ) )
+        {
+            // both hashes are only compared once computed: equals() must not pay for hashing
+            sc.add( "" );
+            sc.add( "if ( cachedHashCode != 0 && that.cachedHashCode != 0 && cachedHashCode != that.cachedHashCode )" );
+            sc.add( "{" );
+            sc.addIndented( "return false;" );
+            sc.add( "}" );
+            sc.add( "" );
+        }
+
         sc.add( "boolean result = true;" );
 
         sc.add( "" );
 
-        for ( ModelField identifier : modelClass.getIdentifierFields( getGeneratedVersion() ) )
+        for ( ModelField identifier : getView().getIdentifierFields( modelClass ) )
         {
             String name = identifier.getName();
-            if ( "boolean".equals( identifier.getType() ) || "byte".equals( identifier.getType() ) || "char".equals(
-                identifier.getType() ) || "double".equals( identifier.getType() ) || "float".equals(
-                identifier.getType() ) || "int".equals( identifier.getType() ) || "short".equals( identifier.getType() )
-                || "long".equals( identifier.getType() ) )
+            if ( "double".equals( identifier.getType() ) )
+            {
+                // same as Double.equals(), consistent with the Double.doubleToLongBits() used by hashCode()
+                sc.add( "result = result && Double.compare( " + name + ", that." + name + " ) == 0;" );
+            }
+            else if ( "float".equals( identifier.getType() ) )
+            {
+                sc.add( "result = result && Float.compare( " + name + ", that." + name + " ) == 0;" );
+            }
+            else if ( "boolean".equals( identifier.getType() ) || "byte".equals( identifier.getType() )
+                || "char".equals( identifier.getType() ) || "int".equals( identifier.getType() )
+                || "short".equals( identifier.getType() ) || "long".equals( identifier.getType() ) )
             {
                 sc.add( "result = result && " + name + " == that." + name + ";" );
             }
@@ -407,11 +487,74 @@ public class JavaModelloGenerator
         return equals;
     }
 
+    /**
+     * Check if the class caches the hash code of its identifier fields, as set by <code>java.hashCache</code>.
+     *
+     * @param modelClass the class to check
+     * @return <code>true</code> if the class has identifier fields and a cached hash code
+     */
+    private boolean isHashCached( ModelClass modelClass )
+    {
+        JavaClassMetadata javaClassMetadata = modelClass.getMetadata( JavaClassMetadata.SLOT );
+
+        return javaClassMetadata.isHashCache() && !getView().getIdentifierFields( modelClass ).isEmpty();
+    }
+
+    /**
+     * Check that the identifier fields of a class caching its hash code can't change without the class knowing it:
+     * values that can be modified in place, like dates or mutable model objects, would leave a stale hash code.
+     *
+     * @param modelClass the class to check
+     * @throws ModelloException if an identifier field can be modified in place
+     */
+    private void checkHashCache( ModelClass modelClass )
+        throws ModelloException
+    {
+        for ( ModelField modelField : getView().getIdentifierFields( modelClass ) )
+        {
+            String reason = null;
+
+            if ( modelField instanceof ModelAssociation )
+            {
+                ModelAssociation modelAssociation = (ModelAssociation) modelField;
+
+                if ( modelAssociation.getToClass() != null && !isImmutable( modelAssociation.getToClass() ) )
+                {
+                    reason = "it refers to the mutable class '" + modelAssociation.getTo() + "'";
+                }
+            }
+            else if ( "Date".equals( modelField.getType() ) || "DOM".equals( modelField.getType() ) )
+            {
+                reason = "a " + modelField.getType() + " can be modified in place";
+            }
+
+            if ( reason != null )
+            {
+                throw new ModelloException( "The class '" + modelClass.getName() + "' cannot cache its hash code: "
+                    + "the identifier '" + modelField.getName() + "' can change without the class knowing it, since "
+                    + reason + "." );
+            }
+        }
+    }
+
+    /**
+     * Write the reset of the cached hash code after a change of an identifier field.
+     *
+     * @since 1.9
+     */
+    private void writeHashCacheReset( JSourceCode sc, ModelField modelField, boolean isBuilderMethod )
+    {
+        if ( !isBuilderMethod && modelField.isIdentifier() && isHashCached( modelField.getModelClass() ) )
+        {
+            sc.add( "this.cachedHashCode = 0;" );
+        }
+    }
+
     private JMethod generateToString( ModelClass modelClass, boolean onlyIdentifierFields )
     {
         JMethod toString = new JMethod( "toString", new JType( String.class.getName() ), null );
 
-        List<ModelField> fields = onlyIdentifierFields ? modelClass.getIdentifierFields( getGeneratedVersion() ) : modelClass.getFields( getGeneratedVersion() );
+        List<ModelField> fields = onlyIdentifierFields ? getView().getIdentifierFields( modelClass ) : getView().getFields( modelClass );
 
         JSourceCode sc = toString.getSourceCode();
 
@@ -466,7 +609,7 @@ public class JavaModelloGenerator
     {
         JMethod hashCode = new JMethod( "hashCode", JType.INT, null );
 
-        List<ModelField> identifierFields = modelClass.getIdentifierFields( getGeneratedVersion() );
+        List<ModelField> identifierFields = getView().getIdentifierFields( modelClass );
 
         JSourceCode sc = hashCode.getSourceCode();
 
@@ -477,7 +620,22 @@ public class JavaModelloGenerator
             return hashCode;
         }
 
-        sc.add( "int result = 17;" );
+        boolean hashCached = isHashCached( modelClass );
+
+        if ( hashCached )
+        {
+            // only the fields of this class are cached, the super class takes care of its own ones
+            sc.add( "int result = cachedHashCode;" );
+            sc.add( "" );
+            sc.add( "if ( result == 0 )" );
+            sc.add( "{" );
+            sc.indent();
+            sc.add( "result = 17;" );
+        }
+        else
+        {
+            sc.add( "int result = 17;" );
+        }
 
         sc.add( "" );
 
@@ -486,6 +644,14 @@ public class JavaModelloGenerator
             sc.add( "result = 37 * result + " + createHashCodeForField( identifier ) + ";" );
         }
 
+        if ( hashCached )
+        {
+            sc.add( "" );
+            sc.add( "cachedHashCode = result;" );
+            sc.unindent();
+            sc.add( "}" );
+        }
+
         if ( modelClass.getSuperClass() != null )
         {
             sc.add( "result = 37 * result + super.hashCode();" );
@@ -503,7 +669,8 @@ public class JavaModelloGenerator
     {
         String cloneModeClass = getCloneMode( modelClass );
 
-        if ( JavaClassMetadata.CLONE_NONE.equals( cloneModeClass ) )
+        // immutable objects are shared instead of cloned
+        if ( JavaClassMetadata.CLONE_NONE.equals( cloneModeClass ) || isImmutable( modelClass ) )
         {
             return new JMethod[0];
         }
@@ -526,130 +693,81 @@ public class JavaModelloGenerator
         sc.add( "{" );
         sc.indent();
 
-        sc.add( modelClass.getName() + " copy = (" + modelClass.getName() + ") super.clone();" );
+        for ( ModelField modelField : getView().getFields( modelClass ) )
+        {
+            if ( modelField instanceof ModelAssociation && ( (ModelAssociation) modelField ).isManyMultiplicity()
+                && getJavaAssociationMetadata( (ModelAssociation) modelField ).isLazy() )
+            {
+                // the copy must not share the loader, bound to this instance
+                sc.add( "load" + capitalise( modelField.getName() ) + "();" );
+                sc.add( "" );
+            }
+        }
 
-        sc.add( "" );
+        List<ModelField> sharedFields = getSharedFields( modelClass );
 
-        for ( ModelField modelField : modelClass.getFields( getGeneratedVersion() ) )
+        if ( sharedFields.isEmpty() )
+        {
+            sc.add( modelClass.getName() + " copy = (" + modelClass.getName() + ") super.clone();" );
+        }
+        else
         {
-            String thisField = "this." + modelField.getName();
-            String copyField = "copy." + modelField.getName();
+            // both sides copy a shared value on first access, so neither sees the changes of the other: marking the
+            // original is done under the lock its unshareX() methods take
+            sc.add( modelClass.getName() + " copy;" );
+            sc.add( "synchronized ( this )" );
+            sc.add( "{" );
+            sc.indent();
+            sc.add( "copy = (" + modelClass.getName() + ") super.clone();" );
+            sc.add( "this.cloneSharedFields |= " + getSharedFieldsMask( sharedFields.size() ) + ";" );
+            sc.unindent();
+            sc.add( "}" );
+            sc.add( "copy.cloneSharedFields = " + getSharedFieldsMask( sharedFields.size() ) + ";" );
+        }
+
+        sc.add( "" );
 
-            if ( "DOM".equals( modelField.getType() ) )
+        for ( ModelField modelField : getView().getFields( modelClass ) )
+        {
+            // the fields shared by a lazy clone are copied on first access
+            if ( !sharedFields.contains( modelField )
+                && writeCloneField( modelField, cloneModeClass, "copy." + modelField.getName(),
+                                    "this." + modelField.getName(), sc ) )
             {
-                sc.add( "if ( " + thisField + " != null )" );
-                sc.add( "{" );
-                if ( domAsXpp3 )
-                {
-                    sc.addIndented( copyField
-                                        + " = new org.codehaus.plexus.util.xml.Xpp3Dom( (org.codehaus.plexus.util.xml.Xpp3Dom) "
-                                        + thisField + " );" );
-                }
-                else
-                {
-                    sc.addIndented( copyField + " = ( (org.w3c.dom.Node) " + thisField + ").cloneNode( true );" );
-                }
-                sc.add( "}" );
                 sc.add( "" );
             }
-            else if ( "Date".equalsIgnoreCase( modelField.getType() ) || "java.util.Date".equals(
-                modelField.getType() ) )
+        }
+
+        if ( locationClass != null && isPackedLocations( locationClass ) )
+        {
+            String locationField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
+            if ( modelClass == locationClass )
             {
-                sc.add( "if ( " + thisField + " != null )" );
+                sc.add( "if ( copy." + locationField + "Indices != null )" );
                 sc.add( "{" );
-                sc.addIndented( copyField + " = (java.util.Date) " + thisField + ".clone();" );
+                sc.indent();
+                sc.add( "copy." + locationField + "Indices = (int[]) copy." + locationField + "Indices.clone();" );
+                sc.add( "copy." + locationField + "Data = (long[]) copy." + locationField + "Data.clone();" );
+                sc.unindent();
                 sc.add( "}" );
-                sc.add( "" );
             }
-            else if ( ModelDefault.PROPERTIES.equals( modelField.getType() ) )
+            else
             {
-                sc.add( "if ( " + thisField + " != null )" );
+                sc.add( "if ( copy." + locationField + "Data != null )" );
                 sc.add( "{" );
-                sc.addIndented( copyField + " = (" + ModelDefault.PROPERTIES + ") " + thisField + ".clone();" );
+                sc.addIndented( "copy." + locationField + "Data = (long[]) copy." + locationField + "Data.clone();" );
+                sc.add( "}" );
+                sc.add( "if ( copy." + locationField + "Trees != null )" );
+                sc.add( "{" );
+                sc.addIndented( "copy." + locationField + "Trees = (" + locationClass.getName() + "[]) copy."
+                    + locationField + "Trees.clone();" );
                 sc.add( "}" );
-                sc.add( "" );
-            }
-            else if ( modelField instanceof ModelAssociation )
-            {
-                ModelAssociation modelAssociation = (ModelAssociation) modelField;
-
-                String cloneModeAssoc = getCloneMode( modelAssociation, cloneModeClass );
-
-                boolean deepClone =
-                    JavaAssociationMetadata.CLONE_DEEP.equals( cloneModeAssoc ) && !immutableTypes.contains(
-                        modelAssociation.getTo() );
-
-                if ( modelAssociation.isOneMultiplicity() )
-                {
-                    if ( deepClone )
-                    {
-                        sc.add( "if ( " + thisField + " != null )" );
-                        sc.add( "{" );
-                        sc.addIndented(
-                            copyField + " = (" + modelAssociation.getTo() + ") " + thisField + ".clone();" );
-                        sc.add( "}" );
-                        sc.add( "" );
-                    }
-                }
-                else
-                {
-                    sc.add( "if ( " + thisField + " != null )" );
-                    sc.add( "{" );
-                    sc.indent();
-
-                    JavaAssociationMetadata javaAssociationMetadata = getJavaAssociationMetadata( modelAssociation );
-                    JType componentType = getComponentType( modelAssociation, javaAssociationMetadata );
-
-                    sc.add( copyField + " = " + getDefaultValue( modelAssociation, componentType ) + ";" );
-
-                    if ( isCollection( modelField.getType() ) )
-                    {
-                        if ( deepClone )
-                        {
-                            if ( useJava5 )
-                            {
-                                sc.add( "for ( " + componentType.getName() + " item : " + thisField + " )" );
-                            }
-                            else
-                            {
-                                sc.add( "for ( java.util.Iterator it = " + thisField + ".iterator(); it.hasNext(); )" );
-                            }
-                            sc.add( "{" );
-                            sc.indent();
-                            if ( useJava5 )
-                            {
-                                sc.add( copyField + ".add( ( (" + modelAssociation.getTo() + ") item).clone() );" );
-                            }
-                            else
-                            {
-                                sc.add(
-                                    copyField + ".add( ( (" + modelAssociation.getTo() + ") it.next() ).clone() );" );
-                            }
-                            sc.unindent();
-                            sc.add( "}" );
-                        }
-                        else
-                        {
-                            sc.add( copyField + ".addAll( " + thisField + " );" );
-                        }
-                    }
-                    else if ( isMap( modelField.getType() ) )
-                    {
-                        sc.add( copyField + ".clear();" );
-                        sc.add( copyField + ".putAll( " + thisField + " );" );
-                    }
-
-                    sc.unindent();
-                    sc.add( "}" );
-                    sc.add( "" );
-                }
             }
         }
 
         if ( locationClass != null )
         {
-            String locationField =
-                ( (ModelClassMetadata) locationClass.getMetadata( ModelClassMetadata.ID ) ).getLocationTracker();
+            String locationField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
             sc.add( "if ( copy." + locationField + " != null )" );
             sc.add( "{" );
             sc.indent();
@@ -688,89 +806,343 @@ public class JavaModelloGenerator
         return new JMethod[]{ cloneMethod };
     }
 
-    private String getCloneMode( ModelClass modelClass )
+    /**
+     * Write the copy of a field made by the clone of its class.
+     *
+     * @param modelField the field to copy
+     * @param cloneModeClass the clone mode of the class
+     * @param copyField the reference to the field of the copy, to assign
+     * @param thisField the reference to the value to copy
+     * @param sc the source code
+     * @return <code>true</code> if the field is copied, <code>false</code> if the value is shared
+     */
+    private boolean writeCloneField( ModelField modelField, String cloneModeClass, String copyField,
+                                     String thisField, JSourceCode sc )
         throws ModelloException
     {
-        String cloneMode = null;
-
-        for ( ModelClass currentClass = modelClass; ; )
+        if ( "DOM".equals( modelField.getType() ) )
         {
-            JavaClassMetadata javaClassMetadata = (JavaClassMetadata) currentClass.getMetadata( JavaClassMetadata.ID );
-
-            cloneMode = javaClassMetadata.getCloneMode();
-
-            if ( cloneMode != null )
+            sc.add( "if ( " + thisField + " != null )" );
+            sc.add( "{" );
+            if ( domAsXpp3 )
             {
-                break;
+                sc.addIndented( copyField
+                                    + " = new org.codehaus.plexus.util.xml.Xpp3Dom( (org.codehaus.plexus.util.xml.Xpp3Dom) "
+                                    + thisField + " );" );
             }
-
-            String superClass = currentClass.getSuperClass();
-            if ( StringUtils.isEmpty( superClass ) || !isClassInModel( superClass, getModel() ) )
+            else
             {
-                break;
+                sc.addIndented( copyField + " = ( (org.w3c.dom.Node) " + thisField + ").cloneNode( true );" );
             }
+            sc.add( "}" );
 
-            currentClass = getModel().getClass( superClass, getGeneratedVersion() );
+            return true;
         }
-
-        if ( cloneMode == null )
+        else if ( "Date".equalsIgnoreCase( modelField.getType() ) || "java.util.Date".equals(
+            modelField.getType() ) )
         {
-            cloneMode = JavaClassMetadata.CLONE_NONE;
+            sc.add( "if ( " + thisField + " != null )" );
+            sc.add( "{" );
+            sc.addIndented( copyField + " = (java.util.Date) " + thisField + ".clone();" );
+            sc.add( "}" );
+
+            return true;
         }
-        else if ( !JavaClassMetadata.CLONE_MODES.contains( cloneMode ) )
+        else if ( ModelDefault.PROPERTIES.equals( modelField.getType() ) )
         {
-            throw new ModelloException(
-                "The Java Modello Generator cannot use '" + cloneMode + "' as a value for <class java.clone=\"...\">, "
-                    + "only the following values are acceptable " + JavaClassMetadata.CLONE_MODES );
-        }
-
-        return cloneMode;
-    }
-
-    private String getCloneMode( ModelAssociation modelAssociation, String cloneModeClass )
-        throws ModelloException
-    {
-        JavaAssociationMetadata javaAssociationMetadata =
-            (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+            sc.add( "if ( " + thisField + " != null )" );
+            sc.add( "{" );
+            sc.addIndented( copyField + " = (" + ModelDefault.PROPERTIES + ") " + thisField + ".clone();" );
+            sc.add( "}" );
 
-        String cloneModeAssoc = javaAssociationMetadata.getCloneMode();
-        if ( cloneModeAssoc == null )
-        {
-            cloneModeAssoc = cloneModeClass;
+            return true;
         }
-        else if ( !JavaAssociationMetadata.CLONE_MODES.contains( cloneModeAssoc ) )
+        else if ( modelField instanceof ModelAssociation )
         {
-            throw new ModelloException( "The Java Modello Generator cannot use '" + cloneModeAssoc
-                                            + "' as a value for <association java.clone=\"...\">, "
-                                            + "only the following values are acceptable "
-                                            + JavaAssociationMetadata.CLONE_MODES );
-        }
-
-        return cloneModeAssoc;
-    }
-
-    private String getCloneHook( ModelClass modelClass )
-        throws ModelloException
-    {
-        JavaClassMetadata javaClassMetadata = (JavaClassMetadata) modelClass.getMetadata( JavaClassMetadata.ID );
+            ModelAssociation modelAssociation = (ModelAssociation) modelField;
 
-        return javaClassMetadata.getCloneHook();
-    }
+            boolean deepClone = isDeepClone( modelAssociation, cloneModeClass );
 
-    private String generateLocationTracker( Model objectModel, ModelClass locationClass )
-        throws ModelloException, IOException
-    {
-        if ( locationClass == null )
-        {
-            return null;
-        }
+            if ( modelAssociation.isOneMultiplicity() )
+            {
+                if ( deepClone )
+                {
+                    sc.add( "if ( " + thisField + " != null )" );
+                    sc.add( "{" );
+                    sc.addIndented(
+                        copyField + " = (" + modelAssociation.getTo() + ") " + thisField + ".clone();" );
+                    sc.add( "}" );
 
-        String locationField =
-            ( (ModelClassMetadata) locationClass.getMetadata( ModelClassMetadata.ID ) ).getLocationTracker();
+                    return true;
+                }
+            }
+            else
+            {
+                sc.add( "if ( " + thisField + " != null )" );
+                sc.add( "{" );
+                sc.indent();
 
-        String propertyName = capitalise( singular( locationField ) );
+                JavaAssociationMetadata javaAssociationMetadata = getJavaAssociationMetadata( modelAssociation );
+                JType componentType = getComponentType( modelAssociation, javaAssociationMetadata );
 
-        String interfaceName = locationClass.getName() + "Tracker";
+                sc.add( copyField + " = " + getDefaultValue( modelAssociation, componentType ) + ";" );
+
+                if ( isCollection( modelField.getType() ) )
+                {
+                    if ( deepClone )
+                    {
+                        if ( useJava5 )
+                        {
+                            sc.add( "for ( " + componentType.getName() + " item : " + thisField + " )" );
+                        }
+                        else
+                        {
+                            sc.add( "for ( java.util.Iterator it = " + thisField + ".iterator(); it.hasNext(); )" );
+                        }
+                        sc.add( "{" );
+                        sc.indent();
+                        if ( useJava5 )
+                        {
+                            sc.add( copyField + ".add( ( (" + modelAssociation.getTo() + ") item).clone() );" );
+                        }
+                        else
+                        {
+                            sc.add(
+                                copyField + ".add( ( (" + modelAssociation.getTo() + ") it.next() ).clone() );" );
+                        }
+                        sc.unindent();
+                        sc.add( "}" );
+                    }
+                    else
+                    {
+                        sc.add( copyField + ".addAll( " + thisField + " );" );
+                    }
+                }
+                else if ( isMap( modelField.getType() ) )
+                {
+                    sc.add( copyField + ".clear();" );
+                    sc.add( copyField + ".putAll( " + thisField + " );" );
+                }
+
+                sc.unindent();
+                sc.add( "}" );
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private boolean isDeepClone( ModelAssociation modelAssociation, String cloneModeClass )
+        throws ModelloException
+    {
+        String cloneModeAssoc = getCloneMode( modelAssociation, cloneModeClass );
+
+        // a lazy clone copies the associations as a deep clone does, on first access
+        return ( JavaAssociationMetadata.CLONE_DEEP.equals( cloneModeAssoc ) || JavaClassMetadata.CLONE_LAZY.equals(
+            cloneModeAssoc ) ) && !immutableTypes.contains( modelAssociation.getTo() ) && !(
+            modelAssociation.getToClass() != null && isImmutable( modelAssociation.getToClass() ) );
+    }
+
+    /**
+     * Get the fields shared by a lazy clone with its original until first access: the fields a deep clone would copy,
+     * one bit each in <code>cloneSharedFields</code>. Fields past the 64 bits of the mask are copied by the clone.
+     *
+     * @param modelClass the class
+     * @return the shared fields, empty if the class is not cloned lazily
+     * @since 1.9
+     */
+    private List<ModelField> getSharedFields( ModelClass modelClass )
+        throws ModelloException
+    {
+        List<ModelField> sharedFields = new ArrayList<ModelField>();
+
+        String cloneModeClass = getCloneMode( modelClass );
+
+        if ( !JavaClassMetadata.CLONE_LAZY.equals( cloneModeClass ) || isImmutable( modelClass ) )
+        {
+            return sharedFields;
+        }
+
+        for ( ModelField modelField : getView().getFields( modelClass ) )
+        {
+            if ( sharedFields.size() < 64 && isCopiedOnClone( modelField, cloneModeClass ) )
+            {
+                sharedFields.add( modelField );
+            }
+        }
+
+        return sharedFields;
+    }
+
+    private boolean isCopiedOnClone( ModelField modelField, String cloneModeClass )
+        throws ModelloException
+    {
+        if ( "DOM".equals( modelField.getType() ) || "Date".equalsIgnoreCase( modelField.getType() )
+            || "java.util.Date".equals( modelField.getType() ) || ModelDefault.PROPERTIES.equals( modelField.getType() ) )
+        {
+            return true;
+        }
+
+        if ( modelField instanceof ModelAssociation )
+        {
+            ModelAssociation modelAssociation = (ModelAssociation) modelField;
+
+            return modelAssociation.isManyMultiplicity() || isDeepClone( modelAssociation, cloneModeClass );
+        }
+
+        return false;
+    }
+
+    /**
+     * Get the bit of a field in <code>cloneSharedFields</code>.
+     *
+     * @param modelField the field
+     * @return the bit as a <code>long</code> literal, or <code>null</code> if the field is never shared
+     * @since 1.9
+     */
+    private String getSharedFieldMask( ModelField modelField )
+        throws ModelloException
+    {
+        int index = getSharedFields( modelField.getModelClass() ).indexOf( modelField );
+
+        return ( index < 0 ) ? null : "0x" + Long.toHexString( 1L << index ) + "L";
+    }
+
+    private String getSharedFieldsMask( int count )
+    {
+        return "0x" + Long.toHexString( ( count < 64 ) ? ( 1L << count ) - 1 : -1L ) + "L";
+    }
+
+    /**
+     * Create the private <code>unshareX()</code> method of a field shared by a lazy clone, copying the value still
+     * shared with a lazy clone or its original before it is returned or changed. The copy is made under the lock of the
+     * object, which <code>clone()</code> takes to mark the original, so that concurrent readers all get the same copy.
+     *
+     * @param jClass the class
+     * @param jField the field
+     * @param modelField the model of the field
+     * @since 1.9
+     */
+    private void createUnshare( JClass jClass, JField jField, ModelField modelField )
+        throws ModelloException
+    {
+        String mask = getSharedFieldMask( modelField );
+
+        if ( mask == null )
+        {
+            return;
+        }
+
+        JMethod unshare = new JMethod( "unshare" + capitalise( jField.getName() ) );
+        unshare.getModifiers().makePrivate();
+
+        JSourceCode sc = unshare.getSourceCode();
+
+        sc.add( "synchronized ( this )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( ( this.cloneSharedFields & " + mask + " ) != 0 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( jField.getType().toString() + " shared = this." + jField.getName() + ";" );
+        sc.add( jField.getType().toString() + " copy = shared;" );
+        sc.add( "" );
+        writeCloneField( modelField, getCloneMode( modelField.getModelClass() ), "copy", "shared", sc );
+        sc.add( "" );
+        // the copy is only published once complete
+        sc.add( "this." + jField.getName() + " = copy;" );
+        sc.add( "this.cloneSharedFields &= ~" + mask + ";" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+
+        jClass.addMethod( unshare );
+    }
+
+    private String getCloneMode( ModelClass modelClass )
+        throws ModelloException
+    {
+        String cloneMode = null;
+
+        for ( ModelClass currentClass = modelClass; ; )
+        {
+            JavaClassMetadata javaClassMetadata = currentClass.getMetadata( JavaClassMetadata.SLOT );
+
+            cloneMode = javaClassMetadata.getCloneMode();
+
+            if ( cloneMode != null )
+            {
+                break;
+            }
+
+            String superClass = currentClass.getSuperClass();
+            if ( StringUtils.isEmpty( superClass ) || !isClassInModel( superClass, getModel() ) )
+            {
+                break;
+            }
+
+            currentClass = getView().getClass( superClass );
+        }
+
+        if ( cloneMode == null )
+        {
+            cloneMode = JavaClassMetadata.CLONE_NONE;
+        }
+        else if ( !JavaClassMetadata.CLONE_MODES.contains( cloneMode ) )
+        {
+            throw new ModelloException(
+                "The Java Modello Generator cannot use '" + cloneMode + "' as a value for <class java.clone=\"...\">, "
+                    + "only the following values are acceptable " + JavaClassMetadata.CLONE_MODES );
+        }
+
+        return cloneMode;
+    }
+
+    private String getCloneMode( ModelAssociation modelAssociation, String cloneModeClass )
+        throws ModelloException
+    {
+        JavaAssociationMetadata javaAssociationMetadata = modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
+
+        String cloneModeAssoc = javaAssociationMetadata.getCloneMode();
+        if ( cloneModeAssoc == null )
+        {
+            cloneModeAssoc = cloneModeClass;
+        }
+        else if ( !JavaAssociationMetadata.CLONE_MODES.contains( cloneModeAssoc ) )
+        {
+            throw new ModelloException( "The Java Modello Generator cannot use '" + cloneModeAssoc
+                                            + "' as a value for <association java.clone=\"...\">, "
+                                            + "only the following values are acceptable "
+                                            + JavaAssociationMetadata.CLONE_MODES );
+        }
+
+        return cloneModeAssoc;
+    }
+
+    private String getCloneHook( ModelClass modelClass )
+        throws ModelloException
+    {
+        JavaClassMetadata javaClassMetadata = modelClass.getMetadata( JavaClassMetadata.SLOT );
+
+        return javaClassMetadata.getCloneHook();
+    }
+
+    private String generateLocationTracker( Model objectModel, ModelClass locationClass )
+        throws ModelloException, IOException
+    {
+        if ( locationClass == null )
+        {
+            return null;
+        }
+
+        String locationField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
+
+        String propertyName = capitalise( singular( locationField ) );
+
+        String interfaceName = locationClass.getName() + "Tracker";
 
         String packageName = locationClass.getPackageName( isPackageWithVersion(), getGeneratedVersion() );
 
@@ -817,7 +1189,7 @@ public class JavaModelloGenerator
             return;
         }
 
-        ModelClassMetadata metadata = (ModelClassMetadata) locationClass.getMetadata( ModelClassMetadata.ID );
+        ModelClassMetadata metadata = locationClass.getMetadata( ModelClassMetadata.SLOT );
         String locationField = metadata.getLocationTracker();
 
         String fieldType = "java.util.Map" + ( useJava5 ? "<Object, " + locationClass.getName() + ">" : "" );
@@ -858,13 +1230,13 @@ public class JavaModelloGenerator
         jClass.addMethod( jMethod );
     }
 
-    private void generateLocationBean( JClass jClass, ModelClass locationClass, ModelClass sourceClass )
+    private void generateLocationBean( JClass jClass, ModelClass locationClass, ModelClass sourceClass,
+                                       boolean packed )
         throws ModelloException
     {
         jClass.getModifiers().setFinal( true );
 
-        String locationsField =
-            ( (ModelClassMetadata) locationClass.getMetadata( ModelClassMetadata.ID ) ).getLocationTracker();
+        String locationsField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
 
         JavaFieldMetadata readOnlyField = new JavaFieldMetadata();
         readOnlyField.setSetter( false );
@@ -889,7 +1261,7 @@ public class JavaModelloGenerator
         ModelField source = null;
         if ( sourceClass != null )
         {
-            ModelClassMetadata metadata = (ModelClassMetadata) sourceClass.getMetadata( ModelClassMetadata.ID );
+            ModelClassMetadata metadata = sourceClass.getMetadata( ModelClassMetadata.SLOT );
             String sourceField = metadata.getSourceTracker();
 
             source = new ModelField( locationClass, sourceField );
@@ -925,7 +1297,14 @@ public class JavaModelloGenerator
         // public Map<Object, Location> getLocations()
         JMethod jMethod = new JMethod( "get" + capitalise( locationsField ), new JType( fieldType ), null );
         sc = jMethod.getSourceCode();
-        sc.add( "return " + locationsField + ";" );
+        if ( packed )
+        {
+            generatePackedLocationsGetter( sc, locationClass, sourceClass );
+        }
+        else
+        {
+            sc.add( "return " + locationsField + ";" );
+        }
         jMethod.setComment( "" );
         jClass.addMethod( jMethod );
 
@@ -933,7 +1312,14 @@ public class JavaModelloGenerator
         jMethod = new JMethod( "set" + capitalise( locationsField ) );
         jMethod.addParameter( new JParameter( new JType( fieldType ), locationsField ) );
         sc = jMethod.getSourceCode();
-        sc.add( "this." + locationsField + " = " + locationsField + ";" );
+        if ( packed )
+        {
+            generatePackedLocationsSetter( sc, locationClass );
+        }
+        else
+        {
+            sc.add( "this." + locationsField + " = " + locationsField + ";" );
+        }
         jMethod.setComment( "" );
         jClass.addMethod( jMethod );
 
@@ -953,97 +1339,572 @@ public class JavaModelloGenerator
         sc.addIndented( "return source;" );
         sc.add( "}" );
         sc.add( "" );
-        sc.add( locationClass.getName() + " result =" );
-        sc.add( "    new " + locationClass.getName() + "( target.getLineNumber(), target.getColumnNumber()" + (
-            sourceClass != null
-                ? ", target.get" + capitalise( source.getName() ) + "()"
-                : "" ) + " );" );
-        sc.add( "" );
-        sc.add( fieldType + " locations;" );
-        sc.add( fieldType + " sourceLocations = source.get" + capitalise( locationsField ) + "();" );
-        sc.add( fieldType + " targetLocations = target.get" + capitalise( locationsField ) + "();" );
-        sc.add( "if ( sourceLocations == null )" );
+        sc.add( locationClass.getName() + " result =" );
+        sc.add( "    new " + locationClass.getName() + "( target.getLineNumber(), target.getColumnNumber()" + (
+            sourceClass != null
+                ? ", target.get" + capitalise( source.getName() ) + "()"
+                : "" ) + " );" );
+        sc.add( "" );
+        sc.add( fieldType + " locations;" );
+        sc.add( fieldType + " sourceLocations = source.get" + capitalise( locationsField ) + "();" );
+        sc.add( fieldType + " targetLocations = target.get" + capitalise( locationsField ) + "();" );
+        sc.add( "if ( sourceLocations == null )" );
+        sc.add( "{" );
+        sc.addIndented( "locations = targetLocations;" );
+        sc.add( "}" );
+        sc.add( "else if ( targetLocations == null )" );
+        sc.add( "{" );
+        sc.addIndented( "locations = sourceLocations;" );
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.addIndented( "locations = new " + fieldImpl + "();" );
+        sc.addIndented( "locations.putAll( sourceDominant ? targetLocations : sourceLocations );" );
+        sc.addIndented( "locations.putAll( sourceDominant ? sourceLocations : targetLocations );" );
+        sc.add( "}" );
+        sc.add( "result.set" + capitalise( locationsField ) + "( locations );" );
+        sc.add( "" );
+        sc.add( "return result;" );
+        jClass.addMethod( jMethod );
+
+        // public static Location merge( Location target, Location source, Collection<Integer> indices )
+        jMethod = new JMethod( "merge", new JType( locationClass.getName() ), null );
+        jMethod.getModifiers().setStatic( true );
+        jMethod.addParameter( new JParameter( new JType( locationClass.getName() ), "target" ) );
+        jMethod.addParameter( new JParameter( new JType( locationClass.getName() ), "source" ) );
+        jMethod.addParameter(
+            new JParameter( new JCollectionType( "java.util.Collection", new JType( "Integer" ), useJava5 ),
+                            "indices" ) );
+        String intWrap = useJava5 ? "Integer.valueOf" : "new Integer";
+        sc = jMethod.getSourceCode();
+        sc.add( "if ( source == null )" );
+        sc.add( "{" );
+        sc.addIndented( "return target;" );
+        sc.add( "}" );
+        sc.add( "else if ( target == null )" );
+        sc.add( "{" );
+        sc.addIndented( "return source;" );
+        sc.add( "}" );
+        sc.add( "" );
+        sc.add( locationClass.getName() + " result =" );
+        sc.add( "    new " + locationClass.getName() + "( target.getLineNumber(), target.getColumnNumber()" + (
+            sourceClass != null
+                ? ", target.get" + capitalise( source.getName() ) + "()"
+                : "" ) + " );" );
+        sc.add( "" );
+        sc.add( fieldType + " locations;" );
+        sc.add( fieldType + " sourceLocations = source.get" + capitalise( locationsField ) + "();" );
+        sc.add( fieldType + " targetLocations = target.get" + capitalise( locationsField ) + "();" );
+        sc.add( "if ( sourceLocations == null )" );
+        sc.add( "{" );
+        sc.addIndented( "locations = targetLocations;" );
+        sc.add( "}" );
+        sc.add( "else if ( targetLocations == null )" );
+        sc.add( "{" );
+        sc.addIndented( "locations = sourceLocations;" );
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "locations = new " + fieldImpl + "();" );
+        sc.add( "for ( java.util.Iterator" + ( useJava5 ? "<Integer>" : "" )
+                    + " it = indices.iterator(); it.hasNext(); )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( locationClass.getName() + " location;" );
+        sc.add( "Integer index = " + ( useJava5 ? "" : "(Integer) " ) + "it.next();" );
+        sc.add( "if ( index.intValue() < 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "location = sourceLocations.get( " + intWrap + "( ~index.intValue() ) );" );
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.addIndented( "location = targetLocations.get( index );" );
+        sc.add( "}" );
+        sc.add( "locations.put( " + intWrap + "( locations.size() ), location );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "result.set" + capitalise( locationsField ) + "( locations );" );
+        sc.add( "" );
+        sc.add( "return result;" );
+        jClass.addMethod( jMethod );
+    }
+
+    private boolean isPackedLocations( ModelClass locationClass )
+        throws ModelloException
+    {
+        if ( locationClass == null )
+        {
+            return false;
+        }
+
+        String locationsMode = locationClass.getMetadata( JavaClassMetadata.SLOT ).getLocationsMode();
+
+        if ( locationsMode == null || JavaClassMetadata.LOCATIONS_MAP.equals( locationsMode ) )
+        {
+            return false;
+        }
+        else if ( !JavaClassMetadata.LOCATIONS_MODES.contains( locationsMode ) )
+        {
+            throw new ModelloException( "The Java Modello Generator cannot use '" + locationsMode
+                                            + "' as a value for <class java.locations=\"...\">, "
+                                            + "only the following values are acceptable "
+                                            + JavaClassMetadata.LOCATIONS_MODES );
+        }
+
+        return true;
+    }
+
+    /**
+     * Generates the packed location storage of the root class of a hierarchy: line and column pairs in a
+     * <code>long[]</code> indexed by field slot, the locations of the collection fields, which get nested locations,
+     * in a parallel array, and a map only for the keys without a slot and the other locations with nested ones.
+     */
+    private void generatePackedLocationTracking( JClass jClass, ModelClass modelClass, ModelClass locationClass,
+                                                 ModelClass sourceClass )
+    {
+        String locationField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
+        String location = singular( locationField );
+        String locationType = locationClass.getName();
+        String dataField = locationField + "Data";
+        String treesField = locationField + "Trees";
+        String sourceField = locationField + "Source";
+
+        String fieldType = "java.util.Map" + ( useJava5 ? "<Object, " + locationType + ">" : "" );
+        String fieldImpl = "java.util.LinkedHashMap" + ( useJava5 ? "<Object, " + locationType + ">" : "" );
+
+        // private long[] locationsData;
+        jClass.addField( new JField( new JArrayType( JType.LONG, useJava5 ), dataField ) );
+
+        // private Location[] locationsTrees;
+        jClass.addField( new JField( new JArrayType( new JType( locationType ), useJava5 ), treesField ) );
+
+        // private Source locationsSource;
+        if ( sourceClass != null )
+        {
+            jClass.addField( new JField( new JType( sourceClass.getName() ), sourceField ) );
+        }
+
+        // private java.util.Map<Object, Location> locations;
+        jClass.addField( new JField( new JType( fieldType ), locationField ) );
+
+        int slots = getLocationSlotBase( modelClass ) + getView().getFields( modelClass ).size();
+
+        JMethod jMethod;
+        JSourceCode sc;
+
+        // public Location getLocation( Object key )
+        jMethod = new JMethod( "get" + capitalise( location ), new JType( locationType ), null );
+        jMethod.addParameter( new JParameter( new JType( "Object" ), "key" ) );
+        sc = jMethod.getSourceCode();
+        sc.add( "int slot = " + location + "Slot( key );" );
+        sc.add( "if ( slot >= 0 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int i = slot >> 1;" );
+        sc.add( "if ( ( slot & 1 ) != 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "return ( " + treesField + " != null && i < " + treesField + ".length ) ? " + treesField
+            + "[i] : null;" );
+        sc.add( "}" );
+        sc.add( "if ( " + dataField + " != null && i < " + dataField + ".length && " + dataField
+            + "[i] != Long.MIN_VALUE )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + newPackedLocation( locationClass, dataField + "[i]", sourceClass != null
+            ? sourceField
+            : null ) + ";" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return ( " + locationField + " != null ) ? " + locationField + ".get( key ) : null;" );
+        jMethod.setComment( "" );
+        jClass.addMethod( jMethod );
+
+        // public void setLocation( Object key, Location location )
+        jMethod = new JMethod( "set" + capitalise( location ) );
+        jMethod.addParameter( new JParameter( new JType( "Object" ), "key" ) );
+        jMethod.addParameter( new JParameter( new JType( locationType ), location ) );
+        sc = jMethod.getSourceCode();
+        sc.add( "if ( " + location + " == null )" );
+        sc.add( "{" );
+        sc.addIndented( "return;" );
+        sc.add( "}" );
+        sc.add( "" );
+        sc.add( "int slot = " + location + "Slot( key );" );
+        sc.add( "int i = slot >> 1;" );
+        sc.add( "if ( slot >= 0 && ( slot & 1 ) != 0 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( " + treesField + " == null || i >= " + treesField + ".length )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( locationType + "[] trees = new " + locationType + "[Math.max( i + 1, ( " + treesField
+            + " == null ) ? " + slots + " : " + treesField + ".length * 2 )];" );
+        sc.add( "if ( " + treesField + " != null )" );
+        sc.add( "{" );
+        sc.addIndented( "System.arraycopy( " + treesField + ", 0, trees, 0, " + treesField + ".length );" );
+        sc.add( "}" );
+        sc.add( treesField + " = trees;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( treesField + "[i] = " + location + ";" );
+        sc.add( "return;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "" );
+        sc.add( "long position = " + packLocation( location ) + ";" );
+        String sameSource = sourceClass != null
+            ? " && ( " + dataField + " == null || " + location + "." + getSourceGetter( sourceClass ) + " == "
+                + sourceField + " )"
+            : "";
+        sc.add( "if ( slot >= 0 && position != Long.MIN_VALUE && " + location + ".get" + capitalise( locationField )
+            + "() == null" + sameSource + " )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( " + dataField + " == null || i >= " + dataField + ".length )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int length = ( " + dataField + " == null ) ? 0 : " + dataField + ".length;" );
+        sc.add( "long[] data = new long[Math.max( i + 1, ( length == 0 ) ? " + slots + " : length * 2 )];" );
+        sc.add( "if ( " + dataField + " != null )" );
+        sc.add( "{" );
+        sc.addIndented( "System.arraycopy( " + dataField + ", 0, data, 0, length );" );
+        sc.add( "}" );
+        if ( sourceClass != null )
+        {
+            sc.add( "else" );
+            sc.add( "{" );
+            sc.addIndented( sourceField + " = " + location + "." + getSourceGetter( sourceClass ) + ";" );
+            sc.add( "}" );
+        }
+        sc.add( "java.util.Arrays.fill( data, length, data.length, Long.MIN_VALUE );" );
+        sc.add( dataField + " = data;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( dataField + "[i] = position;" );
+        sc.add( "if ( " + locationField + " != null )" );
+        sc.add( "{" );
+        sc.addIndented( locationField + ".remove( key );" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( slot >= 0 && " + dataField + " != null && i < " + dataField + ".length )" );
+        sc.add( "{" );
+        sc.addIndented( dataField + "[i] = Long.MIN_VALUE;" );
+        sc.add( "}" );
+        sc.add( "if ( " + locationField + " == null )" );
+        sc.add( "{" );
+        sc.addIndented( locationField + " = new " + fieldImpl + "();" );
+        sc.add( "}" );
+        sc.add( locationField + ".put( key, " + location + " );" );
+        sc.unindent();
+        sc.add( "}" );
+        jMethod.setComment( "" );
+        jClass.addMethod( jMethod );
+
+        generatePackedLocationSlots( jClass, modelClass, locationClass, sourceClass );
+    }
+
+    /**
+     * Generates the method giving the slot of a location key: the field ordinal shifted left by one, with the low bit
+     * set for the fields which get nested locations, or <code>-1</code> for the keys without a slot. Ordinals continue
+     * from the super class, whose method is called for the keys of its own fields.
+     */
+    private void generatePackedLocationSlots( JClass jClass, ModelClass modelClass, ModelClass locationClass,
+                                              ModelClass sourceClass )
+    {
+        String location = singular( locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker() );
+
+        boolean root = !modelClass.hasSuperClass() || !isClassInModel( modelClass.getSuperClass(), getModel() );
+
+        if ( !root )
+        {
+            ModelClass rootClass = modelClass;
+            while ( rootClass.hasSuperClass() && isClassInModel( rootClass.getSuperClass(), getModel() ) )
+            {
+                rootClass = getView().getClass( rootClass.getSuperClass() );
+            }
+
+            if ( rootClass == locationClass || rootClass == sourceClass )
+            {
+                return;
+            }
+        }
+
+        List<ModelField> fields = getView().getFields( modelClass );
+
+        if ( !root && fields.isEmpty() )
+        {
+            return;
+        }
+
+        JMethod jMethod = new JMethod( location + "Slot", JType.INT, null );
+        jMethod.getModifiers().makeProtected();
+        jMethod.addParameter( new JParameter( new JType( "Object" ), "key" ) );
+        JSourceCode sc = jMethod.getSourceCode();
+
+        int ordinal = getLocationSlotBase( modelClass );
+        String condition = "if";
+
+        if ( root )
+        {
+            sc.add( "if ( \"\".equals( key ) )" );
+            sc.add( "{" );
+            sc.addIndented( "return 0;" );
+            sc.add( "}" );
+            condition = "else if";
+        }
+
+        for ( ModelField field : fields )
+        {
+            boolean nested = field instanceof ModelAssociation && ( (ModelAssociation) field ).isManyMultiplicity();
+
+            sc.add( condition + " ( \"" + field.getName() + "\".equals( key ) )" );
+            sc.add( "{" );
+            sc.addIndented( "return " + ( ( ordinal++ << 1 ) | ( nested ? 1 : 0 ) ) + ";" );
+            sc.add( "}" );
+            condition = "else if";
+        }
+
+        sc.add( root ? "return -1;" : "return super." + location + "Slot( key );" );
+
+        jMethod.setComment( "Gets the slot of a location key: the field ordinal shifted left by one, with the low bit "
+            + "set for the fields with nested locations, or <code>-1</code> for keys without a slot." );
+        jClass.addMethod( jMethod );
+    }
+
+    /**
+     * Gets the first location slot ordinal of the fields of a class: slot <code>0</code> is the class itself, then
+     * come the fields of the super classes in the model.
+     */
+    private int getLocationSlotBase( ModelClass modelClass )
+    {
+        if ( !modelClass.hasSuperClass() || !isClassInModel( modelClass.getSuperClass(), getModel() ) )
+        {
+            return 1;
+        }
+
+        ModelClass superClass = getView().getClass( modelClass.getSuperClass() );
+
+        return getLocationSlotBase( superClass ) + getView().getFields( superClass ).size();
+    }
+
+    /**
+     * Generates the packed nested locations of the location class: list positions and packed line and column pairs
+     * in parallel primitive arrays, and a map only for the other keys and the locations with another source or with
+     * nested locations.
+     */
+    private void generatePackedLocationIndices( JClass jClass, ModelClass locationClass, ModelClass sourceClass )
+    {
+        String locationField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
+        String location = singular( locationField );
+        String locationType = locationClass.getName();
+        String indicesField = locationField + "Indices";
+        String dataField = locationField + "Data";
+        String countField = locationField + "Count";
+
+        String fieldType = "java.util.Map" + ( useJava5 ? "<Object, " + locationType + ">" : "" );
+        String fieldImpl = "java.util.LinkedHashMap" + ( useJava5 ? "<Object, " + locationType + ">" : "" );
+
+        // private int[] locationsIndices;
+        jClass.addField( new JField( new JArrayType( JType.INT, useJava5 ), indicesField ) );
+
+        // private long[] locationsData;
+        jClass.addField( new JField( new JArrayType( JType.LONG, useJava5 ), dataField ) );
+
+        // private int locationsCount;
+        jClass.addField( new JField( JType.INT, countField ) );
+
+        // private java.util.Map<Object, Location> locations;
+        jClass.addField( new JField( new JType( fieldType ), locationField ) );
+
+        JMethod jMethod;
+        JSourceCode sc;
+
+        // public Location getLocation( Object key )
+        jMethod = new JMethod( "get" + capitalise( location ), new JType( locationType ), null );
+        jMethod.addParameter( new JParameter( new JType( "Object" ), "key" ) );
+        sc = jMethod.getSourceCode();
+        sc.add( "if ( key instanceof Integer )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int i = " + location + "Index( ( (Integer) key ).intValue() );" );
+        sc.add( "if ( i >= 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + newPackedLocation( locationClass, dataField + "[i]", sourceClass != null
+            ? getSourceGetter( sourceClass )
+            : null ) + ";" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return ( " + locationField + " != null ) ? " + locationField + ".get( key ) : null;" );
+        jMethod.setComment( "" );
+        jClass.addMethod( jMethod );
+
+        // public void setLocation( Object key, Location location )
+        jMethod = new JMethod( "set" + capitalise( location ) );
+        jMethod.addParameter( new JParameter( new JType( "Object" ), "key" ) );
+        jMethod.addParameter( new JParameter( new JType( locationType ), location ) );
+        sc = jMethod.getSourceCode();
+        sc.add( "if ( " + location + " == null )" );
+        sc.add( "{" );
+        sc.addIndented( "return;" );
+        sc.add( "}" );
+        sc.add( "" );
+        sc.add( "int i = ( key instanceof Integer ) ? " + location + "Index( ( (Integer) key ).intValue() ) : -1;" );
+        String sameSource = sourceClass != null
+            ? " && " + location + "." + getSourceGetter( sourceClass ) + " == " + getSourceGetter( sourceClass )
+            : "";
+        sc.add( "if ( key instanceof Integer && " + location + ".get" + capitalise( locationField ) + "() == null"
+            + sameSource + " )" );
         sc.add( "{" );
-        sc.addIndented( "locations = targetLocations;" );
+        sc.indent();
+        sc.add( "if ( i < 0 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( " + indicesField + " == null || " + countField + " == " + indicesField + ".length )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int length = ( " + indicesField + " == null ) ? 4 : " + countField + " * 2;" );
+        sc.add( "int[] indices = new int[length];" );
+        sc.add( "long[] data = new long[length];" );
+        sc.add( "if ( " + indicesField + " != null )" );
+        sc.add( "{" );
+        sc.addIndented( "System.arraycopy( " + indicesField + ", 0, indices, 0, " + countField + " );" );
+        sc.addIndented( "System.arraycopy( " + dataField + ", 0, data, 0, " + countField + " );" );
         sc.add( "}" );
-        sc.add( "else if ( targetLocations == null )" );
+        sc.add( indicesField + " = indices;" );
+        sc.add( dataField + " = data;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "i = " + countField + "++;" );
+        sc.add( indicesField + "[i] = ( (Integer) key ).intValue();" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( dataField + "[i] = " + packLocation( location ) + ";" );
+        sc.add( "if ( " + locationField + " != null )" );
         sc.add( "{" );
-        sc.addIndented( "locations = sourceLocations;" );
+        sc.addIndented( locationField + ".remove( key );" );
+        sc.add( "}" );
+        sc.unindent();
         sc.add( "}" );
         sc.add( "else" );
         sc.add( "{" );
-        sc.addIndented( "locations = new " + fieldImpl + "();" );
-        sc.addIndented( "locations.putAll( sourceDominant ? targetLocations : sourceLocations );" );
-        sc.addIndented( "locations.putAll( sourceDominant ? sourceLocations : targetLocations );" );
+        sc.indent();
+        sc.add( "if ( i >= 0 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "System.arraycopy( " + indicesField + ", i + 1, " + indicesField + ", i, " + countField
+            + " - i - 1 );" );
+        sc.add( "System.arraycopy( " + dataField + ", i + 1, " + dataField + ", i, " + countField + " - i - 1 );" );
+        sc.add( countField + "--;" );
+        sc.unindent();
         sc.add( "}" );
-        sc.add( "result.set" + capitalise( locationsField ) + "( locations );" );
-        sc.add( "" );
-        sc.add( "return result;" );
+        sc.add( "if ( " + locationField + " == null )" );
+        sc.add( "{" );
+        sc.addIndented( locationField + " = new " + fieldImpl + "();" );
+        sc.add( "}" );
+        sc.add( locationField + ".put( key, " + location + " );" );
+        sc.unindent();
+        sc.add( "}" );
+        jMethod.setComment( "" );
         jClass.addMethod( jMethod );
 
-        // public static Location merge( Location target, Location source, Collection<Integer> indices )
-        jMethod = new JMethod( "merge", new JType( locationClass.getName() ), null );
-        jMethod.getModifiers().setStatic( true );
-        jMethod.addParameter( new JParameter( new JType( locationClass.getName() ), "target" ) );
-        jMethod.addParameter( new JParameter( new JType( locationClass.getName() ), "source" ) );
-        jMethod.addParameter(
-            new JParameter( new JCollectionType( "java.util.Collection", new JType( "Integer" ), useJava5 ),
-                            "indices" ) );
-        String intWrap = useJava5 ? "Integer.valueOf" : "new Integer";
+        // private int locationIndex( int index )
+        jMethod = new JMethod( location + "Index", JType.INT, null );
+        jMethod.getModifiers().makePrivate();
+        jMethod.addParameter( new JParameter( JType.INT, "index" ) );
         sc = jMethod.getSourceCode();
-        sc.add( "if ( source == null )" );
+        sc.add( "if ( index >= 0 && index < " + countField + " && " + indicesField + "[index] == index )" );
         sc.add( "{" );
-        sc.addIndented( "return target;" );
+        sc.addIndented( "return index;" );
         sc.add( "}" );
-        sc.add( "else if ( target == null )" );
+        sc.add( "for ( int i = 0; i < " + countField + "; i++ )" );
         sc.add( "{" );
-        sc.addIndented( "return source;" );
+        sc.indent();
+        sc.add( "if ( " + indicesField + "[i] == index )" );
+        sc.add( "{" );
+        sc.addIndented( "return i;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return -1;" );
+        jMethod.setComment( "Gets the position in the packed arrays of a list index, or <code>-1</code>." );
+        jClass.addMethod( jMethod );
+    }
+
+    private void generatePackedLocationsGetter( JSourceCode sc, ModelClass locationClass, ModelClass sourceClass )
+    {
+        String locationsField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
+        String locationType = locationClass.getName();
+        String fieldType = "java.util.Map" + ( useJava5 ? "<Object, " + locationType + ">" : "" );
+        String fieldImpl = "java.util.LinkedHashMap" + ( useJava5 ? "<Object, " + locationType + ">" : "" );
+        String intWrap = useJava5 ? "Integer.valueOf" : "new Integer";
+
+        sc.add( "if ( " + locationsField + "Count == 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + locationsField + ";" );
         sc.add( "}" );
         sc.add( "" );
-        sc.add( locationClass.getName() + " result =" );
-        sc.add( "    new " + locationClass.getName() + "( target.getLineNumber(), target.getColumnNumber()" + (
-            sourceClass != null
-                ? ", target.get" + capitalise( source.getName() ) + "()"
-                : "" ) + " );" );
-        sc.add( "" );
-        sc.add( fieldType + " locations;" );
-        sc.add( fieldType + " sourceLocations = source.get" + capitalise( locationsField ) + "();" );
-        sc.add( fieldType + " targetLocations = target.get" + capitalise( locationsField ) + "();" );
-        sc.add( "if ( sourceLocations == null )" );
+        sc.add( fieldType + " all = new " + fieldImpl + "();" );
+        sc.add( "for ( int i = 0; i < " + locationsField + "Count; i++ )" );
         sc.add( "{" );
-        sc.addIndented( "locations = targetLocations;" );
+        sc.addIndented( "all.put( " + intWrap + "( " + locationsField + "Indices[i] ), "
+            + newPackedLocation( locationClass, locationsField + "Data[i]", sourceClass != null
+                ? getSourceGetter( sourceClass )
+                : null ) + " );" );
         sc.add( "}" );
-        sc.add( "else if ( targetLocations == null )" );
+        sc.add( "if ( " + locationsField + " != null )" );
         sc.add( "{" );
-        sc.addIndented( "locations = sourceLocations;" );
+        sc.addIndented( "all.putAll( " + locationsField + " );" );
         sc.add( "}" );
-        sc.add( "else" );
+        sc.add( "return all;" );
+    }
+
+    private void generatePackedLocationsSetter( JSourceCode sc, ModelClass locationClass )
+    {
+        String locationsField = locationClass.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
+        String locationType = locationClass.getName();
+        String entryType = "java.util.Map.Entry" + ( useJava5 ? "<Object, " + locationType + ">" : "" );
+
+        sc.add( "this." + locationsField + "Count = 0;" );
+        sc.add( "this." + locationsField + " = null;" );
+        sc.add( "if ( " + locationsField + " != null )" );
         sc.add( "{" );
         sc.indent();
-        sc.add( "locations = new " + fieldImpl + "();" );
-        sc.add( "for ( java.util.Iterator" + ( useJava5 ? "<Integer>" : "" )
-                    + " it = indices.iterator(); it.hasNext(); )" );
+        sc.add( "for ( java.util.Iterator" + ( useJava5 ? "<" + entryType + ">" : "" ) + " it = " + locationsField
+            + ".entrySet().iterator(); it.hasNext(); )" );
         sc.add( "{" );
         sc.indent();
-        sc.add( locationClass.getName() + " location;" );
-        sc.add( "Integer index = " + ( useJava5 ? "" : "(Integer) " ) + "it.next();" );
-        sc.add( "if ( index.intValue() < 0 )" );
-        sc.add( "{" );
-        sc.addIndented( "location = sourceLocations.get( " + intWrap + "( ~index.intValue() ) );" );
-        sc.add( "}" );
-        sc.add( "else" );
-        sc.add( "{" );
-        sc.addIndented( "location = targetLocations.get( index );" );
-        sc.add( "}" );
-        sc.add( "locations.put( " + intWrap + "( locations.size() ), location );" );
+        sc.add( entryType + " entry = " + ( useJava5 ? "" : "(java.util.Map.Entry) " ) + "it.next();" );
+        sc.add( "set" + capitalise( singular( locationsField ) ) + "( entry.getKey(), "
+            + ( useJava5 ? "" : "(" + locationType + ") " ) + "entry.getValue() );" );
         sc.unindent();
         sc.add( "}" );
         sc.unindent();
         sc.add( "}" );
-        sc.add( "result.set" + capitalise( locationsField ) + "( locations );" );
-        sc.add( "" );
-        sc.add( "return result;" );
-        jClass.addMethod( jMethod );
+    }
+
+    private String getSourceGetter( ModelClass sourceClass )
+    {
+        return "get" + capitalise( sourceClass.getMetadata( ModelClassMetadata.SLOT ).getSourceTracker() ) + "()";
+    }
+
+    private static String newPackedLocation( ModelClass locationClass, String position, String source )
+    {
+        return "new " + locationClass.getName() + "( (int) ( " + position + " >> 32 ), (int) " + position
+            + ( source != null ? ", " + source : "" ) + " )";
+    }
+
+    private static String packLocation( String location )
+    {
+        return "( (long) " + location + ".getLineNumber() << 32 ) | ( " + location
+            + ".getColumnNumber() & 0xFFFFFFFFL )";
     }
 
     /**
@@ -1200,12 +2061,14 @@ public class JavaModelloGenerator
     private void createField( JClass jClass, ModelField modelField )
         throws ModelloException
     {
-        JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) modelField.getMetadata( JavaFieldMetadata.ID );
+        JavaFieldMetadata javaFieldMetadata = modelField.getMetadata( JavaFieldMetadata.SLOT );
 
         JField field = createField( modelField );
 
         jClass.addField( field );
 
+        createUnshare( jClass, field, modelField );
+
         if ( javaFieldMetadata.isGetter() )
         {
             jClass.addMethod( createGetter( field, modelField ) );
@@ -1218,10 +2081,11 @@ public class JavaModelloGenerator
     }
 
     private JMethod createGetter( JField field, ModelField modelField )
+        throws ModelloException
     {
         String propertyName = capitalise( field.getName() );
 
-        JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) modelField.getMetadata( JavaFieldMetadata.ID );
+        JavaFieldMetadata javaFieldMetadata = modelField.getMetadata( JavaFieldMetadata.SLOT );
 
         String prefix = javaFieldMetadata.isBooleanGetter() ? "is" : "get";
 
@@ -1233,7 +2097,7 @@ public class JavaModelloGenerator
             ModelAssociation modelAssociation = (ModelAssociation) modelField;
 
             JavaAssociationMetadata javaAssociationMetadata =
-                (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+                modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
             if ( StringUtils.isNotEmpty( javaAssociationMetadata.getInterfaceName() )
                 && !javaFieldMetadata.isBooleanGetter() )
@@ -1259,6 +2123,14 @@ public class JavaModelloGenerator
         }
         getter.getJDocComment().setComment( appendPeriod( comment.toString() ) );
 
+        if ( getSharedFieldMask( modelField ) != null )
+        {
+            // the value returned can be changed, so it must not be shared any more
+            getter.getSourceCode().add( "unshare" + propertyName + "();" );
+
+            getter.getSourceCode().add( "" );
+        }
+
         getter.getSourceCode().add( "return " + interfaceCast + "this." + field.getName() + ";" );
 
         return getter;
@@ -1305,18 +2177,28 @@ public class JavaModelloGenerator
 
         JSourceCode sc = setter.getSourceCode();
 
+        String sharedFieldMask = isBuilderMethod ? null : getSharedFieldMask( modelField );
+
         if ( modelField instanceof ModelAssociation )
         {
             ModelAssociation modelAssociation = (ModelAssociation) modelField;
 
             JavaAssociationMetadata javaAssociationMetadata =
-                (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+                modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
             boolean isOneMultiplicity =
                 isBidirectionalAssociation( modelAssociation ) && modelAssociation.isOneMultiplicity();
 
             if ( isOneMultiplicity && javaAssociationMetadata.isBidi() )
             {
+                if ( sharedFieldMask != null )
+                {
+                    // the previous value is changed when breaking the association
+                    sc.add( "unshare" + propertyName + "();" );
+
+                    sc.add( "" );
+                }
+
                 sc.add( "if ( this." + field.getName() + " != null )" );
 
                 sc.add( "{" );
@@ -1368,6 +2250,14 @@ public class JavaModelloGenerator
             sc.add( "this." + field.getName() + " = " + field.getName() + ";" );
         }
 
+        writeHashCacheReset( sc, modelField, isBuilderMethod );
+
+        if ( sharedFieldMask != null )
+        {
+            // the new value is not shared
+            sc.add( "this.cloneSharedFields &= ~" + sharedFieldMask + ";" );
+        }
+
         if ( isBuilderMethod )
         {
             sc.add( "return this;" );
@@ -1379,8 +2269,7 @@ public class JavaModelloGenerator
     private void createClassCastAssertion( JSourceCode sc, ModelAssociation modelAssociation, String crudModifier )
         throws ModelloException
     {
-        JavaAssociationMetadata javaAssociationMetadata =
-            (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+        JavaAssociationMetadata javaAssociationMetadata = modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
         if ( StringUtils.isEmpty( javaAssociationMetadata.getInterfaceName() ) )
         {
@@ -1421,7 +2310,7 @@ public class JavaModelloGenerator
     private void createAssociation( JClass jClass, ModelAssociation modelAssociation, JSourceCode jConstructorSource )
         throws ModelloException
     {
-        JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) modelAssociation.getMetadata( JavaFieldMetadata.ID );
+        JavaFieldMetadata javaFieldMetadata = modelAssociation.getMetadata( JavaFieldMetadata.SLOT );
 
         JavaAssociationMetadata javaAssociationMetadata = getJavaAssociationMetadata( modelAssociation );
 
@@ -1476,6 +2365,10 @@ public class JavaModelloGenerator
 
             jClass.addField( jField );
 
+            createUnshare( jClass, jField, modelAssociation );
+
+            String sharedFieldMask = getSharedFieldMask( modelAssociation );
+
             if ( javaFieldMetadata.isGetter() )
             {
                 String propertyName = capitalise( jField.getName() );
@@ -1484,6 +2377,20 @@ public class JavaModelloGenerator
 
                 JSourceCode sc = getter.getSourceCode();
 
+                if ( javaAssociationMetadata.isLazy() )
+                {
+                    sc.add( "load" + propertyName + "();" );
+
+                    sc.add( "" );
+                }
+
+                if ( sharedFieldMask != null )
+                {
+                    sc.add( "unshare" + propertyName + "();" );
+
+                    sc.add( "" );
+                }
+
                 if ( StringUtils.equals( javaAssociationMetadata.getInitializationMode(),
                                          JavaAssociationMetadata.LAZY_INIT ) )
                 {
@@ -1506,10 +2413,28 @@ public class JavaModelloGenerator
 
                 jClass.addMethod( getter );
             }
+            else if ( javaAssociationMetadata.isLazy() )
+            {
+                throw new ModelloException( "Association '" + modelAssociation.getName() + "' of class '"
+                    + modelAssociation.getModelClass().getName() + "' can't be lazy without a getter." );
+            }
+
+            if ( javaAssociationMetadata.isLazy() )
+            {
+                createLazyLoader( jClass, jField );
+            }
 
             if ( javaFieldMetadata.isSetter() )
             {
-                jClass.addMethod( createSetter( jField, modelAssociation ) );
+                JMethod setter = createSetter( jField, modelAssociation );
+
+                if ( javaAssociationMetadata.isLazy() )
+                {
+                    // the new value replaces content not loaded yet
+                    setter.getSourceCode().add( "this." + jField.getName() + "Loader = null;" );
+                }
+
+                jClass.addMethod( setter );
             }
 
             if ( javaAssociationMetadata.isAdder() )
@@ -1532,6 +2457,93 @@ public class JavaModelloGenerator
         }
     }
 
+    /**
+     * Create the support for a lazy association: a loader, set by readers deferring the parsing of the association
+     * content, which is run the first time the content is accessed.
+     *
+     * @param jClass the class
+     * @param jField the association field
+     */
+    private void createLazyLoader( JClass jClass, JField jField )
+    {
+        String propertyName = capitalise( jField.getName() );
+
+        JField loaderField = new JField( new JClass( "Runnable" ), jField.getName() + "Loader" );
+        loaderField.getModifiers().setTransient( true );
+        loaderField.getModifiers().setVolatile( true );
+        loaderField.setComment( "Loader of the " + jField.getName() + " content, run on first access." );
+
+        jClass.addField( loaderField );
+
+        JField loadingField = new JField( JType.BOOLEAN, jField.getName() + "Loading" );
+        loadingField.getModifiers().setTransient( true );
+        loadingField.setComment( "If set, the loader is running, and adds the content through the accessors." );
+
+        jClass.addField( loadingField );
+
+        JMethod setter = new JMethod( "set" + propertyName + "Loader" );
+        setter.addParameter( new JParameter( new JClass( "Runnable" ), "loader" ) );
+        setter.getJDocComment().setComment( "Set the loader of the " + jField.getName()
+            + " content, run the first time the content is accessed." );
+        setter.getSourceCode().add( "this." + loaderField.getName() + " = loader;" );
+
+        jClass.addMethod( setter );
+
+        JMethod loader = new JMethod( "load" + propertyName );
+        loader.getModifiers().makePrivate();
+
+        JSourceCode sc = loader.getSourceCode();
+
+        // the loader is cleared only once the content is loaded, so concurrent readers wait for it, and a failed load
+        // fails again on every access
+        sc.add( "if ( this." + loaderField.getName() + " != null )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "synchronized ( this )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "Runnable loader = this." + loaderField.getName() + ";" );
+        sc.add( "if ( loader != null && !this." + loadingField.getName() + " )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "this." + loadingField.getName() + " = true;" );
+        sc.add( "try" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "loader.run();" );
+        sc.add( "this." + loaderField.getName() + " = null;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "catch ( final RuntimeException e )" );
+        sc.add( "{" );
+        sc.indent();
+        // the content may be partial: it must not be returned as if it were complete
+        sc.add( "this." + loaderField.getName() + " = new Runnable()" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "public void run()" );
+        sc.add( "{" );
+        sc.addIndented( "throw e;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "};" );
+        sc.add( "throw e;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "finally" );
+        sc.add( "{" );
+        sc.addIndented( "this." + loadingField.getName() + " = false;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+
+        jClass.addMethod( loader );
+    }
+
     private String getDefaultValue( ModelAssociation modelAssociation, JType componentType )
     {
         String defaultValue = getDefaultValue( modelAssociation );
@@ -1557,8 +2569,7 @@ public class JavaModelloGenerator
     private JavaAssociationMetadata getJavaAssociationMetadata( ModelAssociation modelAssociation )
         throws ModelloException
     {
-        JavaAssociationMetadata javaAssociationMetadata =
-            (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+        JavaAssociationMetadata javaAssociationMetadata = modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
         if ( !JavaAssociationMetadata.INIT_TYPES.contains( javaAssociationMetadata.getInitializationMode() ) )
         {
@@ -1585,11 +2596,11 @@ public class JavaModelloGenerator
     }
 
     private void createCreateAssociation( JClass jClass, ModelAssociation modelAssociation )
+        throws ModelloException
     {
         JMethod createMethod = new JMethod( "create" + modelAssociation.getTo() + "Association" );
 
-        JavaAssociationMetadata javaAssociationMetadata =
-            (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+        JavaAssociationMetadata javaAssociationMetadata = modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
         createMethod.addParameter(
             new JParameter( new JClass( modelAssociation.getTo() ), uncapitalise( modelAssociation.getTo() ) ) );
@@ -1619,6 +2630,8 @@ public class JavaModelloGenerator
                 sc.add( "" );
             }
 
+            clearShared( sc, modelAssociation );
+
             sc.add( "this." + modelAssociation.getName() + " = " + uncapitalise( modelAssociation.getTo() ) + ";" );
         }
         else
@@ -1649,10 +2662,13 @@ public class JavaModelloGenerator
             sc.add( modelAssociation.getName() + ".add( " + uncapitalise( modelAssociation.getTo() ) + " );" );
         }
 
+        writeHashCacheReset( sc, modelAssociation, false );
+
         jClass.addMethod( createMethod );
     }
 
     private void createBreakAssociation( JClass jClass, ModelAssociation modelAssociation )
+        throws ModelloException
     {
         JSourceCode sc;
         JMethod breakMethod = new JMethod( "break" + modelAssociation.getTo() + "Association" );
@@ -1683,12 +2699,14 @@ public class JavaModelloGenerator
 
             sc.add( "" );
 
+            clearShared( sc, modelAssociation );
+
             sc.add( "this." + modelAssociation.getName() + " = null;" );
         }
         else
         {
             JavaAssociationMetadata javaAssociationMetadata =
-                            (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+                            modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
             String reference;
 
@@ -1699,6 +2717,8 @@ public class JavaModelloGenerator
             else
             {
                 reference = modelAssociation.getName();
+
+                writeUnshare( sc, modelAssociation, false );
             }
 
             sc.add( "if ( !" + reference + ".contains( " + uncapitalise(
@@ -1720,6 +2740,8 @@ public class JavaModelloGenerator
             sc.add( reference + ".remove( " + uncapitalise( modelAssociation.getTo() ) + " );" );
         }
 
+        writeHashCacheReset( sc, modelAssociation, false );
+
         jClass.addMethod( breakMethod );
     }
 
@@ -1737,8 +2759,7 @@ public class JavaModelloGenerator
     {
         String fieldName = modelAssociation.getName();
 
-        JavaAssociationMetadata javaAssociationMetadata =
-            (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+        JavaAssociationMetadata javaAssociationMetadata = modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
         String parameterName = uncapitalise( modelAssociation.getTo() );
         String implementationParameterName = parameterName;
@@ -1789,20 +2810,24 @@ public class JavaModelloGenerator
 
             StringBuilder adderCode = new StringBuilder();
 
-            if ( JavaAssociationMetadata.LAZY_INIT.equals( javaAssociationMetadata.getInitializationMode() )
-                    && !isBuilderMethod )
+            if ( ( JavaAssociationMetadata.LAZY_INIT.equals( javaAssociationMetadata.getInitializationMode() )
+                || javaAssociationMetadata.isLazy() ) && !isBuilderMethod )
             {
                 adderCode.append( "get" ).append( capitalise( fieldName ) ).append( "()" );
             }
             else
             {
                 adderCode.append( fieldName );
+
+                writeUnshare( adder.getSourceCode(), modelAssociation, isBuilderMethod );
             }
 
             adderCode.append( ".put( key, value );" );
 
             adder.getSourceCode().add( adderCode.toString() );
 
+            writeHashCacheReset( adder.getSourceCode(), modelAssociation, isBuilderMethod );
+
             if ( isBuilderMethod )
             {
                 adder.getSourceCode().add( "return this;" );
@@ -1830,14 +2855,16 @@ public class JavaModelloGenerator
 
             StringBuilder adderCode = new StringBuilder();
 
-            if ( JavaAssociationMetadata.LAZY_INIT.equals( javaAssociationMetadata.getInitializationMode() )
-                    && !isBuilderMethod )
+            if ( ( JavaAssociationMetadata.LAZY_INIT.equals( javaAssociationMetadata.getInitializationMode() )
+                || javaAssociationMetadata.isLazy() ) && !isBuilderMethod )
             {
                 adderCode.append( "get" ).append( capitalise( fieldName ) ).append( "()" );
             }
             else
             {
                 adderCode.append( fieldName );
+
+                writeUnshare( adder.getSourceCode(), modelAssociation, isBuilderMethod );
             }
 
             adderCode.append( ".add( " )
@@ -1846,6 +2873,8 @@ public class JavaModelloGenerator
 
             adder.getSourceCode().add( adderCode.toString() );
 
+            writeHashCacheReset( adder.getSourceCode(), modelAssociation, isBuilderMethod );
+
             if ( bidirectionalAssociation && javaAssociationMetadata.isBidi() && !isBuilderMethod )
             {
                 // TODO: remove after tested
@@ -1886,21 +2915,57 @@ public class JavaModelloGenerator
 
             String reference;
 
-            if ( JavaAssociationMetadata.LAZY_INIT.equals( javaAssociationMetadata.getInitializationMode() ) )
+            if ( JavaAssociationMetadata.LAZY_INIT.equals( javaAssociationMetadata.getInitializationMode() )
+                || javaAssociationMetadata.isLazy() )
             {
                 reference = "get" + capitalise( fieldName ) + "()";
             }
             else
             {
                 reference = fieldName;
+
+                writeUnshare( remover.getSourceCode(), modelAssociation, false );
             }
 
             remover.getSourceCode().add( reference + ".remove( " + implementationParameterName + " );" );
 
+            writeHashCacheReset( remover.getSourceCode(), modelAssociation, false );
+
             jClass.addMethod( remover );
         }
     }
 
+    /**
+     * Write the call to <code>unshareX()</code> before the direct access to an association field that may be shared
+     * by a lazy clone.
+     *
+     * @since 1.9
+     */
+    private void writeUnshare( JSourceCode sc, ModelAssociation modelAssociation, boolean isBuilderMethod )
+        throws ModelloException
+    {
+        if ( !isBuilderMethod && getSharedFieldMask( modelAssociation ) != null )
+        {
+            sc.add( "unshare" + capitalise( modelAssociation.getName() ) + "();" );
+        }
+    }
+
+    /**
+     * Write the reset of the shared bit of an association field that is replaced.
+     *
+     * @since 1.9
+     */
+    private void clearShared( JSourceCode sc, ModelAssociation modelAssociation )
+        throws ModelloException
+    {
+        String sharedFieldMask = getSharedFieldMask( modelAssociation );
+
+        if ( sharedFieldMask != null )
+        {
+            sc.add( "this.cloneSharedFields &= ~" + sharedFieldMask + ";" );
+        }
+    }
+
     private boolean isBidirectionalAssociation( ModelAssociation association )
     {
         Model model = association.getModelClass().getModel();
@@ -1912,7 +2977,7 @@ public class JavaModelloGenerator
 
         ModelClass toClass = association.getToClass();
 
-        for ( ModelField modelField : toClass.getFields( getGeneratedVersion() ) )
+        for ( ModelField modelField : getView().getFields( toClass ) )
         {
             if ( !( modelField instanceof ModelAssociation ) )
             {
@@ -1952,7 +3017,7 @@ public class JavaModelloGenerator
         {
             ModelAssociation modelAssociation = (ModelAssociation) modelField;
             JavaAssociationMetadata javaAssociationMetadata =
-                (JavaAssociationMetadata) modelAssociation.getAssociationMetadata( JavaAssociationMetadata.ID );
+                modelAssociation.getMetadata( JavaAssociationMetadata.SLOT );
 
             if ( StringUtils.isNotEmpty( javaAssociationMetadata.getInterfaceName() )
                 && !modelAssociation.isManyMultiplicity() )
@@ -1990,27 +3055,61 @@ public class JavaModelloGenerator
         builderClass.getModifiers().setStatic( true );
         builderClass.getModifiers().setFinal( true );
 
+        List<ModelField> fields = getBuilderFields( modelClass );
+
+        // create builder setters methods
+        for ( ModelField modelField : fields )
+        {
+            if ( modelField instanceof ModelAssociation )
+            {
+                createBuilderAssociation( builderClass, (ModelAssociation) modelField );
+            }
+            else
+            {
+                createBuilderField( builderClass, modelField );
+            }
+        }
+
+        // create and add the Model#build() method
+        JMethod build = new JMethod( "build", new JClass( modelClass.getName() ), "A new <code>"
+                                                                                  + modelClass.getName()
+                                                                                  + "</code> instance" );
+        build.getJDocComment().setComment( "Creates a new <code>"
+                                           + modelClass.getName()
+                                           + "</code> instance." );
+
+        JSourceCode sc = build.getSourceCode();
+
+        createInstanceAndSetProperties( modelClass, outherClassConstructor, fields, sc );
+
+        builderClass.addMethod( build );
+    }
+
+    /**
+     * Get the fields set by the builder of a class: the fields of the whole class hierarchy, or the fields given to
+     * the constructor of an immutable class.
+     *
+     * @since 1.9
+     */
+    private List<ModelField> getBuilderFields( ModelClass modelClass )
+    {
+        if ( isImmutable( modelClass ) )
+        {
+            return getImmutableFields( modelClass );
+        }
+
+        List<ModelField> fields = new ArrayList<ModelField>();
+
         ModelClass reference = modelClass;
 
-        // traverse the whole modelClass hierarchy to create the nested Builder
+        // traverse the whole modelClass hierarchy
         while ( reference != null )
         {
-            // create builder setters methods
-            for ( ModelField modelField : reference.getFields( getGeneratedVersion() ) )
-            {
-                if ( modelField instanceof ModelAssociation )
-                {
-                    createBuilderAssociation( builderClass, (ModelAssociation) modelField );
-                }
-                else
-                {
-                    createBuilderField( builderClass, modelField );
-                }
-            }
+            fields.addAll( getView().getFields( reference ) );
 
             if ( reference.hasSuperClass() )
             {
-                reference = reference.getModel().getClass( reference.getSuperClass(), getGeneratedVersion() );
+                reference = getView().getClass( reference.getSuperClass() );
             }
             else
             {
@@ -2018,24 +3117,27 @@ public class JavaModelloGenerator
             }
         }
 
-        // create and add the Model#build() method
-        JMethod build = new JMethod( "build", new JClass( modelClass.getName() ), "A new <code>"
-                                                                                  + modelClass.getName()
-                                                                                  + "</code> instance" );
-        build.getJDocComment().setComment( "Creates a new <code>"
-                                           + modelClass.getName()
-                                           + "</code> instance." );
-
-        JSourceCode sc = build.getSourceCode();
-
-        createInstanceAndSetProperties( modelClass, outherClassConstructor, sc );
-
-        builderClass.addMethod( build );
+        return fields;
     }
 
-    private void createInstanceAndSetProperties( ModelClass modelClass, JConstructor constructor, JSourceCode sc )
+    private void createInstanceAndSetProperties( ModelClass modelClass, JConstructor constructor,
+                                                 List<ModelField> fields, JSourceCode sc )
         throws ModelloException
     {
+        if ( isImmutable( modelClass ) )
+        {
+            Set<String> arguments = new HashSet<String>();
+
+            for ( ModelField modelField : fields )
+            {
+                arguments.add( modelField.getName() );
+            }
+
+            sc.add( "return " + newImmutableInstance( modelClass, getImmutableFields( modelClass ), arguments ) + ";" );
+
+            return;
+        }
+
         final Set<String> ctorArgs = new HashSet<String>();
 
         StringBuilder ctor = new StringBuilder( modelClass.getName() )
@@ -2068,51 +3170,36 @@ public class JavaModelloGenerator
 
         sc.add( ctor.toString() );
 
-        ModelClass reference = modelClass;
-
-        // traverse the whole modelClass hierarchy to create the nested Builder instance
-        while ( reference != null )
+        // collect parameters and set them in the instance object
+        for ( ModelField modelField : fields )
         {
-            // collect parameters and set them in the instance object
-            for ( ModelField modelField : reference.getFields( getGeneratedVersion() ) )
+            if ( modelField instanceof ModelAssociation )
             {
-                if ( modelField instanceof ModelAssociation )
-                {
-                    ModelAssociation modelAssociation = (ModelAssociation) modelField;
-                    JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) modelField.getMetadata( JavaFieldMetadata.ID );
-                    JavaAssociationMetadata javaAssociationMetadata = getJavaAssociationMetadata( modelAssociation );
-
-                    if ( modelAssociation.isManyMultiplicity()
-                         && !javaFieldMetadata.isGetter()
-                         && !javaFieldMetadata.isSetter()
-                         && !javaAssociationMetadata.isAdder() )
-                    {
-                        throw new ModelloException( "Exception while generating Java, Model inconsistency found: impossible to generate '"
-                                                    + modelClass.getName()
-                                                    + ".Builder#build()' method, '"
-                                                    + modelClass.getName()
-                                                    + "."
-                                                    + modelAssociation.getName()
-                                                    + "' field ("
-                                                    + modelAssociation.getType()
-                                                    + ") cannot be set, no getter/setter/adder method available." );
-                    }
+                ModelAssociation modelAssociation = (ModelAssociation) modelField;
+                JavaFieldMetadata javaFieldMetadata = modelField.getMetadata( JavaFieldMetadata.SLOT );
+                JavaAssociationMetadata javaAssociationMetadata = getJavaAssociationMetadata( modelAssociation );
 
-                    createSetBuilderAssociationToInstance( ctorArgs, modelAssociation, sc );
-                }
-                else
+                if ( modelAssociation.isManyMultiplicity()
+                     && !javaFieldMetadata.isGetter()
+                     && !javaFieldMetadata.isSetter()
+                     && !javaAssociationMetadata.isAdder() )
                 {
-                    createSetBuilderFieldToInstance( ctorArgs, modelField, sc );
+                    throw new ModelloException( "Exception while generating Java, Model inconsistency found: impossible to generate '"
+                                                + modelClass.getName()
+                                                + ".Builder#build()' method, '"
+                                                + modelClass.getName()
+                                                + "."
+                                                + modelAssociation.getName()
+                                                + "' field ("
+                                                + modelAssociation.getType()
+                                                + ") cannot be set, no getter/setter/adder method available." );
                 }
-            }
 
-            if ( reference.hasSuperClass() )
-            {
-                reference = reference.getModel().getClass( reference.getSuperClass(), getGeneratedVersion() );
+                createSetBuilderAssociationToInstance( ctorArgs, modelAssociation, sc );
             }
             else
             {
-                reference = null;
+                createSetBuilderFieldToInstance( ctorArgs, modelField, sc );
             }
         }
 
@@ -2132,7 +3219,7 @@ public class JavaModelloGenerator
     private boolean createSetBuilderFieldToInstance( Set<String> ctorArgs, ModelField modelField, JSourceCode sc )
         throws ModelloException
     {
-        JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) modelField.getMetadata( JavaFieldMetadata.ID );
+        JavaFieldMetadata javaFieldMetadata = modelField.getMetadata( JavaFieldMetadata.SLOT );
 
         // if it is not already set by the ctor and if the setter method is available
         if ( !ctorArgs.contains( modelField.getName() ) && javaFieldMetadata.isSetter() )
@@ -2226,7 +3313,7 @@ public class JavaModelloGenerator
 
             if ( !bidirectionalAssociation || !javaAssociationMetadata.isBidi() )
             {
-                JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) modelAssociation.getMetadata( JavaFieldMetadata.ID );
+                JavaFieldMetadata javaFieldMetadata = modelAssociation.getMetadata( JavaFieldMetadata.SLOT );
 
                 // just use the plain old setter
                 if ( createSetBuilderFieldToInstance( ctorArgs, modelAssociation, sc ) )
@@ -2358,14 +3445,17 @@ public class JavaModelloGenerator
 
         boolean hasDefaults = false;
 
+        List<ModelField> parameters = new ArrayList<ModelField>();
+
         // traverse the whole modelClass hierarchy to create the static creator method
         while ( reference != null )
         {
-            for ( ModelField modelField : reference.getFields( getGeneratedVersion() ) )
+            for ( ModelField modelField : getView().getFields( reference ) )
             {
                 // this is hacky
                 JField field = createField( modelField );
                 creatorMethod.addParameter( new JParameter( field.getType(), field.getName() ) );
+                parameters.add( modelField );
 
                 if ( !StringUtils.isEmpty( modelField.getDefaultValue() ) )
                 {
@@ -2375,7 +3465,7 @@ public class JavaModelloGenerator
 
             if ( reference.hasSuperClass() )
             {
-                reference = reference.getModel().getClass( reference.getSuperClass(), getGeneratedVersion() );
+                reference = getView().getClass( reference.getSuperClass() );
             }
             else
             {
@@ -2385,7 +3475,7 @@ public class JavaModelloGenerator
 
         JSourceCode sc = creatorMethod.getSourceCode();
 
-        createInstanceAndSetProperties( modelClass, constructor, sc );
+        createInstanceAndSetProperties( modelClass, constructor, parameters, sc );
 
         jClass.addMethod( creatorMethod );
 
@@ -2407,7 +3497,7 @@ public class JavaModelloGenerator
 
         while ( reference != null )
         {
-            for ( ModelField modelField : reference.getFields( getGeneratedVersion() ) )
+            for ( ModelField modelField : getView().getFields( reference ) )
             {
                 if ( shortcutArgs.length() > 0 )
                 {
@@ -2434,7 +3524,7 @@ public class JavaModelloGenerator
 
             if ( reference.hasSuperClass() )
             {
-                reference = reference.getModel().getClass( reference.getSuperClass(), getGeneratedVersion() );
+                reference = getView().getClass( reference.getSuperClass() );
             }
             else
             {
@@ -2449,4 +3539,377 @@ public class JavaModelloGenerator
         jClass.addMethod( creatorMethod );
     }
 
+
+    // ----------------------------------------------------------------------
+    // Immutable classes
+    // since 1.9
+    // ----------------------------------------------------------------------
+
+    /**
+     * Check that a class can be generated immutable, and that it doesn't extend an immutable class: objects that
+     * can't be changed after their creation can't be filled field by field, and they must only refer to objects that
+     * can't be changed either.
+     *
+     * @param modelClass the class to check
+     * @param superClassInModel <code>true</code> if the super class of the class is part of the model
+     * @param locationTrackerClass the class tracking locations, or <code>null</code>
+     * @throws ModelloException if the class can't be generated as requested
+     */
+    private void checkImmutable( ModelClass modelClass, boolean superClassInModel, ModelClass locationTrackerClass )
+        throws ModelloException
+    {
+        if ( superClassInModel && isImmutable( getView().getClass( modelClass.getSuperClass() ) ) )
+        {
+            throw new ModelloException( "The class '" + modelClass.getName() + "' cannot extend the immutable class '"
+                + modelClass.getSuperClass() + "'." );
+        }
+
+        if ( !isImmutable( modelClass ) )
+        {
+            return;
+        }
+
+        String reason = null;
+
+        if ( modelClass.getSuperClass() != null )
+        {
+            reason = "it extends '" + modelClass.getSuperClass() + "'";
+        }
+        else if ( locationTrackerClass != null )
+        {
+            reason = "the model tracks locations";
+        }
+
+        for ( ModelField modelField : getView().getFields( modelClass ) )
+        {
+            if ( reason != null )
+            {
+                continue;
+            }
+
+            if ( "Date".equals( modelField.getType() ) || "DOM".equals( modelField.getType() ) )
+            {
+                reason = "the field '" + modelField.getName() + "' is a " + modelField.getType()
+                    + ", which can be modified in place";
+                continue;
+            }
+
+            if ( !( modelField instanceof ModelAssociation ) )
+            {
+                continue;
+            }
+
+            ModelAssociation modelAssociation = (ModelAssociation) modelField;
+
+            JavaAssociationMetadata javaAssociationMetadata = getJavaAssociationMetadata( modelAssociation );
+
+            if ( ModelDefault.PROPERTIES.equals( modelAssociation.getType() ) )
+            {
+                reason = "the field '" + modelAssociation.getName() + "' is a " + ModelDefault.PROPERTIES;
+            }
+            else if ( StringUtils.isNotEmpty( javaAssociationMetadata.getInterfaceName() ) )
+            {
+                reason = "the association '" + modelAssociation.getName() + "' uses an interface";
+            }
+            else if ( isBidirectionalAssociation( modelAssociation ) && javaAssociationMetadata.isBidi() )
+            {
+                reason = "the association '" + modelAssociation.getName() + "' is bidirectional";
+            }
+            else if ( javaAssociationMetadata.isLazy() )
+            {
+                reason = "the association '" + modelAssociation.getName() + "' is lazy";
+            }
+            else if ( modelAssociation.getToClass() != null && !isImmutable( modelAssociation.getToClass() ) )
+            {
+                reason = "the association '" + modelAssociation.getName() + "' refers to the mutable class '"
+                    + modelAssociation.getTo() + "'";
+            }
+        }
+
+        if ( reason != null )
+        {
+            throw new ModelloException( "The class '" + modelClass.getName() + "' cannot be immutable: " + reason
+                + "." );
+        }
+    }
+
+    private ModelField newModelEncodingField( ModelClass modelClass )
+    {
+        ModelField modelEncoding = new ModelField( modelClass, "modelEncoding" );
+        modelEncoding.setType( "String" );
+        modelEncoding.setDefaultValue( "UTF-8" );
+        modelEncoding.addMetadata( new JavaFieldMetadata() );
+        return modelEncoding;
+    }
+
+    /**
+     * Get the fields of an immutable class, in constructor order: the fields of the model, followed by the model
+     * encoding for a root element.
+     *
+     * @param modelClass the immutable class
+     * @return the fields to generate
+     */
+    private List<ModelField> getImmutableFields( ModelClass modelClass )
+    {
+        List<ModelField> fields = new ArrayList<ModelField>( getView().getFields( modelClass ) );
+
+        ModelClassMetadata modelClassMetadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
+
+        if ( modelClassMetadata != null && modelClassMetadata.isRootElement() )
+        {
+            fields.add( newModelEncodingField( modelClass ) );
+        }
+
+        return fields;
+    }
+
+    /**
+     * Generate the final fields of an immutable class with their getters, the private constructor setting all of
+     * them, and a <code>withX( x )</code> method for each field. Collections are stored as unmodifiable copies, so that
+     * the copies created by <code>withX</code> can share them, and any other value, with the original object.
+     *
+     * @param jClass the generated class
+     * @param modelClass the immutable class
+     * @param fields the fields of the class, as returned by {@link #getImmutableFields(ModelClass)}
+     * @throws ModelloException if a field can't be generated
+     */
+    private void generateImmutableFields( JClass jClass, ModelClass modelClass, List<ModelField> fields )
+        throws ModelloException
+    {
+        JConstructor constructor = jClass.createConstructor();
+        constructor.getModifiers().makePrivate();
+
+        JSourceCode constructorSource = constructor.getSourceCode();
+
+        for ( ModelField modelField : fields )
+        {
+            JField field;
+
+            if ( isManyAssociation( modelField ) )
+            {
+                ModelAssociation modelAssociation = (ModelAssociation) modelField;
+
+                field = new JField( getManyAssociationType( modelAssociation ), modelAssociation.getName() );
+
+                if ( !isEmpty( modelAssociation.getComment() ) )
+                {
+                    field.setComment( modelAssociation.getComment() );
+                }
+
+                if ( useJava5 && !modelAssociation.getAnnotations().isEmpty() )
+                {
+                    for ( String annotation : modelAssociation.getAnnotations() )
+                    {
+                        field.appendAnnotation( annotation );
+                    }
+                }
+
+                JMethod getter = new JMethod( "get" + capitalise( field.getName() ), field.getType(), null );
+                getter.getSourceCode().add( "return this." + field.getName() + ";" );
+                jClass.addMethod( getter );
+
+                jClass.addMethod( createUnmodifiableCopy( modelAssociation, field ) );
+            }
+            else
+            {
+                field = createField( modelField );
+
+                // the default value is applied by the builder
+                field.setInitString( null );
+
+                jClass.addMethod( createGetter( field, modelField ) );
+            }
+
+            field.getModifiers().setFinal( true );
+
+            jClass.addField( field );
+
+            constructor.addParameter( new JParameter( field.getType(), field.getName() ) );
+
+            constructorSource.add( "this." + field.getName() + " = " + field.getName() + ";" );
+        }
+
+        for ( ModelField modelField : fields )
+        {
+            jClass.addMethod( createWither( modelClass, fields, modelField, jClass.getField( modelField.getName() ) ) );
+        }
+    }
+
+    private JMethod createWither( ModelClass modelClass, List<ModelField> fields, ModelField modelField, JField field )
+    {
+        JMethod wither = new JMethod( "with" + capitalise( field.getName() ), new JClass( modelClass.getName() ),
+                                      "a copy of this object, or this object if the value doesn't change" );
+
+        StringBuffer comment = new StringBuffer( "Creates a copy of this object with another " );
+        if ( StringUtils.isEmpty( modelField.getDescription() ) )
+        {
+            comment.append( field.getName() ).append( " field" );
+        }
+        else
+        {
+            comment.append( StringUtils.lowercaseFirstLetter( modelField.getDescription().trim() ) );
+        }
+        comment.append( ", sharing the values of the other fields." );
+        wither.getJDocComment().setComment( comment.toString() );
+
+        wither.addParameter( new JParameter( field.getType(), field.getName() ) );
+
+        JSourceCode sc = wither.getSourceCode();
+
+        sc.add( "if ( this." + field.getName() + " == " + field.getName() + " )" );
+        sc.add( "{" );
+        sc.addIndented( "return this;" );
+        sc.add( "}" );
+        sc.add( "" );
+
+        StringBuilder instance = new StringBuilder( "return new " ).append( modelClass.getName() ).append( "(" );
+
+        for ( int i = 0; i < fields.size(); i++ )
+        {
+            ModelField argument = fields.get( i );
+
+            instance.append( i > 0 ? ", " : " " );
+
+            if ( argument != modelField )
+            {
+                instance.append( "this." ).append( argument.getName() );
+            }
+            else if ( isManyAssociation( argument ) )
+            {
+                instance.append( "unmodifiable" ).append( capitalise( argument.getName() ) ).append( "( " );
+                instance.append( argument.getName() ).append( " )" );
+            }
+            else
+            {
+                instance.append( argument.getName() );
+            }
+        }
+
+        sc.add( instance.append( " );" ).toString() );
+
+        return wither;
+    }
+
+    /**
+     * Create the static method copying a collection into the unmodifiable collection stored in an immutable object.
+     */
+    private JMethod createUnmodifiableCopy( ModelAssociation modelAssociation, JField field )
+        throws ModelloException
+    {
+        JMethod copy = new JMethod( "unmodifiable" + capitalise( field.getName() ), field.getType(), null );
+        copy.getModifiers().makePrivate();
+        copy.getModifiers().setStatic( true );
+
+        copy.addParameter( new JParameter( field.getType(), field.getName() ) );
+
+        String wrapper;
+        if ( ModelDefault.LIST.equals( modelAssociation.getType() ) )
+        {
+            wrapper = "java.util.Collections.unmodifiableList( ";
+        }
+        else if ( ModelDefault.SET.equals( modelAssociation.getType() ) )
+        {
+            wrapper = "java.util.Collections.unmodifiableSet( ";
+        }
+        else
+        {
+            wrapper = "java.util.Collections.unmodifiableMap( ";
+        }
+
+        String instance = getManyAssociationInstance( modelAssociation );
+        String copyInstance = instance.substring( 0, instance.length() - 2 ) + "( " + field.getName() + " )";
+
+        JSourceCode sc = copy.getSourceCode();
+
+        sc.add( "if ( " + field.getName() + " == null )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + wrapper + instance + " );" );
+        sc.add( "}" );
+        sc.add( "" );
+        sc.add( "return " + wrapper + copyInstance + " );" );
+
+        return copy;
+    }
+
+    /**
+     * Get the expression creating an immutable object, from variables named after its fields.
+     *
+     * @param modelClass the immutable class
+     * @param fields the fields of the class, as returned by {@link #getImmutableFields(ModelClass)}
+     * @param arguments the names of the available variables, missing fields get their default value
+     * @return the constructor call
+     */
+    private String newImmutableInstance( ModelClass modelClass, List<ModelField> fields, Set<String> arguments )
+        throws ModelloException
+    {
+        StringBuilder instance = new StringBuilder( "new " ).append( modelClass.getName() ).append( "(" );
+
+        for ( int i = 0; i < fields.size(); i++ )
+        {
+            ModelField modelField = fields.get( i );
+
+            instance.append( i > 0 ? ", " : " " );
+
+            String value;
+            if ( arguments.contains( modelField.getName() ) )
+            {
+                value = modelField.getName();
+            }
+            else if ( modelField.getDefaultValue() != null )
+            {
+                value = getJavaDefaultValue( modelField );
+            }
+            else
+            {
+                value = "null";
+            }
+
+            if ( isManyAssociation( modelField ) )
+            {
+                instance.append( "unmodifiable" ).append( capitalise( modelField.getName() ) ).append( "( " );
+                instance.append( value ).append( " )" );
+            }
+            else
+            {
+                instance.append( value );
+            }
+        }
+
+        return instance.append( " )" ).toString();
+    }
+
+    private boolean isManyAssociation( ModelField modelField )
+    {
+        return modelField instanceof ModelAssociation && ( (ModelAssociation) modelField ).isManyMultiplicity();
+    }
+
+    private JType getManyAssociationType( ModelAssociation modelAssociation )
+        throws ModelloException
+    {
+        JType componentType = getComponentType( modelAssociation, getJavaAssociationMetadata( modelAssociation ) );
+
+        if ( modelAssociation.isGenericType() )
+        {
+            return new JCollectionType( modelAssociation.getType(), componentType, useJava5 );
+        }
+
+        return new JMapType( modelAssociation.getType(), getDefaultValue( modelAssociation, componentType ),
+                             componentType, useJava5 );
+    }
+
+    private String getManyAssociationInstance( ModelAssociation modelAssociation )
+        throws ModelloException
+    {
+        JType componentType = getComponentType( modelAssociation, getJavaAssociationMetadata( modelAssociation ) );
+
+        String defaultValue = getDefaultValue( modelAssociation, componentType );
+
+        if ( modelAssociation.isGenericType() )
+        {
+            return defaultValue;
+        }
+
+        return new JMapType( modelAssociation.getType(), defaultValue, componentType, useJava5 ).getInstanceName();
+    }
+
 }
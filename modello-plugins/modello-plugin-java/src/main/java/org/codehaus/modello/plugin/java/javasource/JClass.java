@@ -75,9 +75,8 @@ package org.codehaus.modello.plugin.java.javasource;
  */
 
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Vector;
 
 /**
  * A representation of the Java Source code for a Java Class. This is
@@ -96,7 +95,7 @@ public class JClass extends JStructure
     /**
      * The list of constructors for this JClass
      */
-    private Vector<JConstructor> _constructors = null;
+    private List<JConstructor> _constructors = null;
 
 
     /**
@@ -105,12 +104,12 @@ public class JClass extends JStructure
     private JNamedMap _fields = null;
 
 
-    private Vector<JClass> _innerClasses = null;
+    private List<JClass> _innerClasses = null;
 
     /**
-     * The list of methods of this JClass
+     * The list of methods of this JClass, in printed order
      */
-    private Vector<JMethod> _methods = null;
+    private JMethodList<JMethod> _methods = null;
 
     /**
      * The superclass for this JClass
@@ -133,10 +132,10 @@ public class JClass extends JStructure
         throws IllegalArgumentException
     {
         super( name );
-        _constructors = new Vector<JConstructor>();
+        _constructors = new ArrayList<JConstructor>();
         _fields = new JNamedMap();
-        _methods = new Vector<JMethod>();
-        _innerClasses = new Vector<JClass>();
+        _methods = new JMethodList<JMethod>();
+        _innerClasses = new ArrayList<JClass>();
         //-- initialize default Java doc
         getJDocComment().appendComment( "Class " + getLocalName() + "." );
 
@@ -162,7 +161,7 @@ public class JClass extends JStructure
             /** check signatures (add later) **/
             if ( !_constructors.contains( constructor ) )
             {
-                _constructors.addElement( constructor );
+                _constructors.add( constructor );
             }
         }
         else
@@ -267,10 +266,6 @@ public class JClass extends JStructure
 
         //-- check method name and signatures *add later*
 
-        //-- keep method list sorted for esthetics when printing
-        //-- START SORT :-)
-        boolean added = false;
-//        short modifierVal = 0;
         JModifiers modifiers = jMethod.getModifiers();
 
         if ( modifiers.isAbstract() )
@@ -278,29 +273,9 @@ public class JClass extends JStructure
             getModifiers().setAbstract( true );
         }
 
-        for ( int i = 0; i < _methods.size(); i++ )
-        {
-            JMethod tmp = (JMethod) _methods.elementAt( i );
-            //-- first compare modifiers
-            if ( tmp.getModifiers().isPrivate() )
-            {
-                if ( !modifiers.isPrivate() )
-                {
-                    _methods.insertElementAt( jMethod, i );
-                    added = true;
-                    break;
-                }
-            }
-            //-- compare names
-            if ( jMethod.getName().compareTo( tmp.getName() ) < 0 )
-            {
-                _methods.insertElementAt( jMethod, i );
-                added = true;
-                break;
-            }
-        }
-        //-- END SORT
-        if ( !added ) _methods.addElement( jMethod );
+        //-- keep method list sorted for esthetics when printing:
+        //-- by name, private methods last
+        _methods.add( jMethod, jMethod.getName(), modifiers.isPrivate() );
 
     } //-- addMethod
 
@@ -377,7 +352,7 @@ public class JClass extends JStructure
         }
 
         JClass innerClass = new JInnerClass( classname );
-        _innerClasses.addElement( innerClass );
+        _innerClasses.add( innerClass );
         return innerClass;
 
     } //-- createInnerClass
@@ -390,7 +365,7 @@ public class JClass extends JStructure
      */
     public JConstructor getConstructor( int index )
     {
-        return (JConstructor) _constructors.elementAt( index );
+        return _constructors.get( index );
     } //-- getConstructor
 
     /**
@@ -401,14 +376,7 @@ public class JClass extends JStructure
     public JConstructor[] getConstructors()
     {
 
-        int size = _constructors.size();
-        JConstructor[] jcArray = new JConstructor[size];
-
-        for ( int i = 0; i < _constructors.size(); i++ )
-        {
-            jcArray[i] = (JConstructor) _constructors.elementAt( i );
-        }
-        return jcArray;
+        return _constructors.toArray( new JConstructor[_constructors.size()] );
     } //-- getConstructors
 
 
@@ -447,10 +415,7 @@ public class JClass extends JStructure
      */
     public JClass[] getInnerClasses()
     {
-        int size = _innerClasses.size();
-        JClass[] carray = new JClass[size];
-        _innerClasses.copyInto( carray );
-        return carray;
+        return _innerClasses.toArray( new JClass[_innerClasses.size()] );
     } //-- getInnerClasses;
 
     /**
@@ -460,14 +425,7 @@ public class JClass extends JStructure
      */
     public JMethod[] getMethods()
     {
-        int size = _methods.size();
-        JMethod[] marray = new JMethod[size];
-
-        for ( int i = 0; i < _methods.size(); i++ )
-        {
-            marray[i] = (JMethod) _methods.elementAt( i );
-        }
-        return marray;
+        return _methods.asList().toArray( new JMethod[_methods.size()] );
     } //-- getMethods
 
     /**
@@ -480,12 +438,7 @@ public class JClass extends JStructure
      */
     public JMethod getMethod( String name, int startIndex )
     {
-        for ( int i = startIndex; i < _methods.size(); i++ )
-        {
-            JMethod jMethod = (JMethod) _methods.elementAt( i );
-            if ( jMethod.getName().equals( name ) ) return jMethod;
-        }
-        return null;
+        return _methods.get( name, startIndex );
     } //-- getMethod
 
     /**
@@ -496,7 +449,7 @@ public class JClass extends JStructure
      */
     public JMethod getMethod( int index )
     {
-        return (JMethod) _methods.elementAt( index );
+        return _methods.get( index );
     } //-- getMethod
 
 
@@ -554,21 +507,18 @@ public class JClass extends JStructure
             printPackageDeclaration( jsw );
 
             //-- get imports from inner-classes
-            Vector<String> removeImports = null;
+            List<String> removeImports = null;
             if ( _innerClasses.size() > 0 )
             {
-                removeImports = new Vector<String>();
-                for ( int i = 0; i < _innerClasses.size(); i++ )
+                removeImports = new ArrayList<String>();
+                for ( JClass iClass : _innerClasses )
                 {
-                    JClass iClass = (JClass) _innerClasses.elementAt( i );
-                    Enumeration<String> e = iClass.getImports();
-                    while ( e.hasMoreElements() )
+                    for ( String classname : iClass.getImports() )
                     {
-                        String classname = e.nextElement();
                         if ( !hasImport( classname ) )
                         {
                             addImport( classname );
-                            removeImports.addElement( classname );
+                            removeImports.add( classname );
                         }
                     }
                 }
@@ -578,9 +528,9 @@ public class JClass extends JStructure
             //-- remove imports from inner-classes, if necessary
             if ( removeImports != null )
             {
-                for ( int i = 0; i < removeImports.size(); i++ )
+                for ( String classname : removeImports )
                 {
-                    removeImport( (String) removeImports.elementAt( i ) );
+                    removeImport( classname );
                 }
             }
 
@@ -643,11 +593,10 @@ public class JClass extends JStructure
         {
             buffer.append( "implements " );
 
-            Enumeration<String> e = getInterfaces();
-            while ( e.hasMoreElements() )
+            for ( Iterator<String> i = getInterfaces().iterator(); i.hasNext(); )
             {
-                buffer.append( e.nextElement() );
-                if ( e.hasMoreElements() ) buffer.append( ", " );
+                buffer.append( i.next() );
+                if ( i.hasNext() ) buffer.append( ", " );
             }
 
             jsw.writeln( buffer.toString() );
@@ -732,9 +681,8 @@ public class JClass extends JStructure
             jsw.writeln( "//----------------/" );
             jsw.writeln();
         }
-        for ( int i = 0; i < _constructors.size(); i++ )
+        for ( JConstructor jConstructor : _constructors )
         {
-            JConstructor jConstructor = (JConstructor) _constructors.elementAt( i );
             jConstructor.print( jsw );
             jsw.writeln();
         }
@@ -749,9 +697,8 @@ public class JClass extends JStructure
             jsw.writeln();
         }
 
-        for ( int i = 0; i < _methods.size(); i++ )
+        for ( JMethod jMethod : _methods )
         {
-            JMethod jMethod = (JMethod) _methods.elementAt( i );
             jMethod.print( jsw );
             jsw.writeln();
         }
@@ -765,9 +712,8 @@ public class JClass extends JStructure
             jsw.writeln( "//-----------------/" );
             jsw.writeln();
         }
-        for ( int i = 0; i < _innerClasses.size(); i++ )
+        for ( JClass jClass : _innerClasses )
         {
-            JClass jClass = (JClass) _innerClasses.elementAt( i );
             jClass.print( jsw, true );
             jsw.writeln();
         }
@@ -798,7 +744,7 @@ public class JClass extends JStructure
      */
     public boolean removeConstructor( JConstructor constructor )
     {
-        return _constructors.removeElement( constructor );
+        return _constructors.remove( constructor );
     } //-- removeConstructor
 
     /**
@@ -846,7 +792,7 @@ public class JClass extends JStructure
      */
     public boolean removeInnerClass( JClass jClass )
     {
-        return _innerClasses.removeElement( jClass );
+        return _innerClasses.remove( jClass );
     } //-- removeInnerClass
 
     /**
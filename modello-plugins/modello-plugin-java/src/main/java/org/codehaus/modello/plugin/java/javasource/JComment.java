@@ -226,10 +226,9 @@ public class JComment
         formatter = new LineFormatter( _comment.toString(), maxLength, prefix );
         while ( formatter.hasMoreLines() )
         {
-            jsw.writeln( formatter.nextLine() );
+            formatter.printNextLine( jsw );
         }
         if ( end != null ) jsw.writeln( end );
-        jsw.flush();
     } //-- print
 
     /**
@@ -326,9 +325,37 @@ class LineFormatter
         if ( comment == null ) return null;
         if ( offset >= length ) return null;
 
+        int start = offset;
+        int end = nextLineEnd();
+
         sb.setLength( 0 );
         if ( prefix != null ) sb.append( prefix );
+        sb.append( comment, start, end );
+        return sb.toString();
+    } //-- getNextLine
+
+    /**
+     * Prints the next line to the given JSourceWriter, without
+     * building the line
+     * @param jsw the JSourceWriter to print to
+     **/
+    void printNextLine( JSourceWriter jsw )
+    {
+        int start = offset;
+        int end = nextLineEnd();
+
+        if ( prefix != null && prefix.length() > 0 ) jsw.write( prefix );
+        if ( end > start ) jsw.write( comment, start, end - start );
+        jsw.writeln();
+    } //-- printNextLine
 
+    /**
+     * Finds the end of the next line and moves the offset
+     * to the beginning of the following one
+     * @return the end index of the next line in the comment
+     **/
+    private int nextLineEnd()
+    {
         int max = offset + maxLength;
         if ( max > this.length ) max = this.length;
 
@@ -340,9 +367,8 @@ class LineFormatter
             char ch = comment.charAt( index );
             if ( isNewLine( ch ) )
             {
-                sb.append( comment.substring( offset, index ) );
                 offset = index + 1;
-                return sb.toString();
+                return index;
             }
             if ( isWhitespace( ch ) ) breakable = index;
         }
@@ -362,10 +388,9 @@ class LineFormatter
             else
                 index = breakable;
         }
-        sb.append( comment.substring( offset, index ) );
         offset = index + 1;
-        return sb.toString();
-    } //-- getNextLine
+        return index;
+    } //-- nextLineEnd
 
     /**
      * Sets the prefix that should be appended to the beginning of
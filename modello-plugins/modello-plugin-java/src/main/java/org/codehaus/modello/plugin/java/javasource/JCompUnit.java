@@ -76,7 +76,6 @@ package org.codehaus.modello.plugin.java.javasource;
  */
 
 import java.io.File;
-import java.util.Enumeration;
 import java.util.SortedSet;
 import java.util.TreeSet;
 import java.util.Vector;
@@ -254,21 +253,13 @@ public class JCompUnit
         {
             JClass jClass = classes.get( i );
 
-            Enumeration<String> e = jClass.getImports();
-            while ( e.hasMoreElements() )
-            {
-                allImports.add( e.nextElement() );
-            }
+            allImports.addAll( jClass.getImports() );
         }
 
         for ( int i = 0; i < interfaces.size(); ++i )
         {
             JInterface jInterface = interfaces.get( i );
-            Enumeration<String> e = jInterface.getImports();
-            while ( e.hasMoreElements() )
-            {
-                allImports.add( e.nextElement() );
-            }
+            allImports.addAll( jInterface.getImports() );
         }
 
         return allImports;
@@ -68,9 +68,8 @@ package org.codehaus.modello.plugin.java.javasource;
  */
 
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Vector;
 
 /**
  * A representation of the Java Source code for a Java Interface.
@@ -92,9 +91,9 @@ public final class JInterface extends JStructure
     private JNamedMap fields = null;
 
     /**
-     * The list of methods of this JInterface
+     * The list of methods of this JInterface, in printed order
      */
-    private Vector<JMethodSignature> methods = null;
+    private JMethodList<JMethodSignature> methods = null;
 
 
     /**
@@ -108,7 +107,7 @@ public final class JInterface extends JStructure
         throws IllegalArgumentException
     {
         super( name );
-        methods = new Vector<JMethodSignature>();
+        methods = new JMethodList<JMethodSignature>();
 
         //-- initialize default Java doc
         getJDocComment().appendComment( "Interface " + getLocalName() + "." );
@@ -218,34 +217,9 @@ public final class JInterface extends JStructure
 
         //-- check method name and signatures *add later*
 
-        //-- keep method list sorted for esthetics when printing
-        //-- START SORT :-)
-        boolean added = false;
-//        short modifierVal = 0;
-        JModifiers modifiers = jMethodSig.getModifiers();
-        for ( int i = 0; i < methods.size(); i++ )
-        {
-            JMethodSignature tmp = (JMethodSignature) methods.elementAt( i );
-            //-- first compare modifiers
-            if ( tmp.getModifiers().isProtected() )
-            {
-                if ( !modifiers.isProtected() )
-                {
-                    methods.insertElementAt( jMethodSig, i );
-                    added = true;
-                    break;
-                }
-            }
-            //-- compare names
-            if ( jMethodSig.getName().compareTo( tmp.getName() ) < 0 )
-            {
-                methods.insertElementAt( jMethodSig, i );
-                added = true;
-                break;
-            }
-        }
-        //-- END SORT
-        if ( !added ) methods.addElement( jMethodSig );
+        //-- keep method list sorted for esthetics when printing:
+        //-- by name, protected methods last
+        methods.add( jMethodSig, jMethodSig.getName(), jMethodSig.getModifiers().isProtected() );
 
         //-- check return type to make sure it's included in the
         //-- import list
@@ -308,9 +282,7 @@ public final class JInterface extends JStructure
      **/
     public JMethodSignature[] getMethods()
     {
-        JMethodSignature[] marray = new JMethodSignature[methods.size()];
-        methods.copyInto( marray );
-        return marray;
+        return methods.asList().toArray( new JMethodSignature[methods.size()] );
     } //-- getMethods
 
     /**
@@ -324,12 +296,7 @@ public final class JInterface extends JStructure
      **/
     public JMethodSignature getMethod( String name, int startIndex )
     {
-        for ( int i = startIndex; i < methods.size(); i++ )
-        {
-            JMethodSignature jMethod = (JMethodSignature) methods.elementAt( i );
-            if ( jMethod.getName().equals( name ) ) return jMethod;
-        }
-        return null;
+        return methods.get( name, startIndex );
     } //-- getMethod
 
     /**
@@ -340,7 +307,7 @@ public final class JInterface extends JStructure
      **/
     public JMethodSignature getMethod( int index )
     {
-        return (JMethodSignature) methods.elementAt( index );
+        return methods.get( index );
     } //-- getMethod
 
 
@@ -413,12 +380,11 @@ public final class JInterface extends JStructure
 
         if ( getInterfaceCount() > 0 )
         {
-            Enumeration<String> e = getInterfaces();
             buffer.append( "extends " );
-            while ( e.hasMoreElements() )
+            for ( Iterator<String> i = getInterfaces().iterator(); i.hasNext(); )
             {
-                buffer.append( e.nextElement() );
-                if ( e.hasMoreElements() ) buffer.append( ", " );
+                buffer.append( i.next() );
+                if ( i.hasNext() ) buffer.append( ", " );
             }
 
             jsw.writeln( buffer.toString() );
@@ -492,9 +458,8 @@ public final class JInterface extends JStructure
             jsw.writeln();
         }
 
-        for ( int i = 0; i < methods.size(); i++ )
+        for ( JMethodSignature signature : methods )
         {
-            JMethodSignature signature = (JMethodSignature) methods.elementAt( i );
             signature.print( jsw );
             jsw.writeln( ';' );
         }
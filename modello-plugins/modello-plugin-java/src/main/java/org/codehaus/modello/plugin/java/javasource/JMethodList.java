@@ -0,0 +1,273 @@
+package org.codehaus.modello.plugin.java.javasource;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * The methods of a class or an interface, kept in the order they are printed: a method is inserted before the first
+ * method with a greater name and, unless it is itself sorted last, before the first method sorted last (private methods
+ * of a class).
+ * <p>
+ * This is the order the former sorted insertion into a <code>Vector</code> produced. Since it depends on the
+ * insertion history, it is not a comparator order: the methods are kept in a randomized binary search tree where each
+ * subtree knows its greatest name and if it contains a method sorted last, so that the insertion point is found in
+ * O(log n) instead of a linear scan.
+ * <p>
+ * <b>Note:</b> This class is not synchronized.
+ *
+ * @since 1.9
+ */
+class JMethodList<M>
+    implements Iterable<M>
+{
+    private final Random random = new Random();
+
+    private final Map<String, List<M>> methodsByName = new HashMap<String, List<M>>();
+
+    private Node<M> root;
+
+    private int size;
+
+    /** The methods in printed order, computed on demand. */
+    private List<M> methods;
+
+    /**
+     * Inserts a method at its sorted position.
+     *
+     * @param method the method to add
+     * @param name the name of the method
+     * @param sortedLast <code>true</code> if the method is sorted after the other ones
+     */
+    public void add( M method, String name, boolean sortedLast )
+    {
+        Node<M> node = new Node<M>( method, name, sortedLast, random.nextInt() );
+
+        Node<M>[] split = split( root, name, !sortedLast );
+        root = merge( merge( split[0], node ), split[1] );
+
+        List<M> sameName = methodsByName.get( name );
+        if ( sameName == null )
+        {
+            sameName = new ArrayList<M>( 1 );
+            methodsByName.put( name, sameName );
+        }
+        sameName.add( method );
+
+        size++;
+        methods = null;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public M get( int index )
+    {
+        return asList().get( index );
+    }
+
+    /**
+     * Returns the first method with the given name, starting from the specified index.
+     *
+     * @return the method, or <code>null</code> if not found
+     */
+    public M get( String name, int startIndex )
+    {
+        List<M> sameName = methodsByName.get( name );
+
+        if ( sameName == null )
+        {
+            return null;
+        }
+
+        if ( sameName.size() == 1 && startIndex <= 0 )
+        {
+            return sameName.get( 0 );
+        }
+
+        List<M> list = asList();
+        for ( int i = Math.max( startIndex, 0 ); i < list.size(); i++ )
+        {
+            M method = list.get( i );
+            if ( sameName.contains( method ) )
+            {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    public Iterator<M> iterator()
+    {
+        return asList().iterator();
+    }
+
+    /**
+     * @return the methods in printed order, as an unmodifiable list
+     */
+    public List<M> asList()
+    {
+        if ( methods == null )
+        {
+            List<M> list = new ArrayList<M>( size );
+            collect( root, list );
+            methods = Collections.unmodifiableList( list );
+        }
+        return methods;
+    }
+
+    private static <M> void collect( Node<M> node, List<M> list )
+    {
+        while ( node != null )
+        {
+            collect( node.left, list );
+            list.add( node.method );
+            node = node.right;
+        }
+    }
+
+    /**
+     * Splits a tree before its first node with a name greater than the given one or, if <code>beforeLast</code> is
+     * set, sorted last.
+     */
+    @SuppressWarnings( "unchecked" )
+    private static <M> Node<M>[] split( Node<M> node, String name, boolean beforeLast )
+    {
+        if ( node == null )
+        {
+            return new Node[2];
+        }
+
+        Node<M>[] split;
+        if ( node.left != null && node.left.contains( name, beforeLast ) )
+        {
+            split = split( node.left, name, beforeLast );
+            node.left = split[1];
+            split[1] = node;
+        }
+        else if ( node.isAfter( name, beforeLast ) )
+        {
+            split = new Node[] { node.left, node };
+            node.left = null;
+        }
+        else
+        {
+            split = split( node.right, name, beforeLast );
+            node.right = split[0];
+            split[0] = node;
+        }
+        node.update();
+        return split;
+    }
+
+    private static <M> Node<M> merge( Node<M> left, Node<M> right )
+    {
+        if ( left == null )
+        {
+            return right;
+        }
+        if ( right == null )
+        {
+            return left;
+        }
+
+        if ( left.priority > right.priority )
+        {
+            left.right = merge( left.right, right );
+            left.update();
+            return left;
+        }
+
+        right.left = merge( left, right.left );
+        right.update();
+        return right;
+    }
+
+    private static class Node<M>
+    {
+        private final M method;
+
+        private final String name;
+
+        private final boolean sortedLast;
+
+        private final int priority;
+
+        private Node<M> left;
+
+        private Node<M> right;
+
+        /** The greatest name in this subtree. */
+        private String maxName;
+
+        /** If this subtree contains a method sorted last. */
+        private boolean containsLast;
+
+        Node( M method, String name, boolean sortedLast, int priority )
+        {
+            this.method = method;
+            this.name = name;
+            this.sortedLast = sortedLast;
+            this.priority = priority;
+            update();
+        }
+
+        boolean isAfter( String name, boolean beforeLast )
+        {
+            return ( beforeLast && sortedLast ) || this.name.compareTo( name ) > 0;
+        }
+
+        boolean contains( String name, boolean beforeLast )
+        {
+            return ( beforeLast && containsLast ) || maxName.compareTo( name ) > 0;
+        }
+
+        void update()
+        {
+            maxName = name;
+            containsLast = sortedLast;
+            include( left );
+            include( right );
+        }
+
+        private void include( Node<M> child )
+        {
+            if ( child != null )
+            {
+                if ( child.maxName.compareTo( maxName ) > 0 )
+                {
+                    maxName = child.maxName;
+                }
+                containsLast |= child.containsLast;
+            }
+        }
+    }
+}
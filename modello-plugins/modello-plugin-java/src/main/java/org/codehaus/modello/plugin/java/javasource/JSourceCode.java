@@ -70,7 +70,8 @@ package org.codehaus.modello.plugin.java.javasource;
 
 import org.codehaus.modello.ModelloRuntimeException;
 
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * A class for holding in-memory Java source code.
@@ -85,7 +86,7 @@ public class JSourceCode
     /**
      * A list of JCodeStatements
      **/
-    private Vector<JCodeStatement> source = null;
+    private List<JCodeStatement> source = null;
 
     /**
      * The indent size
@@ -103,7 +104,7 @@ public class JSourceCode
     public JSourceCode()
     {
         super();
-        source = new Vector<JCodeStatement>();
+        source = new ArrayList<JCodeStatement>();
     } //-- JSourceCode
 
     /**
@@ -114,7 +115,7 @@ public class JSourceCode
     public JSourceCode( String sourceCode )
     {
         this();
-        this.source.addElement( new JCodeStatement( sourceCode, currentIndent ) );
+        this.source.add( new JCodeStatement( sourceCode, currentIndent ) );
     } //-- JSourceCode
 
     /**
@@ -125,7 +126,7 @@ public class JSourceCode
     public void add( String statement )
     {
         JCodeStatement jcs = new JCodeStatement( statement, currentIndent );
-        source.addElement( jcs );
+        source.add( jcs );
     } //-- add
 
     /**
@@ -140,7 +141,7 @@ public class JSourceCode
     public void add( String statement, short indentSize )
     {
         JCodeStatement jcs = new JCodeStatement( statement, indentSize );
-        source.addElement( jcs );
+        source.add( jcs );
     } //-- add
 
     /**
@@ -158,7 +159,7 @@ public class JSourceCode
     {
         indent();
         JCodeStatement jcs = new JCodeStatement( statement, currentIndent );
-        source.addElement( jcs );
+        source.add( jcs );
         unindent();
     } //-- add
 
@@ -174,7 +175,7 @@ public class JSourceCode
             add( segment );
         else
         {
-            JCodeStatement jcs = (JCodeStatement) source.lastElement();
+            JCodeStatement jcs = source.get( source.size() - 1 );
             jcs.append( segment );
         }
     } //-- append(String)
@@ -184,7 +185,7 @@ public class JSourceCode
      **/
     public void clear()
     {
-        source.removeAllElements();
+        source.clear();
     } //-- clear();
 
     /**
@@ -193,9 +194,9 @@ public class JSourceCode
      **/
     public void copyInto( JSourceCode jsc )
     {
-        for ( int i = 0; i < source.size(); i++ )
+        for ( JCodeStatement jcs : source )
         {
-            jsc.addCodeStatement( (JCodeStatement) source.elementAt( i ) );
+            jsc.addCodeStatement( jcs );
         }
     } //-- copyInto
 
@@ -222,8 +223,8 @@ public class JSourceCode
      **/
     public void print( JSourceWriter jsw )
     {
-        for ( int i = 0; i < source.size(); i++ )
-            jsw.writeln( source.elementAt( i ).toString() );
+        for ( JCodeStatement jcs : source )
+            jcs.print( jsw );
     } //-- print
 
     /**
@@ -247,9 +248,9 @@ public class JSourceCode
     {
         StringBuffer sb = new StringBuffer();
         String lineSeparator = System.getProperty( "line.separator" );
-        for ( int i = 0; i < source.size(); i++ )
+        for ( JCodeStatement jcs : source )
         {
-            sb.append( source.elementAt( i ).toString() );
+            sb.append( jcs.toString() );
             sb.append( lineSeparator );
         }
         return sb.toString();
@@ -262,7 +263,7 @@ public class JSourceCode
     private void addCodeStatement( JCodeStatement jcs )
     {
         short indent = (short) ( jcs.getIndent() + currentIndent - JCodeStatement.DEFAULT_INDENTSIZE );
-        source.addElement( new JCodeStatement( jcs.getStatement(), indent ) );
+        source.add( new JCodeStatement( jcs.getStatement(), indent ) );
     } //-- addCodeStatement(JCodeStatement)
 
 } //-- JSourceCode
@@ -274,20 +275,19 @@ public class JSourceCode
 class JCodeStatement
 {
 
-    private StringBuffer value = null;
+    private String value = null;
     static public short DEFAULT_INDENTSIZE = 4;
     private short indentSize = DEFAULT_INDENTSIZE;
 
     JCodeStatement()
     {
-        super();
-        value = new StringBuffer();
+        this( "" );
     } //-- JCodeStatement
 
     JCodeStatement( String statement )
     {
-        this();
-        this.value.append( statement );
+        super();
+        this.value = String.valueOf( statement );
     } //-- JCodeStatement
 
     JCodeStatement( String statement, short indentSize )
@@ -299,7 +299,7 @@ class JCodeStatement
 
     void append( String segment )
     {
-        value.append( segment );
+        value = value + segment;
     }
 
     short getIndent()
@@ -309,9 +309,18 @@ class JCodeStatement
 
     String getStatement()
     {
-        return value.toString();
+        return value;
     } //-- getStatement
 
+    /**
+     * Prints this statement on its own line, without building the indented line
+     * @param jsw the JSourceWriter to print to
+     **/
+    void print( JSourceWriter jsw )
+    {
+        jsw.writelnIndented( indentSize, value );
+    } //-- print
+
     public String toString()
     {
         if ( value.length() == 0 )
@@ -321,7 +330,7 @@ class JCodeStatement
 
         StringBuffer sb = new StringBuffer( indentSize + value.length() );
         for ( int i = 0; i < indentSize; i++ ) sb.append( ' ' );
-        sb.append( value.toString() );
+        sb.append( value );
         return sb.toString();
     }
 } //-- JCodeStatement
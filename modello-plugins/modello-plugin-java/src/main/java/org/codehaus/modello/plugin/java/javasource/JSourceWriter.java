@@ -68,9 +68,14 @@ package org.codehaus.modello.plugin.java.javasource;
  */
 
 import java.io.Writer;
+import java.util.Arrays;
 
 /**
- * The writer used by the modello classes
+ * The writer used by the modello classes.
+ * <p>
+ * Output is buffered: it is only sent to the underlying writer when the buffer is full, on {@link #flush()} and on
+ * {@link #close()}. Indentation is written from a single reused array.
+ *
  * @author <a href="mailto:kvisco@intalio.com">Keith Visco</a>
  * @version $Revision$ $Date$
  **/
@@ -110,11 +115,6 @@ public class JSourceWriter extends Writer
      **/
     private short tabSize = DEFAULT_SIZE;
 
-    /**
-     * The tab representation
-     **/
-    private char[] tab;
-
     /**
      * The character to use for indentation
      **/
@@ -130,6 +130,28 @@ public class JSourceWriter extends Writer
      **/
     private Writer out = null;
 
+    /**
+     * The output not yet sent to the writer
+     **/
+    private final char[] buffer = new char[8192];
+
+    /**
+     * The number of chars in the buffer
+     **/
+    private int count = 0;
+
+    /**
+     * The indentation of the deepest level used so far,
+     * shorter levels being written from its beginning
+     **/
+    private char[] indentation = new char[0];
+
+    /**
+     * The spaces of the deepest indentation of source code
+     * statements used so far
+     **/
+    private char[] spaces = new char[0];
+
 
     /**
      * Creates a new JSourceWriter
@@ -179,7 +201,6 @@ public class JSourceWriter extends Writer
         this.autoflush = autoflush;
         this.tabChar = tabChar;
         this.tabSize = tabSize;
-        createTab();
     } //-- JSourceWriter
 
     /**
@@ -282,14 +303,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( String.valueOf( f ) );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( String.valueOf( f ) );
             linefeed();
             addIndentation = true;
         }
@@ -300,14 +314,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( String.valueOf( l ) );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( String.valueOf( l ) );
             linefeed();
             addIndentation = true;
         }
@@ -318,14 +325,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( String.valueOf( i ) );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( String.valueOf( i ) );
             linefeed();
             addIndentation = true;
         }
@@ -336,14 +336,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( String.valueOf( d ) );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( String.valueOf( d ) );
             linefeed();
             addIndentation = true;
         }
@@ -355,14 +348,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( obj.toString() );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( obj.toString() );
             linefeed();
             addIndentation = true;
         }
@@ -375,13 +361,7 @@ public class JSourceWriter extends Writer
             if ( string.length() > 0 )
             {
                 ensureIndent();
-                try
-                {
-                    out.write( string );
-                }
-                catch ( java.io.IOException ioe )
-                {
-                }
+                put( string );
             }
 
             linefeed();
@@ -394,14 +374,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( chars );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( chars );
             linefeed();
             addIndentation = true;
         }
@@ -412,14 +385,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( String.valueOf( b ) );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( String.valueOf( b ) );
             linefeed();
             addIndentation = true;
         }
@@ -430,18 +396,39 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( c );
-            }
-            catch ( java.io.IOException ioe )
+            put( c );
+            linefeed();
+            addIndentation = true;
+        }
+    } //-- writeln(char)
+
+    /**
+     * Writes a line indented with the given number of spaces in
+     * addition to the current indentation. An empty string is
+     * written as an empty line.
+     * @param spaces the number of spaces to write before the string
+     * @param string the String to write
+     **/
+    public void writelnIndented( int spaces, String string )
+    {
+        synchronized ( lock )
+        {
+            if ( string.length() > 0 )
             {
+                ensureIndent();
+                if ( spaces > this.spaces.length )
+                {
+                    this.spaces = new char[spaces];
+                    Arrays.fill( this.spaces, ' ' );
+                }
+                if ( spaces > 0 ) put( this.spaces, 0, spaces );
+                put( string );
             }
-            ;
+
             linefeed();
             addIndentation = true;
         }
-    } //-- writeln(char)
+    } //-- writelnIndented
 
 
     //-----------------------/
@@ -450,6 +437,7 @@ public class JSourceWriter extends Writer
 
     public void close()
     {
+        flushBuffer();
         try
         {
             out.close();
@@ -463,6 +451,7 @@ public class JSourceWriter extends Writer
 
     public void flush()
     {
+        flushBuffer();
         try
         {
             out.flush();
@@ -479,14 +468,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( s, off, len );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( s, off, len );
             if ( autoflush ) flush();
         }
     } //-- write
@@ -497,14 +479,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( s );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( s );
             if ( autoflush ) flush();
         }
     } //-- write
@@ -514,14 +489,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( buf );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( buf );
 
             if ( autoflush ) flush();
         }
@@ -533,14 +501,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( c );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( c );
             if ( autoflush ) flush();
         }
     } //-- write
@@ -551,14 +512,7 @@ public class JSourceWriter extends Writer
         synchronized ( lock )
         {
             ensureIndent();
-            try
-            {
-                out.write( buf, off, len );
-            }
-            catch ( java.io.IOException ioe )
-            {
-            }
-            ;
+            put( buf, off, len );
             if ( autoflush ) flush();
         }
     } //-- write
@@ -588,16 +542,13 @@ public class JSourceWriter extends Writer
 
     protected void writeIndent()
     {
-
-        try
+        int size = getIndentSize();
+        if ( size > indentation.length )
         {
-            for ( int i = 0; i < tabLevel; i++ ) out.write( tab );
+            indentation = new char[size];
+            Arrays.fill( indentation, tabChar );
         }
-        catch ( java.io.IOException ioe )
-        {
-        }
-        ;
-
+        put( indentation, 0, size );
     } //-- writeIndent
 
     //-------------------/
@@ -619,26 +570,71 @@ public class JSourceWriter extends Writer
      **/
     private void linefeed()
     {
-        try
+        put( lineSeparator );
+    } //-- linefeed
+
+    private void put( int c )
+    {
+        if ( count == buffer.length ) flushBuffer();
+        buffer[count++] = (char) c;
+    } //-- put(int)
+
+    private void put( String s )
+    {
+        put( s, 0, s.length() );
+    } //-- put(String)
+
+    private void put( String s, int off, int len )
+    {
+        while ( len > 0 )
         {
-            out.write( lineSeparator );
+            if ( count == buffer.length ) flushBuffer();
+            int n = Math.min( len, buffer.length - count );
+            s.getChars( off, off + n, buffer, count );
+            count += n;
+            off += n;
+            len -= n;
         }
-        catch ( java.io.IOException ioe )
+    } //-- put(String, int, int)
+
+    private void put( char[] buf )
+    {
+        put( buf, 0, buf.length );
+    } //-- put(char[])
+
+    private void put( char[] buf, int off, int len )
+    {
+        if ( len > buffer.length )
         {
+            //-- no need to copy large arrays
+            flushBuffer();
+            try
+            {
+                out.write( buf, off, len );
+            }
+            catch ( java.io.IOException ioe )
+            {
+            }
+            return;
         }
-        ;
-    } //-- linefeed
+        if ( len > buffer.length - count ) flushBuffer();
+        System.arraycopy( buf, off, buffer, count, len );
+        count += len;
+    } //-- put(char[], int, int)
 
     /**
-     * Creates the tab from the tabSize and the tabChar
+     * sends the buffered output to the writer
      **/
-    private void createTab()
+    private void flushBuffer()
     {
-        tab = new char[tabSize];
-        for ( int i = 0; i < tabSize; i++ )
+        try
+        {
+            out.write( buffer, 0, count );
+        }
+        catch ( java.io.IOException ioe )
         {
-            tab[i] = tabChar;
         }
-    } //-- createTab
+        count = 0;
+    } //-- flushBuffer
 
 } //-- JSourceWriter
@@ -68,8 +68,11 @@ package org.codehaus.modello.plugin.java.javasource;
  */
 
 import java.io.File;
-import java.util.Enumeration;
-import java.util.Vector;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
 
 import org.codehaus.plexus.util.WriterFactory;
 
@@ -109,14 +112,14 @@ public abstract class JStructure extends JType
     private JComment header = null;
 
     /**
-     * List of imported classes and packages
+     * Sorted set of imported classes and packages
      */
-    private Vector<String> imports = null;
+    private SortedSet<String> imports = null;
 
     /**
      * The set of interfaces implemented/extended by this JStructure
      */
-    private Vector<String> interfaces = null;
+    private List<String> interfaces = null;
 
     /**
      * The Javadoc for this JStructure
@@ -162,8 +165,8 @@ public abstract class JStructure extends JType
             throw new IllegalArgumentException( err );
         }
         this.packageName = getPackageFromClassName( name );
-        imports = new Vector<String>();
-        interfaces = new Vector<String>();
+        imports = new TreeSet<String>();
+        interfaces = new ArrayList<String>();
         jdc = new JDocComment();
         modifiers = new JModifiers();
         //-- initialize default Java doc
@@ -229,17 +232,7 @@ public abstract class JStructure extends JType
 
             //-- for readabilty keep import list sorted, and make sure
             //-- we do not include more than one of the same import
-            for ( int i = 0; i < imports.size(); i++ )
-            {
-                String imp = (String) imports.elementAt( i );
-                if ( imp.equals( className ) ) return;
-                if ( imp.compareTo( className ) > 0 )
-                {
-                    imports.insertElementAt( className, i );
-                    return;
-                }
-            }
-            imports.addElement( className );
+            imports.add( className );
         }
     } //-- addImport
 
@@ -254,7 +247,7 @@ public abstract class JStructure extends JType
     public void addInterface( String interfaceName )
     {
         if ( !interfaces.contains( interfaceName ) )
-            interfaces.addElement( interfaceName );
+            interfaces.add( interfaceName );
     } //-- addInterface
 
     /**
@@ -270,7 +263,7 @@ public abstract class JStructure extends JType
         String interfaceName = jInterface.getName();
         if ( !interfaces.contains( interfaceName ) )
         {
-            interfaces.addElement( interfaceName );
+            interfaces.add( interfaceName );
         }
     } //-- addInterface
 
@@ -411,26 +404,26 @@ public abstract class JStructure extends JType
     } //-- getHeader
 
     /**
-     * Returns an Enumeration of imported package and
+     * Returns the sorted set of imported package and
      * class names for this JStructure.
      *
-     * @return the Enumeration of imports. May be empty.
+     * @return the unmodifiable set of imports. May be empty.
      */
-    public Enumeration<String> getImports()
+    public SortedSet<String> getImports()
     {
-        return imports.elements();
+        return Collections.unmodifiableSortedSet( imports );
     } //-- getImports
 
     /**
-     * Returns an Enumeration of interface names that this
+     * Returns the list of interface names that this
      * JStructure inherits from.
      *
-     * @return the Enumeration of interface names for this
+     * @return the unmodifiable list of interface names for this
      * JStructure. May be empty.
      */
-    public Enumeration<String> getInterfaces()
+    public List<String> getInterfaces()
     {
-        return interfaces.elements();
+        return Collections.unmodifiableList( interfaces );
     } //-- getInterfaces
 
     /**
@@ -548,7 +541,7 @@ public abstract class JStructure extends JType
         if ( className == null ) return result;
         if ( className.length() == 0 ) return result;
 
-        result = imports.removeElement( className );
+        result = imports.remove( className );
         return result;
     } //-- removeImport
 
@@ -676,11 +669,10 @@ public abstract class JStructure extends JType
             jsw.writeln( " //- Imported classes and packages -/" );
             jsw.writeln( "//---------------------------------/" );
             jsw.writeln();
-            Enumeration<String> e = imports.elements();
-            while ( e.hasMoreElements() )
+            for ( String imp : imports )
             {
                 jsw.write( "import " );
-                jsw.write( e.nextElement() );
+                jsw.write( imp );
                 jsw.writeln( ';' );
             }
             jsw.writeln();
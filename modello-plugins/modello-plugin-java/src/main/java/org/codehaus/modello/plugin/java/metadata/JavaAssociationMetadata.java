@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.java.metadata;
  */
 
 import org.codehaus.modello.metadata.AssociationMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -35,6 +36,8 @@ public class JavaAssociationMetadata
 {
     public static final String ID = JavaAssociationMetadata.class.getName();
 
+    public static final MetadataSlot<JavaAssociationMetadata> SLOT = MetadataSlot.of( JavaAssociationMetadata.class );
+
     public static final String LAZY_INIT = "lazy";
     public static final String CONSTRUCTOR_INIT = "constructor";
     public static final String FIELD_INIT = "field";
@@ -71,6 +74,8 @@ public class JavaAssociationMetadata
 
     private String cloneMode;
 
+    private boolean lazy;
+
     public boolean isAdder()
     {
         return adder;
@@ -128,4 +133,14 @@ public class JavaAssociationMetadata
         this.cloneMode = cloneMode;
     }
 
+    public boolean isLazy()
+    {
+        return lazy;
+    }
+
+    public void setLazy( boolean lazy )
+    {
+        this.lazy = lazy;
+    }
+
 }
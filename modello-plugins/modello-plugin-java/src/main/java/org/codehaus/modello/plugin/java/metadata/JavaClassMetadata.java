@@ -26,6 +26,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.codehaus.modello.metadata.ClassMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:evenisse@codehaus.org">Emmanuel Venisse</a>
@@ -35,10 +36,17 @@ public class JavaClassMetadata
 {
     public static final String ID = JavaClassMetadata.class.getName();
 
+    public static final MetadataSlot<JavaClassMetadata> SLOT = MetadataSlot.of( JavaClassMetadata.class );
+
     public static final String CLONE_NONE = "none";
     public static final String CLONE_SHALLOW = "shallow";
     public static final String CLONE_DEEP = "deep";
 
+    /**
+     * @since 1.9
+     */
+    public static final String CLONE_LAZY = "lazy";
+
     public static final List<String> CLONE_MODES;
 
     static
@@ -47,6 +55,29 @@ public class JavaClassMetadata
         CLONE_MODES.add( CLONE_NONE );
         CLONE_MODES.add( CLONE_SHALLOW );
         CLONE_MODES.add( CLONE_DEEP );
+        CLONE_MODES.add( CLONE_LAZY );
+    }
+
+    /**
+     * @since 1.9
+     */
+    public static final String LOCATIONS_MAP = "map";
+
+    /**
+     * @since 1.9
+     */
+    public static final String LOCATIONS_PACKED = "packed";
+
+    /**
+     * @since 1.9
+     */
+    public static final List<String> LOCATIONS_MODES;
+
+    static
+    {
+        LOCATIONS_MODES = new ArrayList<String>();
+        LOCATIONS_MODES.add( LOCATIONS_MAP );
+        LOCATIONS_MODES.add( LOCATIONS_PACKED );
     }
 
     private boolean abstractMode;
@@ -57,6 +88,21 @@ public class JavaClassMetadata
 
     private String cloneHook;
 
+    /**
+     * @since 1.9
+     */
+    private String locationsMode;
+
+    /**
+     * @since 1.9
+     */
+    private boolean hashCache = false;
+
+    /**
+     * @since 1.9
+     */
+    private boolean immutable = false;
+
     /**
      * @since 1.8
      */
@@ -112,6 +158,36 @@ public class JavaClassMetadata
         this.cloneHook = cloneHook;
     }
 
+    public String getLocationsMode()
+    {
+        return locationsMode;
+    }
+
+    public void setLocationsMode( String locationsMode )
+    {
+        this.locationsMode = locationsMode;
+    }
+
+    public boolean isHashCache()
+    {
+        return hashCache;
+    }
+
+    public void setHashCache( boolean hashCache )
+    {
+        this.hashCache = hashCache;
+    }
+
+    public boolean isImmutable()
+    {
+        return immutable;
+    }
+
+    public void setImmutable( boolean immutable )
+    {
+        this.immutable = immutable;
+    }
+
     public boolean isGenerateToString()
     {
         return generateToString;
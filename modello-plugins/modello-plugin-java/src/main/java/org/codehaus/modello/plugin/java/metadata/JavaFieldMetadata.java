@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.java.metadata;
  */
 
 import org.codehaus.modello.metadata.FieldMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:evenisse@codehaus.org">Emmanuel Venisse </a>
@@ -32,6 +33,8 @@ public class JavaFieldMetadata
 {
     public static final String ID = JavaFieldMetadata.class.getName();
 
+    public static final MetadataSlot<JavaFieldMetadata> SLOT = MetadataSlot.of( JavaFieldMetadata.class );
+
     private boolean getter = true;
 
     private boolean booleanGetter = false;
@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.java.metadata;
  */
 
 import org.codehaus.modello.metadata.InterfaceMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:evenisse@codehaus.org">Emmanuel Venisse</a>
@@ -31,4 +32,6 @@ public class JavaInterfaceMetadata
     implements InterfaceMetadata
 {
     public static final String ID = JavaInterfaceMetadata.class.getName();
+
+    public static final MetadataSlot<JavaInterfaceMetadata> SLOT = MetadataSlot.of( JavaInterfaceMetadata.class );
 }
@@ -81,6 +81,26 @@ public class JavaMetadataPlugin
      */
     public static final String JAVA_GENERATE_STATIC_CREATORS = "java.staticCreator";
 
+    /**
+     * @since 1.9
+     */
+    public static final String JAVA_LAZY = "java.lazy";
+
+    /**
+     * @since 1.9
+     */
+    public static final String JAVA_LOCATIONS = "java.locations";
+
+    /**
+     * @since 1.9
+     */
+    public static final String JAVA_HASH_CACHE = "java.hashCache";
+
+    /**
+     * @since 1.9
+     */
+    public static final String JAVA_IMMUTABLE = "java.immutable";
+
     // ----------------------------------------------------------------------
     // Map to Metadata
     // ----------------------------------------------------------------------
@@ -106,6 +126,12 @@ public class JavaMetadataPlugin
 
         metadata.setCloneHook( getString( data, JAVA_CLONE_HOOK ) );
 
+        metadata.setLocationsMode( getString( data, JAVA_LOCATIONS ) );
+
+        metadata.setHashCache( getBoolean( data, JAVA_HASH_CACHE, false ) );
+
+        metadata.setImmutable( getBoolean( data, JAVA_IMMUTABLE, false ) );
+
         metadata.setGenerateToString( getBoolean( data, JAVA_GENERATE_TOSTRING, false ) );
 
         metadata.setGenerateBuilder( getBoolean( data, JAVA_GENERATE_BUILDER, false ) );
@@ -148,6 +174,8 @@ public class JavaMetadataPlugin
 
         metadata.setCloneMode( getString( data, JAVA_CLONE ) );
 
+        metadata.setLazy( getBoolean( data, JAVA_LAZY, false ) );
+
         return metadata;
     }
 }
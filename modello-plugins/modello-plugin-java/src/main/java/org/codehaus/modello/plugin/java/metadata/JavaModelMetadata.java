@@ -22,6 +22,7 @@ package org.codehaus.modello.plugin.java.metadata;
  * SOFTWARE.
  */
 
+import org.codehaus.modello.metadata.MetadataSlot;
 import org.codehaus.modello.metadata.ModelMetadata;
 
 /**
@@ -32,6 +33,8 @@ public class JavaModelMetadata
 {
     public static final String ID = JavaModelMetadata.class.getName();
 
+    public static final MetadataSlot<JavaModelMetadata> SLOT = MetadataSlot.of( JavaModelMetadata.class );
+
     private boolean suppressAllWarnings = true;
 
     public void setSuppressAllWarnings( boolean suppressAllWarnings )
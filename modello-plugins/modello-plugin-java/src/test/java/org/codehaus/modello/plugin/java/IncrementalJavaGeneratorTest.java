@@ -0,0 +1,121 @@
+package org.codehaus.modello.plugin.java;
+
+/*
+ * Copyright (c) 2004-2013, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.File;
+import java.io.StringReader;
+
+import org.codehaus.modello.AbstractModelloJavaGeneratorTest;
+import org.codehaus.modello.core.ModelloCore;
+import org.codehaus.plexus.util.FileUtils;
+import org.codehaus.plexus.util.IOUtil;
+
+public class IncrementalJavaGeneratorTest
+    extends AbstractModelloJavaGeneratorTest
+{
+    private static final long TIMESTAMP = 1000000000000L;
+
+    private static final String MARKER = "// edited by hand";
+
+    public IncrementalJavaGeneratorTest()
+    {
+        super( "incremental" );
+    }
+
+    public void testEditedClassDescriptionRegeneratesOneFile()
+        throws Throwable
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        String mdo = IOUtil.toString( getXmlResourceReader( "/models/maven.mdo" ) );
+
+        modello.generate( modello.loadModel( new StringReader( mdo ) ), "java", getModelloParameters( "4.0.0" ) );
+
+        File[] sources = new File( getOutputDirectory(), "org/apache/maven/model" ).listFiles();
+        assertTrue( sources.length > 1 );
+
+        for ( File source : sources )
+        {
+            assertTrue( source.setLastModified( TIMESTAMP ) );
+        }
+
+        // the same model doesn't write anything again
+        modello.generate( modello.loadModel( new StringReader( mdo ) ), "java", getModelloParameters( "4.0.0" ) );
+
+        for ( File source : sources )
+        {
+            assertNotGeneratedAgain( source );
+        }
+
+        // a source edited by hand is generated again
+        File developer = new File( getOutputDirectory(), "org/apache/maven/model/Developer.java" );
+        FileUtils.fileAppend( developer.getPath(), MARKER );
+        assertTrue( developer.setLastModified( TIMESTAMP ) );
+
+        modello.generate( modello.loadModel( new StringReader( mdo ) ), "java", getModelloParameters( "4.0.0" ) );
+
+        for ( File source : sources )
+        {
+            if ( source.equals( developer ) )
+            {
+                assertTrue( developer.lastModified() != TIMESTAMP );
+                assertFalse( FileUtils.fileRead( developer ).contains( MARKER ) );
+                assertTrue( developer.setLastModified( TIMESTAMP ) );
+            }
+            else
+            {
+                assertNotGeneratedAgain( source );
+            }
+        }
+
+        String edited = mdo.replace( "<name>Contributor</name>", "<name>Contributor</name>\n"
+            + "      <description>Someone contributing to the project.</description>" );
+        assertFalse( mdo.equals( edited ) );
+
+        modello.generate( modello.loadModel( new StringReader( edited ) ), "java", getModelloParameters( "4.0.0" ) );
+
+        for ( File source : sources )
+        {
+            if ( source.getName().equals( "Contributor.java" ) )
+            {
+                String content = FileUtils.fileRead( source );
+
+                assertTrue( source.lastModified() != TIMESTAMP );
+                assertTrue( content.contains( "Someone contributing to the project." ) );
+            }
+            else
+            {
+                // Developer extends Contributor, but doesn't depend on its documentation
+                assertNotGeneratedAgain( source );
+            }
+        }
+
+        compileGeneratedSources();
+    }
+
+    private void assertNotGeneratedAgain( File source )
+        throws Exception
+    {
+        assertEquals( source.getName(), TIMESTAMP, source.lastModified() );
+    }
+}
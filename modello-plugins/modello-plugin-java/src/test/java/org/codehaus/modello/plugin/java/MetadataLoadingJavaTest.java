@@ -0,0 +1,93 @@
+package org.codehaus.modello.plugin.java;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringReader;
+
+import org.codehaus.modello.AbstractModelloJavaGeneratorTest;
+import org.codehaus.modello.core.ModelloCore;
+import org.codehaus.modello.model.Model;
+import org.codehaus.modello.model.ModelClass;
+import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.model.ModelInterface;
+import org.codehaus.modello.model.ModelType;
+import org.codehaus.modello.plugin.Fingerprint;
+import org.codehaus.modello.plugin.java.metadata.JavaClassMetadata;
+import org.codehaus.modello.plugin.java.metadata.JavaFieldMetadata;
+import org.codehaus.plexus.util.IOUtil;
+
+/**
+ * The metadata plugins are applied to the classes in parallel: loading the same model must always give the same
+ * metadata on every element.
+ */
+public class MetadataLoadingJavaTest
+    extends AbstractModelloJavaGeneratorTest
+{
+    public MetadataLoadingJavaTest()
+    {
+        super( "metadata-loading" );
+    }
+
+    public void testMetadataIsTheSameOnEveryLoad()
+        throws Throwable
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        String mdo = IOUtil.toString( getXmlResourceReader( "/features.mdo" ) );
+
+        Model model = modello.loadModel( new StringReader( mdo ) );
+        String expected = fingerprint( model );
+
+        for ( ModelClass modelClass : model.getAllClasses() )
+        {
+            assertNotNull( modelClass.getMetadata( JavaClassMetadata.SLOT ) );
+
+            for ( ModelField field : modelClass.getAllFields() )
+            {
+                assertNotNull( field.getMetadata( JavaFieldMetadata.SLOT ) );
+            }
+        }
+
+        for ( int i = 0; i < 5; i++ )
+        {
+            assertEquals( expected, fingerprint( modello.loadModel( new StringReader( mdo ) ) ) );
+        }
+    }
+
+    private static String fingerprint( Model model )
+    {
+        Fingerprint fingerprint = new Fingerprint().addModel( model, true );
+
+        for ( ModelType type : model.getAllClasses() )
+        {
+            fingerprint.addTypeWithFields( type, true );
+        }
+
+        for ( ModelInterface type : model.getAllInterfaces() )
+        {
+            fingerprint.addTypeWithFields( type, true );
+        }
+
+        return fingerprint.digest();
+    }
+}
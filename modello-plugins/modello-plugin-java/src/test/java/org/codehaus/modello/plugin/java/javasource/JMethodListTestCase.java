@@ -0,0 +1,110 @@
+package org.codehaus.modello.plugin.java.javasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.9
+ */
+public final class JMethodListTestCase
+    extends TestCase
+{
+
+    public void testMethodIsInsertedBeforeGreaterNameOrFirstPrivateMethod()
+    {
+        JClass jClass = new JClass( "org.acme.Sorted" );
+
+        jClass.addMethod( newMethod( "read", false ) );
+        jClass.addMethod( newMethod( "parseModel", true ) );
+        jClass.addMethod( newMethod( "getBooleanValue", true ) );
+        jClass.addMethod( newMethod( "setStrict", false ) );
+
+        assertEquals( "setStrict", jClass.getMethod( 0 ).getName() );
+        assertEquals( "getBooleanValue", jClass.getMethod( 1 ).getName() );
+        assertEquals( "parseModel", jClass.getMethod( 2 ).getName() );
+        assertEquals( "read", jClass.getMethod( 3 ).getName() );
+
+        assertSame( jClass.getMethod( 3 ), jClass.getMethod( "read", 0 ) );
+        assertNull( jClass.getMethod( "setStrict", 1 ) );
+        assertNull( jClass.getMethod( "write", 0 ) );
+    }
+
+    /**
+     * The printed order must stay the one of the former linear sorted insertion, which depends on the insertion
+     * history.
+     */
+    public void testSameOrderAsLinearInsertion()
+    {
+        Random random = new Random( 42 );
+
+        for ( int run = 0; run < 50; run++ )
+        {
+            JMethodList<JMethod> methods = new JMethodList<JMethod>();
+            List<JMethod> expected = new ArrayList<JMethod>();
+
+            int count = 1 + random.nextInt( 300 );
+            for ( int i = 0; i < count; i++ )
+            {
+                JMethod jMethod = newMethod( "m" + random.nextInt( count ), random.nextInt( 3 ) == 0 );
+
+                methods.add( jMethod, jMethod.getName(), jMethod.getModifiers().isPrivate() );
+                addLinear( expected, jMethod );
+
+                if ( random.nextInt( 10 ) == 0 )
+                {
+                    assertEquals( expected, methods.asList() );
+                }
+            }
+
+            assertEquals( expected, methods.asList() );
+
+            for ( int i = 0; i < expected.size(); i++ )
+            {
+                JMethod jMethod = expected.get( i );
+                assertSame( jMethod, methods.get( i ) );
+                assertSame( getLinear( expected, jMethod.getName(), 0 ), methods.get( jMethod.getName(), 0 ) );
+                assertSame( getLinear( expected, jMethod.getName(), i ), methods.get( jMethod.getName(), i ) );
+            }
+        }
+    }
+
+    private static JMethod newMethod( String name, boolean isPrivate )
+    {
+        JMethod jMethod = new JMethod( name );
+        if ( isPrivate )
+        {
+            jMethod.getModifiers().makePrivate();
+        }
+        return jMethod;
+    }
+
+    private static void addLinear( List<JMethod> methods, JMethod jMethod )
+    {
+        for ( int i = 0; i < methods.size(); i++ )
+        {
+            JMethod tmp = methods.get( i );
+            if ( ( tmp.getModifiers().isPrivate() && !jMethod.getModifiers().isPrivate() )
+                || jMethod.getName().compareTo( tmp.getName() ) < 0 )
+            {
+                methods.add( i, jMethod );
+                return;
+            }
+        }
+        methods.add( jMethod );
+    }
+
+    private static JMethod getLinear( List<JMethod> methods, String name, int startIndex )
+    {
+        for ( int i = startIndex; i < methods.size(); i++ )
+        {
+            if ( methods.get( i ).getName().equals( name ) )
+            {
+                return methods.get( i );
+            }
+        }
+        return null;
+    }
+}
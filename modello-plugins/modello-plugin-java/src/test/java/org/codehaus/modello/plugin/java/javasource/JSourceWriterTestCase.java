@@ -0,0 +1,72 @@
+package org.codehaus.modello.plugin.java.javasource;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * @since 1.9
+ */
+public final class JSourceWriterTestCase
+    extends TestCase
+{
+
+    public void testOutputIsBufferedUntilFlush()
+    {
+        StringWriter out = new StringWriter();
+        JSourceWriter jsw = new JSourceWriter( out );
+        jsw.setLineSeparator( "\n" );
+
+        jsw.writeln( "class A" );
+        assertEquals( "", out.toString() );
+
+        jsw.flush();
+        assertEquals( "class A\n", out.toString() );
+    }
+
+    public void testIndentation()
+    {
+        StringWriter out = new StringWriter();
+        JSourceWriter jsw = new JSourceWriter( out );
+        jsw.setLineSeparator( "\n" );
+
+        jsw.writeln( "{" );
+        jsw.indent();
+        jsw.indent();
+        jsw.writeln( "a();" );
+        jsw.writelnIndented( 4, "b();" );
+        jsw.writelnIndented( 4, "" );
+        jsw.unindent();
+        jsw.write( "c" );
+        jsw.writeln( "();" );
+        jsw.unindent();
+        jsw.writeln( "}" );
+        jsw.close();
+
+        assertEquals( "{\n        a();\n            b();\n\n    c();\n}\n", out.toString() );
+    }
+
+    public void testLongOutput()
+    {
+        StringBuffer expected = new StringBuffer();
+        StringWriter out = new StringWriter();
+        JSourceWriter jsw = new JSourceWriter( out );
+        jsw.setLineSeparator( "\n" );
+
+        jsw.indent();
+        for ( int i = 0; i < 10000; i++ )
+        {
+            jsw.writelnIndented( i % 3, "statement" + i + "();" );
+            expected.append( "                ".substring( 0, 4 + i % 3 ) ).append( "statement" ).append( i );
+            expected.append( "();\n" );
+        }
+        char[] large = new char[20000];
+        Arrays.fill( large, 'x' );
+        jsw.writeln( large );
+        expected.append( "    " ).append( large ).append( '\n' );
+        jsw.flush();
+
+        assertEquals( expected.toString(), out.toString() );
+    }
+}
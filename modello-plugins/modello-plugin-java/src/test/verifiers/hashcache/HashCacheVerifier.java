@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+import org.codehaus.modello.test.hashcache.ClassifiedCoordinate;
+import org.codehaus.modello.test.hashcache.Coordinate;
+import org.codehaus.modello.test.hashcache.Dependency;
+import org.codehaus.modello.verifier.Verifier;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+public class HashCacheVerifier
+    extends Verifier
+{
+
+    public void verify()
+        throws Exception
+    {
+        verifyCacheField();
+
+        verifySetterInvalidation();
+
+        verifyFloatingPointIdentifiers();
+
+        verifyInheritance();
+
+        verifyAdderInvalidation();
+    }
+
+    private void verifyCacheField()
+        throws Exception
+    {
+        Field field = Coordinate.class.getDeclaredField( "cachedHashCode" );
+
+        assertTrue( Modifier.isPrivate( field.getModifiers() ) );
+        assertTrue( Modifier.isTransient( field.getModifiers() ) );
+    }
+
+    private void verifySetterInvalidation()
+    {
+        Coordinate first = newCoordinate( "org.codehaus", 1.5, 2.5f );
+        Coordinate second = newCoordinate( "org.codehaus", 1.5, 2.5f );
+
+        assertEquals( first, second );
+        assertEquals( first.hashCode(), second.hashCode() );
+
+        int hash = first.hashCode();
+        first.setGroupId( "org.apache" );
+        assertFalse( "setter must invalidate the cached hash code", hash == first.hashCode() );
+        assertFalse( first.equals( second ) );
+
+        first.setGroupId( "org.codehaus" );
+        assertEquals( hash, first.hashCode() );
+        assertEquals( first, second );
+
+        // non identifier fields don't take part
+        first.setDescription( "changed" );
+        assertEquals( hash, first.hashCode() );
+        assertEquals( first, second );
+
+        // both hashes are cached and differ: equals() must not match
+        second.setWeight( 3.5 );
+        second.hashCode();
+        assertFalse( first.equals( second ) );
+        assertFalse( second.equals( first ) );
+    }
+
+    private void verifyFloatingPointIdentifiers()
+    {
+        Coordinate first = newCoordinate( "nan", Double.NaN, Float.NaN );
+        Coordinate second = newCoordinate( "nan", Double.NaN, Float.NaN );
+
+        assertEquals( first, second );
+        assertEquals( first.hashCode(), second.hashCode() );
+
+        first = newCoordinate( "zero", 0.0, 0.0f );
+        second = newCoordinate( "zero", -0.0, 0.0f );
+        assertFalse( first.equals( second ) );
+
+        second = newCoordinate( "zero", 0.0, -0.0f );
+        assertFalse( first.equals( second ) );
+    }
+
+    private void verifyInheritance()
+    {
+        ClassifiedCoordinate first = new ClassifiedCoordinate();
+        first.setGroupId( "org.codehaus" );
+        first.setClassifier( "sources" );
+
+        ClassifiedCoordinate second = new ClassifiedCoordinate();
+        second.setGroupId( "org.codehaus" );
+        second.setClassifier( "sources" );
+
+        assertEquals( first, second );
+        assertEquals( first.hashCode(), second.hashCode() );
+
+        // a super class setter invalidates the hash code of the sub class too
+        int hash = first.hashCode();
+        first.setGroupId( "org.apache" );
+        assertFalse( hash == first.hashCode() );
+        assertFalse( first.equals( second ) );
+
+        first.setGroupId( "org.codehaus" );
+        first.setClassifier( "javadoc" );
+        assertFalse( hash == first.hashCode() );
+        assertFalse( first.equals( second ) );
+    }
+
+    private void verifyAdderInvalidation()
+    {
+        Dependency first = newDependency( "modello" );
+        Dependency second = newDependency( "modello" );
+
+        assertEquals( first, second );
+        int hash = first.hashCode();
+        assertEquals( hash, second.hashCode() );
+
+        // adders and removers of identifier associations invalidate the cached hash code
+        first.addExclusion( "plexus-utils" );
+        assertFalse( "adder must invalidate the cached hash code", hash == first.hashCode() );
+        assertFalse( first.equals( second ) );
+
+        second.addExclusion( "plexus-utils" );
+        assertEquals( first.hashCode(), second.hashCode() );
+        assertEquals( first, second );
+
+        first.removeExclusion( "plexus-utils" );
+        assertEquals( hash, first.hashCode() );
+        assertFalse( first.equals( second ) );
+
+        second.removeExclusion( "plexus-utils" );
+        assertEquals( first, second );
+    }
+
+    private static Dependency newDependency( String artifactId )
+    {
+        Dependency dependency = new Dependency();
+        dependency.setArtifactId( artifactId );
+        dependency.addExclusion( "junit" );
+        return dependency;
+    }
+
+    private static Coordinate newCoordinate( String groupId, double weight, float ratio )
+    {
+        Coordinate coordinate = new Coordinate();
+        coordinate.setGroupId( groupId );
+        coordinate.setWeight( weight );
+        coordinate.setRatio( ratio );
+        return coordinate;
+    }
+
+}
@@ -0,0 +1,382 @@
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+
+import org.codehaus.modello.test.lazyclone.LibraryModule;
+import org.codehaus.modello.test.lazyclone.Module;
+import org.codehaus.modello.test.lazyclone.Parent;
+import org.codehaus.modello.test.lazyclone.Project;
+import org.codehaus.modello.verifier.Verifier;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+public class LazyCloneVerifier
+    extends Verifier
+{
+    private static final int MODULES = 10000;
+
+    public void verify()
+        throws Exception
+    {
+        verifyCloneCopiesNothing();
+
+        verifyCopyOnGet();
+
+        verifyOriginalIsolation();
+
+        verifyReferencesAfterClone();
+
+        verifyConcurrentReads();
+
+        verifySetters();
+
+        verifyAdders();
+
+        verifyFieldTypes();
+
+        verifyCloneOfClone();
+
+        verifyInheritance();
+    }
+
+    private void verifyCloneCopiesNothing()
+        throws Exception
+    {
+        Project project = newProject();
+
+        Module.clones = 0;
+        Parent.clones = 0;
+
+        Project copy = project.clone();
+
+        assertEquals( "no module cloned", 0, Module.clones );
+        assertEquals( "no parent cloned", 0, Parent.clones );
+
+        assertSame( getField( project, "modules" ), getField( copy, "modules" ) );
+        assertSame( getField( project, "parent" ), getField( copy, "parent" ) );
+        assertSame( getField( project, "properties" ), getField( copy, "properties" ) );
+        assertSame( getField( project, "configuration" ), getField( copy, "configuration" ) );
+    }
+
+    private void verifyCopyOnGet()
+        throws Exception
+    {
+        Project project = newProject();
+
+        Project copy = project.clone();
+
+        Module.clones = 0;
+
+        List<Module> modules = copy.getModules();
+
+        assertNotSame( project.getModules(), modules );
+        assertSame( modules, copy.getModules() );
+        assertEquals( "the clone and the original each copy the modules on first access", MODULES * 2,
+                      Module.clones );
+
+        Module module = modules.get( 0 );
+        Module original = project.getModules().get( 0 );
+
+        assertNotSame( original, module );
+        assertEquals( original.getName(), module.getName() );
+        assertSame( "the dependencies of a cloned module are shared until accessed",
+                    getField( original, "dependencies" ), getField( module, "dependencies" ) );
+
+        module.addDependency( "junit" );
+        module.setName( "changed" );
+
+        assertEquals( 2, original.getDependencies().size() );
+        assertEquals( 3, module.getDependencies().size() );
+        assertEquals( "module-0", original.getName() );
+    }
+
+    private void verifyOriginalIsolation()
+    {
+        Project project = newProject();
+
+        Project copy = project.clone();
+
+        // the original copies its own fields on access too: the clone must not see its changes
+        project.getModules().get( 1 ).setName( "changed" );
+        project.getModules().add( new Module() );
+        project.getModules().remove( 2 );
+        project.getParent().setName( "changed" );
+        project.getReleased().setTime( 0 );
+        project.addProperty( "key", "changed" );
+
+        assertEquals( "module-1", copy.getModules().get( 1 ).getName() );
+        assertEquals( "module-2", copy.getModules().get( 2 ).getName() );
+        assertEquals( MODULES, copy.getModules().size() );
+        assertEquals( "parent", copy.getParent().getName() );
+        assertEquals( 1000, copy.getReleased().getTime() );
+        assertEquals( "value", copy.getProperties().getProperty( "key" ) );
+
+        // and the original never sees the changes of the clone
+        copy.getModules().get( 0 ).setName( "copy" );
+        copy.getParent().setName( "copy" );
+        copy.getModules().clear();
+
+        assertEquals( "module-0", project.getModules().get( 0 ).getName() );
+        assertEquals( "changed", project.getParent().getName() );
+        assertEquals( MODULES, project.getModules().size() );
+    }
+
+    private void verifyReferencesAfterClone()
+    {
+        Project project = newProject();
+
+        Project copy = project.clone();
+
+        // the values returned after the clone belong to their object, and keep being returned
+        List<Module> modules = project.getModules();
+        Parent parent = project.getParent();
+
+        modules.add( new Module() );
+        parent.setName( "changed" );
+
+        assertSame( modules, project.getModules() );
+        assertSame( parent, project.getParent() );
+        assertEquals( MODULES + 1, project.getModules().size() );
+        assertEquals( "changed", project.getParent().getName() );
+
+        assertNotSame( modules, copy.getModules() );
+        assertNotSame( parent, copy.getParent() );
+        assertEquals( MODULES, copy.getModules().size() );
+        assertEquals( "parent", copy.getParent().getName() );
+    }
+
+    private void verifyConcurrentReads()
+        throws Exception
+    {
+        final Project project = newProject();
+
+        final List<Throwable> failures = new ArrayList<Throwable>();
+
+        Thread[] threads = new Thread[4];
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            final String name = "thread-" + i;
+
+            threads[i] = new Thread()
+            {
+                public void run()
+                {
+                    try
+                    {
+                        for ( int j = 0; j < 10; j++ )
+                        {
+                            Project copy = project.clone();
+
+                            // the original copies its shared values once, under its lock
+                            assertEquals( MODULES, project.getModules().size() );
+                            assertEquals( "module-0", project.getModules().get( 0 ).getName() );
+                            assertEquals( "parent", project.getParent().getName() );
+                            assertEquals( 1, project.getProfiles().size() );
+
+                            copy.getModules().get( 0 ).setName( name );
+                            copy.getParent().setName( name );
+                            copy.addProfile( name );
+
+                            assertEquals( name, copy.getModules().get( 0 ).getName() );
+                            assertEquals( name, copy.getParent().getName() );
+                            assertEquals( 2, copy.getProfiles().size() );
+                        }
+                    }
+                    catch ( Throwable t )
+                    {
+                        synchronized ( failures )
+                        {
+                            failures.add( t );
+                        }
+                    }
+                }
+            };
+        }
+
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i].start();
+        }
+        for ( int i = 0; i < threads.length; i++ )
+        {
+            threads[i].join();
+        }
+
+        if ( !failures.isEmpty() )
+        {
+            throw (AssertionError) new AssertionError( "concurrent reads failed" ).initCause( failures.get( 0 ) );
+        }
+
+        assertEquals( MODULES, project.getModules().size() );
+        assertEquals( "module-0", project.getModules().get( 0 ).getName() );
+    }
+
+    private void verifySetters()
+    {
+        Project project = newProject();
+
+        Project copy = project.clone();
+
+        Module.clones = 0;
+
+        List<Module> modules = new ArrayList<Module>();
+        copy.setModules( modules );
+
+        assertSame( "a new value is not copied", modules, copy.getModules() );
+        assertEquals( 0, Module.clones );
+        assertEquals( MODULES, project.getModules().size() );
+
+        Parent parent = new Parent();
+        copy.setParent( parent );
+
+        assertSame( parent, copy.getParent() );
+        assertEquals( "parent", project.getParent().getName() );
+    }
+
+    private void verifyAdders()
+    {
+        Project project = newProject();
+
+        Project copy = project.clone();
+
+        // profiles are initialized with the field, and accessed directly by the adder and the remover
+        copy.addProfile( "release" );
+        assertEquals( 1, project.getProfiles().size() );
+        assertEquals( 2, copy.getProfiles().size() );
+
+        copy = project.clone();
+        copy.removeProfile( "default" );
+        assertEquals( 1, project.getProfiles().size() );
+        assertEquals( 0, copy.getProfiles().size() );
+
+        copy = project.clone();
+        copy.addModule( new Module() );
+        copy.addProperty( "key", "changed" );
+        assertEquals( MODULES, project.getModules().size() );
+        assertEquals( "value", project.getProperties().getProperty( "key" ) );
+        assertEquals( MODULES + 1, copy.getModules().size() );
+        assertEquals( "changed", copy.getProperties().getProperty( "key" ) );
+    }
+
+    private void verifyFieldTypes()
+    {
+        Project project = newProject();
+
+        Project copy = project.clone();
+
+        copy.getReleased().setTime( 0 );
+        ( (Xpp3Dom) copy.getConfiguration() ).setValue( "changed" );
+
+        assertEquals( 1000, project.getReleased().getTime() );
+        assertEquals( "value", ( (Xpp3Dom) project.getConfiguration() ).getValue() );
+    }
+
+    private void verifyCloneOfClone()
+    {
+        Project project = newProject();
+
+        Project first = project.clone();
+        Project second = first.clone();
+
+        second.getModules().get( 0 ).setName( "second" );
+        first.getModules().get( 0 ).setName( "first" );
+
+        assertEquals( "module-0", project.getModules().get( 0 ).getName() );
+        assertEquals( "first", first.getModules().get( 0 ).getName() );
+        assertEquals( "second", second.getModules().get( 0 ).getName() );
+    }
+
+    private void verifyInheritance()
+        throws Exception
+    {
+        LibraryModule library = new LibraryModule();
+        library.setName( "library" );
+        library.addDependency( "plexus-utils" );
+        library.addExport( "org.codehaus.modello" );
+
+        LibraryModule copy = (LibraryModule) library.clone();
+
+        assertSame( getField( library, "exports" ), getField( copy, "exports" ) );
+        assertSame( getField( library, "dependencies" ), getField( copy, "dependencies" ) );
+
+        copy.addExport( "org.codehaus.plexus" );
+        copy.addDependency( "junit" );
+
+        assertEquals( 1, library.getExports().size() );
+        assertEquals( 1, library.getDependencies().size() );
+        assertEquals( 2, copy.getExports().size() );
+        assertEquals( 2, copy.getDependencies().size() );
+    }
+
+    private Project newProject()
+    {
+        Project project = new Project();
+        project.setName( "project" );
+
+        Parent parent = new Parent();
+        parent.setName( "parent" );
+        project.setParent( parent );
+
+        for ( int i = 0; i < MODULES; i++ )
+        {
+            Module module = new Module();
+            module.setName( "module-" + i );
+            module.addDependency( "plexus-utils" );
+            module.addDependency( "junit" );
+            project.addModule( module );
+        }
+
+        project.addProfile( "default" );
+        project.addProperty( "key", "value" );
+
+        Xpp3Dom configuration = new Xpp3Dom( "configuration" );
+        configuration.setValue( "value" );
+        project.setConfiguration( configuration );
+
+        project.setReleased( new Date( 1000 ) );
+
+        return project;
+    }
+
+    private static Object getField( Object object, String name )
+        throws Exception
+    {
+        for ( Class<?> type = object.getClass(); type != null; type = type.getSuperclass() )
+        {
+            try
+            {
+                Field field = type.getDeclaredField( name );
+                field.setAccessible( true );
+                return field.get( object );
+            }
+            catch ( NoSuchFieldException e )
+            {
+                // look into the super class
+            }
+        }
+        throw new NoSuchFieldException( name );
+    }
+}
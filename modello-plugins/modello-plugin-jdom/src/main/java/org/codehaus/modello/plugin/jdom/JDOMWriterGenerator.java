@@ -119,7 +119,7 @@ public class JDOMWriterGenerator
 
         String root = objectModel.getRoot( getGeneratedVersion() );
 
-        ModelClass rootClass = objectModel.getClass( root, getGeneratedVersion() );
+        ModelClass rootClass = getView().getClass( root );
 
         String rootElement = resolveTagName( rootClass );
 
@@ -132,6 +132,8 @@ public class JDOMWriterGenerator
 
         writeAllClasses( objectModel, jClass, rootClass );
 
+        writeDateFormatHelper( jClass );
+
         if ( requiresDomSupport )
         {
             jClass.addImport( "org.codehaus.plexus.util.xml.Xpp3Dom" );
@@ -636,8 +638,8 @@ public class JDOMWriterGenerator
 
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -661,7 +663,7 @@ public class JDOMWriterGenerator
                     //MANY_MULTIPLICITY
 
                     XmlAssociationMetadata xmlAssociationMetadata =
-                        (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                        association.getMetadata( XmlAssociationMetadata.SLOT );
 
                     //String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
 //
@@ -110,8 +110,7 @@ public final class JsonSchemaGenerator
 
         generator.useDefaultPrettyPrinter();
 
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ),
-                                                getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         try
         {
@@ -122,7 +121,7 @@ public final class JsonSchemaGenerator
 
             generator.writeObjectFieldStart( "definitions" );
 
-            for ( ModelClass current : objectModel.getClasses( getGeneratedVersion() ) )
+            for ( ModelClass current : getView().getClasses() )
             {
                 if ( !root.equals( current ) )
                 {
@@ -163,7 +162,7 @@ public final class JsonSchemaGenerator
         while ( reference != null )
         {
             // collect parameters and set them in the instance object
-            for ( ModelField modelField : reference.getFields( getGeneratedVersion() ) )
+            for ( ModelField modelField : getView().getFields( reference ) )
             {
                 if ( modelField.isRequired() )
                 {
@@ -206,7 +205,7 @@ public final class JsonSchemaGenerator
                             generator.writeObjectFieldStart( "properties" );
 
                             XmlAssociationMetadata xmlAssociationMetadata =
-                                (XmlAssociationMetadata) modelAssociation.getAssociationMetadata( XmlAssociationMetadata.ID );
+                                modelAssociation.getMetadata( XmlAssociationMetadata.SLOT );
 
                             if ( xmlAssociationMetadata.isMapExplode() )
                             {
@@ -251,7 +250,7 @@ public final class JsonSchemaGenerator
 
             if ( reference.hasSuperClass() )
             {
-                reference = reference.getModel().getClass( reference.getSuperClass(), getGeneratedVersion() );
+                reference = getView().getClass( reference.getSuperClass() );
             }
             else
             {
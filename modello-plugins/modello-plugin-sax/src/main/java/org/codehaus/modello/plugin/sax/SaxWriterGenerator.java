@@ -122,7 +122,7 @@ public class SaxWriterGenerator
 
         String root = objectModel.getRoot( getGeneratedVersion() );
 
-        ModelClass rootClass = objectModel.getClass( root, getGeneratedVersion() );
+        ModelClass rootClass = getView().getClass( root );
 
         String rootElement = resolveTagName( rootClass );
 
@@ -250,6 +250,8 @@ public class SaxWriterGenerator
 
         writeAllClasses( objectModel, jClass );
 
+        writeDateFormatHelper( jClass );
+
         if ( requiresDomSupport )
         {
             createWriteDomMethod( jClass );
@@ -290,10 +292,10 @@ public class SaxWriterGenerator
 
         JSourceCode sc = marshall.getSourceCode();
 
-        ModelClassMetadata classMetadata = (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+        ModelClassMetadata classMetadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
 
         String namespace = null;
-        XmlModelMetadata xmlModelMetadata = (XmlModelMetadata) modelClass.getModel().getMetadata( XmlModelMetadata.ID );
+        XmlModelMetadata xmlModelMetadata = modelClass.getModel().getMetadata( XmlModelMetadata.SLOT );
 
         ModelField contentField = null;
 
@@ -306,9 +308,9 @@ public class SaxWriterGenerator
         // XML attributes
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -367,14 +369,14 @@ public class SaxWriterGenerator
 
         if ( contentField != null )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) contentField.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = contentField.getMetadata( XmlFieldMetadata.SLOT );
             sc.add( "writeText( " + getValue( contentField.getType(), contentValue, xmlFieldMetadata ) + ", contentHandler );" );
         }
 
         // XML tags
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isContent() )
             {
@@ -382,7 +384,7 @@ public class SaxWriterGenerator
                 continue;
             }
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -415,7 +417,7 @@ public class SaxWriterGenerator
                     //MANY_MULTIPLICITY
 
                     XmlAssociationMetadata xmlAssociationMetadata =
-                        (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                        association.getMetadata( XmlAssociationMetadata.SLOT );
 
                     String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
 
@@ -70,6 +70,12 @@ public class SnakeYamlReaderGenerator
         return false;
     }
 
+    @Override
+    protected String getParserPosition()
+    {
+        return "event.getStartMark().getLine() + 1, event.getStartMark().getColumn() + 1";
+    }
+
     public void generate( Model model, Properties parameters )
         throws ModelloException
     {
@@ -88,8 +94,7 @@ public class SnakeYamlReaderGenerator
                                                 + ", cannot generate extended reader." );
             }
 
-            locationField =
-                ( (ModelClassMetadata) locationTracker.getMetadata( ModelClassMetadata.ID ) ).getLocationTracker();
+            locationField = locationTracker.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
 
             sourceTracker = model.getSourceTracker( getGeneratedVersion() );
 
@@ -111,7 +116,7 @@ public class SnakeYamlReaderGenerator
 
     private void writeAllClassesReaders( Model objectModel, JClass jClass )
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         for ( ModelClass clazz : getClasses( objectModel ) )
         {
@@ -135,7 +140,7 @@ public class SnakeYamlReaderGenerator
             return;
         }
 
-        XmlClassMetadata xmlClassMetadata = (XmlClassMetadata) modelClass.getMetadata( XmlClassMetadata.ID );
+        XmlClassMetadata xmlClassMetadata = modelClass.getMetadata( XmlClassMetadata.SLOT );
         if ( !rootElement && !xmlClassMetadata.isStandaloneRead() )
         {
             return;
@@ -225,20 +230,23 @@ public class SnakeYamlReaderGenerator
 
         sc.add( "Parser parser = new ParserImpl( new StreamReader( reader ) );" );
 
-        sc.add( "return " + readerMethodName + "( parser, strict );" );
+        sc.add( "return " + readerMethodName + "( parser, strict" + trackingArgs + " );" );
 
         jClass.addMethod( unmarshall );
 
-        unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
+        if ( locationTracker == null )
+        {
+            unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
 
-        unmarshall.addParameter( new JParameter( new JClass( "Reader" ), "reader" ) );
+            unmarshall.addParameter( new JParameter( new JClass( "Reader" ), "reader" ) );
 
-        unmarshall.addException( new JClass( "IOException" ) );
+            unmarshall.addException( new JClass( "IOException" ) );
 
-        sc = unmarshall.getSourceCode();
-        sc.add( "return " + readerMethodName + "( reader, true );" );
+            sc = unmarshall.getSourceCode();
+            sc.add( "return " + readerMethodName + "( reader, true );" );
 
-        jClass.addMethod( unmarshall );
+            jClass.addMethod( unmarshall );
+        }
 
         // ----------------------------------------------------------------------
         // Write the read(InputStream[,boolean]) methods which will do the unmarshalling.
@@ -256,17 +264,22 @@ public class SnakeYamlReaderGenerator
 
         sc.add( "return " + readerMethodName + "( new InputStreamReader( in ), strict" + trackingArgs + " );" );
 
-        jClass.addMethod( unmarshall );unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
+        jClass.addMethod( unmarshall );
 
-        unmarshall.addParameter( new JParameter( new JClass( "InputStream" ), "in" ) );
+        if ( locationTracker == null )
+        {
+            unmarshall = new JMethod( readerMethodName, new JClass( className ), null );
 
-        unmarshall.addException( new JClass( "IOException" ) );
+            unmarshall.addParameter( new JParameter( new JClass( "InputStream" ), "in" ) );
 
-        sc = unmarshall.getSourceCode();
+            unmarshall.addException( new JClass( "IOException" ) );
 
-        sc.add( "return " + readerMethodName + "( in, true );" );
+            sc = unmarshall.getSourceCode();
 
-        jClass.addMethod( unmarshall );
+            sc.add( "return " + readerMethodName + "( in, true );" );
+
+            jClass.addMethod( unmarshall );
+        }
 
         // --------------------------------------------------------------------
     }
@@ -330,6 +343,10 @@ public class SnakeYamlReaderGenerator
 
         writeHelpers( jClass );
 
+        writeDateFormatHelper( jClass );
+
+        writeLocationFactory( jClass, locationTracker, sourceTracker );
+
         // ----------------------------------------------------------------------
         //
         // ----------------------------------------------------------------------
@@ -341,7 +358,7 @@ public class SnakeYamlReaderGenerator
 
     private void writeAllClassesParser( Model objectModel, JClass jClass )
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         for ( ModelClass clazz : getClasses( objectModel ) )
         {
@@ -395,7 +412,17 @@ public class SnakeYamlReaderGenerator
 
         sc.add( "" );
 
-        sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        boolean immutable = isImmutable( modelClass );
+
+        if ( immutable )
+        {
+            // the fields are collected by the builder, creating the object at the end
+            sc.add( className + ".Builder " + uncapClassName + " = new " + className + ".Builder();" );
+        }
+        else
+        {
+            sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        }
 
         if ( locationTracker != null )
         {
@@ -420,7 +447,7 @@ public class SnakeYamlReaderGenerator
         {
             //Write other fields
 
-            sc.add( "Set<String> parsed = new HashSet<String>();" );
+            sc.add( getParsedFieldsDeclaration( "parsed", modelFields.size() ) );
 
             sc.add( "" );
 
@@ -429,15 +456,15 @@ public class SnakeYamlReaderGenerator
             sc.add( "{" );
             sc.indent();
 
-            boolean addElse = false;
+            boolean addElse = !modelFields.isEmpty();
 
-            for ( ModelField field : modelFields )
+            for ( int i = 0; i < modelFields.size(); i++ )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+                ModelField field = modelFields.get( i );
 
-                processField( field, xmlFieldMetadata, addElse, sc, uncapClassName, jClass );
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-                addElse = true;
+                processField( field, xmlFieldMetadata, i, modelFields.size(), sc, uncapClassName, jClass );
             }
 
             if ( addElse )
@@ -460,7 +487,7 @@ public class SnakeYamlReaderGenerator
             sc.add( "}" );
         }
 
-        sc.add( "return " + uncapClassName + ";" );
+        sc.add( "return " + uncapClassName + ( immutable ? ".build()" : "" ) + ";" );
 
         jClass.addMethod( unmarshall );
     }
@@ -471,7 +498,7 @@ public class SnakeYamlReaderGenerator
 
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             // TODO check if we have already one with this type and throws Exception
             if ( xmlFieldMetadata.isContent() )
@@ -488,14 +515,18 @@ public class SnakeYamlReaderGenerator
      *
      * @param field            the field to process
      * @param xmlFieldMetadata its XML metadata
-     * @param addElse          add an <code>else</code> statement before generating a new <code>if</code>
+     * @param fieldIndex       the index of the field: an <code>else</code> statement is added before generating a
+     *                         new <code>if</code> if not the first one
+     * @param fieldCount       the number of fields
      * @param sc               the method source code to add to
      * @param objectName       the object name in the source
      * @param jClass           the generated class source file
      */
-    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, boolean addElse, JSourceCode sc,
-                               String objectName, JClass jClass )
+    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, int fieldIndex, int fieldCount,
+                               JSourceCode sc, String objectName, JClass jClass )
     {
+        boolean addElse = fieldIndex > 0;
+
         String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
         String capFieldName = capitalise( field.getName() );
@@ -514,7 +545,9 @@ public class SnakeYamlReaderGenerator
 
         String tagComparison =
             ( addElse ? "else " : "" ) + "if ( checkFieldWithDuplicate( event, \"" + fieldTagName + "\", " + alias
-                + ", parsed ) )";
+                + ", " + getFieldParsedCheck( "parsed", fieldIndex, fieldCount ) + " ) )";
+
+        String parsedMark = getFieldParsedMark( "parsed", fieldIndex, fieldCount );
 
         if ( !( field instanceof ModelAssociation ) )
         { // model field
@@ -523,6 +556,8 @@ public class SnakeYamlReaderGenerator
             sc.add( "{" );
             sc.indent();
 
+            sc.add( parsedMark );
+
             writePrimitiveField( field, field.getType(), objectName, objectName, "\"" + field.getName() + "\"",
                                  "set" + capFieldName, sc, false );
 
@@ -542,6 +577,8 @@ public class SnakeYamlReaderGenerator
                 sc.add( "{" );
                 sc.indent();
 
+                sc.add( parsedMark );
+
                 // sc.add( "// consume current key" );
                 // sc.add( "parser.getEvent();" );
                 sc.add( objectName
@@ -560,8 +597,7 @@ public class SnakeYamlReaderGenerator
             {
                 //MANY_MULTIPLICITY
 
-                XmlAssociationMetadata xmlAssociationMetadata =
-                    (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
                 String type = association.getType();
 
@@ -569,16 +605,13 @@ public class SnakeYamlReaderGenerator
                 {
                     boolean inModel = isClassInModel( association.getTo(), field.getModelClass().getModel() );
 
-                    sc.add( ( addElse ? "else " : "" )
-                            + "if ( checkFieldWithDuplicate( event, \""
-                            + fieldTagName
-                            + "\", "
-                            + alias
-                            + ", parsed ) )" );
+                    sc.add( tagComparison );
 
                     sc.add( "{" );
                     sc.indent();
 
+                    sc.add( parsedMark );
+
                     sc.add( "if ( !parser.getEvent().is( Event.ID.SequenceStart ) )" );
                     sc.add( "{" );
                     sc.addIndented( "throw new ParserException( \"Expected '"
@@ -586,11 +619,18 @@ public class SnakeYamlReaderGenerator
                                     + "' data to start with a Sequence\", event.getStartMark(), \"\", null );" );
                     sc.add( "}" );
 
-                    JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) association.getMetadata( JavaFieldMetadata.ID );
+                    JavaFieldMetadata javaFieldMetadata = association.getMetadata( JavaFieldMetadata.SLOT );
+
+                    boolean immutable = isImmutable( field.getModelClass() );
 
                     String adder;
 
-                    if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
+                    if ( immutable )
+                    {
+                        // the builder of an immutable class has no getters, and only adders for collections
+                        adder = objectName + ".add" + capitalise( singular( associationName ) );
+                    }
+                    else if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
                     {
                         sc.add( type + " " + associationName + " = " + objectName + ".get" + capFieldName + "();" );
 
@@ -649,8 +689,25 @@ public class SnakeYamlReaderGenerator
                             key = ( useJava5 ? "Integer.valueOf" : "new java.lang.Integer" ) + "( " + associationName
                                 + ".size() )";
                         }
-                        writePrimitiveField( association, association.getTo(), associationName, LOCATION_VAR + "s", key,
-                                             "add", sc, false );
+                        sc.add( "while ( !( event = parser.peekEvent() ).is( Event.ID.SequenceEnd ) )" );
+                        sc.add( "{" );
+                        sc.indent();
+
+                        if ( immutable )
+                        {
+                            writePrimitiveField( association, association.getTo(), objectName, LOCATION_VAR + "s",
+                                                 key, "add" + capitalise( singular( associationName ) ), sc, true );
+                        }
+                        else
+                        {
+                            writePrimitiveField( association, association.getTo(), associationName,
+                                                 LOCATION_VAR + "s", key, "add", sc, true );
+                        }
+
+                        sc.unindent();
+                        sc.add( "}" );
+
+                        sc.add( "parser.getEvent();" );
                     }
 
                     sc.unindent();
@@ -665,6 +722,8 @@ public class SnakeYamlReaderGenerator
                     sc.add( "{" );
                     sc.indent();
 
+                    sc.add( parsedMark );
+
                     if ( locationTracker != null )
                     {
                         sc.add( locationTracker.getName() + " " + LOCATION_VAR + "s;" );
@@ -700,15 +759,17 @@ public class SnakeYamlReaderGenerator
 
                         sc.add( "String value = null;" );
 
-                        sc.add( "Set<String> parsedPropertiesElements = new HashSet<String>();" );
+                        sc.add( getParsedFieldsDeclaration( "parsedPropertiesElements", 2 ) );
 
                         sc.add( "while ( !( event = parser.getEvent() ).is( Event.ID.MappingEnd ) )" );
 
                         sc.add( "{" );
                         sc.indent();
 
-                        sc.add( "if ( checkFieldWithDuplicate( event, \"key\", \"\", parsedPropertiesElements ) )" );
+                        sc.add( "if ( checkFieldWithDuplicate( event, \"key\", \"\", "
+                                + getFieldParsedCheck( "parsedPropertiesElements", 0, 2 ) + " ) )" );
                         sc.add( "{" );
+                        sc.addIndented( getFieldParsedMark( "parsedPropertiesElements", 0, 2 ) );
 
                         String parserGetter = "( (ScalarEvent) parser.getEvent() ).getValue()";
                         if ( xmlFieldMetadata.isTrim() )
@@ -719,8 +780,10 @@ public class SnakeYamlReaderGenerator
                         sc.addIndented( "key = " + parserGetter + ";" );
 
                         sc.add( "}" );
-                        sc.add( "else if ( checkFieldWithDuplicate( event, \"value\", \"\", parsedPropertiesElements ) )" );
+                        sc.add( "else if ( checkFieldWithDuplicate( event, \"value\", \"\", "
+                                + getFieldParsedCheck( "parsedPropertiesElements", 1, 2 ) + " ) )" );
                         sc.add( "{" );
+                        sc.addIndented( getFieldParsedMark( "parsedPropertiesElements", 1, 2 ) );
 
                         parserGetter = "( (ScalarEvent) parser.getEvent() ).getValue()";
                         if ( xmlFieldMetadata.isTrim() )
@@ -764,7 +827,9 @@ public class SnakeYamlReaderGenerator
                         sc.add( "{" );
                         sc.indent();
 
-                        sc.add( "String key = ( (ScalarEvent) parser.getEvent() ).getValue();" );
+                        sc.add( "event = parser.getEvent();" );
+
+                        sc.add( "String key = ( (ScalarEvent) event ).getValue();" );
 
                         writeNewSetLocation( "key", LOCATION_VAR + "s", null, sc );
 
@@ -845,7 +910,7 @@ public class SnakeYamlReaderGenerator
         method.addParameter( new JParameter( new JClass( "Event" ), "event" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "tagName" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "alias" ) );
-        method.addParameter( new JParameter( new JClass( "Set" ), "parsed" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "parsed" ) );
         method.addException( new JClass( "IOException" ) );
 
         sc = method.getSourceCode();
@@ -860,7 +925,7 @@ public class SnakeYamlReaderGenerator
         sc.addIndented( "return false;" );
         sc.add( "}" );
 
-        sc.add( "if ( !parsed.add( tagName ) )" );
+        sc.add( "if ( parsed )" );
 
         sc.add( "{" );
         sc.addIndented( "throw new ParserException( \"Duplicated tag: '\" + tagName + \"'\", event.getStartMark(), \"\", null );" );
@@ -1066,22 +1131,32 @@ public class SnakeYamlReaderGenerator
 
     private void writeNewSetLocation( String key, String objectName, String trackerVariable, JSourceCode sc )
     {
-        writeNewLocation( trackerVariable, sc );
+        writeNewLocation( trackerVariable, "\"\"".equals( key ), sc );
         writeSetLocation( key, objectName, trackerVariable, sc );
     }
 
     private void writeNewLocation( String trackerVariable, JSourceCode sc )
+    {
+        writeNewLocation( trackerVariable, false, sc );
+    }
+
+    private void writeNewLocation( String trackerVariable, boolean element, JSourceCode sc )
     {
         if ( locationTracker == null )
         {
             return;
         }
 
-        String constr = "new " + locationTracker.getName() + "( parser.getLineNumber(), parser.getColumnNumber()";
-        constr += ( sourceTracker != null ) ? ", " + SOURCE_PARAM : "";
-        constr += " )";
+        String variable = ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR;
 
-        sc.add( ( ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR ) + " = " + constr + ";" );
+        if ( LOCATION_VAR.equals( variable ) )
+        {
+            // single locations may be shared, not the ones receiving the locations of collection items
+            sc.add( variable + " = " + getNewLocation( sourceTracker, SOURCE_PARAM, element ) + ";" );
+            return;
+        }
+
+        sc.add( variable + " = " + getNewItemsLocation( sourceTracker, SOURCE_PARAM ) + ";" );
     }
 
     private void writeSetLocation( String key, String objectName, String trackerVariable, JSourceCode sc )
@@ -1093,7 +1168,21 @@ public class SnakeYamlReaderGenerator
 
         String variable = ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR;
 
-        sc.add( objectName + ".set" + capitalise( singular( locationField ) ) + "( " + key + ", " + variable + " );" );
+        String setLocation =
+            objectName + ".set" + capitalise( singular( locationField ) ) + "( " + key + ", " + variable + " );";
+
+        if ( ( LOCATION_VAR + "s" ).equals( objectName ) )
+        {
+            // no locations of collection items in coarse mode
+            sc.add( "if ( " + objectName + " != null )" );
+            sc.add( "{" );
+            sc.addIndented( setLocation );
+            sc.add( "}" );
+        }
+        else
+        {
+            sc.add( setLocation );
+        }
     }
 
     /**
@@ -1109,7 +1198,7 @@ public class SnakeYamlReaderGenerator
         private void writePrimitiveField( ModelField field, String type, String objectName, String locatorName,
                                           String locationKey, String setterName, JSourceCode sc, boolean wrappedItem )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             String tagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -1131,56 +1220,49 @@ public class SnakeYamlReaderGenerator
                 parserGetter = "getTrimmedValue( " + parserGetter + " )";
             }
 
+            String value;
             if ( "boolean".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getBooleanValue( " + parserGetter + " ) );" );
+                value = "getBooleanValue( " + parserGetter + " )";
             }
             else if ( "char".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getCharacterValue( " + parserGetter + ", \"" + tagName
-                    + "\" ) );" );
+                value = "getCharacterValue( " + parserGetter + ", \"" + tagName + "\" )";
             }
             else if ( "double".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getDoubleValue( " + parserGetter + ", \"" + tagName
-                    + "\", parser.peekEvent(), strict ) );" );
+                value = "getDoubleValue( " + parserGetter + ", \"" + tagName + "\", parser.peekEvent(), strict )";
             }
             else if ( "float".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getFloatValue( " + parserGetter + ", \"" + tagName
-                    + "\", parser.peekEvent(), strict ) );" );
+                value = "getFloatValue( " + parserGetter + ", \"" + tagName + "\", parser.peekEvent(), strict )";
             }
             else if ( "int".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getIntegerValue( " + parserGetter + ", \"" + tagName
-                    + "\", parser.peekEvent(), strict ) );" );
+                value = "getIntegerValue( " + parserGetter + ", \"" + tagName + "\", parser.peekEvent(), strict )";
             }
             else if ( "long".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getLongValue( " + parserGetter + ", \"" + tagName
-                    + "\", parser.peekEvent(), strict ) );" );
+                value = "getLongValue( " + parserGetter + ", \"" + tagName + "\", parser.peekEvent(), strict )";
             }
             else if ( "short".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getShortValue( " + parserGetter + ", \"" + tagName
-                    + "\", parser.peekEvent(), strict ) );" );
+                value = "getShortValue( " + parserGetter + ", \"" + tagName + "\", parser.peekEvent(), strict )";
             }
             else if ( "byte".equals( type ) )
             {
-                sc.add( objectName + "." + setterName + "( getByteValue( " + parserGetter + ", \"" + tagName
-                    + "\", parser.peekEvent(), strict ) );" );
+                value = "getByteValue( " + parserGetter + ", \"" + tagName + "\", parser.peekEvent(), strict )";
             }
             else if ( "String".equals( type ) || "Boolean".equals( type ) )
             {
                 // TODO: other Primitive types
-                sc.add( objectName + "." + setterName + "( " + parserGetter + " );" );
+                value = parserGetter;
             }
             else if ( "Date".equals( type ) )
             {
                 sc.add( "String dateFormat = "
                     + ( xmlFieldMetadata.getFormat() != null ? "\"" + xmlFieldMetadata.getFormat() + "\"" : "null" ) + ";" );
-                sc.add( objectName + "." + setterName + "( getDateValue( " + parserGetter + ", \"" + tagName
-                    + "\", dateFormat, parser.peekEvent() ) );" );
+                value = "getDateValue( " + parserGetter + ", \"" + tagName + "\", dateFormat, parser.peekEvent() )";
             }
             else
             {
@@ -1191,6 +1273,26 @@ public class SnakeYamlReaderGenerator
                                                     + "."
                                                     + field.getName() );
             }
+
+            String keyCapture = "";
+            writeNewLocation( null, sc );
+            if ( locationTracker != null && "?".equals( locationKey ) )
+            {
+                sc.add( "Object _key;" );
+                locationKey = "_key";
+                keyCapture = "_key = ";
+            }
+            else
+            {
+                writeSetLocation( locationKey, locatorName, null, sc );
+            }
+
+            sc.add( objectName + "." + setterName + "( " + keyCapture + value + " );" );
+
+            if ( keyCapture.length() > 0 )
+            {
+                writeSetLocation( locationKey, locatorName, null, sc );
+            }
         }
 
     private JMethod convertNumericalType( String methodName, JType returnType, String expression, String typeDesc )
@@ -167,6 +167,8 @@ public class SnakeYamlWriterGenerator
 
         writeAllClasses( objectModel, jClass );
 
+        writeDateFormatHelper( jClass );
+
         jClass.print( sourceWriter );
 
         sourceWriter.close();
@@ -210,9 +212,9 @@ public class SnakeYamlWriterGenerator
         // XML attributes
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -245,14 +247,14 @@ public class SnakeYamlWriterGenerator
 
         if ( contentField != null )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) contentField.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = contentField.getMetadata( XmlFieldMetadata.SLOT );
             writeScalar( sc, getValue( contentField.getType(), contentValue, xmlFieldMetadata ) );
         }
 
         // XML tags
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isContent() )
             {
@@ -260,7 +262,7 @@ public class SnakeYamlWriterGenerator
                 continue;
             }
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -295,7 +297,7 @@ public class SnakeYamlWriterGenerator
                     //MANY_MULTIPLICITY
 
                     XmlAssociationMetadata xmlAssociationMetadata =
-                        (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                        association.getMetadata( XmlAssociationMetadata.SLOT );
 
                     type = association.getType();
                     String toType = association.getTo();
@@ -378,7 +380,7 @@ public class SnakeYamlWriterGenerator
                             }
                             else
                             {
-                                entryTypeBuilder.append( "String, " ).append( association.getTo() );
+                                entryTypeBuilder.append( "Object, " ).append( association.getTo() );
                             }
 
                             entryTypeBuilder.append( '>' );
@@ -0,0 +1,101 @@
+package org.codehaus.modello.generator.snakeyaml;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import org.codehaus.modello.test.locationssrc.Item;
+import org.codehaus.modello.test.locationssrc.Location;
+import org.codehaus.modello.test.locationssrc.Model;
+import org.codehaus.modello.test.locationssrc.Source;
+import org.codehaus.modello.test.locationssrc.io.snakeyaml.LocationsSourceTestSnakeYamlReaderEx;
+import org.codehaus.modello.verifier.Verifier;
+
+public class SnakeYamlLocationModesVerifier
+    extends Verifier
+{
+
+    public void verify()
+        throws Exception
+    {
+        Source source = new Source();
+
+        LocationsSourceTestSnakeYamlReaderEx reader = new LocationsSourceTestSnakeYamlReaderEx();
+        assertEquals( LocationsSourceTestSnakeYamlReaderEx.LOCATIONS_ALL, reader.getLocationMode() );
+
+        Model all = reader.read( getClass().getResourceAsStream( "/locations.yaml" ), true, source );
+        Model again = reader.read( getClass().getResourceAsStream( "/locations.yaml" ), true, source );
+        assertNotSame( all.getItems().get( 0 ).getLocation( "string" ), again.getItems().get( 0 ).getLocation( "string" ) );
+
+        // identical locations are shared, with the same positions
+        reader.setLocationMode( LocationsSourceTestSnakeYamlReaderEx.LOCATIONS_SHARED );
+
+        Model shared = reader.read( getClass().getResourceAsStream( "/locations.yaml" ), true, source );
+        again = reader.read( getClass().getResourceAsStream( "/locations.yaml" ), true, source );
+        assertSame( shared.getItems().get( 0 ).getLocation( "string" ), again.getItems().get( 0 ).getLocation( "string" ) );
+
+        assertSameLocation( all.getLocation( "string" ), shared.getLocation( "string" ) );
+        assertSameLocation( all.getLocation( "flatListStrings" ).getLocation( new Integer( 1 ) ),
+                            shared.getLocation( "flatListStrings" ).getLocation( new Integer( 1 ) ) );
+        assertSameLocation( all.getLocation( "inlinedProperties" ).getLocation( "b" ),
+                            shared.getLocation( "inlinedProperties" ).getLocation( "b" ) );
+        assertNotSame( shared.getLocation( "flatListStrings" ), again.getLocation( "flatListStrings" ) );
+
+        // another source doesn't share the locations of the first one
+        Source other = new Source();
+        again = reader.read( getClass().getResourceAsStream( "/locations.yaml" ), true, other );
+        assertSame( other, again.getItems().get( 0 ).getLocation( "string" ).getSource() );
+
+        // coarse: only the elements of the model objects
+        reader.setLocationMode( LocationsSourceTestSnakeYamlReaderEx.LOCATIONS_ELEMENTS );
+
+        Model coarse = reader.read( getClass().getResourceAsStream( "/locations.yaml" ), true, source );
+        assertSameLocation( all.getLocation( "" ), coarse.getLocation( "" ) );
+        assertNull( coarse.getLocation( "string" ) );
+        assertNull( coarse.getLocation( "flatListStrings" ) );
+        assertNull( coarse.getLocation( "inlinedProperties" ) );
+        assertEquals( 3, coarse.getFlatListStrings().size() );
+        assertEquals( "test", coarse.getInlinedProperties().getProperty( "b" ) );
+
+        Item item = coarse.getItems().get( 0 );
+        assertSameLocation( all.getItems().get( 0 ).getLocation( "" ), item.getLocation( "" ) );
+        assertNull( item.getLocation( "string" ) );
+
+        try
+        {
+            reader.setLocationMode( 3 );
+            fail( "Expected IllegalArgumentException." );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // expected
+        }
+    }
+
+    private void assertSameLocation( Location expected, Location actual )
+    {
+        assertNotNull( actual );
+        assertEquals( expected.getLineNumber(), actual.getLineNumber() );
+        assertEquals( expected.getColumnNumber(), actual.getColumnNumber() );
+        assertSame( expected.getSource(), actual.getSource() );
+    }
+
+}
@@ -54,8 +54,7 @@ public abstract class AbstractStaxGenerator
     protected ModelField getReferenceIdentifierField( ModelAssociation association )
         throws ModelloException
     {
-        XmlAssociationMetadata xmlAssocMetadata =
-            (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+        XmlAssociationMetadata xmlAssocMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
         ModelField referenceIdentifierField = null;
         if ( xmlAssocMetadata.isReference() )
@@ -70,7 +69,7 @@ public abstract class AbstractStaxGenerator
                     + "' is not in the model" );
             }
 
-            List<ModelField> identifierFields = association.getToClass().getIdentifierFields( getGeneratedVersion() );
+            List<ModelField> identifierFields = getView().getIdentifierFields( association.getToClass() );
             if ( identifierFields.size() == 1 )
             {
                 referenceIdentifierField = identifierFields.get( 0 );
@@ -89,16 +88,15 @@ public abstract class AbstractStaxGenerator
         if ( parts == null )
         {
             parts = new HashSet<ModelClass>();
-            for ( ModelClass clazz : modelClass.getModel().getClasses( getGeneratedVersion() ) )
+            for ( ModelClass clazz : getView().getClasses() )
             {
-                for ( ModelField modelField : clazz.getFields( getGeneratedVersion() ) )
+                for ( ModelField modelField : getView().getFields( clazz ) )
                 {
                     if ( modelField instanceof ModelAssociation )
                     {
                         ModelAssociation assoc = (ModelAssociation) modelField;
 
-                        XmlAssociationMetadata xmlAssocMetadata =
-                            (XmlAssociationMetadata) assoc.getAssociationMetadata( XmlAssociationMetadata.ID );
+                        XmlAssociationMetadata xmlAssocMetadata = assoc.getMetadata( XmlAssociationMetadata.SLOT );
 
                         if ( xmlAssocMetadata.isReference() )
                         {
@@ -45,6 +45,7 @@ import org.codehaus.modello.plugins.xml.metadata.XmlModelMetadata;
 import org.codehaus.plexus.util.StringUtils;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
@@ -59,12 +60,18 @@ public class StaxReaderGenerator
 
     private boolean requiresDomSupport;
 
+    /**
+     * The keys of the <code>*</code> associations of model classes, accepting an item visitor.
+     */
+    private List<String> itemAssociations;
+
     public void generate( Model model, Properties parameters )
         throws ModelloException
     {
         initialize( model, parameters );
 
         requiresDomSupport = false;
+        itemAssociations = new ArrayList<String>();
 
         try
         {
@@ -131,7 +138,7 @@ public class StaxReaderGenerator
         // Write reference resolvers.
         // ----------------------------------------------------------------------
 
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
         JClass rootType = new JClass( root.getName() );
 
         GeneratorNode rootNode = findRequiredReferenceResolvers( root, null );
@@ -148,12 +155,24 @@ public class StaxReaderGenerator
 
         writeAllClassesParser( objectModel, jClass );
 
+        if ( !itemAssociations.isEmpty() )
+        {
+            String visitorName = getFileName( "StaxItemVisitor" );
+            String[] exceptions = { "java.io.IOException", "javax.xml.stream.XMLStreamException" };
+
+            writeItemVisitorSupport( jClass, visitorName, itemAssociations, exceptions );
+
+            generateItemVisitor( packageName, visitorName, exceptions );
+        }
+
         // ----------------------------------------------------------------------
         // Write helpers
         // ----------------------------------------------------------------------
 
         writeHelpers( jClass );
 
+        writeDateFormatHelper( jClass );
+
         if ( requiresDomSupport )
         {
             writeBuildDomMethod( jClass );
@@ -231,7 +250,14 @@ public class StaxReaderGenerator
 
         sc.add( className + ' ' + variableName + " = parse" + root.getName() + "( xmlStreamReader, strict );" );
 
-        sc.add( variableName + ".setModelEncoding( encoding );" );
+        if ( isImmutable( root ) )
+        {
+            sc.add( variableName + " = " + variableName + ".withModelEncoding( encoding );" );
+        }
+        else
+        {
+            sc.add( variableName + ".setModelEncoding( encoding );" );
+        }
 
         sc.add( "resolveReferences( " + variableName + " );" );
 
@@ -517,7 +543,7 @@ public class StaxReaderGenerator
 
         if ( versionDefinition.isNamespaceType() )
         {
-            XmlModelMetadata xmlModelMetadata = (XmlModelMetadata) objectModel.getMetadata( XmlModelMetadata.ID );
+            XmlModelMetadata xmlModelMetadata = objectModel.getMetadata( XmlModelMetadata.SLOT );
 
             String namespace = xmlModelMetadata.getNamespace();
             if ( namespace == null || namespace.indexOf( "${version}" ) < 0 )
@@ -534,9 +560,8 @@ public class StaxReaderGenerator
         {
             String value = versionDefinition.getValue();
 
-            ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ),
-                                                    getGeneratedVersion() );
-            ModelField field = root.getField( value, getGeneratedVersion() );
+            ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
+            ModelField field = getView().getField( root, value );
 
             if ( field == null )
             {
@@ -575,7 +600,7 @@ public class StaxReaderGenerator
 
         JSourceCode sc = method.getSourceCode();
 
-        XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+        XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
         String value = xmlFieldMetadata.getTagName();
         if ( value == null )
         {
@@ -672,7 +697,7 @@ public class StaxReaderGenerator
     private void writeAllClassesParser( Model objectModel, JClass jClass )
         throws ModelloException
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         for ( ModelClass clazz : getClasses( objectModel ) )
         {
@@ -708,9 +733,25 @@ public class StaxReaderGenerator
 
         JSourceCode sc = unmarshall.getSourceCode();
 
-        sc.add( className + ' ' + uncapClassName + " = new " + className + "();" );
+        boolean immutable = isImmutable( modelClass );
+
+        if ( immutable )
+        {
+            if ( isAssociationPartToClass( modelClass ) )
+            {
+                throw new ModelloException( "The StAX reader cannot resolve references to the immutable class '"
+                    + className + "'." );
+            }
+
+            // the fields are collected by the builder, creating the object at the end
+            sc.add( className + ".Builder " + uncapClassName + " = new " + className + ".Builder();" );
+        }
+        else
+        {
+            sc.add( className + ' ' + uncapClassName + " = new " + className + "();" );
+        }
 
-        ModelField contentField = getContentField( modelClass.getAllFields( getGeneratedVersion(), true ) );
+        ModelField contentField = getContentField( getView().getAllFields( modelClass, true ) );
 
         if ( contentField != null )
         {
@@ -721,7 +762,19 @@ public class StaxReaderGenerator
         }
         else
         {
-            sc.add( "java.util.Set parsed = new java.util.HashSet();" );
+            List<ModelField> elementFields = new ArrayList<ModelField>();
+
+            for ( ModelField field : getView().getAllFields( modelClass, true ) )
+            {
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
+
+                if ( !xmlFieldMetadata.isAttribute() && !xmlFieldMetadata.isTransient() )
+                {
+                    elementFields.add( field );
+                }
+            }
+
+            sc.add( getParsedFieldsDeclaration( "parsed", elementFields.size() ) );
 
             String instanceFieldName = getInstanceFieldName( className );
 
@@ -748,24 +801,22 @@ public class StaxReaderGenerator
             sc.add( "{" );
             sc.indent();
 
-            boolean addElse = false;
+            boolean addElse = !elementFields.isEmpty();
 
             // Write other fields
 
-            for ( ModelField field : modelClass.getAllFields( getGeneratedVersion(), true ) )
+            for ( int i = 0; i < elementFields.size(); i++ )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+                ModelField field = elementFields.get( i );
 
-                if ( !xmlFieldMetadata.isAttribute() && !xmlFieldMetadata.isTransient() )
-                {
-                    processField( field, xmlFieldMetadata, addElse, sc, uncapClassName, rootElement, jClass );
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-                    addElse = true;
-                }
+                processField( field, xmlFieldMetadata, i, elementFields.size(), sc, uncapClassName, rootElement,
+                              jClass );
             }
 
             /*
-            if ( modelClass.getFields( getGeneratedVersion() ).size() > 0 )
+            if ( getView().getFields( modelClass ).size() > 0 )
             {
                 sc.add( "else" );
 
@@ -797,20 +848,20 @@ public class StaxReaderGenerator
             // This must be last so that we guarantee the ID has been filled already
             if ( isAssociationPartToClass( modelClass ) )
             {
-                List<ModelField> identifierFields = modelClass.getIdentifierFields( getGeneratedVersion() );
+                List<ModelField> identifierFields = getView().getIdentifierFields( modelClass );
 
                 if ( identifierFields.size() == 1 )
                 {
                     ModelField field = (ModelField) identifierFields.get( 0 );
 
                     String v = uncapClassName + ".get" + capitalise( field.getName() ) + "()";
-                    v = getValue( field.getType(), v, (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID ) );
+                    v = getValue( field.getType(), v, field.getMetadata( XmlFieldMetadata.SLOT ) );
                     sc.add( instanceFieldName + ".put( " + v + ", " + uncapClassName + " );" );
                 }
             }
         }
 
-        sc.add( "return " + uncapClassName + ";" );
+        sc.add( "return " + uncapClassName + ( immutable ? ".build()" : "" ) + ";" );
 
         jClass.addMethod( unmarshall );
     }
@@ -822,7 +873,7 @@ public class StaxReaderGenerator
 
         GeneratorNode value = new GeneratorNode( className, parent );
 
-        for ( ModelField field : modelClass.getAllFields( getGeneratedVersion(), true ) )
+        for ( ModelField field : getView().getAllFields( modelClass, true ) )
         {
             if ( field instanceof ModelAssociation )
             {
@@ -980,9 +1031,9 @@ public class StaxReaderGenerator
     private void writeAttributes( ModelClass modelClass, String uncapClassName, JSourceCode sc )
         throws ModelloException
     {
-        for ( ModelField field : modelClass.getAllFields( getGeneratedVersion(), true ) )
+        for ( ModelField field : getView().getAllFields( modelClass, true ) )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isAttribute() && !xmlFieldMetadata.isTransient() )
             {
@@ -997,17 +1048,21 @@ public class StaxReaderGenerator
      *
      * @param field the field to process
      * @param xmlFieldMetadata its XML metadata
-     * @param addElse add an <code>else</code> statement before generating a new <code>if</code>
+     * @param fieldIndex the index of the field in the list of element fields: an <code>else</code> statement is added
+     * before generating a new <code>if</code> if not the first one
+     * @param fieldCount the number of element fields
      * @param sc the method source code to add to
      * @param objectName the object name in the source
      * @param rootElement is the enclosing model class the root class (for model version field handling)
      * @param jClass the generated class source file
      * @throws ModelloException
      */
-    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, boolean addElse, JSourceCode sc,
-                               String objectName, boolean rootElement, JClass jClass )
+    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, int fieldIndex, int fieldCount,
+                               JSourceCode sc, String objectName, boolean rootElement, JClass jClass )
         throws ModelloException
     {
+        boolean addElse = fieldIndex > 0;
+
         String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
         String capFieldName = capitalise( field.getName() );
@@ -1025,7 +1080,13 @@ public class StaxReaderGenerator
         }
 
         String tagComparison = ( addElse ? "else " : "" )
-            + "if ( checkFieldWithDuplicate( xmlStreamReader, \"" + fieldTagName + "\", " + alias + ", parsed ) )";
+            + "if ( checkFieldWithDuplicate( xmlStreamReader, \"" + fieldTagName + "\", " + alias + ", "
+            + getFieldParsedCheck( "parsed", fieldIndex, fieldCount ) + " ) )";
+
+        String parsedMark = getFieldParsedMark( "parsed", fieldIndex, fieldCount );
+
+        // the builder of an immutable class has no getters, and only adders for collections
+        boolean immutable = isImmutable( field.getModelClass() );
 
         if ( !( field instanceof ModelAssociation ) )
         {
@@ -1034,12 +1095,15 @@ public class StaxReaderGenerator
             sc.add( "{" );
             sc.indent();
 
+            sc.add( parsedMark );
+
             //ModelField
             writePrimitiveField( field, field.getType(), objectName, "set" + capFieldName, sc );
 
             if ( rootElement && field.isModelVersionField() )
             {
-                sc.add( "String modelVersion = " + objectName + ".get" + capFieldName + "();" );
+                sc.add( "String modelVersion = " + objectName + ( immutable ? ".build()" : "" ) + ".get"
+                    + capFieldName + "();" );
 
                 writeModelVersionCheck( sc );
             }
@@ -1060,10 +1124,14 @@ public class StaxReaderGenerator
                 sc.add( "{" );
                 sc.indent();
 
+                sc.add( parsedMark );
+
                 ModelField referenceIdentifierField = getReferenceIdentifierField( association );
 
                 if ( referenceIdentifierField != null )
                 {
+                    checkReference( association, immutable );
+
                     addCodeToAddReferences( association, jClass, sc, referenceIdentifierField, objectName );
 
                     // gobble the rest of the tag
@@ -1085,8 +1153,7 @@ public class StaxReaderGenerator
             {
                 //MANY_MULTIPLICITY
 
-                XmlAssociationMetadata xmlAssociationMetadata =
-                    (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
                 String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
 
@@ -1096,7 +1163,7 @@ public class StaxReaderGenerator
 
                 if ( ModelDefault.LIST.equals( type ) || ModelDefault.SET.equals( type ) )
                 {
-                    JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) association.getMetadata( JavaFieldMetadata.ID );
+                    JavaFieldMetadata javaFieldMetadata = association.getMetadata( JavaFieldMetadata.SLOT );
 
                     String adder;
 
@@ -1107,7 +1174,13 @@ public class StaxReaderGenerator
                         sc.add( "{" );
                         sc.indent();
 
-                        if ( javaFieldMetadata.isSetter() )
+                        sc.add( parsedMark );
+
+                        if ( immutable )
+                        {
+                            adder = objectName + ".add" + capitalise( singular( associationName ) );
+                        }
+                        else if ( javaFieldMetadata.isSetter() )
                         {
                             sc.add( type + " " + associationName + " = " + association.getDefaultValue() + ";" );
 
@@ -1138,7 +1211,11 @@ public class StaxReaderGenerator
                         sc.add( "{" );
                         sc.indent();
 
-                        if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
+                        if ( immutable )
+                        {
+                            adder = objectName + ".add" + capitalise( singular( associationName ) );
+                        }
+                        else if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
                         {
                             sc.add( type + " " + associationName + " = " + objectName + ".get" + capFieldName + "();" );
 
@@ -1168,22 +1245,45 @@ public class StaxReaderGenerator
 
                         if ( referenceIdentifierField != null )
                         {
+                            checkReference( association, immutable );
+
                             addCodeToAddReferences( association, jClass, sc, referenceIdentifierField, objectName );
                         }
 
+                        String itemKey = getItemVisitorKey( field );
+
+                        if ( !itemAssociations.contains( itemKey ) )
+                        {
+                            itemAssociations.add( itemKey );
+                        }
+
+                        sc.add( association.getTo() + " _item = parse" + association.getTo()
+                                    + "( xmlStreamReader, strict );" );
+
+                        sc.add( "if ( !visitItem( \"" + itemKey + "\", " + objectName + ", _item ) )" );
+
+                        sc.add( "{" );
+
                         if ( association.getTo().equals( field.getModelClass().getName() ) )
                         {
                             // HACK: the addXXX method will cause an OOME when compiling a self-referencing class, so we
                             //  just add it to the array. This could disrupt the links if you are using break/create
                             //  constraints in modello.
                             // MODELLO-273 update: Use addXXX only if no other methods are available!
-                            sc.add( adder + "( parse" + association.getTo() + "( xmlStreamReader, strict ) );" );
+                            sc.addIndented( adder + "( _item );" );
                         }
                         else
                         {
-                            sc.add( objectName + ".add" + capitalise( singular( associationName ) ) + "( parse"
-                                    + association.getTo() + "( xmlStreamReader, strict ) );" );
+                            sc.addIndented( objectName + ".add" + capitalise( singular( associationName ) )
+                                                + "( _item );" );
                         }
+
+                        sc.add( "}" );
+                    }
+                    else if ( immutable )
+                    {
+                        writePrimitiveField( association, association.getTo(), objectName,
+                                             "add" + capitalise( singular( associationName ) ), sc );
                     }
                     else
                     {
@@ -1224,6 +1324,8 @@ public class StaxReaderGenerator
                     sc.add( "{" );
                     sc.indent();
 
+                    sc.add( parsedMark );
+
                     if ( xmlAssociationMetadata.isMapExplode() )
                     {
                         sc.add( "while ( xmlStreamReader.nextTag() == XMLStreamConstants.START_ELEMENT )" );
@@ -1306,6 +1408,20 @@ public class StaxReaderGenerator
         }
     }
 
+    /**
+     * Check that a reference can be resolved once the document is read: the objects are changed through their
+     * setters, which immutable classes don't have.
+     */
+    private void checkReference( ModelAssociation association, boolean immutable )
+        throws ModelloException
+    {
+        if ( immutable )
+        {
+            throw new ModelloException( "The StAX reader cannot resolve the reference '" + association.getName()
+                + "' of the immutable class '" + association.getModelClass().getName() + "'." );
+        }
+    }
+
     private static void addCodeToAddReferences( ModelAssociation association, JClass jClass, JSourceCode sc,
                                                 ModelField referenceIdentifierField, String referredFromClass )
     {
@@ -1376,7 +1492,7 @@ public class StaxReaderGenerator
     private void writePrimitiveField( ModelField field, String type, String objectName, String setterName,
                                       JSourceCode sc )
     {
-        XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+        XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
         String tagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -1785,7 +1901,7 @@ public class StaxReaderGenerator
         method.addParameter( new JParameter( new JClass( "XMLStreamReader" ), "xmlStreamReader" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "tagName" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "alias" ) );
-        method.addParameter( new JParameter( new JClass( "java.util.Set" ), "parsed" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "parsed" ) );
         method.addException( new JClass( "XMLStreamException" ) );
 
         sc = method.getSourceCode();
@@ -1797,7 +1913,7 @@ public class StaxReaderGenerator
         sc.addIndented( "return false;" );
         sc.add( "}" );
 
-        sc.add( "if ( !parsed.add( tagName ) )" );
+        sc.add( "if ( parsed )" );
 
         sc.add( "{" );
         sc.addIndented(
@@ -113,7 +113,7 @@ public class StaxWriterGenerator
 
         String root = objectModel.getRoot( getGeneratedVersion() );
 
-        ModelClass rootClass = objectModel.getClass( root, getGeneratedVersion() );
+        ModelClass rootClass = getView().getClass( root );
 
         String rootElement = resolveTagName( rootClass );
 
@@ -216,6 +216,8 @@ public class StaxWriterGenerator
 
         writeAllClasses( objectModel, jClass );
 
+        writeDateFormatHelper( jClass );
+
         if ( requiresDomSupport )
         {
             createWriteDomMethod( jClass );
@@ -259,10 +261,10 @@ public class StaxWriterGenerator
         sc.add( "{" );
         sc.indent();
 
-        ModelClassMetadata classMetadata = (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+        ModelClassMetadata classMetadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
 
         String namespace = null;
-        XmlModelMetadata xmlModelMetadata = (XmlModelMetadata) modelClass.getModel().getMetadata( XmlModelMetadata.ID );
+        XmlModelMetadata xmlModelMetadata = modelClass.getModel().getMetadata( XmlModelMetadata.SLOT );
 
         // add namespace information for root element only
         if ( classMetadata.isRootElement() && ( xmlModelMetadata.getNamespace() != null ) )
@@ -290,7 +292,7 @@ public class StaxWriterGenerator
 
         if ( isAssociationPartToClass( modelClass ) )
         {
-            if ( modelClass.getIdentifierFields( getGeneratedVersion() ).size() != 1 )
+            if ( getView().getIdentifierFields( modelClass ).size() != 1 )
             {
                 writeIdMapCheck( sc, uncapClassName, "modello.id" );
             }
@@ -305,7 +307,7 @@ public class StaxWriterGenerator
         // XML attributes
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -333,14 +335,14 @@ public class StaxWriterGenerator
 
         if ( contentField != null )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) contentField.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = contentField.getMetadata( XmlFieldMetadata.SLOT );
             sc.add( "serializer.writeCharacters( " + getValue( contentField.getType(), contentValue, xmlFieldMetadata ) + " );" );
         }
 
         // XML tags
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isContent() )
             {
@@ -397,7 +399,7 @@ public class StaxWriterGenerator
                     //MANY_MULTIPLICITY
 
                     XmlAssociationMetadata xmlAssociationMetadata =
-                        (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                        association.getMetadata( XmlAssociationMetadata.SLOT );
 
                     String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
 
@@ -560,7 +562,7 @@ public class StaxWriterGenerator
         else
         {
             String v = getValue( referenceIdentifierField.getType(), getFieldValue( value, referenceIdentifierField ),
-                                 (XmlFieldMetadata) referenceIdentifierField.getMetadata( XmlFieldMetadata.ID ) );
+                                 referenceIdentifierField.getMetadata( XmlFieldMetadata.SLOT ) );
             sc.add( "serializer.writeAttribute( \"" + referenceIdentifierField.getName() + "\", " + v + " );" );
         }
     }
@@ -586,7 +588,7 @@ public class StaxWriterGenerator
 
     private String getFieldValue( String uncapClassName, ModelField field )
     {
-        JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+        JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
         return uncapClassName + "." + getPrefix( javaFieldMetadata ) + capitalise( field.getName() ) + "()";
     }
@@ -23,7 +23,10 @@ package org.codehaus.modello.generator.xml.stax;
  */
 
 import junit.framework.Assert;
+import org.codehaus.modello.test.features.AssociationFeatures;
 import org.codehaus.modello.test.features.Features;
+import org.codehaus.modello.test.features.Reference;
+import org.codehaus.modello.test.features.io.stax.ModelloFeaturesTestStaxItemVisitor;
 import org.codehaus.modello.test.features.io.stax.ModelloFeaturesTestStaxReader;
 import org.codehaus.modello.test.features.io.stax.ModelloFeaturesTestStaxWriter;
 import org.codehaus.modello.verifier.Verifier;
@@ -44,6 +47,9 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -72,6 +78,8 @@ public class StaxFeaturesVerifier
 
         verifyTransientElement();
 
+        verifyItemVisitor();
+
         verifyEncoding();
     }
 
@@ -263,6 +271,47 @@ public class StaxFeaturesVerifier
         }
     }
 
+    public void verifyItemVisitor()
+        throws Exception
+    {
+        ModelloFeaturesTestStaxReader reader = new ModelloFeaturesTestStaxReader();
+
+        final List<String> visited = new ArrayList<String>();
+
+        reader.setItemVisitor( "AssociationFeatures.listReferences", new ModelloFeaturesTestStaxItemVisitor()
+        {
+            public void visit( Object parent, Object item )
+            {
+                Assert.assertTrue( parent instanceof AssociationFeatures );
+                visited.add( ( (Reference) item ).getId() );
+            }
+        } );
+
+        Features features = reader.read( getXmlResourceReader( "/features.xml" ) );
+
+        Assert.assertEquals( Arrays.asList( new String[] { "first", "second", "third" } ), visited );
+        Assert.assertTrue( features.getAssociationFeatures().getListReferences().isEmpty() );
+        Assert.assertEquals( 1, features.getAssociationFeatures().getSetReferences().size() );
+
+        // unregistering the visitor restores the default behaviour
+        reader.setItemVisitor( "AssociationFeatures.listReferences", null );
+
+        features = reader.read( getXmlResourceReader( "/features.xml" ) );
+
+        Assert.assertEquals( 3, features.getAssociationFeatures().getListReferences().size() );
+
+        try
+        {
+            reader.setItemVisitor( "AssociationFeatures.unknown", null );
+
+            throw new VerifierException( "Registering a visitor for an unknown association should fail." );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            Assert.assertTrue( e.getMessage().indexOf( "AssociationFeatures.unknown" ) >= 0 );
+        }
+    }
+
     public void verifyEncoding()
         throws Exception
     {
@@ -0,0 +1,122 @@
+package org.codehaus.modello.generator.xml.stax;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import junit.framework.Assert;
+
+import org.codehaus.modello.test.immutable.Dependency;
+import org.codehaus.modello.test.immutable.Project;
+import org.codehaus.modello.test.immutable.io.stax.ImmutableStaxReader;
+import org.codehaus.modello.test.immutable.io.stax.ImmutableStaxWriter;
+import org.codehaus.modello.verifier.Verifier;
+
+/**
+ * Checks that the Stax reader fills <code>java.immutable</code> classes through their builder.
+ */
+public class StaxImmutableVerifier
+    extends Verifier
+{
+    private static final String XML =
+        "<project name=\"modello\"><modules><module>core</module><module>plugins</module></modules>"
+            + "<dependencies><dependency><groupId>org.codehaus</groupId><artifactId>plexus</artifactId>"
+            + "<optional>true</optional></dependency>"
+            + "<dependency><groupId>junit</groupId><artifactId>junit</artifactId><type>pom</type></dependency>"
+            + "</dependencies><properties><key>value</key></properties></project>";
+
+    public void verify()
+        throws Exception
+    {
+        Project project = read( XML );
+
+        Assert.assertEquals( "modello", project.getName() );
+        Assert.assertEquals( "1.0", project.getVersion() );
+        verifyContent( project );
+
+        Project empty = read( "<project/>" );
+        Assert.assertNull( empty.getName() );
+        Assert.assertTrue( empty.getModules().isEmpty() );
+        Assert.assertTrue( empty.getProperties().isEmpty() );
+
+        Project built = new Project.Builder().setName( "modello" ).addModule( "core" ).addModule( "plugins" )
+            .addDependency( new Dependency.Builder().setGroupId( "org.codehaus" ).setArtifactId( "plexus" )
+                                .setOptional( true ).build() )
+            .addDependency( new Dependency.Builder().setGroupId( "junit" ).setArtifactId( "junit" )
+                                .setType( "pom" ).build() )
+            .addProperty( "key", "value" ).build();
+
+        String written = write( built );
+
+        Project read = read( written );
+        Assert.assertEquals( "modello", read.getName() );
+        verifyContent( read );
+
+        Assert.assertEquals( written, write( read ) );
+    }
+
+    private Project read( String content )
+        throws Exception
+    {
+        return new ImmutableStaxReader().read( new StringReader( content ), true );
+    }
+
+    private String write( Project project )
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        new ImmutableStaxWriter().write( writer, project );
+        return writer.toString();
+    }
+
+    private void verifyContent( Project project )
+    {
+        Assert.assertEquals( 2, project.getModules().size() );
+        Assert.assertEquals( "core", project.getModules().get( 0 ) );
+        Assert.assertEquals( "plugins", project.getModules().get( 1 ) );
+
+        Assert.assertEquals( 2, project.getDependencies().size() );
+        Dependency plexus = (Dependency) project.getDependencies().get( 0 );
+        Assert.assertEquals( "org.codehaus", plexus.getGroupId() );
+        Assert.assertEquals( "plexus", plexus.getArtifactId() );
+        Assert.assertEquals( "jar", plexus.getType() );
+        Assert.assertTrue( plexus.isOptional() );
+        Dependency junit = (Dependency) project.getDependencies().get( 1 );
+        Assert.assertEquals( "pom", junit.getType() );
+        Assert.assertFalse( junit.isOptional() );
+
+        Assert.assertEquals( "value", project.getProperties().get( "key" ) );
+
+        try
+        {
+            project.getModules().add( "other" );
+            Assert.fail( "collections of immutable objects can't be changed" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+    }
+
+}
@@ -146,7 +146,7 @@ public class XdocGenerator
         writeMarkupElement( w, "p", getDescription( objectModel ) );
 
         // XML representation of the model with links
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         writeMarkupElement( w, "source", "\n" + getModelXmlDescriptor( root ) );
 
@@ -253,7 +253,7 @@ public class XdocGenerator
             if ( isInnerAssociation( f ) )
             {
                 ModelAssociation assoc = (ModelAssociation) f;
-                ModelClass fieldModelClass = getModel().getClass( assoc.getTo(), getGeneratedVersion() );
+                ModelClass fieldModelClass = getView().getClass( assoc.getTo() );
 
                 if ( !written.contains( getId( resolveTagName( fieldModelClass, assoc ), fieldModelClass ) ) )
                 {
@@ -310,7 +310,7 @@ public class XdocGenerator
 
         for ( ModelField f : fields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) f.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = f.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isContent() )
             {
@@ -333,8 +333,7 @@ public class XdocGenerator
             {
                 ModelAssociation assoc = (ModelAssociation) f;
 
-                XmlAssociationMetadata xmlAssociationMetadata =
-                    (XmlAssociationMetadata) assoc.getAssociationMetadata( XmlAssociationMetadata.ID );
+                XmlAssociationMetadata xmlAssociationMetadata = assoc.getMetadata( XmlAssociationMetadata.SLOT );
 
                 manyAssociation = assoc.isManyMultiplicity();
 
@@ -504,7 +503,7 @@ public class XdocGenerator
             {
                 String targetNamespace = XsdModelHelper.getTargetNamespace( modelClass.getModel(), getGeneratedVersion() );
 
-                XmlModelMetadata xmlModelMetadata = (XmlModelMetadata) modelClass.getModel().getMetadata( XmlModelMetadata.ID );
+                XmlModelMetadata xmlModelMetadata = modelClass.getModel().getMetadata( XmlModelMetadata.SLOT );
 
                 if ( StringUtils.isNotBlank( targetNamespace ) && ( xmlModelMetadata.getSchemaLocation() != null ) )
                 {
@@ -541,7 +540,7 @@ public class XdocGenerator
 
             for ( ModelField f : attributeFields )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) f.getMetadata( XmlFieldMetadata.ID );
+                XmlFieldMetadata xmlFieldMetadata = f.getMetadata( XmlFieldMetadata.SLOT );
 
                 if ( addNewline )
                 {
@@ -575,9 +574,9 @@ public class XdocGenerator
 
             for ( ModelField f : fields )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) f.getMetadata( XmlFieldMetadata.ID );
+                XmlFieldMetadata xmlFieldMetadata = f.getMetadata( XmlFieldMetadata.SLOT );
 
-                XdocFieldMetadata xdocFieldMetadata = (XdocFieldMetadata) f.getMetadata( XdocFieldMetadata.ID );
+                XdocFieldMetadata xdocFieldMetadata = f.getMetadata( XdocFieldMetadata.SLOT );
 
                 if ( XdocFieldMetadata.BLANK.equals( xdocFieldMetadata.getSeparator() ) )
                 {
@@ -594,7 +593,7 @@ public class XdocGenerator
                     if ( assoc.isManyMultiplicity() )
                     {
                         XmlAssociationMetadata xmlAssociationMetadata =
-                            (XmlAssociationMetadata) assoc.getAssociationMetadata( XmlAssociationMetadata.ID );
+                            assoc.getMetadata( XmlAssociationMetadata.SLOT );
                         wrappedItems = xmlAssociationMetadata.isWrappedItems();
                     }
 
@@ -607,7 +606,7 @@ public class XdocGenerator
                         stack.push( fieldTagName );
                     }
 
-                    ModelClass fieldModelClass = getModel().getClass( assoc.getTo(), getGeneratedVersion() );
+                    ModelClass fieldModelClass = getView().getClass( assoc.getTo() );
 
                     sb.append( getElementXmlDescriptor( fieldModelClass, assoc, stack ) );
 
@@ -623,8 +622,7 @@ public class XdocGenerator
                 else if ( ModelDefault.PROPERTIES.equals( f.getType() ) )
                 {
                     ModelAssociation assoc = (ModelAssociation) f;
-                    XmlAssociationMetadata xmlAssociationMetadata =
-                        (XmlAssociationMetadata) assoc.getAssociationMetadata( XmlAssociationMetadata.ID );
+                    XmlAssociationMetadata xmlAssociationMetadata = assoc.getMetadata( XmlAssociationMetadata.SLOT );
 
                     appendSpacer( sb, stack.size() );
                     sb.append( "&lt;" ).append( fieldTagName ).append( "&gt;\n" );
@@ -672,7 +670,7 @@ public class XdocGenerator
      */
     private String resolveTagName( ModelClass modelClass, ModelAssociation association )
     {
-        XmlClassMetadata xmlClassMetadata = (XmlClassMetadata) modelClass.getMetadata( XmlClassMetadata.ID );
+        XmlClassMetadata xmlClassMetadata = modelClass.getMetadata( XmlClassMetadata.SLOT );
 
         String tagName;
         if ( xmlClassMetadata == null || xmlClassMetadata.getTagName() == null )
@@ -698,10 +696,9 @@ public class XdocGenerator
 
         if ( association != null )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) association.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = association.getMetadata( XmlFieldMetadata.SLOT );
 
-            XmlAssociationMetadata xmlAssociationMetadata =
-                (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+            XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
             if ( xmlFieldMetadata != null )
             {
@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.xdoc.metadata;
  */
 
 import org.codehaus.modello.metadata.AssociationMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author Hervé Boutemy
@@ -31,4 +32,6 @@ public class XdocAssociationMetadata
     implements AssociationMetadata
 {
     public static final String ID = XdocAssociationMetadata.class.getName();
+
+    public static final MetadataSlot<XdocAssociationMetadata> SLOT = MetadataSlot.of( XdocAssociationMetadata.class );
 }
@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.xdoc.metadata;
  */
 
 import org.codehaus.modello.metadata.ClassMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author Hervé Boutemy
@@ -31,4 +32,6 @@ public class XdocClassMetadata
     implements ClassMetadata
 {
     public static final String ID = XdocClassMetadata.class.getName();
+
+    public static final MetadataSlot<XdocClassMetadata> SLOT = MetadataSlot.of( XdocClassMetadata.class );
 }
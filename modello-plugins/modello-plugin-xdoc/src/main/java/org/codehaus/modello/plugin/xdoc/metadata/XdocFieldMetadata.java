@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.xdoc.metadata;
  */
 
 import org.codehaus.modello.metadata.FieldMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author Hervé Boutemy
@@ -32,6 +33,8 @@ public class XdocFieldMetadata
 {
     public static final String ID = XdocFieldMetadata.class.getName();
 
+    public static final MetadataSlot<XdocFieldMetadata> SLOT = MetadataSlot.of( XdocFieldMetadata.class );
+
     public static final String NONE = "none";
 
     public static final String BLANK = "blank";
@@ -23,6 +23,7 @@ package org.codehaus.modello.plugin.xdoc.metadata;
  */
 
 import org.codehaus.modello.metadata.InterfaceMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author Hervé Boutemy
@@ -31,4 +32,6 @@ public class XdocInterfaceMetadata
     implements InterfaceMetadata
 {
     public static final String ID = XdocInterfaceMetadata.class.getName();
+
+    public static final MetadataSlot<XdocInterfaceMetadata> SLOT = MetadataSlot.of( XdocInterfaceMetadata.class );
 }
@@ -22,6 +22,7 @@ package org.codehaus.modello.plugin.xdoc.metadata;
  * SOFTWARE.
  */
 
+import org.codehaus.modello.metadata.MetadataSlot;
 import org.codehaus.modello.metadata.ModelMetadata;
 
 /**
@@ -31,4 +32,6 @@ public class XdocModelMetadata
     implements ModelMetadata
 {
     public static final String ID = XdocModelMetadata.class.getName();
+
+    public static final MetadataSlot<XdocModelMetadata> SLOT = MetadataSlot.of( XdocModelMetadata.class );
 }
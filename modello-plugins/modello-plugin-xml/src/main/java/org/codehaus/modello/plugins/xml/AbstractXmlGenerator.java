@@ -26,6 +26,7 @@ import java.util.List;
 
 import org.codehaus.modello.model.ModelClass;
 import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.model.ModelView;
 import org.codehaus.modello.model.Version;
 import org.codehaus.modello.plugin.AbstractModelloGenerator;
 import org.codehaus.modello.plugins.xml.metadata.XmlAssociationMetadata;
@@ -119,6 +120,8 @@ public abstract class AbstractXmlGenerator
      */
     protected List<ModelField> getFieldsForXml( ModelClass modelClass, Version version )
     {
-        return XmlModelHelpers.getFieldsForXml( modelClass, version );
+        ModelView view = version.equals( getGeneratedVersion() ) ? getView() : getModel().view( version );
+
+        return XmlModelHelpers.getFieldsForXml( view, modelClass );
     }
 }
@@ -22,6 +22,7 @@ package org.codehaus.modello.plugins.xml;
  * SOFTWARE.
  */
 
+import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
 
@@ -30,9 +31,20 @@ import org.codehaus.modello.model.Model;
 import org.codehaus.modello.model.ModelClass;
 import org.codehaus.modello.model.ModelDefault;
 import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.model.ModelView;
 import org.codehaus.modello.model.Version;
 import org.codehaus.modello.plugin.java.AbstractJavaModelloGenerator;
+import org.codehaus.modello.plugin.java.javasource.JArrayType;
+import org.codehaus.modello.plugin.java.javasource.JClass;
+import org.codehaus.modello.plugin.java.javasource.JField;
+import org.codehaus.modello.plugin.java.javasource.JInterface;
+import org.codehaus.modello.plugin.java.javasource.JMethod;
+import org.codehaus.modello.plugin.java.javasource.JMethodSignature;
+import org.codehaus.modello.plugin.java.javasource.JParameter;
 import org.codehaus.modello.plugin.java.javasource.JSourceCode;
+import org.codehaus.modello.plugin.java.javasource.JSourceWriter;
+import org.codehaus.modello.plugin.java.javasource.JType;
+import org.codehaus.modello.plugin.model.ModelClassMetadata;
 import org.codehaus.modello.plugins.xml.metadata.XmlAssociationMetadata;
 import org.codehaus.modello.plugins.xml.metadata.XmlFieldMetadata;
 
@@ -46,6 +58,12 @@ public abstract class AbstractXmlJavaGenerator
 {
     protected boolean strictXmlAttributes;
 
+    /**
+     * Set when a date value expression referencing the <code>getDateFormat</code> helper has been generated, to know
+     * if {@link #writeDateFormatHelper(JClass)} has something to provide.
+     */
+    private boolean dateFormatUsed;
+
     protected void initialize( Model model, Properties parameters )
         throws ModelloException
     {
@@ -116,7 +134,64 @@ public abstract class AbstractXmlJavaGenerator
      */
     protected List<ModelField> getFieldsForXml( ModelClass modelClass, Version version )
     {
-        return XmlModelHelpers.getFieldsForXml( modelClass, version );
+        ModelView view = version.equals( getGeneratedVersion() ) ? getView() : getModel().view( version );
+
+        return XmlModelHelpers.getFieldsForXml( view, modelClass );
+    }
+
+    /**
+     * Get the declaration of the local variable used by generated parsers to detect duplicated fields: a
+     * <code>long</code> bitmask indexed by field position, or a <code>java.util.BitSet</code> when there are more than
+     * 64 fields.
+     *
+     * @param variable the name of the variable
+     * @param fieldCount the number of fields to track
+     * @return the variable declaration statement
+     */
+    protected String getParsedFieldsDeclaration( String variable, int fieldCount )
+    {
+        if ( fieldCount > 64 )
+        {
+            return "java.util.BitSet " + variable + " = new java.util.BitSet( " + fieldCount + " );";
+        }
+
+        return "long " + variable + " = 0;";
+    }
+
+    /**
+     * Get the expression checking if a field has already been parsed.
+     *
+     * @param variable the name of the variable declared with {@link #getParsedFieldsDeclaration(String, int)}
+     * @param fieldIndex the position of the field
+     * @param fieldCount the number of fields to track
+     * @return the boolean expression
+     */
+    protected String getFieldParsedCheck( String variable, int fieldIndex, int fieldCount )
+    {
+        if ( fieldCount > 64 )
+        {
+            return variable + ".get( " + fieldIndex + " )";
+        }
+
+        return "( " + variable + " & ( 1L << " + fieldIndex + " ) ) != 0";
+    }
+
+    /**
+     * Get the statement marking a field as parsed.
+     *
+     * @param variable the name of the variable declared with {@link #getParsedFieldsDeclaration(String, int)}
+     * @param fieldIndex the position of the field
+     * @param fieldCount the number of fields to track
+     * @return the statement
+     */
+    protected String getFieldParsedMark( String variable, int fieldIndex, int fieldCount )
+    {
+        if ( fieldCount > 64 )
+        {
+            return variable + ".set( " + fieldIndex + " );";
+        }
+
+        return variable + " |= 1L << " + fieldIndex + ";";
     }
 
     protected String getValue( String type, String initialValue, XmlFieldMetadata xmlFieldMetadata )
@@ -137,8 +212,9 @@ public abstract class AbstractXmlJavaGenerator
             }
             else
             {
-                textValue =
-                    "new java.text.SimpleDateFormat( \"" + dateFormat + "\", java.util.Locale.US ).format( " + textValue + " )";
+                textValue = "getDateFormat( \"" + dateFormat + "\" ).format( " + textValue + " )";
+
+                dateFormatUsed = true;
             }
         }
         else if ( !"String".equals( type ) )
@@ -195,8 +271,7 @@ public abstract class AbstractXmlJavaGenerator
         sc.add( "{" );
         sc.indent();
 
-        sc.add( "DateFormat dateParser = new java.text.SimpleDateFormat( effectiveDateFormat, java.util.Locale.US );" );
-        sc.add( "return dateParser.parse( s );" );
+        sc.add( "return getDateFormat( effectiveDateFormat ).parse( s );" );
 
         sc.unindent();
         sc.add( "}" );
@@ -213,5 +288,387 @@ public abstract class AbstractXmlJavaGenerator
         sc.add( "}" );
 
         sc.add( "return null;" );
+
+        dateFormatUsed = true;
+    }
+
+    /**
+     * Write the <code>getDateFormat( String )</code> helper used by date parsing and formatting code, if such code has
+     * been generated. Formats are created once per pattern and per thread, since <code>SimpleDateFormat</code> is not
+     * thread-safe, instead of once per date value.
+     *
+     * @param jClass the class where the helper is written
+     */
+    protected void writeDateFormatHelper( JClass jClass )
+    {
+        if ( !dateFormatUsed )
+        {
+            return;
+        }
+
+        dateFormatUsed = false;
+
+        String mapType = useJava5 ? "java.util.Map<String, java.text.DateFormat>" : "java.util.Map";
+        String threadLocalType = "ThreadLocal" + ( useJava5 ? "<" + mapType + ">" : "" );
+
+        JField dateFormats = new JField( new JType( threadLocalType ), "DATE_FORMATS" );
+        dateFormats.getModifiers().setStatic( true );
+        dateFormats.getModifiers().setFinal( true );
+        dateFormats.setComment( "The date formats already created by the current thread, by pattern." );
+        dateFormats.setInitString( "new " + threadLocalType + "()" );
+
+        jClass.addField( dateFormats );
+
+        JMethod method = new JMethod( "getDateFormat", new JClass( "java.text.DateFormat" ), null );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+
+        method.addParameter( new JParameter( new JClass( "String" ), "pattern" ) );
+
+        JSourceCode sc = method.getSourceCode();
+
+        sc.add( mapType + " formats = " + ( useJava5 ? "" : "(java.util.Map) " ) + "DATE_FORMATS.get();" );
+
+        sc.add( "if ( formats == null )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "formats = new java.util.HashMap" + ( useJava5 ? "<String, java.text.DateFormat>" : "" ) + "();" );
+        sc.add( "DATE_FORMATS.set( formats );" );
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "java.text.DateFormat format = " + ( useJava5 ? "" : "(java.text.DateFormat) " )
+            + "formats.get( pattern );" );
+
+        sc.add( "if ( format == null )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "format = new java.text.SimpleDateFormat( pattern, java.util.Locale.US );" );
+        sc.add( "formats.put( pattern, format );" );
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "return format;" );
+
+        jClass.addMethod( method );
+    }
+
+    /**
+     * Gets the line and column arguments of the current position of the parser, as expressions of the generated reader.
+     */
+    protected String getParserPosition()
+    {
+        return "parser.getLineNumber(), parser.getColumnNumber()";
+    }
+
+    /**
+     * Gets the expression creating a location at the current position of the parser, through the method added to the
+     * reader by {@link #writeLocationFactory(JClass, ModelClass, ModelClass)}.
+     *
+     * @param element <code>true</code> for the location of an element read as a model object, the only locations kept
+     *            in coarse mode
+     */
+    protected String getNewLocation( ModelClass sourceTracker, String sourceParam, boolean element )
+    {
+        return "newLocation( " + getParserPosition()
+            + ( ( sourceTracker != null ) ? ", " + sourceParam : "" ) + ", " + element + " )";
+    }
+
+    /**
+     * Gets the expression creating the location of a collection at the current position of the parser, receiving the
+     * locations of its items: <code>null</code> in coarse mode, where the locations of items are not kept.
+     */
+    protected String getNewItemsLocation( ModelClass sourceTracker, String sourceParam )
+    {
+        return "newItemsLocation( " + getParserPosition()
+            + ( ( sourceTracker != null ) ? ", " + sourceParam : "" ) + " )";
+    }
+
+    /**
+     * Adds to a reader the location modes and the factory methods of the locations at the parser position. Locations
+     * at the same position, as the ones of the attributes of an element, are created one after the other: a small
+     * direct-mapped cache is enough to share them, with a memory use that doesn't depend on the input size. Shared
+     * locations are never modified by the reader, and must not be modified by callers either.
+     */
+    protected void writeLocationFactory( JClass jClass, ModelClass locationTracker, ModelClass sourceTracker )
+    {
+        if ( locationTracker == null )
+        {
+            return;
+        }
+
+        String locationType = locationTracker.getName();
+
+        JField field = new JField( JType.INT, "LOCATIONS_ALL" );
+        field.getModifiers().makePublic();
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setComment( "Location mode: every location is a new object." );
+        field.setInitString( "0" );
+        jClass.addField( field );
+
+        field = new JField( JType.INT, "LOCATIONS_SHARED" );
+        field.getModifiers().makePublic();
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setComment( "Location mode: identical locations, as the ones of the attributes of an element, are one "
+            + "shared object, that must be treated as immutable." );
+        field.setInitString( "1" );
+        jClass.addField( field );
+
+        field = new JField( JType.INT, "LOCATIONS_ELEMENTS" );
+        field.getModifiers().makePublic();
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setComment( "Location mode: only the locations of the elements read as model objects are kept, shared "
+            + "as with <code>LOCATIONS_SHARED</code>." );
+        field.setInitString( "2" );
+        jClass.addField( field );
+
+        field = new JField( JType.INT, "LOCATION_CACHE_SIZE" );
+        field.getModifiers().makePrivate();
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setComment( "The number of recent locations the reader can share, a power of two." );
+        field.setInitString( "256" );
+        jClass.addField( field );
+
+        field = new JField( JType.INT, "locationMode" );
+        field.setComment( "The location mode, <code>LOCATIONS_ALL</code> by default." );
+        field.setInitString( "LOCATIONS_ALL" );
+        jClass.addField( field );
+
+        field = new JField( new JArrayType( new JType( locationType ), useJava5 ), "locationCache" );
+        field.setComment( "The recent locations, by position hash." );
+        jClass.addField( field );
+
+        JMethod method = new JMethod( "getLocationMode", JType.INT, null );
+        method.getSourceCode().add( "return locationMode;" );
+        method.setComment( "Returns the location mode." );
+        jClass.addMethod( method );
+
+        method = new JMethod( "setLocationMode" );
+        method.addParameter( new JParameter( JType.INT, "locationMode" ) );
+        JSourceCode sc = method.getSourceCode();
+        sc.add( "if ( locationMode < LOCATIONS_ALL || locationMode > LOCATIONS_ELEMENTS )" );
+        sc.add( "{" );
+        sc.addIndented( "throw new IllegalArgumentException( \"Unknown location mode: \" + locationMode );" );
+        sc.add( "}" );
+        sc.add( "this.locationMode = locationMode;" );
+        sc.add( "this.locationCache = null;" );
+        method.setComment( "Sets the location mode: <code>LOCATIONS_SHARED</code> and <code>LOCATIONS_ELEMENTS</code> "
+            + "save memory on large inputs, the reader must then not be used by several threads at once. A location "
+            + "read in these modes may be shared by several elements or objects: it must not be modified." );
+        jClass.addMethod( method );
+
+        method = new JMethod( "newLocation", new JType( locationType ), null );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( JType.INT, "line" ) );
+        method.addParameter( new JParameter( JType.INT, "column" ) );
+        if ( sourceTracker != null )
+        {
+            method.addParameter( new JParameter( new JType( sourceTracker.getName() ), "source" ) );
+        }
+        method.addParameter( new JParameter( JType.BOOLEAN, "element" ) );
+
+        String newLocation = "new " + locationType + "( line, column" + ( ( sourceTracker != null ) ? ", source" : "" )
+            + " )";
+        String sourceGetter = ( sourceTracker != null )
+            ? "get" + capitalise( sourceTracker.getMetadata( ModelClassMetadata.SLOT ).getSourceTracker() ) + "()"
+            : null;
+
+        sc = method.getSourceCode();
+        sc.add( "if ( locationMode == LOCATIONS_ALL )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + newLocation + ";" );
+        sc.add( "}" );
+        sc.add( "if ( !element && locationMode == LOCATIONS_ELEMENTS )" );
+        sc.add( "{" );
+        sc.addIndented( "return null;" );
+        sc.add( "}" );
+        sc.add( "" );
+        sc.add( "if ( locationCache == null )" );
+        sc.add( "{" );
+        sc.addIndented( "locationCache = new " + locationType + "[LOCATION_CACHE_SIZE];" );
+        sc.add( "}" );
+        sc.add( "int i = ( line * 31 + column ) & ( LOCATION_CACHE_SIZE - 1 );" );
+        sc.add( locationType + " location = locationCache[i];" );
+        sc.add( "if ( location == null || location.getLineNumber() != line || location.getColumnNumber() != column"
+            + ( ( sourceTracker != null ) ? " || location." + sourceGetter + " != source" : "" ) + " )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "location = " + newLocation + ";" );
+        sc.add( "locationCache[i] = location;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return location;" );
+        method.setComment( "Creates a location, or shares a recent identical one depending on the location mode." );
+        jClass.addMethod( method );
+
+        method = new JMethod( "newItemsLocation", new JType( locationType ), null );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( JType.INT, "line" ) );
+        method.addParameter( new JParameter( JType.INT, "column" ) );
+        if ( sourceTracker != null )
+        {
+            method.addParameter( new JParameter( new JType( sourceTracker.getName() ), "source" ) );
+        }
+
+        sc = method.getSourceCode();
+        sc.add( "return ( locationMode == LOCATIONS_ELEMENTS ) ? null : " + newLocation + ";" );
+        method.setComment( "Creates the location of a collection, receiving the locations of its items, never shared "
+            + "and not kept in coarse mode." );
+        jClass.addMethod( method );
+    }
+
+    /**
+     * Get the key used to register an item visitor for a <code>*</code> association, as written by
+     * {@link #writeItemVisitorSupport(JClass, String, List, String[])}.
+     *
+     * @param field the association field
+     * @return the key: the name of the class owning the association, a dot, and the name of the association
+     */
+    protected String getItemVisitorKey( ModelField field )
+    {
+        return field.getModelClass().getName() + '.' + field.getName();
+    }
+
+    /**
+     * Generate the item visitor interface, implemented by callers who want items of <code>*</code> associations
+     * to be streamed to them while reading instead of being added to their parent.
+     *
+     * @param packageName the package of the reader
+     * @param visitorName the name of the interface
+     * @param exceptions the exceptions the visitor may throw
+     * @throws IOException
+     */
+    protected void generateItemVisitor( String packageName, String visitorName, String[] exceptions )
+        throws IOException
+    {
+        JSourceWriter sourceWriter = newJSourceWriter( packageName, visitorName );
+
+        JInterface jInterface = new JInterface( packageName + '.' + visitorName );
+        initHeader( jInterface );
+        suppressAllWarnings( getModel(), jInterface );
+        jInterface.getJDocComment().setComment(
+            "Visitor of the items of <code>*</code> associations registered on a reader: each item read is handed to"
+                + " the visitor then dropped, instead of being added to its parent, so that memory use does not depend"
+                + " on the number of items in the document." );
+
+        JMethodSignature visit = new JMethodSignature( "visit", null );
+        visit.addParameter( new JParameter( new JClass( "Object" ), "parent" ) );
+        visit.addParameter( new JParameter( new JClass( "Object" ), "item" ) );
+        for ( int i = 0; i < exceptions.length; i++ )
+        {
+            visit.addException( new JClass( exceptions[i] ) );
+        }
+        visit.getJDocComment().setComment( "Visit an item read from the document." );
+        jInterface.addMethod( visit );
+
+        jInterface.print( sourceWriter );
+
+        sourceWriter.close();
+    }
+
+    /**
+     * Write the item visitor registration in a reader, and the <code>visitItem</code> helper called by the parsing
+     * code of <code>*</code> associations: it returns <code>true</code> when the item has been handed to a visitor,
+     * <code>false</code> when it must be added to its parent as usual.
+     *
+     * @param jClass the reader class
+     * @param visitorName the name of the item visitor interface
+     * @param keys the keys of the associations supporting item visitors
+     * @param exceptions the exceptions the visitor may throw
+     */
+    protected void writeItemVisitorSupport( JClass jClass, String visitorName, List<String> keys, String[] exceptions )
+    {
+        String listType = useJava5 ? "java.util.List<String>" : "java.util.List";
+
+        StringBuilder init = new StringBuilder( "java.util.Collections.unmodifiableList( java.util.Arrays.asList( "
+            + "new String[] {" );
+        for ( int i = 0; i < keys.size(); i++ )
+        {
+            init.append( ( i > 0 ) ? ", " : " " ).append( '"' ).append( keys.get( i ) ).append( '"' );
+        }
+        init.append( " } ) )" );
+
+        JField associations = new JField( new JType( listType ), "ITEM_ASSOCIATIONS" );
+        associations.getModifiers().setStatic( true );
+        associations.getModifiers().setFinal( true );
+        associations.setComment( "The keys of the associations accepting an item visitor." );
+        associations.setInitString( init.toString() );
+        jClass.addField( associations );
+
+        String mapType = useJava5 ? "java.util.Map<String, " + visitorName + ">" : "java.util.Map";
+
+        JField visitors = new JField( new JType( mapType ), "itemVisitors" );
+        visitors.setComment( "The item visitors registered, by association key." );
+        jClass.addField( visitors );
+
+        JMethod method = new JMethod( "setItemVisitor" );
+        method.addParameter( new JParameter( new JClass( "String" ), "association" ) );
+        method.addParameter( new JParameter( new JClass( visitorName ), "visitor" ) );
+        method.setComment( "Register the visitor receiving the items of an association instead of their parent."
+            + "\nThe association key is the name of the class owning the association, a dot, and the name of"
+            + " the association, for example <code>Model.dependencies</code>.\nA <code>null</code> visitor"
+            + " restores the default behaviour." );
+
+        JSourceCode sc = method.getSourceCode();
+
+        sc.add( "if ( !ITEM_ASSOCIATIONS.contains( association ) )" );
+        sc.add( "{" );
+        sc.addIndented( "throw new IllegalArgumentException( \"Unknown association '\" + association"
+            + " + \"', expected one of \" + ITEM_ASSOCIATIONS );" );
+        sc.add( "}" );
+
+        sc.add( "if ( visitor == null )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( itemVisitors != null )" );
+        sc.add( "{" );
+        sc.addIndented( "itemVisitors.remove( association );" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( itemVisitors == null )" );
+        sc.add( "{" );
+        sc.addIndented( "itemVisitors = new java.util.HashMap" + ( useJava5 ? "<String, " + visitorName + ">" : "" )
+            + "();" );
+        sc.add( "}" );
+        sc.add( "itemVisitors.put( association, visitor );" );
+        sc.unindent();
+        sc.add( "}" );
+
+        jClass.addMethod( method );
+
+        method = new JMethod( "visitItem", JType.BOOLEAN, null );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JClass( "String" ), "association" ) );
+        method.addParameter( new JParameter( new JClass( "Object" ), "parent" ) );
+        method.addParameter( new JParameter( new JClass( "Object" ), "item" ) );
+        for ( int i = 0; i < exceptions.length; i++ )
+        {
+            method.addException( new JClass( exceptions[i] ) );
+        }
+
+        sc = method.getSourceCode();
+
+        sc.add( "if ( itemVisitors == null || itemVisitors.isEmpty() )" );
+        sc.add( "{" );
+        sc.addIndented( "return false;" );
+        sc.add( "}" );
+        sc.add( visitorName + " visitor = " + ( useJava5 ? "" : "(" + visitorName + ") " )
+            + "itemVisitors.get( association );" );
+        sc.add( "if ( visitor == null )" );
+        sc.add( "{" );
+        sc.addIndented( "return false;" );
+        sc.add( "}" );
+        sc.add( "visitor.visit( parent, item );" );
+        sc.add( "return true;" );
+
+        jClass.addMethod( method );
     }
 }
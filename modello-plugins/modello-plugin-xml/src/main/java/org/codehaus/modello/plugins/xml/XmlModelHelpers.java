@@ -7,7 +7,7 @@ import java.util.List;
 import org.codehaus.modello.ModelloRuntimeException;
 import org.codehaus.modello.model.ModelClass;
 import org.codehaus.modello.model.ModelField;
-import org.codehaus.modello.model.Version;
+import org.codehaus.modello.model.ModelView;
 import org.codehaus.modello.plugin.AbstractModelloGenerator;
 import org.codehaus.modello.plugins.xml.metadata.XmlAssociationMetadata;
 import org.codehaus.modello.plugins.xml.metadata.XmlClassMetadata;
@@ -50,7 +50,7 @@ class XmlModelHelpers
      */
     static String resolveTagName( ModelClass modelClass )
     {
-        XmlClassMetadata xmlClassMetadata = (XmlClassMetadata) modelClass.getMetadata( XmlClassMetadata.ID );
+        XmlClassMetadata xmlClassMetadata = modelClass.getMetadata( XmlClassMetadata.SLOT );
 
         String tagName;
         if ( ( xmlClassMetadata == null ) || ( xmlClassMetadata.getTagName() == null ) )
@@ -123,7 +123,7 @@ class XmlModelHelpers
         }
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isContent() )
             {
@@ -146,7 +146,7 @@ class XmlModelHelpers
 
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isAttribute() )
             {
@@ -160,11 +160,11 @@ class XmlModelHelpers
     /**
      * Return the XML fields of this class, with proper XML order and no XML transient fields.
      *
+     * @param view the model in the version of the class to use
      * @param modelClass current class
-     * @param version the version of the class to use
      * @return the list of XML fields of this class
      */
-    static List<ModelField> getFieldsForXml( ModelClass modelClass, Version version )
+    static List<ModelField> getFieldsForXml( ModelView view, ModelClass modelClass )
     {
         List<ModelClass> classes = new ArrayList<ModelClass>();
 
@@ -177,7 +177,7 @@ class XmlModelHelpers
             if ( superClass != null )
             {
                 // superClass can be located outside (not generated by modello)
-                modelClass = modelClass.getModel().getClass( superClass, version, true );
+                modelClass = view.getClass( superClass, true );
             }
             else
             {
@@ -195,9 +195,9 @@ class XmlModelHelpers
 
             fields = new ArrayList<ModelField>();
 
-            for ( ModelField field : modelClass.getFields( version ) )
+            for ( ModelField field : view.getFields( modelClass ) )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
                 if ( xmlFieldMetadata.isTransient() )
                 {
@@ -23,6 +23,7 @@ package org.codehaus.modello.plugins.xml.metadata;
  */
 
 import org.codehaus.modello.metadata.AssociationMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l</a>
@@ -32,6 +33,8 @@ public class XmlAssociationMetadata
 {
     public static final String ID = XmlAssociationMetadata.class.getName();
 
+    public static final MetadataSlot<XmlAssociationMetadata> SLOT = MetadataSlot.of( XmlAssociationMetadata.class );
+
     public static final String EXPLODE_MODE = "explode";
 
     public static final String INLINE_MODE = "inline";
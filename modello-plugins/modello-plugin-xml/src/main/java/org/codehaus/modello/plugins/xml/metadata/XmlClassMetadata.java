@@ -23,6 +23,7 @@ package org.codehaus.modello.plugins.xml.metadata;
  */
 
 import org.codehaus.modello.metadata.ClassMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l</a>
@@ -32,6 +33,8 @@ public class XmlClassMetadata
 {
     public static final String ID = XmlClassMetadata.class.getName();
 
+    public static final MetadataSlot<XmlClassMetadata> SLOT = MetadataSlot.of( XmlClassMetadata.class );
+
     private String tagName;
 
     private boolean standaloneRead;
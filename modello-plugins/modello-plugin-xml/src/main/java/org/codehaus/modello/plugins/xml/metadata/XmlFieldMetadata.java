@@ -23,6 +23,7 @@ package org.codehaus.modello.plugins.xml.metadata;
  */
 
 import org.codehaus.modello.metadata.FieldMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l</a>
@@ -32,6 +33,8 @@ public class XmlFieldMetadata
 {
     public static final String ID = XmlFieldMetadata.class.getName();
 
+    public static final MetadataSlot<XmlFieldMetadata> SLOT = MetadataSlot.of( XmlFieldMetadata.class );
+
     private boolean attribute;
 
     private boolean content;
@@ -23,6 +23,7 @@ package org.codehaus.modello.plugins.xml.metadata;
  */
 
 import org.codehaus.modello.metadata.InterfaceMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * @author <a href="mailto:trygvis@inamo.no">Trygve Laugst&oslash;l</a>
@@ -31,4 +32,6 @@ public class XmlInterfaceMetadata
     implements InterfaceMetadata
 {
     public static final String ID = XmlInterfaceMetadata.class.getName();
+
+    public static final MetadataSlot<XmlInterfaceMetadata> SLOT = MetadataSlot.of( XmlInterfaceMetadata.class );
 }
@@ -22,6 +22,7 @@ package org.codehaus.modello.plugins.xml.metadata;
  * SOFTWARE.
  */
 
+import org.codehaus.modello.metadata.MetadataSlot;
 import org.codehaus.modello.metadata.ModelMetadata;
 import org.codehaus.modello.model.Version;
 import org.codehaus.plexus.util.StringUtils;
@@ -34,6 +35,8 @@ public class XmlModelMetadata
 {
     public static final String ID = XmlModelMetadata.class.getName();
 
+    public static final MetadataSlot<XmlModelMetadata> SLOT = MetadataSlot.of( XmlModelMetadata.class );
+
     private String namespace;
 
     private String schemaLocation;
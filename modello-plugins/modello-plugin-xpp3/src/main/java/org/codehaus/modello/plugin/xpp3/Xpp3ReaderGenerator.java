@@ -23,22 +23,28 @@ package org.codehaus.modello.plugin.xpp3;
  */
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
 
 import org.codehaus.modello.ModelloException;
+import org.codehaus.modello.ModelloParameterConstants;
 import org.codehaus.modello.model.Model;
 import org.codehaus.modello.model.ModelAssociation;
 import org.codehaus.modello.model.ModelClass;
 import org.codehaus.modello.model.ModelDefault;
 import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.plugin.java.javasource.JArrayType;
 import org.codehaus.modello.plugin.java.javasource.JClass;
+import org.codehaus.modello.plugin.java.javasource.JConstructor;
 import org.codehaus.modello.plugin.java.javasource.JField;
 import org.codehaus.modello.plugin.java.javasource.JMethod;
 import org.codehaus.modello.plugin.java.javasource.JParameter;
 import org.codehaus.modello.plugin.java.javasource.JSourceCode;
 import org.codehaus.modello.plugin.java.javasource.JSourceWriter;
 import org.codehaus.modello.plugin.java.javasource.JType;
+import org.codehaus.modello.plugin.java.metadata.JavaAssociationMetadata;
 import org.codehaus.modello.plugin.java.metadata.JavaClassMetadata;
 import org.codehaus.modello.plugin.java.metadata.JavaFieldMetadata;
 import org.codehaus.modello.plugin.model.ModelClassMetadata;
@@ -69,6 +75,32 @@ public class Xpp3ReaderGenerator
 
     private boolean requiresDomSupport;
 
+    /**
+     * If set, child elements are dispatched with a <code>switch</code> on an index looked up from a static
+     * tag name map instead of a chain of tag name comparisons.
+     */
+    private boolean indexedDispatch;
+
+    /**
+     * The keys of the <code>*</code> associations of model classes, accepting an item visitor.
+     */
+    private List<String> itemAssociations;
+
+    /**
+     * If set, the model has lazy associations, whose raw text is recorded by the parser while skipping them.
+     */
+    private boolean requiresRawTextSupport;
+
+    /**
+     * If set, the reader can parse the items of the root class <code>*</code> associations on a fork/join pool.
+     */
+    private boolean parallel;
+
+    /**
+     * The root class associations whose items are parsed in parallel, empty if parallel parsing is not generated.
+     */
+    private List<ModelAssociation> parallelAssociations;
+
     protected boolean isLocationTracking()
     {
         return false;
@@ -82,6 +114,15 @@ public class Xpp3ReaderGenerator
         locationTracker = sourceTracker = null;
         trackingArgs = locationField = "";
         requiresDomSupport = false;
+        itemAssociations = new ArrayList<String>();
+        requiresRawTextSupport = false;
+        parallelAssociations = new ArrayList<ModelAssociation>();
+
+        indexedDispatch = Boolean.valueOf(
+            getParameter( parameters, ModelloParameterConstants.XPP3_INDEXED_DISPATCH, "false" ) ).booleanValue();
+
+        parallel = Boolean.valueOf(
+            getParameter( parameters, ModelloParameterConstants.XPP3_PARALLEL, "false" ) ).booleanValue();
 
         if ( isLocationTracking() )
         {
@@ -93,8 +134,7 @@ public class Xpp3ReaderGenerator
                                                 + ", cannot generate extended reader." );
             }
 
-            locationField =
-                ( (ModelClassMetadata) locationTracker.getMetadata( ModelClassMetadata.ID ) ).getLocationTracker();
+            locationField = locationTracker.getMetadata( ModelClassMetadata.SLOT ).getLocationTracker();
 
             sourceTracker = model.getSourceTracker( getGeneratedVersion() );
 
@@ -116,7 +156,7 @@ public class Xpp3ReaderGenerator
 
     private void writeAllClassesReaders( Model objectModel, JClass jClass )
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
         for ( ModelClass clazz : getClasses( objectModel ) )
         {
@@ -140,7 +180,7 @@ public class Xpp3ReaderGenerator
             return;
         }
 
-        XmlClassMetadata xmlClassMetadata = (XmlClassMetadata) modelClass.getMetadata( XmlClassMetadata.ID );
+        XmlClassMetadata xmlClassMetadata = modelClass.getMetadata( XmlClassMetadata.SLOT );
         if ( !rootElement && !xmlClassMetadata.isStandaloneRead() )
         {
             return;
@@ -215,7 +255,11 @@ public class Xpp3ReaderGenerator
         sc.add(
             className + ' ' + variableName + " = parse" + capClassName + "( parser, strict" + trackingArgs + " );" );
 
-        if ( rootElement )
+        if ( rootElement && isImmutable( modelClass ) )
+        {
+            sc.add( variableName + " = " + variableName + ".withModelEncoding( parser.getInputEncoding() );" );
+        }
+        else if ( rootElement )
         {
             sc.add( variableName + ".setModelEncoding( parser.getInputEncoding() );" );
         }
@@ -251,18 +295,38 @@ public class Xpp3ReaderGenerator
 
         sc = unmarshall.getSourceCode();
 
-        sc.add("XmlPullParser parser = addDefaultEntities ? new MXParser(EntityReplacementMap.defaultEntityReplacementMap) : new MXParser( );");
+        if ( rootElement && !parallelAssociations.isEmpty() )
+        {
+            sc.add( "if ( forkJoinPool != null && ( itemVisitors == null || itemVisitors.isEmpty() ) )" );
+            sc.add( "{" );
+            sc.addIndented( "return readParallel( reader, strict" + trackingArgs + " );" );
+            sc.add( "}" );
+            sc.add( "" );
+        }
+
+        sc.add( "boolean defaultEntities = addDefaultEntities;" );
+
+        sc.add( "XmlPullParser parser = getParser( defaultEntities );" );
 
         sc.add( "" );
 
-        sc.add( "parser.setInput( reader );" );
+        sc.add( "try" );
+        sc.add( "{" );
+        sc.indent();
 
-        sc.add( "" );
+        sc.add( "parser.setInput( reader );" );
 
         sc.add( "" );
 
         sc.add( "return " + readerMethodName + "( parser, strict" + trackingArgs + " );" );
 
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "finally" );
+        sc.add( "{" );
+        sc.addIndented( "releaseParser( parser, defaultEntities );" );
+        sc.add( "}" );
+
         jClass.addMethod( unmarshall );
 
         // ----------------------------------------------------------------------
@@ -386,12 +450,31 @@ public class Xpp3ReaderGenerator
 
         jClass.addMethod( addDefaultEntitiesGetter );
 
+        requiresRawTextSupport = hasLazyAssociations( objectModel );
+
+        writeParserReuse( jClass );
+
         // ----------------------------------------------------------------------
         // Write the class parsers
         // ----------------------------------------------------------------------
 
         writeAllClassesParser( objectModel, jClass );
 
+        if ( !itemAssociations.isEmpty() )
+        {
+            String visitorName = getFileName( "Xpp3ItemVisitor" );
+            String[] exceptions = { "java.io.IOException", "org.codehaus.plexus.util.xml.pull.XmlPullParserException" };
+
+            writeItemVisitorSupport( jClass, visitorName, itemAssociations, exceptions );
+
+            generateItemVisitor( packageName, visitorName, exceptions );
+        }
+
+        if ( parallel )
+        {
+            writeParallelSupport( objectModel, jClass );
+        }
+
         // ----------------------------------------------------------------------
         // Write the class readers
         // ----------------------------------------------------------------------
@@ -404,6 +487,20 @@ public class Xpp3ReaderGenerator
 
         writeHelpers( jClass );
 
+        writeDateFormatHelper( jClass );
+
+        writeLocationFactory( jClass, locationTracker, sourceTracker );
+
+        if ( indexedDispatch )
+        {
+            writeElementIndexHelpers( jClass );
+        }
+
+        if ( requiresRawTextSupport )
+        {
+            writeRawTextParser( jClass.createInnerClass( "RawTextParser" ) );
+        }
+
         if ( requiresDomSupport )
         {
             writeBuildDomMethod( jClass );
@@ -418,274 +515,1187 @@ public class Xpp3ReaderGenerator
         sourceWriter.close();
     }
 
-    private void writeAllClassesParser( Model objectModel, JClass jClass )
+    /**
+     * Write the parser reuse support: when enabled, reads take the parser kept by the current thread and reset it for
+     * the document instead of creating a new one (with its entity replacement table) for each read. Only parsers are
+     * shared: the settings stay on each reader instance.
+     *
+     * @param jClass the generated class source file
+     */
+    private void writeParserReuse( JClass jClass )
     {
-        ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ), getGeneratedVersion() );
+        JField reuseParser = new JField( JType.BOOLEAN, "reuseParser" );
 
-        for ( ModelClass clazz : getClasses( objectModel ) )
-        {
-            if ( isTrackingSupport( clazz ) )
-            {
-                continue;
-            }
+        reuseParser.setComment( "If set, reads reuse the parser kept by the current thread." );
 
-            writeClassParser( clazz, jClass, root.getName().equals( clazz.getName() ) );
-        }
-    }
+        jClass.addField( reuseParser );
 
-    private void writeClassParser( ModelClass modelClass, JClass jClass, boolean rootElement )
-    {
-        JavaClassMetadata javaClassMetadata =
-            (JavaClassMetadata) modelClass.getMetadata( JavaClassMetadata.class.getName() );
+        String threadLocalType = "ThreadLocal" + ( useJava5 ? "<MXParser[]>" : "" );
 
-        // Skip abstract classes, no way to parse them out into objects
-        if ( javaClassMetadata.isAbstract() )
-        {
-            return;
-        }
+        JField threadParsers = new JField( new JType( threadLocalType ), "THREAD_PARSERS" );
+        threadParsers.getModifiers().setStatic( true );
+        threadParsers.getModifiers().setFinal( true );
+        threadParsers.setComment( "The parsers kept per thread, with and without the default entities. A parser is"
+            + " removed from its slot while in use, so that a nested read on the same thread gets a new one." );
+        threadParsers.setInitString( "new " + threadLocalType + "()" );
 
-        String className = modelClass.getName();
+        jClass.addField( threadParsers );
 
-        String capClassName = capitalise( className );
+        // The setter
+        JMethod method = new JMethod( "setReuseParser" );
 
-        String uncapClassName = uncapitalise( className );
+        method.addParameter( new JParameter( JType.BOOLEAN, "reuseParser" ) );
 
-        JMethod unmarshall = new JMethod( "parse" + capClassName, new JClass( className ), null );
-        unmarshall.getModifiers().makePrivate();
+        method.setSourceCode( "this.reuseParser = reuseParser;" );
 
-        unmarshall.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
-        unmarshall.addParameter( new JParameter( JClass.BOOLEAN, "strict" ) );
-        addTrackingParameters( unmarshall );
+        method.setComment( "Sets the state of the \"reuse parser\" flag." );
 
-        unmarshall.addException( new JClass( "IOException" ) );
-        unmarshall.addException( new JClass( "XmlPullParserException" ) );
+        jClass.addMethod( method );
 
-        JSourceCode sc = unmarshall.getSourceCode();
+        // The getter
+        method = new JMethod( "getReuseParser", JType.BOOLEAN, null );
 
-        sc.add( "String tagName = parser.getName();" );
-        sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        method.setComment( "Returns the state of the \"reuse parser\" flag." );
 
-        if ( locationTracker != null )
-        {
-            sc.add( locationTracker.getName() + " " + LOCATION_VAR + ";" );
-            writeNewSetLocation( "\"\"", uncapClassName, null, sc );
-        }
+        method.setSourceCode( "return reuseParser;" );
 
-        ModelField contentField = null;
+        jClass.addMethod( method );
 
-        List<ModelField> modelFields = getFieldsForXml( modelClass, getGeneratedVersion() );
+        // The parser provider
+        method = new JMethod( "getParser", new JClass( "XmlPullParser" ), null );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( JType.BOOLEAN, "defaultEntities" ) );
 
-        // read all XML attributes first
-        contentField = writeClassAttributesParser( modelFields, uncapClassName, rootElement, sc, jClass );
+        JSourceCode sc = method.getSourceCode();
 
-        // then read content, either content field or elements
-        if ( contentField != null )
-        {
-            writePrimitiveField( contentField, contentField.getType(), uncapClassName, uncapClassName, "\"\"",
-                                 "set" + capitalise( contentField.getName() ), sc );
-        }
-        else
-        {
-            //Write other fields
+        sc.add( "if ( reuseParser )" );
 
-            sc.add( "java.util.Set parsed = new java.util.HashSet();" );
+        sc.add( "{" );
+        sc.indent();
 
-            sc.add( "while ( ( strict ? parser.nextTag() : nextTag( parser ) ) == XmlPullParser.START_TAG )" );
+        sc.add( "MXParser[] parsers = " + ( useJava5 ? "" : "(MXParser[]) " ) + "THREAD_PARSERS.get();" );
 
-            sc.add( "{" );
-            sc.indent();
+        sc.add( "int slot = defaultEntities ? 1 : 0;" );
 
-            boolean addElse = false;
+        sc.add( "if ( parsers != null && parsers[slot] != null )" );
 
-            for ( ModelField field : modelFields )
-            {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+        sc.add( "{" );
+        sc.indent();
 
-                if ( !xmlFieldMetadata.isAttribute() )
-                {
-                    processField( field, xmlFieldMetadata, addElse, sc, uncapClassName, jClass );
+        sc.add( "MXParser parser = parsers[slot];" );
 
-                    addElse = true;
-                }
-            }
+        sc.add( "parsers[slot] = null;" );
 
-            if ( addElse )
-            {
-                sc.add( "else" );
+        sc.add( "return parser;" );
 
-                sc.add( "{" );
-                sc.indent();
-            }
+        sc.unindent();
+        sc.add( "}" );
 
-            sc.add( "checkUnknownElement( parser, strict );" );
+        sc.unindent();
+        sc.add( "}" );
 
-            if ( addElse )
-            {
-                sc.unindent();
-                sc.add( "}" );
-            }
+        String parserClass = requiresRawTextSupport ? "RawTextParser" : "MXParser";
 
-            sc.unindent();
-            sc.add( "}" );
-        }
+        sc.add( "return defaultEntities ? new " + parserClass + "( EntityReplacementMap.defaultEntityReplacementMap )"
+                    + " : new " + parserClass + "();" );
 
-        sc.add( "return " + uncapClassName + ";" );
+        jClass.addMethod( method );
 
-        jClass.addMethod( unmarshall );
-    }
+        // The parser release
+        method = new JMethod( "releaseParser" );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "defaultEntities" ) );
 
-    private ModelField writeClassAttributesParser( List<ModelField> modelFields, String objectName, boolean rootElement,
-                                                   JSourceCode sc, JClass jClass )
-    {
-        ModelField contentField = null;
+        sc = method.getSourceCode();
 
-        sc.add( "for ( int i = parser.getAttributeCount() - 1; i >= 0; i-- )" );
-        sc.add( "{" );
-        sc.indent();
-        sc.add( "String name = parser.getAttributeName( i );" );
-        sc.add( "String value = parser.getAttributeValue( i );" );
-        sc.add( "" );
+        sc.add( "if ( reuseParser )" );
 
-        sc.add( "if ( name.indexOf( ':' ) >= 0 )" );
         sc.add( "{" );
-        sc.addIndented( "// just ignore attributes with non-default namespace (for example: xmlns:xsi)" );
-        sc.add( "}" );
-        if ( rootElement )
-        {
-            sc.add( "else if ( \"xmlns\".equals( name ) )" );
-            sc.add( "{" );
-            sc.addIndented( "// ignore xmlns attribute in root class, which is a reserved attribute name" );
-            sc.add( "}" );
-        }
+        sc.indent();
 
-        for ( ModelField field : modelFields )
-        {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+        sc.add( "MXParser[] parsers = " + ( useJava5 ? "" : "(MXParser[]) " ) + "THREAD_PARSERS.get();" );
 
-            if ( xmlFieldMetadata.isAttribute() )
-            {
-                String tagName = resolveTagName( field, xmlFieldMetadata );
+        sc.add( "if ( parsers == null )" );
 
-                sc.add( "else if ( \"" + tagName + "\".equals( name ) )" );
-                sc.add( "{" );
-                sc.indent();
+        sc.add( "{" );
+        sc.indent();
 
-                writePrimitiveField( field, field.getType(), objectName, objectName, "\"" + field.getName() + "\"",
-                                     "set" + capitalise( field.getName() ), sc );
+        sc.add( "parsers = new MXParser[2];" );
 
-                sc.unindent();
-                sc.add( "}" );
-            }
-            // TODO check if we have already one with this type and throws Exception
-            if ( xmlFieldMetadata.isContent() )
-            {
-                contentField = field;
-            }
-        }
-        sc.add( "else" );
+        sc.add( "THREAD_PARSERS.set( parsers );" );
 
-        sc.add( "{" );
-        sc.addIndented( "checkUnknownAttribute( parser, name, tagName, strict );" );
+        sc.unindent();
         sc.add( "}" );
 
+        sc.add( "parsers[defaultEntities ? 1 : 0] = (MXParser) parser;" );
+
         sc.unindent();
         sc.add( "}" );
 
-        return contentField;
+        jClass.addMethod( method );
     }
 
     /**
-     * Generate code to process a field represented as an XML element.
+     * Write the parallel reading support: the document is scanned for the items of the wrapped <code>*</code>
+     * associations of the root class, which are then parsed on a fork/join pool while the rest of the document is
+     * parsed by the calling thread. Items are added back in document order, and their line and column numbers are
+     * rebased on the position of their chunk in the document.
      *
-     * @param field            the field to process
-     * @param xmlFieldMetadata its XML metadata
-     * @param addElse          add an <code>else</code> statement before generating a new <code>if</code>
-     * @param sc               the method source code to add to
-     * @param objectName       the object name in the source
-     * @param jClass           the generated class source file
+     * @param objectModel the model
+     * @param jClass      the generated class source file
      */
-    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, boolean addElse, JSourceCode sc,
-                               String objectName, JClass jClass )
+    private void writeParallelSupport( Model objectModel, JClass jClass )
     {
-        String fieldTagName = resolveTagName( field, xmlFieldMetadata );
-
-        String capFieldName = capitalise( field.getName() );
-
-        String singularName = singular( field.getName() );
-
-        String alias;
-        if ( StringUtils.isEmpty( field.getAlias() ) )
-        {
-            alias = "null";
-        }
-        else
+        if ( requiresDomSupport && !domAsXpp3 )
         {
-            alias = "\"" + field.getAlias() + "\"";
+            // the DOM document shared by the parsers is not thread safe
+            return;
         }
 
-        String tagComparison =
-            ( addElse ? "else " : "" ) + "if ( checkFieldWithDuplicate( parser, \"" + fieldTagName + "\", " + alias
-                + ", parsed ) )";
-
-        if ( !( field instanceof ModelAssociation ) )
-        { // model field
-            sc.add( tagComparison );
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
-            sc.add( "{" );
+        if ( isImmutable( root ) )
+        {
+            // the items are added to the root element once read
+            return;
+        }
 
-            sc.indent();
+        StringBuilder wrappers = new StringBuilder();
+        StringBuilder items = new StringBuilder();
 
-            writePrimitiveField( field, field.getType(), objectName, objectName, "\"" + field.getName() + "\"",
-                                 "set" + capFieldName, sc );
+        for ( ModelField field : getFieldsForXml( root, getGeneratedVersion() ) )
+        {
+            if ( !( field instanceof ModelAssociation ) )
+            {
+                continue;
+            }
 
-            sc.unindent();
-            sc.add( "}" );
-        }
-        else
-        { // model association
             ModelAssociation association = (ModelAssociation) field;
 
-            String associationName = association.getName();
+            XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
 
-            if ( association.isOneMultiplicity() )
-            {
-                sc.add( tagComparison );
+            JavaFieldMetadata javaFieldMetadata = association.getMetadata( JavaFieldMetadata.SLOT );
 
-                sc.add( "{" );
-                sc.addIndented(
-                    objectName + ".set" + capFieldName + "( parse" + association.getTo() + "( parser, strict"
-                        + trackingArgs + " ) );" );
-                sc.add( "}" );
-            }
-            else
+            if ( association.isOneMultiplicity() || !xmlAssociationMetadata.isWrappedItems()
+                || isLazyAssociation( association )
+                || !( ModelDefault.LIST.equals( association.getType() )
+                    || ModelDefault.SET.equals( association.getType() ) )
+                || !isClassInModel( association.getTo(), objectModel )
+                || ( javaFieldMetadata.isSetter() && !javaFieldMetadata.isGetter() ) )
             {
-                //MANY_MULTIPLICITY
+                continue;
+            }
 
-                XmlAssociationMetadata xmlAssociationMetadata =
-                    (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = association.getMetadata( XmlFieldMetadata.SLOT );
 
-                String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
+            String fieldTagName = resolveTagName( association, xmlFieldMetadata );
 
-                String type = association.getType();
+            wrappers.append( wrappers.length() > 0 ? ", " : "" ).append( '"' ).append( fieldTagName ).append( '"' );
+            items.append( items.length() > 0 ? ", " : "" ).append( '"' );
+            items.append( resolveTagName( fieldTagName, xmlAssociationMetadata ) ).append( '"' );
 
-                if ( ModelDefault.LIST.equals( type ) || ModelDefault.SET.equals( type ) )
-                {
-                    boolean wrappedItems = xmlAssociationMetadata.isWrappedItems();
+            parallelAssociations.add( association );
+        }
 
-                    boolean inModel = isClassInModel( association.getTo(), field.getModelClass().getModel() );
+        if ( parallelAssociations.isEmpty() )
+        {
+            return;
+        }
+
+        jClass.addImport( "java.io.CharArrayReader" );
+        jClass.addImport( "java.io.InterruptedIOException" );
+        jClass.addImport( "java.util.concurrent.Callable" );
+        jClass.addImport( "java.util.concurrent.ExecutionException" );
+        jClass.addImport( "java.util.concurrent.ForkJoinPool" );
+        jClass.addImport( "java.util.concurrent.ForkJoinTask" );
+        jClass.addImport( "org.codehaus.plexus.util.IOUtil" );
+
+        JField field = new JField( new JArrayType( new JClass( "String" ), useJava5 ), "PARALLEL_WRAPPERS" );
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setComment( "The tag names of the root element associations whose items are parsed in parallel." );
+        field.setInitString( "{ " + wrappers + " }" );
+        jClass.addField( field );
+
+        field = new JField( new JArrayType( new JClass( "String" ), useJava5 ), "PARALLEL_ITEMS" );
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setComment( "The tag names of the items parsed in parallel, by association." );
+        field.setInitString( "{ " + items + " }" );
+        jClass.addField( field );
+
+        field = new JField( new JClass( "ForkJoinPool" ), "forkJoinPool" );
+        field.setComment( "If set, the items of the root element associations are parsed in parallel on this pool." );
+        jClass.addField( field );
+
+        JMethod method = new JMethod( "setForkJoinPool" );
+        method.addParameter( new JParameter( new JClass( "ForkJoinPool" ), "forkJoinPool" ) );
+        method.setSourceCode( "this.forkJoinPool = forkJoinPool;" );
+        method.setComment( "Sets the pool parsing the items of the root element associations in parallel.\n"
+            + "The whole document is then loaded in memory before being parsed, and parallel parsing is skipped while"
+            + " an item visitor is registered.\nA <code>null</code> pool restores sequential parsing." );
+        jClass.addMethod( method );
+
+        method = new JMethod( "getForkJoinPool", new JClass( "ForkJoinPool" ), null );
+        method.setSourceCode( "return forkJoinPool;" );
+        method.setComment( "Returns the pool parsing the items of the root element associations in parallel." );
+        jClass.addMethod( method );
+
+        writeParallelRead( root, jClass );
+
+        writeParallelChunkParser( jClass );
+
+        writeParallelScanner( jClass );
+    }
+
+    private void writeParallelRead( ModelClass root, JClass jClass )
+    {
+        String className = root.getName();
+        String variableName = uncapitalise( className );
+        String listType = useJava5 ? "java.util.List<int[]>" : "java.util.List";
+        String taskType = useJava5 ? "ForkJoinTask<Object>" : "ForkJoinTask";
+
+        JMethod method = new JMethod( "readParallel", new JClass( className ), null );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JClass( "Reader" ), "reader" ) );
+        method.addParameter( new JParameter( JClass.BOOLEAN, "strict" ) );
+        addTrackingParameters( method );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+
+        JSourceCode sc = method.getSourceCode();
+
+        sc.add( "final char[] document = IOUtil.toString( reader ).toCharArray();" );
+        sc.add( listType + " chunks = scanChunks( document );" );
+        sc.add( "char[] skeleton = document;" );
+        sc.add( "if ( !chunks.isEmpty() )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "// the chunks are parsed separately: blank them, keeping line ends for locations to stay right" );
+        sc.add( "skeleton = (char[]) document.clone();" );
+        sc.add( "for ( int i = 0; i < chunks.size(); i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int[] chunk = " + ( useJava5 ? "" : "(int[]) " ) + "chunks.get( i );" );
+        sc.add( "for ( int j = chunk[0]; j < chunk[1]; j++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( skeleton[j] != '\\n' && skeleton[j] != '\\r' )" );
+        sc.add( "{" );
+        sc.addIndented( "skeleton[j] = ' ';" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "" );
+
+        if ( sourceTracker != null )
+        {
+            sc.add( "final " + sourceTracker.getName() + " _source = " + SOURCE_PARAM + ";" );
+        }
+        sc.add( "final boolean _strict = strict;" );
+        sc.add( ( useJava5 ? "java.util.List<" + taskType + ">" : "java.util.List" ) + " tasks = new java.util.ArrayList"
+            + ( useJava5 ? "<" + taskType + ">" : "" ) + "( chunks.size() );" );
+        sc.add( "for ( int i = 0; i < chunks.size(); i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "final int[] chunk = " + ( useJava5 ? "" : "(int[]) " ) + "chunks.get( i );" );
+        sc.add( "tasks.add( forkJoinPool.submit( new Callable" + ( useJava5 ? "<Object>" : "" ) + "()" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "public Object call()" );
+        sc.addIndented( "throws Exception" );
+        sc.add( "{" );
+        sc.addIndented( "return parseChunk( document, chunk, _strict" + ( sourceTracker != null ? ", _source" : "" )
+            + " );" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "} ) );" );
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "" );
+
+        sc.add( "boolean defaultEntities = addDefaultEntities;" );
+        sc.add( "XmlPullParser parser = getParser( defaultEntities );" );
+        sc.add( "boolean completed = false;" );
+        sc.add( "try" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "parser.setInput( new CharArrayReader( skeleton ) );" );
+        sc.add( className + " " + variableName + " = read( parser, strict" + trackingArgs + " );" );
+        sc.add( "for ( int i = 0; i < tasks.size(); i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int[] chunk = " + ( useJava5 ? "" : "(int[]) " ) + "chunks.get( i );" );
+        sc.add( "Object item = joinChunk( " + ( useJava5 ? "" : "(" + taskType + ") " ) + "tasks.get( i ) );" );
+        sc.add( "switch ( chunk[2] )" );
+        sc.add( "{" );
+        sc.indent();
+        for ( int i = 0; i < parallelAssociations.size(); i++ )
+        {
+            ModelAssociation association = parallelAssociations.get( i );
+            JavaFieldMetadata javaFieldMetadata = association.getMetadata( JavaFieldMetadata.SLOT );
+
+            String adder;
+            if ( javaFieldMetadata.isSetter() )
+            {
+                adder = variableName + ".get" + capitalise( association.getName() ) + "().add";
+            }
+            else
+            {
+                adder = variableName + ".add" + association.getTo();
+            }
+
+            sc.add( "case " + i + ":" );
+            sc.addIndented( adder + "( (" + association.getTo() + ") item );" );
+            sc.addIndented( "break;" );
+        }
+        sc.add( "default:" );
+        sc.addIndented( "throw new IllegalStateException( \"Unknown association \" + chunk[2] );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "completed = true;" );
+        sc.add( "return " + variableName + ";" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "finally" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "releaseParser( parser, defaultEntities );" );
+        sc.add( "if ( !completed )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "for ( int i = 0; i < tasks.size(); i++ )" );
+        sc.add( "{" );
+        sc.addIndented( useJava5 ? "tasks.get( i ).cancel( false );" : "( (" + taskType + ") tasks.get( i ) ).cancel( false );" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+
+        jClass.addMethod( method );
+
+        // the join, rethrowing the parsing exceptions
+        method = new JMethod( "joinChunk", new JClass( "Object" ), null );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JType( taskType ), "task" ) );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+
+        sc = method.getSourceCode();
+
+        sc.add( "try" );
+        sc.add( "{" );
+        sc.addIndented( "return task.get();" );
+        sc.add( "}" );
+        sc.add( "catch ( InterruptedException e )" );
+        sc.add( "{" );
+        sc.addIndented( "throw (IOException) new InterruptedIOException( e.getMessage() ).initCause( e );" );
+        sc.add( "}" );
+        sc.add( "catch ( ExecutionException e )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "// the pool wraps checked exceptions in runtime exceptions" );
+        sc.add( "for ( Throwable cause = e.getCause(); cause != null; cause = cause.getCause() )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( cause instanceof IOException )" );
+        sc.add( "{" );
+        sc.addIndented( "throw (IOException) cause;" );
+        sc.add( "}" );
+        sc.add( "if ( cause instanceof XmlPullParserException )" );
+        sc.add( "{" );
+        sc.addIndented( "throw (XmlPullParserException) cause;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "Throwable cause = e.getCause();" );
+        sc.add( "if ( cause instanceof RuntimeException )" );
+        sc.add( "{" );
+        sc.addIndented( "throw (RuntimeException) cause;" );
+        sc.add( "}" );
+        sc.add( "if ( cause instanceof Error )" );
+        sc.add( "{" );
+        sc.addIndented( "throw (Error) cause;" );
+        sc.add( "}" );
+        sc.add( "throw (IllegalStateException) new IllegalStateException( cause.getMessage() ).initCause( cause );" );
+        sc.unindent();
+        sc.add( "}" );
+
+        jClass.addMethod( method );
+    }
+
+    private void writeParallelChunkParser( JClass jClass )
+    {
+        JMethod method = new JMethod( "parseChunk", new JClass( "Object" ), null );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JArrayType( JType.CHAR, useJava5 ), "document" ) );
+        method.addParameter( new JParameter( new JArrayType( JType.INT, useJava5 ), "chunk" ) );
+        method.addParameter( new JParameter( JClass.BOOLEAN, "strict" ) );
+        addTrackingParameters( method );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+
+        JSourceCode sc = method.getSourceCode();
+
+        sc.add( "ChunkParser parser = addDefaultEntities ? new ChunkParser( EntityReplacementMap.defaultEntityReplacementMap )"
+                    + " : new ChunkParser();" );
+        sc.add( "parser.lineOffset = chunk[3];" );
+        sc.add( "parser.columnOffset = chunk[4];" );
+        sc.add( "parser.setInput( new CharArrayReader( document, chunk[0], chunk[1] - chunk[0] ) );" );
+        sc.add( "parser.next();" );
+        sc.add( "switch ( chunk[2] )" );
+        sc.add( "{" );
+        sc.indent();
+        for ( int i = 0; i < parallelAssociations.size(); i++ )
+        {
+            sc.add( "case " + i + ":" );
+            sc.addIndented( "return parse" + parallelAssociations.get( i ).getTo() + "( parser, strict" + trackingArgs
+                + " );" );
+        }
+        sc.add( "default:" );
+        sc.addIndented( "throw new IllegalStateException( \"Unknown association \" + chunk[2] );" );
+        sc.unindent();
+        sc.add( "}" );
+
+        jClass.addMethod( method );
+
+        // the parser of a chunk, reporting line and column numbers in the whole document
+        JClass chunkParser = jClass.createInnerClass( "ChunkParser" );
+        chunkParser.getModifiers().setStatic( true );
+        chunkParser.getModifiers().makePrivate();
+        chunkParser.setSuperClass( "MXParser" );
+
+        chunkParser.addField( new JField( JType.INT, "lineOffset" ) );
+        chunkParser.addField( new JField( JType.INT, "columnOffset" ) );
+
+        chunkParser.createConstructor();
+
+        JConstructor constructor = chunkParser.createConstructor(
+            new JParameter[] { new JParameter( new JClass( "EntityReplacementMap" ), "entityReplacementMap" ) } );
+        constructor.getSourceCode().add( "super( entityReplacementMap );" );
+
+        method = new JMethod( "getLineNumber", JType.INT, null );
+        method.setSourceCode( "return super.getLineNumber() + lineOffset;" );
+        chunkParser.addMethod( method );
+
+        method = new JMethod( "getColumnNumber", JType.INT, null );
+        method.setSourceCode( "return super.getColumnNumber() + ( super.getLineNumber() == 1 ? columnOffset : 0 );" );
+        chunkParser.addMethod( method );
+    }
+
+    private void writeParallelScanner( JClass jClass )
+    {
+        String listType = useJava5 ? "java.util.List<int[]>" : "java.util.List";
+        String newList = "new java.util.ArrayList" + ( useJava5 ? "<int[]>" : "" ) + "()";
+
+        JMethod method = new JMethod( "scanChunks", new JType( listType ), null );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JArrayType( JType.CHAR, useJava5 ), "document" ) );
+        method.setComment( "Finds the items of the root element associations parsed in parallel, without parsing.\n"
+            + "Each chunk is described by its start and end offsets, its association index, and the line and column"
+            + " offsets of its start.\nAn empty list is returned if the document is not well-formed, leaving the"
+            + " error to the parser." );
+
+        JSourceCode sc = method.getSourceCode();
+
+        sc.add( listType + " chunks = " + newList + ";" );
+        sc.add( "int depth = 0;" );
+        sc.add( "int association = -1;" );
+        sc.add( "int itemStart = -1;" );
+        sc.add( "int i = 0;" );
+        sc.add( "while ( i < document.length )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( document[i] != '<' )" );
+        sc.add( "{" );
+        sc.addIndented( "i++;" );
+        sc.add( "}" );
+        sc.add( "else if ( i + 1 < document.length && ( document[i + 1] == '?' || document[i + 1] == '!' ) )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "i = skipMarkup( document, i );" );
+        sc.add( "if ( i < 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + newList + ";" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "boolean endTag = i + 1 < document.length && document[i + 1] == '/';" );
+        sc.add( "int nameStart = endTag ? i + 2 : i + 1;" );
+        sc.add( "int nameEnd = nameStart;" );
+        sc.add( "while ( nameEnd < document.length && document[nameEnd] != '>' && document[nameEnd] != '/'" );
+        sc.addIndented( "&& !Character.isWhitespace( document[nameEnd] ) )" );
+        sc.add( "{" );
+        sc.addIndented( "nameEnd++;" );
+        sc.add( "}" );
+        sc.add( "int tagEnd = nameEnd;" );
+        sc.add( "char quote = 0;" );
+        sc.add( "while ( tagEnd < document.length && ( quote != 0 || document[tagEnd] != '>' ) )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( quote != 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "quote = ( document[tagEnd] == quote ) ? 0 : quote;" );
+        sc.add( "}" );
+        sc.add( "else if ( document[tagEnd] == '\"' || document[tagEnd] == '\\'' )" );
+        sc.add( "{" );
+        sc.addIndented( "quote = document[tagEnd];" );
+        sc.add( "}" );
+        sc.add( "tagEnd++;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "if ( tagEnd >= document.length )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + newList + ";" );
+        sc.add( "}" );
+        sc.add( "tagEnd++;" );
+        sc.add( "if ( endTag )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "depth--;" );
+        sc.add( "if ( depth == 2 && itemStart >= 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "chunks.add( new int[] { itemStart, tagEnd, association, 0, 0 } );" );
+        sc.addIndented( "itemStart = -1;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( depth == 1 )" );
+        sc.add( "{" );
+        sc.addIndented( "association = indexOf( PARALLEL_WRAPPERS, document, nameStart, nameEnd );" );
+        sc.add( "}" );
+        sc.add( "else if ( depth == 2 && association >= 0" );
+        sc.addIndented( "&& regionMatches( document, nameStart, nameEnd, PARALLEL_ITEMS[association] ) )" );
+        sc.add( "{" );
+        sc.addIndented( "itemStart = i;" );
+        sc.add( "}" );
+        sc.add( "if ( document[tagEnd - 2] != '/' )" );
+        sc.add( "{" );
+        sc.addIndented( "depth++;" );
+        sc.add( "}" );
+        sc.add( "else if ( itemStart == i )" );
+        sc.add( "{" );
+        sc.addIndented( "chunks.add( new int[] { itemStart, tagEnd, association, 0, 0 } );" );
+        sc.addIndented( "itemStart = -1;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "i = tagEnd;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "if ( depth != 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "return " + newList + ";" );
+        sc.add( "}" );
+
+        sc.add( "" );
+
+        sc.add( "// line and column offsets, as counted by the parser: only line feeds start a new line" );
+        sc.add( "int line = 0;" );
+        sc.add( "int lineStart = 0;" );
+        sc.add( "int position = 0;" );
+        sc.add( "for ( int c = 0; c < chunks.size(); c++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int[] chunk = " + ( useJava5 ? "" : "(int[]) " ) + "chunks.get( c );" );
+        sc.add( "for ( ; position < chunk[0]; position++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( document[position] == '\\n' )" );
+        sc.add( "{" );
+        sc.addIndented( "line++;" );
+        sc.addIndented( "lineStart = position + 1;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "chunk[3] = line;" );
+        sc.add( "chunk[4] = chunk[0] - lineStart + ( line > 0 ? 1 : 0 );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return chunks;" );
+
+        jClass.addMethod( method );
+
+        method = new JMethod( "skipMarkup", JType.INT, null );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JArrayType( JType.CHAR, useJava5 ), "document" ) );
+        method.addParameter( new JParameter( JType.INT, "start" ) );
+        method.setComment( "Returns the offset following the comment, CDATA section, processing instruction or"
+            + " declaration at the given offset, or <code>-1</code> if it is not terminated or if it is a document"
+            + " type declaration with an internal subset, since chunk parsers would miss its entity declarations." );
+
+        sc = method.getSourceCode();
+
+        sc.add( "String end;" );
+        sc.add( "if ( regionMatches( document, start, start + 4, \"<!--\" ) )" );
+        sc.add( "{" );
+        sc.addIndented( "end = \"-->\";" );
+        sc.add( "}" );
+        sc.add( "else if ( regionMatches( document, start, start + 9, \"<![CDATA[\" ) )" );
+        sc.add( "{" );
+        sc.addIndented( "end = \"]]>\";" );
+        sc.add( "}" );
+        sc.add( "else if ( document[start + 1] == '?' )" );
+        sc.add( "{" );
+        sc.addIndented( "end = \"?>\";" );
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "// document type declaration" );
+        sc.add( "char quote = 0;" );
+        sc.add( "for ( int i = start + 2; i < document.length; i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "char c = document[i];" );
+        sc.add( "if ( quote != 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "quote = ( c == quote ) ? 0 : quote;" );
+        sc.add( "}" );
+        sc.add( "else if ( c == '\"' || c == '\\'' )" );
+        sc.add( "{" );
+        sc.addIndented( "quote = c;" );
+        sc.add( "}" );
+        sc.add( "else if ( c == '[' )" );
+        sc.add( "{" );
+        sc.addIndented( "return -1;" );
+        sc.add( "}" );
+        sc.add( "else if ( c == '>' )" );
+        sc.add( "{" );
+        sc.addIndented( "return i + 1;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return -1;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "for ( int i = start + 2; i + end.length() <= document.length; i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( regionMatches( document, i, i + end.length(), end ) )" );
+        sc.add( "{" );
+        sc.addIndented( "return i + end.length();" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return -1;" );
+
+        jClass.addMethod( method );
+
+        method = new JMethod( "indexOf", JType.INT, null );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JArrayType( new JClass( "String" ), useJava5 ), "names" ) );
+        method.addParameter( new JParameter( new JArrayType( JType.CHAR, useJava5 ), "document" ) );
+        method.addParameter( new JParameter( JType.INT, "start" ) );
+        method.addParameter( new JParameter( JType.INT, "end" ) );
+
+        sc = method.getSourceCode();
+
+        sc.add( "for ( int i = 0; i < names.length; i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( regionMatches( document, start, end, names[i] ) )" );
+        sc.add( "{" );
+        sc.addIndented( "return i;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return -1;" );
+
+        jClass.addMethod( method );
+
+        method = new JMethod( "regionMatches", JType.BOOLEAN, null );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JArrayType( JType.CHAR, useJava5 ), "document" ) );
+        method.addParameter( new JParameter( JType.INT, "start" ) );
+        method.addParameter( new JParameter( JType.INT, "end" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+
+        sc = method.getSourceCode();
+
+        sc.add( "if ( end - start != name.length() || end > document.length )" );
+        sc.add( "{" );
+        sc.addIndented( "return false;" );
+        sc.add( "}" );
+        sc.add( "for ( int i = start; i < end; i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( document[i] != name.charAt( i - start ) )" );
+        sc.add( "{" );
+        sc.addIndented( "return false;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "return true;" );
+
+        jClass.addMethod( method );
+    }
+
+    private void writeAllClassesParser( Model objectModel, JClass jClass )
+    {
+        ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
+
+        for ( ModelClass clazz : getClasses( objectModel ) )
+        {
+            if ( isTrackingSupport( clazz ) )
+            {
+                continue;
+            }
+
+            writeClassParser( clazz, jClass, root.getName().equals( clazz.getName() ) );
+        }
+    }
+
+    private void writeClassParser( ModelClass modelClass, JClass jClass, boolean rootElement )
+    {
+        JavaClassMetadata javaClassMetadata =
+            (JavaClassMetadata) modelClass.getMetadata( JavaClassMetadata.class.getName() );
+
+        // Skip abstract classes, no way to parse them out into objects
+        if ( javaClassMetadata.isAbstract() )
+        {
+            return;
+        }
+
+        String className = modelClass.getName();
+
+        String capClassName = capitalise( className );
+
+        String uncapClassName = uncapitalise( className );
+
+        JMethod unmarshall = new JMethod( "parse" + capClassName, new JClass( className ), null );
+        unmarshall.getModifiers().makePrivate();
+
+        unmarshall.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
+        unmarshall.addParameter( new JParameter( JClass.BOOLEAN, "strict" ) );
+        addTrackingParameters( unmarshall );
+
+        unmarshall.addException( new JClass( "IOException" ) );
+        unmarshall.addException( new JClass( "XmlPullParserException" ) );
+
+        JSourceCode sc = unmarshall.getSourceCode();
+
+        sc.add( "String tagName = parser.getName();" );
+
+        boolean immutable = isImmutable( modelClass );
+
+        if ( immutable )
+        {
+            // the fields are collected by the builder, creating the object at the end
+            sc.add( className + ".Builder " + uncapClassName + " = new " + className + ".Builder();" );
+        }
+        else
+        {
+            sc.add( className + " " + uncapClassName + " = new " + className + "();" );
+        }
+
+        if ( locationTracker != null )
+        {
+            sc.add( locationTracker.getName() + " " + LOCATION_VAR + ";" );
+            writeNewSetLocation( "\"\"", uncapClassName, null, sc );
+        }
+
+        ModelField contentField = null;
+
+        List<ModelField> modelFields = getFieldsForXml( modelClass, getGeneratedVersion() );
+
+        // read all XML attributes first
+        contentField = writeClassAttributesParser( modelFields, uncapClassName, rootElement, sc, jClass );
+
+        // then read content, either content field or elements
+        if ( contentField != null )
+        {
+            writePrimitiveField( contentField, contentField.getType(), uncapClassName, uncapClassName, "\"\"",
+                                 "set" + capitalise( contentField.getName() ), sc );
+        }
+        else
+        {
+            //Write other fields
+
+            List<ModelField> elementFields = new ArrayList<ModelField>();
+
+            for ( ModelField field : modelFields )
+            {
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
+
+                if ( !xmlFieldMetadata.isAttribute() )
+                {
+                    elementFields.add( field );
+                }
+            }
+
+            sc.add( getParsedFieldsDeclaration( "parsed", elementFields.size() ) );
+
+            sc.add( "while ( ( strict ? parser.nextTag() : nextTag( parser ) ) == XmlPullParser.START_TAG )" );
+
+            sc.add( "{" );
+            sc.indent();
+
+            if ( indexedDispatch && !elementFields.isEmpty() )
+            {
+                String elementIndex = writeElementIndex( modelClass, elementFields, jClass );
+
+                sc.add( "switch ( getElementIndex( " + elementIndex + ", parser.getName() ) )" );
+
+                sc.add( "{" );
+                sc.indent();
+            }
+
+            for ( int i = 0; i < elementFields.size(); i++ )
+            {
+                ModelField field = elementFields.get( i );
+
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
+
+                processField( field, xmlFieldMetadata, i, elementFields.size(), sc, uncapClassName, jClass );
+            }
+
+            if ( !elementFields.isEmpty() )
+            {
+                sc.add( indexedDispatch ? "default:" : "else" );
+
+                sc.add( "{" );
+                sc.indent();
+            }
+
+            sc.add( "checkUnknownElement( parser, strict );" );
+
+            if ( !elementFields.isEmpty() )
+            {
+                sc.unindent();
+                sc.add( "}" );
+
+                if ( indexedDispatch )
+                {
+                    sc.unindent();
+                    sc.add( "}" );
+                }
+            }
+
+            sc.unindent();
+            sc.add( "}" );
+        }
+
+        sc.add( "return " + uncapClassName + ( immutable ? ".build()" : "" ) + ";" );
+
+        jClass.addMethod( unmarshall );
+    }
+
+    private ModelField writeClassAttributesParser( List<ModelField> modelFields, String objectName, boolean rootElement,
+                                                   JSourceCode sc, JClass jClass )
+    {
+        ModelField contentField = null;
+
+        sc.add( "for ( int i = parser.getAttributeCount() - 1; i >= 0; i-- )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "String name = parser.getAttributeName( i );" );
+        sc.add( "String value = parser.getAttributeValue( i );" );
+        sc.add( "" );
+
+        sc.add( "if ( name.indexOf( ':' ) >= 0 )" );
+        sc.add( "{" );
+        sc.addIndented( "// just ignore attributes with non-default namespace (for example: xmlns:xsi)" );
+        sc.add( "}" );
+        if ( rootElement )
+        {
+            sc.add( "else if ( \"xmlns\".equals( name ) )" );
+            sc.add( "{" );
+            sc.addIndented( "// ignore xmlns attribute in root class, which is a reserved attribute name" );
+            sc.add( "}" );
+        }
+
+        for ( ModelField field : modelFields )
+        {
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
+
+            if ( xmlFieldMetadata.isAttribute() )
+            {
+                String tagName = resolveTagName( field, xmlFieldMetadata );
+
+                sc.add( "else if ( \"" + tagName + "\".equals( name ) )" );
+                sc.add( "{" );
+                sc.indent();
+
+                writePrimitiveField( field, field.getType(), objectName, objectName, "\"" + field.getName() + "\"",
+                                     "set" + capitalise( field.getName() ), sc );
+
+                sc.unindent();
+                sc.add( "}" );
+            }
+            // TODO check if we have already one with this type and throws Exception
+            if ( xmlFieldMetadata.isContent() )
+            {
+                contentField = field;
+            }
+        }
+        sc.add( "else" );
+
+        sc.add( "{" );
+        sc.addIndented( "checkUnknownAttribute( parser, name, tagName, strict );" );
+        sc.add( "}" );
+
+        sc.unindent();
+        sc.add( "}" );
+
+        return contentField;
+    }
+
+    /**
+     * Generate the static map from XML element names (including aliases) to the position of the matching field in
+     * the list of element fields of a class, used by <code>parseX</code> to <code>switch</code> on child elements.
+     *
+     * @param modelClass    the class being parsed
+     * @param elementFields the fields of the class represented as XML elements, in parsing order
+     * @param jClass        the generated class source file
+     * @return the name of the generated static field
+     */
+    private String writeElementIndex( ModelClass modelClass, List<ModelField> elementFields, JClass jClass )
+    {
+        StringBuilder names = new StringBuilder();
+        StringBuilder indexes = new StringBuilder();
+
+        for ( int i = 0; i < elementFields.size(); i++ )
+        {
+            ModelField field = elementFields.get( i );
+
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
+
+            for ( String name : getElementNames( field, xmlFieldMetadata ) )
+            {
+                names.append( ( names.length() > 0 ) ? ", \"" : "\"" ).append( name ).append( '"' );
+                indexes.append( ( indexes.length() > 0 ) ? ", " : "" ).append( i );
+            }
+        }
+
+        String fieldName = modelClass.getName().toUpperCase( Locale.ENGLISH ) + "_ELEMENTS";
+
+        JField field = new JField( new JType( "java.util.Map" + ( useJava5 ? "<String, Integer>" : "" ) ), fieldName );
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setComment( "Index of the XML elements of class " + modelClass.getName() + "." );
+        field.setInitString(
+            "newElementIndex( new String[] { " + names + " }, new int[] { " + indexes + " } )" );
+
+        jClass.addField( field );
+
+        return fieldName;
+    }
+
+    /**
+     * Get the XML element names that select a field represented as an XML element: items of a list without
+     * wrapper are selected by their item tag name, other fields by their tag name or their alias.
+     *
+     * @param field            the field
+     * @param xmlFieldMetadata its XML metadata
+     * @return the element names
+     */
+    private List<String> getElementNames( ModelField field, XmlFieldMetadata xmlFieldMetadata )
+    {
+        List<String> names = new ArrayList<String>();
+
+        String fieldTagName = resolveTagName( field, xmlFieldMetadata );
+
+        if ( field instanceof ModelAssociation && !( (ModelAssociation) field ).isOneMultiplicity() )
+        {
+            ModelAssociation association = (ModelAssociation) field;
+
+            XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
+
+            if ( isCollection( association.getType() ) && !xmlAssociationMetadata.isWrappedItems() )
+            {
+                names.add( resolveTagName( fieldTagName, xmlAssociationMetadata ) );
+
+                return names;
+            }
+        }
+
+        names.add( fieldTagName );
+
+        if ( StringUtils.isNotEmpty( field.getAlias() ) )
+        {
+            names.add( field.getAlias() );
+        }
+
+        return names;
+    }
+
+    /**
+     * Generate the beginning of the code block processing a field represented as an XML element: either an
+     * <code>if</code> with the tag comparison or, with indexed dispatch, a <code>case</code> of the element index.
+     *
+     * @param tagComparison  the tag comparison to use in the <code>if</code> chain
+     * @param fieldTagName   the XML tag name of the field, used to check duplicates
+     * @param elementIndex   the index of the field in the list of element fields
+     * @param elementCount   the number of element fields
+     * @param checkDuplicate check the element is not duplicated (not for repeated items)
+     * @param sc             the method source code to add to
+     */
+    private void writeElementStart( String tagComparison, String fieldTagName, int elementIndex, int elementCount,
+                                    boolean checkDuplicate, JSourceCode sc )
+    {
+        if ( indexedDispatch )
+        {
+            sc.add( "case " + elementIndex + ":" );
+
+            sc.add( "{" );
+            sc.indent();
+
+            if ( checkDuplicate )
+            {
+                sc.add( "checkDuplicate( parser, \"" + fieldTagName + "\", "
+                            + getFieldParsedCheck( "parsed", elementIndex, elementCount ) + " );" );
+            }
+        }
+        else
+        {
+            sc.add( tagComparison );
+
+            sc.add( "{" );
+            sc.indent();
+        }
+
+        if ( checkDuplicate )
+        {
+            sc.add( getFieldParsedMark( "parsed", elementIndex, elementCount ) );
+        }
+    }
+
+    private void writeElementEnd( JSourceCode sc )
+    {
+        if ( indexedDispatch )
+        {
+            sc.add( "break;" );
+        }
+
+        sc.unindent();
+        sc.add( "}" );
+    }
+
+    /**
+     * Generate code to process a field represented as an XML element.
+     *
+     * @param field            the field to process
+     * @param xmlFieldMetadata its XML metadata
+     * @param elementIndex     the index of the field in the list of element fields: an <code>else</code> statement
+     *                         is added before generating a new <code>if</code> if not the first one
+     * @param elementCount     the number of element fields
+     * @param sc               the method source code to add to
+     * @param objectName       the object name in the source
+     * @param jClass           the generated class source file
+     */
+    private void processField( ModelField field, XmlFieldMetadata xmlFieldMetadata, int elementIndex,
+                               int elementCount, JSourceCode sc, String objectName, JClass jClass )
+    {
+        boolean addElse = elementIndex > 0;
+
+        String fieldTagName = resolveTagName( field, xmlFieldMetadata );
+
+        String capFieldName = capitalise( field.getName() );
+
+        String singularName = singular( field.getName() );
+
+        String alias;
+        if ( StringUtils.isEmpty( field.getAlias() ) )
+        {
+            alias = "null";
+        }
+        else
+        {
+            alias = "\"" + field.getAlias() + "\"";
+        }
+
+        String tagComparison =
+            ( addElse ? "else " : "" ) + "if ( checkFieldWithDuplicate( parser, \"" + fieldTagName + "\", " + alias
+                + ", " + getFieldParsedCheck( "parsed", elementIndex, elementCount ) + " ) )";
+
+        if ( !( field instanceof ModelAssociation ) )
+        { // model field
+            writeElementStart( tagComparison, fieldTagName, elementIndex, elementCount, true, sc );
+
+            writePrimitiveField( field, field.getType(), objectName, objectName, "\"" + field.getName() + "\"",
+                                 "set" + capFieldName, sc );
+
+            writeElementEnd( sc );
+        }
+        else
+        { // model association
+            ModelAssociation association = (ModelAssociation) field;
+
+            String associationName = association.getName();
+
+            if ( association.isOneMultiplicity() )
+            {
+                writeElementStart( tagComparison, fieldTagName, elementIndex, elementCount, true, sc );
+
+                sc.add( objectName + ".set" + capFieldName + "( parse" + association.getTo() + "( parser, strict"
+                            + trackingArgs + " ) );" );
+
+                writeElementEnd( sc );
+            }
+            else
+            {
+                //MANY_MULTIPLICITY
+
+                XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
+
+                String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
+
+                String type = association.getType();
+
+                if ( isLazyAssociation( association ) )
+                {
+                    writeElementStart( tagComparison, fieldTagName, elementIndex, elementCount, true, sc );
+
+                    writeLazyAssociation( association, valuesTagName, objectName, sc, jClass );
+
+                    writeElementEnd( sc );
+                }
+                else if ( ModelDefault.LIST.equals( type ) || ModelDefault.SET.equals( type ) )
+                {
+                    boolean wrappedItems = xmlAssociationMetadata.isWrappedItems();
+
+                    boolean inModel = isClassInModel( association.getTo(), field.getModelClass().getModel() );
 
-                    JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) association.getMetadata( JavaFieldMetadata.ID );
+                    JavaFieldMetadata javaFieldMetadata = association.getMetadata( JavaFieldMetadata.SLOT );
+
+                    // the builder of an immutable class only has adders for collections
+                    boolean immutable = isImmutable( field.getModelClass() );
 
                     String adder;
 
                     if ( wrappedItems )
                     {
-                        sc.add( tagComparison );
-
-                        sc.add( "{" );
-                        sc.indent();
+                        writeElementStart( tagComparison, fieldTagName, elementIndex, elementCount, true, sc );
 
-                        if ( javaFieldMetadata.isSetter() )
+                        if ( immutable )
+                        {
+                            adder = objectName + ".add" + singular( capitalise( singularName ) );
+                        }
+                        else if ( javaFieldMetadata.isSetter() )
                         {
                             sc.add( type + " " + associationName + " = " + association.getDefaultValue() + ";" );
 
@@ -716,13 +1726,15 @@ public class Xpp3ReaderGenerator
                     }
                     else
                     {
-                        sc.add( ( addElse ? "else " : "" ) + "if ( \"" + valuesTagName
-                                    + "\".equals( parser.getName() ) )" );
-
-                        sc.add( "{" );
-                        sc.indent();
+                        writeElementStart( ( addElse ? "else " : "" ) + "if ( \"" + valuesTagName
+                                               + "\".equals( parser.getName() ) )", fieldTagName, elementIndex,
+                                           elementCount, false, sc );
 
-                        if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
+                        if ( immutable )
+                        {
+                            adder = objectName + ".add" + singular( capitalise( singularName ) );
+                        }
+                        else if ( javaFieldMetadata.isGetter() && javaFieldMetadata.isSetter() )
                         {
                             sc.add( type + " " + associationName + " = " + objectName + ".get" + capFieldName + "();" );
 
@@ -761,7 +1773,26 @@ public class Xpp3ReaderGenerator
 
                     if ( inModel )
                     {
-                        sc.add( adder + "( parse" + association.getTo() + "( parser, strict" + trackingArgs + " ) );" );
+                        String itemKey = getItemVisitorKey( field );
+
+                        if ( !itemAssociations.contains( itemKey ) )
+                        {
+                            itemAssociations.add( itemKey );
+                        }
+
+                        sc.add( association.getTo() + " _item = parse" + association.getTo() + "( parser, strict"
+                                    + trackingArgs + " );" );
+
+                        sc.add( "if ( !visitItem( \"" + itemKey + "\", " + objectName + ", _item ) )" );
+
+                        sc.add( "{" );
+                        sc.addIndented( adder + "( _item );" );
+                        sc.add( "}" );
+                    }
+                    else if ( immutable )
+                    {
+                        writePrimitiveField( association, association.getTo(), objectName, null, null,
+                                             "add" + singular( capitalise( singularName ) ), sc );
                     }
                     else
                     {
@@ -792,24 +1823,15 @@ public class Xpp3ReaderGenerator
 
                         sc.unindent();
                         sc.add( "}" );
-
-                        sc.unindent();
-                        sc.add( "}" );
-                    }
-                    else
-                    {
-                        sc.unindent();
-                        sc.add( "}" );
                     }
+
+                    writeElementEnd( sc );
                 }
                 else
                 {
                     //Map or Properties
 
-                    sc.add( tagComparison );
-
-                    sc.add( "{" );
-                    sc.indent();
+                    writeElementStart( tagComparison, fieldTagName, elementIndex, elementCount, true, sc );
 
                     if ( locationTracker != null )
                     {
@@ -869,47 +1891,315 @@ public class Xpp3ReaderGenerator
                         sc.add( objectName + ".add" + capitalise( singularName ) + "( key, value );" );
                         writeSetLocation( "key", LOCATION_VAR + "s", LOCATION_VAR, sc );
 
-                        sc.unindent();
-                        sc.add( "}" );
+                        sc.unindent();
+                        sc.add( "}" );
+
+                        sc.add( "parser.next();" );
+
+                        sc.unindent();
+                        sc.add( "}" );
+                    }
+                    else
+                    {
+                        //INLINE Mode
+
+                        sc.add( "while ( parser.nextTag() == XmlPullParser.START_TAG )" );
+
+                        sc.add( "{" );
+                        sc.indent();
+
+                        sc.add( "String key = parser.getName();" );
+
+                        writeNewSetLocation( "key", LOCATION_VAR + "s", null, sc );
+
+                        sc.add(
+                            "String value = parser.nextText()" + ( xmlFieldMetadata.isTrim() ? ".trim()" : "" ) + ";" );
+
+                        sc.add( objectName + ".add" + capitalise( singularName ) + "( key, value );" );
+
+                        sc.unindent();
+                        sc.add( "}" );
+                    }
+
+                    writeElementEnd( sc );
+                }
+            }
+        }
+    }
+
+    /**
+     * Check if the content of an association can be parsed lazily: a wrapped list or set of model classes, marked
+     * with <code>java.lazy</code>. Location tracking readers always parse eagerly, since locations must be recorded
+     * while reading the original document.
+     *
+     * @param association the association
+     * @return <code>true</code> if the association content is captured while reading and parsed on first access
+     */
+    private boolean isLazyAssociation( ModelAssociation association )
+    {
+        JavaAssociationMetadata javaAssociationMetadata = association.getMetadata( JavaAssociationMetadata.SLOT );
+
+        XmlAssociationMetadata xmlAssociationMetadata = association.getMetadata( XmlAssociationMetadata.SLOT );
+
+        return javaAssociationMetadata.isLazy() && !isLocationTracking() && xmlAssociationMetadata.isWrappedItems()
+            && ( ModelDefault.LIST.equals( association.getType() ) || ModelDefault.SET.equals( association.getType() ) )
+            && isClassInModel( association.getTo(), association.getModelClass().getModel() );
+    }
+
+    private boolean hasLazyAssociations( Model objectModel )
+    {
+        for ( ModelClass modelClass : getClasses( objectModel ) )
+        {
+            for ( ModelField field : getFieldsForXml( modelClass, getGeneratedVersion() ) )
+            {
+                if ( field instanceof ModelAssociation && ( (ModelAssociation) field ).isManyMultiplicity()
+                    && isLazyAssociation( (ModelAssociation) field ) )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Write the reading of a lazy association: the element is skipped while its raw text is recorded, and a loader
+     * parsing that text is set on the object, to be run when the association is accessed for the first time. The
+     * association is parsed eagerly with a parser given by the caller, which doesn't record raw text and may define
+     * its own entities, and when the skipped text couldn't be parsed later as it would be now: in strict mode, whose
+     * errors must fail the reading, and after a document type declaration, whose entities the loader parser wouldn't
+     * know.
+     */
+    private void writeLazyAssociation( ModelAssociation association, String valuesTagName, String objectName,
+                                       JSourceCode sc, JClass jClass )
+    {
+        String className = association.getModelClass().getName();
+        String capFieldName = capitalise( association.getName() );
+        String loaderName = "load" + className + capFieldName;
+        String parserName = "parse" + className + capFieldName;
+
+        sc.add( "if ( parser instanceof RawTextParser && ( (RawTextParser) parser ).canSkip( strict ) )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "final " + className + " _object = " + objectName + ";" );
+        sc.add( "final String _content = ( (RawTextParser) parser ).skipElement();" );
+        sc.add( "final boolean _defaultEntities = ( (RawTextParser) parser ).hasDefaultEntities();" );
+        sc.add( objectName + ".set" + capFieldName + "Loader( new Runnable()" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "public void run()" );
+        sc.add( "{" );
+        sc.addIndented( loaderName + "( _object, _content, _defaultEntities );" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "} );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.addIndented( parserName + "( " + objectName + ", parser, strict );" );
+        sc.add( "}" );
+
+        if ( jClass.getMethod( loaderName, 0 ) != null )
+        {
+            return;
+        }
+
+        String objectParameter = uncapitalise( className );
+
+        // the items parser, used by the loader and for eager parsing
+        JMethod method = new JMethod( parserName );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+        method.getModifiers().makePrivate();
+
+        method.addParameter( new JParameter( new JClass( className ), objectParameter ) );
+        method.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "strict" ) );
+
+        JSourceCode msc = method.getSourceCode();
+
+        msc.add( "while ( parser.nextTag() == XmlPullParser.START_TAG )" );
+        msc.add( "{" );
+        msc.indent();
+
+        msc.add( "if ( \"" + valuesTagName + "\".equals( parser.getName() ) )" );
+        msc.add( "{" );
+
+        JavaAssociationMetadata javaAssociationMetadata = association.getMetadata( JavaAssociationMetadata.SLOT );
+
+        String item = "parse" + association.getTo() + "( parser, strict )";
+        if ( javaAssociationMetadata.isAdder() )
+        {
+            msc.addIndented( objectParameter + ".add" + capitalise( singular( association.getName() ) ) + "( " + item
+                + " );" );
+        }
+        else
+        {
+            msc.addIndented( objectParameter + ".get" + capFieldName + "().add( " + item + " );" );
+        }
+
+        msc.add( "}" );
+        msc.add( "else" );
+        msc.add( "{" );
+        msc.addIndented( "checkUnknownElement( parser, strict );" );
+        msc.add( "}" );
+
+        msc.unindent();
+        msc.add( "}" );
+
+        jClass.addMethod( method );
+
+        // the loader
+        method = new JMethod( loaderName );
+        method.getModifiers().makePrivate();
+
+        method.addParameter( new JParameter( new JClass( className ), objectParameter ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "content" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "defaultEntities" ) );
+
+        msc = method.getSourceCode();
+
+        msc.add( "try" );
+        msc.add( "{" );
+        msc.indent();
+
+        msc.add( "XmlPullParser parser = defaultEntities ? new MXParser( EntityReplacementMap.defaultEntityReplacementMap )"
+            + " : new MXParser();" );
+        msc.add( "parser.setInput( new java.io.StringReader( content ) );" );
+        msc.add( "parser.nextTag();" );
+        msc.add( parserName + "( " + objectParameter + ", parser, false );" );
+
+        msc.unindent();
+        msc.add( "}" );
+
+        // the content was skipped in non strict mode only, so it is well-formed: errors can only come from its values
+        msc.add( "catch ( Exception e )" );
+        msc.add( "{" );
+        msc.addIndented( "throw (RuntimeException) new IllegalStateException( \"Unable to load " + association.getName()
+            + " content: \" + e.getMessage() ).initCause( e );" );
+        msc.add( "}" );
+
+        jClass.addMethod( method );
+    }
 
-                        sc.add( "parser.next();" );
+    /**
+     * Write the parser used when the model has lazy associations: it skips the element of a lazy association with
+     * <code>skipSubTree()</code>, without building its text or objects, while recording the raw characters read from
+     * the element start tag to its end tag, to be parsed again by the loader.
+     *
+     * @param parserClass the inner class of the reader
+     */
+    private void writeRawTextParser( JClass parserClass )
+    {
+        parserClass.getModifiers().makePrivate();
+        parserClass.getModifiers().setStatic( true );
+        parserClass.getModifiers().setFinal( true );
+        parserClass.setSuperClass( "MXParser" );
+        parserClass.getJDocComment().setComment( "Parser recording the raw text of the elements it skips." );
 
-                        sc.unindent();
-                        sc.add( "}" );
-                    }
-                    else
-                    {
-                        //INLINE Mode
+        JField field = new JField( JType.BOOLEAN, "defaultEntities" );
+        field.getModifiers().setFinal( true );
+        parserClass.addField( field );
 
-                        sc.add( "while ( parser.nextTag() == XmlPullParser.START_TAG )" );
+        field = new JField( new JArrayType( JType.CHAR, useJava5 ), "recorded" );
+        field.setComment( "The characters read while skipping an element, <code>null</code> when not skipping." );
+        parserClass.addField( field );
 
-                        sc.add( "{" );
-                        sc.indent();
+        parserClass.addField( new JField( JType.INT, "recordedLength" ) );
 
-                        sc.add( "String key = parser.getName();" );
+        JConstructor constructor = parserClass.createConstructor();
+        constructor.getSourceCode().add( "this.defaultEntities = false;" );
 
-                        writeNewSetLocation( "key", LOCATION_VAR + "s", null, sc );
+        constructor = parserClass.createConstructor(
+            new JParameter[] { new JParameter( new JClass( "EntityReplacementMap" ), "entityReplacementMap" ) } );
+        constructor.getSourceCode().add( "super( entityReplacementMap );" );
+        constructor.getSourceCode().add( "this.defaultEntities = true;" );
 
-                        sc.add(
-                            "String value = parser.nextText()" + ( xmlFieldMetadata.isTrim() ? ".trim()" : "" ) + ";" );
+        JMethod method = new JMethod( "hasDefaultEntities", JType.BOOLEAN, null );
+        method.getSourceCode().add( "return defaultEntities;" );
+        parserClass.addMethod( method );
 
-                        sc.add( objectName + ".add" + capitalise( singularName ) + "( key, value );" );
+        method = new JMethod( "canSkip", JType.BOOLEAN, null );
+        method.addParameter( new JParameter( JType.BOOLEAN, "strict" ) );
+        method.setComment( "Checks if an element can be skipped, to be parsed later by a new parser: not in strict"
+            + " mode, whose errors must fail the reading, nor after a document type declaration, whose entities the"
+            + " new parser wouldn't know." );
+        method.getSourceCode().add( "return !strict && !seenDocdecl;" );
+        parserClass.addMethod( method );
 
-                        sc.unindent();
-                        sc.add( "}" );
-                    }
+        method = new JMethod( "setInput" );
+        method.addException( new JClass( "XmlPullParserException" ) );
+        method.addParameter( new JParameter( new JClass( "Reader" ), "reader" ) );
+        JSourceCode sc = method.getSourceCode();
+        sc.add( "super.setInput( new java.io.FilterReader( reader )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "public int read( char[] cbuf, int off, int len )" );
+        sc.addIndented( "throws IOException" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int count = super.read( cbuf, off, len );" );
+        sc.add( "record( cbuf, off, count );" );
+        sc.add( "return count;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "} );" );
+        parserClass.addMethod( method );
 
-                    sc.unindent();
-                    sc.add( "}" );
-                }
-            }
-        }
+        method = new JMethod( "skipElement", new JClass( "String" ), null );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+        method.setComment( "Skips the current element, returning its raw text." );
+        sc = method.getSourceCode();
+        sc.add( "// the start tag and the characters already buffered, then the characters read while skipping" );
+        sc.add( "int start = bufAbsoluteStart + posStart;" );
+        sc.add( "recorded = new char[Math.max( 1024, bufEnd - posStart )];" );
+        sc.add( "recordedLength = 0;" );
+        sc.add( "record( buf, posStart, bufEnd - posStart );" );
+        sc.add( "try" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "skipSubTree();" );
+        sc.add( "return new String( recorded, 0, bufAbsoluteStart + pos - start );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "finally" );
+        sc.add( "{" );
+        sc.addIndented( "recorded = null;" );
+        sc.add( "}" );
+        parserClass.addMethod( method );
+
+        method = new JMethod( "record" );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JArrayType( JType.CHAR, useJava5 ), "chars" ) );
+        method.addParameter( new JParameter( JType.INT, "offset" ) );
+        method.addParameter( new JParameter( JType.INT, "length" ) );
+        sc = method.getSourceCode();
+        sc.add( "if ( recorded != null && length > 0 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( recordedLength + length > recorded.length )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "char[] larger = new char[Math.max( 2 * recorded.length, recordedLength + length )];" );
+        sc.add( "System.arraycopy( recorded, 0, larger, 0, recordedLength );" );
+        sc.add( "recorded = larger;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "System.arraycopy( chars, offset, recorded, recordedLength, length );" );
+        sc.add( "recordedLength += length;" );
+        sc.unindent();
+        sc.add( "}" );
+        parserClass.addMethod( method );
     }
 
     private void writePrimitiveField( ModelField field, String type, String objectName, String locatorName,
                                       String locationKey, String setterName, JSourceCode sc )
     {
-        XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+        XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
         String tagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -948,7 +2238,15 @@ public class Xpp3ReaderGenerator
             writeSetLocation( locationKey, locatorName, null, sc );
         }
 
-        if ( "boolean".equals( type ) || "Boolean".equals( type ) )
+        // element text of integral and boolean types is parsed from the parser buffer, without intermediate String
+        boolean fromText = !xmlFieldMetadata.isAttribute();
+
+        if ( ( "boolean".equals( type ) || "Boolean".equals( type ) ) && fromText )
+        {
+            sc.add( objectName + "." + setterName + "( " + keyCapture + "nextBooleanValue( parser, \"" + tagName
+                        + "\", " + xmlFieldMetadata.isTrim() + ", \"" + field.getDefaultValue() + "\" ) );" );
+        }
+        else if ( "boolean".equals( type ) || "Boolean".equals( type ) )
         {
             sc.add( objectName + "." + setterName + "( " + keyCapture + "getBooleanValue( " + parserGetter + ", \""
                         + tagName + "\", parser, \"" + field.getDefaultValue() + "\" ) );" );
@@ -958,6 +2256,13 @@ public class Xpp3ReaderGenerator
             sc.add( objectName + "." + setterName + "( " + keyCapture + "getCharacterValue( " + parserGetter + ", \""
                         + tagName + "\", parser ) );" );
         }
+        else if ( ( "int".equals( type ) || "long".equals( type ) || "short".equals( type ) || "byte".equals( type ) )
+            && fromText )
+        {
+            String method = "int".equals( type ) ? "Integer" : capitalise( type );
+            sc.add( objectName + "." + setterName + "( " + keyCapture + "next" + method + "Value( parser, \"" + tagName
+                        + "\", " + xmlFieldMetadata.isTrim() + ", strict ) );" );
+        }
         else if ( "double".equals( type ) )
         {
             sc.add(
@@ -1239,13 +2544,13 @@ public class Xpp3ReaderGenerator
         sc.add( "if ( s != null && s.length() != 0 )" );
 
         sc.add( "{" );
-        sc.addIndented( "return Boolean.valueOf( s ).booleanValue();" );
+        sc.addIndented( "return \"true\".equalsIgnoreCase( s );" );
         sc.add( "}" );
 
         sc.add( "if ( defaultValue != null )" );
 
         sc.add( "{" );
-        sc.addIndented( "return Boolean.valueOf( defaultValue ).booleanValue();" );
+        sc.addIndented( "return \"true\".equalsIgnoreCase( defaultValue );" );
         sc.add( "}" );
 
         sc.add( "return false;" );
@@ -1276,43 +2581,45 @@ public class Xpp3ReaderGenerator
 
         // --------------------------------------------------------------------
 
-        method = convertNumericalType( "getIntegerValue", JType.INT, "Integer.valueOf( s ).intValue()", "an integer" );
+        method = convertNumericalType( "getIntegerValue", JType.INT, "Integer.parseInt( s )", "an integer" );
 
         jClass.addMethod( method );
 
         // --------------------------------------------------------------------
 
         method =
-            convertNumericalType( "getShortValue", JType.SHORT, "Short.valueOf( s ).shortValue()", "a short integer" );
+            convertNumericalType( "getShortValue", JType.SHORT, "Short.parseShort( s )", "a short integer" );
 
         jClass.addMethod( method );
 
         // --------------------------------------------------------------------
 
-        method = convertNumericalType( "getByteValue", JType.BYTE, "Byte.valueOf( s ).byteValue()", "a byte" );
+        method = convertNumericalType( "getByteValue", JType.BYTE, "Byte.parseByte( s )", "a byte" );
 
         jClass.addMethod( method );
 
         // --------------------------------------------------------------------
 
-        method = convertNumericalType( "getLongValue", JType.LONG, "Long.valueOf( s ).longValue()", "a long integer" );
+        method = convertNumericalType( "getLongValue", JType.LONG, "Long.parseLong( s )", "a long integer" );
 
         jClass.addMethod( method );
 
         // --------------------------------------------------------------------
 
-        method = convertNumericalType( "getFloatValue", JType.FLOAT, "Float.valueOf( s ).floatValue()",
+        method = convertNumericalType( "getFloatValue", JType.FLOAT, "Float.parseFloat( s )",
                                        "a floating point number" );
 
         jClass.addMethod( method );
 
         // --------------------------------------------------------------------
 
-        method = convertNumericalType( "getDoubleValue", JType.DOUBLE, "Double.valueOf( s ).doubleValue()",
+        method = convertNumericalType( "getDoubleValue", JType.DOUBLE, "Double.parseDouble( s )",
                                        "a floating point number" );
 
         jClass.addMethod( method );
 
+        writeTextHelpers( jClass );
+
         // --------------------------------------------------------------------
 
         method = new JMethod( "getDateValue", new JClass( "java.util.Date" ), null );
@@ -1354,7 +2661,7 @@ public class Xpp3ReaderGenerator
         method.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "tagName" ) );
         method.addParameter( new JParameter( new JClass( "String" ), "alias" ) );
-        method.addParameter( new JParameter( new JClass( "java.util.Set" ), "parsed" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "parsed" ) );
         method.addException( new JClass( "XmlPullParserException" ) );
 
         sc = method.getSourceCode();
@@ -1365,7 +2672,7 @@ public class Xpp3ReaderGenerator
         sc.addIndented( "return false;" );
         sc.add( "}" );
 
-        sc.add( "if ( !parsed.add( tagName ) )" );
+        sc.add( "if ( parsed )" );
 
         sc.add( "{" );
         sc.addIndented( "throw new XmlPullParserException( \"Duplicated tag: '\" + tagName + \"'\", parser, null );" );
@@ -1474,6 +2781,271 @@ public class Xpp3ReaderGenerator
         // --------------------------------------------------------------------
     }
 
+    private void writeElementIndexHelpers( JClass jClass )
+    {
+        String mapType = "java.util.Map" + ( useJava5 ? "<String, Integer>" : "" );
+
+        JMethod method = new JMethod( "newElementIndex", new JType( mapType ), null );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+
+        method.addParameter( new JParameter( new JArrayType( new JClass( "String" ), useJava5 ), "names" ) );
+        method.addParameter( new JParameter( new JArrayType( JType.INT, useJava5 ), "indexes" ) );
+
+        JSourceCode sc = method.getSourceCode();
+
+        sc.add( mapType + " index = new java.util.HashMap" + ( useJava5 ? "<String, Integer>" : "" )
+                    + "( names.length * 2 );" );
+
+        sc.add( "for ( int i = 0; i < names.length; i++ )" );
+
+        sc.add( "{" );
+        sc.indent();
+
+        sc.add( "// first field matching a name wins, like in a chain of tag comparisons" );
+        sc.add( "if ( !index.containsKey( names[i] ) )" );
+
+        sc.add( "{" );
+        sc.addIndented( "index.put( names[i], " + ( useJava5 ? "Integer.valueOf" : "new java.lang.Integer" )
+                            + "( indexes[i] ) );" );
+        sc.add( "}" );
+
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "return java.util.Collections.unmodifiableMap( index );" );
+
+        jClass.addMethod( method );
+
+        // --------------------------------------------------------------------
+
+        method = new JMethod( "getElementIndex", JType.INT, null );
+        method.getModifiers().makePrivate();
+
+        method.addParameter( new JParameter( new JType( mapType ), "index" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+
+        sc = method.getSourceCode();
+
+        sc.add( "Integer i = " + ( useJava5 ? "" : "(Integer) " ) + "index.get( name );" );
+
+        sc.add( "return ( i == null ) ? -1 : i.intValue();" );
+
+        jClass.addMethod( method );
+
+        // --------------------------------------------------------------------
+
+        method = new JMethod( "checkDuplicate", null, null );
+        method.getModifiers().makePrivate();
+
+        method.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "tagName" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "parsed" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+
+        sc = method.getSourceCode();
+
+        sc.add( "if ( parsed )" );
+
+        sc.add( "{" );
+        sc.addIndented( "throw new XmlPullParserException( \"Duplicated tag: '\" + tagName + \"'\", parser, null );" );
+        sc.add( "}" );
+
+        jClass.addMethod( method );
+    }
+
+    /**
+     * Write the helpers reading an element text as a primitive value: the text is parsed in place from the parser
+     * buffer given by <code>getTextCharacters</code>, trimming whitespace by skipping it, instead of creating a String
+     * with <code>nextText()</code>, then a trimmed String and a boxed value.
+     *
+     * @param jClass the reader class
+     */
+    private void writeTextHelpers( JClass jClass )
+    {
+        JMethod method = new JMethod( "nextNumberValue", JType.LONG, null );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+        method.getModifiers().makePrivate();
+
+        method.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "element" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "trim" ) );
+        method.addParameter( new JParameter( JType.LONG, "min" ) );
+        method.addParameter( new JParameter( JType.LONG, "max" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "typeDesc" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "strict" ) );
+
+        JSourceCode sc = method.getSourceCode();
+
+        sc.add( "long value = 0;" );
+        sc.add( "boolean valid = false;" );
+
+        sc.add( "if ( parser.next() == XmlPullParser.TEXT )" );
+        sc.add( "{" );
+        sc.indent();
+
+        writeTextBounds( sc );
+
+        sc.add( "boolean negative = false;" );
+        sc.add( "if ( start < end && ( ch[start] == '-' || ch[start] == '+' ) )" );
+        sc.add( "{" );
+        sc.addIndented( "negative = ch[start++] == '-';" );
+        sc.add( "}" );
+
+        // accumulate negatively, like Long.parseLong, to reach Long.MIN_VALUE
+        sc.add( "long limit = negative ? min : -max;" );
+        sc.add( "long multmin = limit / 10;" );
+        sc.add( "valid = start < end;" );
+
+        sc.add( "for ( ; valid && start < end; start++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int digit = Character.digit( ch[start], 10 );" );
+        sc.add( "valid = digit >= 0 && value >= multmin && value * 10 >= limit + digit;" );
+        sc.add( "value = value * 10 - digit;" );
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "value = valid ? ( negative ? value : -value ) : 0;" );
+
+        sc.add( "parser.next();" );
+
+        sc.unindent();
+        sc.add( "}" );
+
+        writeTextEndCheck( sc );
+
+        sc.add( "if ( !valid && strict )" );
+        sc.add( "{" );
+        sc.addIndented( "throw new XmlPullParserException( \"Unable to parse element '\" + element + \"', must be \" + typeDesc,"
+            + " parser, null );" );
+        sc.add( "}" );
+
+        sc.add( "return value;" );
+
+        jClass.addMethod( method );
+
+        // --------------------------------------------------------------------
+
+        jClass.addMethod( nextIntegralValue( "nextIntegerValue", JType.INT, "Integer", "an integer" ) );
+
+        // --------------------------------------------------------------------
+
+        jClass.addMethod( nextIntegralValue( "nextShortValue", JType.SHORT, "Short", "a short integer" ) );
+
+        // --------------------------------------------------------------------
+
+        jClass.addMethod( nextIntegralValue( "nextByteValue", JType.BYTE, "Byte", "a byte" ) );
+
+        // --------------------------------------------------------------------
+
+        jClass.addMethod( nextIntegralValue( "nextLongValue", JType.LONG, "Long", "a long integer" ) );
+
+        // --------------------------------------------------------------------
+
+        method = new JMethod( "nextBooleanValue", JType.BOOLEAN, null );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+        method.getModifiers().makePrivate();
+
+        method.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "element" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "trim" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "defaultValue" ) );
+
+        sc = method.getSourceCode();
+
+        sc.add( "boolean value = \"true\".equalsIgnoreCase( defaultValue );" );
+
+        sc.add( "if ( parser.next() == XmlPullParser.TEXT )" );
+        sc.add( "{" );
+        sc.indent();
+
+        writeTextBounds( sc );
+
+        sc.add( "if ( start < end )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "value = end - start == 4 && Character.toLowerCase( ch[start] ) == 't'"
+            + " && Character.toLowerCase( ch[start + 1] ) == 'r'" );
+        sc.addIndented( "&& Character.toLowerCase( ch[start + 2] ) == 'u'"
+            + " && Character.toLowerCase( ch[start + 3] ) == 'e';" );
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "parser.next();" );
+
+        sc.unindent();
+        sc.add( "}" );
+
+        writeTextEndCheck( sc );
+
+        sc.add( "return value;" );
+
+        jClass.addMethod( method );
+    }
+
+    private JMethod nextIntegralValue( String methodName, JType returnType, String wrapper, String typeDesc )
+    {
+        JMethod method = new JMethod( methodName, returnType, null );
+        method.addException( new JClass( "IOException" ) );
+        method.addException( new JClass( "XmlPullParserException" ) );
+        method.getModifiers().makePrivate();
+
+        method.addParameter( new JParameter( new JClass( "XmlPullParser" ), "parser" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "element" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "trim" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "strict" ) );
+
+        JSourceCode sc = method.getSourceCode();
+
+        String cast = ( returnType == JType.LONG ) ? "" : "(" + returnType.getName() + ") ";
+
+        sc.add( "return " + cast + "nextNumberValue( parser, element, trim, " + wrapper + ".MIN_VALUE, " + wrapper
+            + ".MAX_VALUE, \"" + typeDesc + "\", strict );" );
+
+        return method;
+    }
+
+    /**
+     * Write the code getting the current text characters as <code>ch</code>, between <code>start</code> and
+     * <code>end</code>, with surrounding whitespace skipped if <code>trim</code> is set.
+     */
+    private void writeTextBounds( JSourceCode sc )
+    {
+        sc.add( "int[] bounds = new int[2];" );
+        sc.add( "char[] ch = parser.getTextCharacters( bounds );" );
+        sc.add( "int start = bounds[0];" );
+        sc.add( "int end = start + bounds[1];" );
+
+        sc.add( "if ( trim )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "while ( start < end && ch[start] <= ' ' )" );
+        sc.add( "{" );
+        sc.addIndented( "start++;" );
+        sc.add( "}" );
+        sc.add( "while ( end > start && ch[end - 1] <= ' ' )" );
+        sc.add( "{" );
+        sc.addIndented( "end--;" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+    }
+
+    /**
+     * Write the check done by <code>nextText()</code> that the element text is immediately followed by its end tag.
+     */
+    private void writeTextEndCheck( JSourceCode sc )
+    {
+        sc.add( "if ( parser.getEventType() != XmlPullParser.END_TAG )" );
+        sc.add( "{" );
+        sc.addIndented( "throw new XmlPullParserException( \"TEXT must be immediately followed by END_TAG and not \""
+            + " + XmlPullParser.TYPES[parser.getEventType()], parser, null );" );
+        sc.add( "}" );
+    }
+
     private JMethod convertNumericalType( String methodName, JType returnType, String expression, String typeDesc )
     {
         JMethod method = new JMethod( methodName, returnType, null );
@@ -1537,22 +3109,32 @@ public class Xpp3ReaderGenerator
 
     private void writeNewSetLocation( String key, String objectName, String trackerVariable, JSourceCode sc )
     {
-        writeNewLocation( trackerVariable, sc );
+        writeNewLocation( trackerVariable, "\"\"".equals( key ), sc );
         writeSetLocation( key, objectName, trackerVariable, sc );
     }
 
     private void writeNewLocation( String trackerVariable, JSourceCode sc )
+    {
+        writeNewLocation( trackerVariable, false, sc );
+    }
+
+    private void writeNewLocation( String trackerVariable, boolean element, JSourceCode sc )
     {
         if ( locationTracker == null )
         {
             return;
         }
 
-        String constr = "new " + locationTracker.getName() + "( parser.getLineNumber(), parser.getColumnNumber()";
-        constr += ( sourceTracker != null ) ? ", " + SOURCE_PARAM : "";
-        constr += " )";
+        String variable = ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR;
+
+        if ( LOCATION_VAR.equals( variable ) )
+        {
+            // single locations may be shared, not the ones receiving the locations of collection items
+            sc.add( variable + " = " + getNewLocation( sourceTracker, SOURCE_PARAM, element ) + ";" );
+            return;
+        }
 
-        sc.add( ( ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR ) + " = " + constr + ";" );
+        sc.add( variable + " = " + getNewItemsLocation( sourceTracker, SOURCE_PARAM ) + ";" );
     }
 
     private void writeSetLocation( String key, String objectName, String trackerVariable, JSourceCode sc )
@@ -1564,7 +3146,21 @@ public class Xpp3ReaderGenerator
 
         String variable = ( trackerVariable != null ) ? trackerVariable : LOCATION_VAR;
 
-        sc.add( objectName + ".set" + capitalise( singular( locationField ) ) + "( " + key + ", " + variable + " );" );
+        String setLocation =
+            objectName + ".set" + capitalise( singular( locationField ) ) + "( " + key + ", " + variable + " );";
+
+        if ( ( LOCATION_VAR + "s" ).equals( objectName ) )
+        {
+            // no locations of collection items in coarse mode
+            sc.add( "if ( " + objectName + " != null )" );
+            sc.add( "{" );
+            sc.addIndented( setLocation );
+            sc.add( "}" );
+        }
+        else
+        {
+            sc.add( setLocation );
+        }
     }
 
 }
@@ -28,7 +28,9 @@ import org.codehaus.modello.model.ModelAssociation;
 import org.codehaus.modello.model.ModelClass;
 import org.codehaus.modello.model.ModelDefault;
 import org.codehaus.modello.model.ModelField;
+import org.codehaus.modello.plugin.java.javasource.JArrayType;
 import org.codehaus.modello.plugin.java.javasource.JClass;
+import org.codehaus.modello.plugin.java.javasource.JConstructor;
 import org.codehaus.modello.plugin.java.javasource.JField;
 import org.codehaus.modello.plugin.java.javasource.JMethod;
 import org.codehaus.modello.plugin.java.javasource.JParameter;
@@ -44,6 +46,8 @@ import org.codehaus.modello.plugins.xml.metadata.XmlModelMetadata;
 import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * @author <a href="mailto:jason@modello.org">Jason van Zyl </a>
@@ -54,6 +58,11 @@ public class Xpp3WriterGenerator
 {
     private boolean requiresDomSupport;
 
+    /**
+     * The tag names known when generating the writer, encoded once by the compact serializer.
+     */
+    private Set<String> compactTagNames;
+
     public void generate( Model model, Properties parameters )
         throws ModelloException
     {
@@ -61,6 +70,8 @@ public class Xpp3WriterGenerator
 
         requiresDomSupport = false;
 
+        compactTagNames = new TreeSet<String>();
+
         try
         {
             generateXpp3Writer();
@@ -99,11 +110,13 @@ public class Xpp3WriterGenerator
         namespaceField.setInitString( "null" );
         jClass.addField( namespaceField );
 
+        writeCompactSupport( jClass );
+
         addModelImports( jClass, null );
 
         String root = objectModel.getRoot( getGeneratedVersion() );
 
-        ModelClass rootClass = objectModel.getClass( root, getGeneratedVersion() );
+        ModelClass rootClass = getView().getClass( root );
 
         String rootElement = resolveTagName( rootClass );
 
@@ -123,14 +136,24 @@ public class Xpp3WriterGenerator
 
         sc.add( "XmlSerializer serializer = new MXSerializer();" );
 
-        sc.add(
-            "serializer.setProperty( \"http://xmlpull.org/v1/doc/properties.html#serializer-indentation\", \"  \" );" );
+        sc.add( "if ( compact )" );
 
-        sc.add(
-            "serializer.setProperty( \"http://xmlpull.org/v1/doc/properties.html#serializer-line-separator\", \"\\n\" );" );
+        sc.add( "{" );
+        sc.addIndented( "serializer.setOutput( new java.io.BufferedWriter( writer, COMPACT_BUFFER_SIZE ) );" );
+        sc.add( "}" );
+
+        sc.add( "else" );
+
+        sc.add( "{" );
+        sc.indent();
+
+        writeIndentationProperties( sc );
 
         sc.add( "serializer.setOutput( writer );" );
 
+        sc.unindent();
+        sc.add( "}" );
+
         sc.add( "serializer.startDocument( " + rootElementParameterName + ".getModelEncoding(), null );" );
 
         sc.add( "write" + root + "( " + rootElementParameterName + ", \"" + rootElement + "\", serializer );" );
@@ -152,16 +175,44 @@ public class Xpp3WriterGenerator
 
         sc = marshall.getSourceCode();
 
-        sc.add( "XmlSerializer serializer = new MXSerializer();" );
+        sc.add( "XmlSerializer serializer;" );
 
-        sc.add(
-            "serializer.setProperty( \"http://xmlpull.org/v1/doc/properties.html#serializer-indentation\", \"  \" );" );
+        sc.add( "String encoding = " + rootElementParameterName + ".getModelEncoding();" );
 
-        sc.add(
-            "serializer.setProperty( \"http://xmlpull.org/v1/doc/properties.html#serializer-line-separator\", \"\\n\" );" );
+        sc.add( "if ( compact && ( encoding == null || \"UTF-8\".equalsIgnoreCase( encoding ) ) )" );
+
+        sc.add( "{" );
+        sc.addIndented( "serializer = new CompactSerializer( stream );" );
+        sc.add( "}" );
+
+        sc.add( "else if ( compact )" );
+
+        sc.add( "{" );
+        sc.indent();
+
+        sc.add( "serializer = new MXSerializer();" );
+
+        sc.add( "Writer writer = new java.io.OutputStreamWriter( stream, encoding );" );
+
+        sc.add( "serializer.setOutput( new java.io.BufferedWriter( writer, COMPACT_BUFFER_SIZE ) );" );
+
+        sc.unindent();
+        sc.add( "}" );
+
+        sc.add( "else" );
+
+        sc.add( "{" );
+        sc.indent();
+
+        sc.add( "serializer = new MXSerializer();" );
+
+        writeIndentationProperties( sc );
 
         sc.add( "serializer.setOutput( stream, " + rootElementParameterName + ".getModelEncoding() );" );
 
+        sc.unindent();
+        sc.add( "}" );
+
         sc.add( "serializer.startDocument( " + rootElementParameterName + ".getModelEncoding(), null );" );
 
         sc.add( "write" + root + "( " + rootElementParameterName + ", \"" + rootElement + "\", serializer );" );
@@ -170,8 +221,14 @@ public class Xpp3WriterGenerator
 
         jClass.addMethod( marshall );
 
+        compactTagNames.add( rootElement );
+
         writeAllClasses( objectModel, jClass );
 
+        writeCompactSerializer( jClass.createInnerClass( "CompactSerializer" ) );
+
+        writeDateFormatHelper( jClass );
+
         if ( requiresDomSupport )
         {
             createWriteDomMethod( jClass );
@@ -182,6 +239,507 @@ public class Xpp3WriterGenerator
         sourceWriter.close();
     }
 
+    /**
+     * Write the compact mode support: when enabled, the document is written without indentation nor line
+     * separators. Documents written to a stream in UTF-8 go through the direct serializer written by
+     * {@link #writeCompactSerializer(JClass)}, other targets through a buffered <code>MXSerializer</code>.
+     *
+     * @param jClass the writer class
+     */
+    private void writeCompactSupport( JClass jClass )
+    {
+        JField bufferSize = new JField( JType.INT, "COMPACT_BUFFER_SIZE" );
+        bufferSize.getModifiers().setFinal( true );
+        bufferSize.getModifiers().setStatic( true );
+        bufferSize.setComment( "The size of the buffer used in compact mode." );
+        bufferSize.setInitString( "65536" );
+        jClass.addField( bufferSize );
+
+        JField compact = new JField( JType.BOOLEAN, "compact" );
+        compact.setComment( "If set, the document is written without indentation, for machine to machine exchange:"
+            + " directly encoded to streams in UTF-8, through a buffer otherwise." );
+        jClass.addField( compact );
+
+        // The setter
+        JMethod method = new JMethod( "setCompact" );
+
+        method.addParameter( new JParameter( JType.BOOLEAN, "compact" ) );
+
+        method.getSourceCode().add( "this.compact = compact;" );
+
+        method.setComment( "Sets the state of the \"compact\" flag." );
+
+        jClass.addMethod( method );
+
+        // The getter
+        method = new JMethod( "getCompact", JType.BOOLEAN, null );
+
+        method.getSourceCode().add( "return compact;" );
+
+        method.setComment( "Returns the state of the \"compact\" flag." );
+
+        jClass.addMethod( method );
+    }
+
+    /**
+     * Write the direct serializer of the compact mode, for streams in UTF-8: characters are encoded inline into a
+     * byte buffer, and the start and end tags of the model elements are encoded once, when the class is loaded.
+     * Its output is the same as the one of <code>MXSerializer</code> without indentation.
+     *
+     * @param serializerClass the inner class of the writer
+     */
+    private void writeCompactSerializer( JClass serializerClass )
+    {
+        serializerClass.getModifiers().makePrivate();
+        serializerClass.getModifiers().setStatic( true );
+        serializerClass.getModifiers().setFinal( true );
+        serializerClass.addInterface( "XmlSerializer" );
+        serializerClass.getJDocComment().setComment( "Serializer writing UTF-8 directly to a stream, in compact mode." );
+
+        StringBuilder tagNames = new StringBuilder();
+        for ( String tagName : compactTagNames )
+        {
+            tagNames.append( ( tagNames.length() == 0 ) ? "" : ", " ).append( '"' ).append( tagName ).append( '"' );
+        }
+
+        JField tags = new JField( new JClass( "java.util.Map" ), "TAGS" );
+        tags.getModifiers().setStatic( true );
+        tags.getModifiers().setFinal( true );
+        tags.setComment( "The start and end tags of the model elements, encoded once." );
+        tags.setInitString( "encodeTags( new String[] { " + tagNames + " } )" );
+        serializerClass.addField( tags );
+
+        addSerializerField( serializerClass, "TEXT", JType.INT, "1", "Escaping mode of element content." );
+        addSerializerField( serializerClass, "ATTRIBUTE", JType.INT, "2", "Escaping mode of attribute values." );
+
+        JField field = new JField( new JClass( "OutputStream" ), "out" );
+        field.getModifiers().setFinal( true );
+        serializerClass.addField( field );
+
+        field = new JField( new JArrayType( JType.BYTE, useJava5 ), "buffer" );
+        field.getModifiers().setFinal( true );
+        field.setInitString( "new byte[COMPACT_BUFFER_SIZE]" );
+        serializerClass.addField( field );
+
+        serializerClass.addField( new JField( JType.INT, "position" ) );
+
+        field = new JField( JType.BOOLEAN, "startTagOpen" );
+        field.setComment( "If set, the last start tag is not closed yet, waiting for attributes." );
+        serializerClass.addField( field );
+
+        serializerClass.addField( new JField( JType.INT, "depth" ) );
+
+        serializerClass.addField( new JField( new JClass( "String" ), "name" ) );
+
+        field = new JField( new JClass( "java.util.List" ), "namespaces" );
+        field.getModifiers().setFinal( true );
+        field.setComment( "The prefix and namespace pairs declared on the next start tag." );
+        field.setInitString( "new java.util.ArrayList()" );
+        serializerClass.addField( field );
+
+        JConstructor constructor = serializerClass.createConstructor();
+        constructor.addParameter( new JParameter( new JClass( "OutputStream" ), "out" ) );
+        constructor.getSourceCode().add( "this.out = out;" );
+
+        // configuration and state, set at construction
+        JMethod method = newSerializerMethod( serializerClass, "setFeature", null, false );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "state" ) );
+        method.getSourceCode().add( "throw new IllegalStateException( \"unsupported feature \" + name );" );
+
+        method = newSerializerMethod( serializerClass, "getFeature", JType.BOOLEAN, false );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        method.getSourceCode().add( "return false;" );
+
+        method = newSerializerMethod( serializerClass, "setProperty", null, false );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        method.addParameter( new JParameter( new JClass( "Object" ), "value" ) );
+        method.getSourceCode().add( "throw new IllegalStateException( \"unsupported property \" + name );" );
+
+        method = newSerializerMethod( serializerClass, "getProperty", new JClass( "Object" ), false );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        method.getSourceCode().add( "return null;" );
+
+        method = newSerializerMethod( serializerClass, "setOutput", null, false );
+        method.addParameter( new JParameter( new JClass( "OutputStream" ), "os" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "encoding" ) );
+        method.getSourceCode().add( "throw new IllegalStateException( \"the output is set at construction\" );" );
+
+        method = newSerializerMethod( serializerClass, "setOutput", null, false );
+        method.addParameter( new JParameter( new JClass( "Writer" ), "writer" ) );
+        method.getSourceCode().add( "throw new IllegalStateException( \"the output is set at construction\" );" );
+
+        method = newSerializerMethod( serializerClass, "setPrefix", null, false );
+        method.addParameter( new JParameter( new JClass( "String" ), "prefix" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "namespace" ) );
+        method.getSourceCode().add( "namespaces.add( prefix );" );
+        method.getSourceCode().add( "namespaces.add( namespace );" );
+
+        method = newSerializerMethod( serializerClass, "getPrefix", new JClass( "String" ), false );
+        method.addParameter( new JParameter( new JClass( "String" ), "namespace" ) );
+        method.addParameter( new JParameter( JType.BOOLEAN, "generatePrefix" ) );
+        method.getSourceCode().add( "return null;" );
+
+        method = newSerializerMethod( serializerClass, "getDepth", JType.INT, false );
+        method.getSourceCode().add( "return depth;" );
+
+        method = newSerializerMethod( serializerClass, "getNamespace", new JClass( "String" ), false );
+        method.getSourceCode().add( "return null;" );
+
+        method = newSerializerMethod( serializerClass, "getName", new JClass( "String" ), false );
+        method.getSourceCode().add( "return name;" );
+
+        // document
+        method = newSerializerMethod( serializerClass, "startDocument", null, true );
+        method.addParameter( new JParameter( new JClass( "String" ), "encoding" ) );
+        method.addParameter( new JParameter( new JClass( "Boolean" ), "standalone" ) );
+        JSourceCode sc = method.getSourceCode();
+        sc.add( "writeAscii( \"<?xml version=\\\"1.0\\\"\" );" );
+        sc.add( "if ( encoding != null )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "writeAscii( \" encoding=\\\"\" );" );
+        sc.add( "writeAscii( encoding );" );
+        sc.add( "write( '\"' );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "if ( standalone != null )" );
+        sc.add( "{" );
+        sc.addIndented( "writeAscii( standalone.booleanValue() ? \" standalone=\\\"yes\\\"\" : \" standalone=\\\"no\\\"\" );" );
+        sc.add( "}" );
+        sc.add( "writeAscii( \"?>\" );" );
+
+        method = newSerializerMethod( serializerClass, "endDocument", null, true );
+        method.getSourceCode().add( "closeStartTag();" );
+        method.getSourceCode().add( "flush();" );
+
+        // elements
+        method = newSerializerMethod( serializerClass, "startTag", new JClass( "XmlSerializer" ), true );
+        method.addParameter( new JParameter( new JClass( "String" ), "namespace" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        sc = method.getSourceCode();
+        sc.add( "closeStartTag();" );
+        sc.add( "write( tag( name )[0] );" );
+        sc.add( "this.name = name;" );
+        sc.add( "depth++;" );
+        sc.add( "startTagOpen = true;" );
+        sc.add( "return this;" );
+
+        method = newSerializerMethod( serializerClass, "attribute", new JClass( "XmlSerializer" ), true );
+        method.addParameter( new JParameter( new JClass( "String" ), "namespace" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "value" ) );
+        sc = method.getSourceCode();
+        sc.add( "write( ' ' );" );
+        sc.add( "writeEncoded( name, 0 );" );
+        sc.add( "writeAscii( \"=\\\"\" );" );
+        sc.add( "writeEncoded( value, ATTRIBUTE );" );
+        sc.add( "write( '\"' );" );
+        sc.add( "return this;" );
+
+        method = newSerializerMethod( serializerClass, "endTag", new JClass( "XmlSerializer" ), true );
+        method.addParameter( new JParameter( new JClass( "String" ), "namespace" ) );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        sc = method.getSourceCode();
+        sc.add( "depth--;" );
+        sc.add( "if ( startTagOpen )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "writeNamespaces();" );
+        sc.add( "writeAscii( \" />\" );" );
+        sc.add( "startTagOpen = false;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.addIndented( "write( tag( name )[1] );" );
+        sc.add( "}" );
+        sc.add( "return this;" );
+
+        method = newSerializerMethod( serializerClass, "text", new JClass( "XmlSerializer" ), true );
+        method.addParameter( new JParameter( new JClass( "String" ), "text" ) );
+        sc = method.getSourceCode();
+        sc.add( "closeStartTag();" );
+        sc.add( "writeEncoded( text, TEXT );" );
+        sc.add( "return this;" );
+
+        method = newSerializerMethod( serializerClass, "text", new JClass( "XmlSerializer" ), true );
+        method.addParameter( new JParameter( new JArrayType( JType.CHAR, useJava5 ), "buf" ) );
+        method.addParameter( new JParameter( JType.INT, "start" ) );
+        method.addParameter( new JParameter( JType.INT, "len" ) );
+        method.getSourceCode().add( "return text( new String( buf, start, len ) );" );
+
+        writeCompactMarkup( serializerClass, "cdsect", "<![CDATA[", "]]>" );
+        writeCompactMarkup( serializerClass, "entityRef", "&", ";" );
+        writeCompactMarkup( serializerClass, "processingInstruction", "<?", "?>" );
+        writeCompactMarkup( serializerClass, "comment", "<!--", "-->" );
+        writeCompactMarkup( serializerClass, "docdecl", "<!DOCTYPE", ">" );
+        writeCompactMarkup( serializerClass, "ignorableWhitespace", "", "" );
+
+        method = newSerializerMethod( serializerClass, "flush", null, true );
+        method.getSourceCode().add( "out.write( buffer, 0, position );" );
+        method.getSourceCode().add( "position = 0;" );
+        method.getSourceCode().add( "out.flush();" );
+
+        // helpers
+        method = newSerializerMethod( serializerClass, "closeStartTag", null, true );
+        method.getModifiers().makePrivate();
+        sc = method.getSourceCode();
+        sc.add( "if ( startTagOpen )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "writeNamespaces();" );
+        sc.add( "write( '>' );" );
+        sc.add( "startTagOpen = false;" );
+        sc.unindent();
+        sc.add( "}" );
+
+        method = newSerializerMethod( serializerClass, "writeNamespaces", null, true );
+        method.getModifiers().makePrivate();
+        sc = method.getSourceCode();
+        sc.add( "for ( int i = 0; i < namespaces.size(); i += 2 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "String prefix = (String) namespaces.get( i );" );
+        sc.add( "writeAscii( \" xmlns\" );" );
+        sc.add( "if ( prefix.length() > 0 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "write( ':' );" );
+        sc.add( "writeEncoded( prefix, 0 );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "writeAscii( \"=\\\"\" );" );
+        sc.add( "writeEncoded( (String) namespaces.get( i + 1 ), ATTRIBUTE );" );
+        sc.add( "write( '\"' );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "namespaces.clear();" );
+
+        method = newSerializerMethod( serializerClass, "tag", new JArrayType( new JArrayType( JType.BYTE, useJava5 ),
+                                                                             useJava5 ), false );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        sc = method.getSourceCode();
+        sc.add( "byte[][] tag = (byte[][]) TAGS.get( name );" );
+        sc.add( "return ( tag != null ) ? tag : encodeTag( name );" );
+
+        method = newSerializerMethod( serializerClass, "encodeTags", new JClass( "java.util.Map" ), false );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JArrayType( new JClass( "String" ), useJava5 ), "names" ) );
+        sc = method.getSourceCode();
+        sc.add( "java.util.Map tags = new java.util.HashMap();" );
+        sc.add( "for ( int i = 0; i < names.length; i++ )" );
+        sc.add( "{" );
+        sc.addIndented( "tags.put( names[i], encodeTag( names[i] ) );" );
+        sc.add( "}" );
+        sc.add( "return tags;" );
+
+        method = newSerializerMethod( serializerClass, "encodeTag",
+                                      new JArrayType( new JArrayType( JType.BYTE, useJava5 ), useJava5 ), false );
+        method.getModifiers().makePrivate();
+        method.getModifiers().setStatic( true );
+        method.addParameter( new JParameter( new JClass( "String" ), "name" ) );
+        sc = method.getSourceCode();
+        sc.add( "try" );
+        sc.add( "{" );
+        sc.addIndented( "return new byte[][] { ( \"<\" + name ).getBytes( \"UTF-8\" ), ( \"</\" + name + \">\" ).getBytes( \"UTF-8\" ) };" );
+        sc.add( "}" );
+        sc.add( "catch ( java.io.UnsupportedEncodingException e )" );
+        sc.add( "{" );
+        sc.addIndented( "throw new IllegalStateException( e.getMessage() );" );
+        sc.add( "}" );
+
+        method = newSerializerMethod( serializerClass, "writeEncoded", null, true );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JClass( "String" ), "s" ) );
+        method.addParameter( new JParameter( JType.INT, "mode" ) );
+        sc = method.getSourceCode();
+        sc.add( "for ( int i = 0, n = s.length(); i < n; i++ )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "char c = s.charAt( i );" );
+        sc.add( "if ( c < 0x80 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "if ( mode != 0 && ( c < 0x20 || c == '&' || c == '<' || c == '>' || c == '\"' ) )" );
+        sc.add( "{" );
+        sc.addIndented( "writeEscaped( s, i, c, mode );" );
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.addIndented( "write( c );" );
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else if ( c < 0x800 )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "write( 0xc0 | ( c >> 6 ) );" );
+        sc.add( "write( 0x80 | ( c & 0x3f ) );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else if ( c >= 0xd800 && c <= 0xdbff && i + 1 < n && s.charAt( i + 1 ) >= 0xdc00"
+            + " && s.charAt( i + 1 ) <= 0xdfff )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "int codePoint = 0x10000 + ( ( c - 0xd800 ) << 10 ) + ( s.charAt( ++i ) - 0xdc00 );" );
+        sc.add( "write( 0xf0 | ( codePoint >> 18 ) );" );
+        sc.add( "write( 0x80 | ( ( codePoint >> 12 ) & 0x3f ) );" );
+        sc.add( "write( 0x80 | ( ( codePoint >> 6 ) & 0x3f ) );" );
+        sc.add( "write( 0x80 | ( codePoint & 0x3f ) );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "else if ( c >= 0xd800 && c <= 0xdfff )" );
+        sc.add( "{" );
+        sc.addIndented( "write( '?' ); // unpaired surrogate, replaced as OutputStreamWriter does" );
+        sc.add( "}" );
+        sc.add( "else" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "write( 0xe0 | ( c >> 12 ) );" );
+        sc.add( "write( 0x80 | ( ( c >> 6 ) & 0x3f ) );" );
+        sc.add( "write( 0x80 | ( c & 0x3f ) );" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+
+        method = newSerializerMethod( serializerClass, "writeEscaped", null, true );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JClass( "String" ), "s" ) );
+        method.addParameter( new JParameter( JType.INT, "i" ) );
+        method.addParameter( new JParameter( JType.CHAR, "c" ) );
+        method.addParameter( new JParameter( JType.INT, "mode" ) );
+        sc = method.getSourceCode();
+        sc.add( "switch ( c )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "case '&':" );
+        sc.addIndented( "writeAscii( \"&amp;\" );" );
+        sc.addIndented( "break;" );
+        sc.add( "case '<':" );
+        sc.addIndented( "writeAscii( \"&lt;\" );" );
+        sc.addIndented( "break;" );
+        sc.add( "case '>':" );
+        sc.addIndented( "// only escaped when closing a CDATA section end, as MXSerializer does" );
+        sc.addIndented( "writeAscii( ( mode == TEXT && i > 1 && s.charAt( i - 1 ) == ']' && s.charAt( i - 2 ) == ']' )"
+            + " ? \"&gt;\" : \">\" );" );
+        sc.addIndented( "break;" );
+        sc.add( "case '\"':" );
+        sc.addIndented( "writeAscii( ( mode == ATTRIBUTE ) ? \"&quot;\" : \"\\\"\" );" );
+        sc.addIndented( "break;" );
+        sc.add( "case '\\t':" );
+        sc.addIndented( "writeAscii( ( mode == ATTRIBUTE ) ? \"&#9;\" : \"\\t\" );" );
+        sc.addIndented( "break;" );
+        sc.add( "case '\\n':" );
+        sc.addIndented( "writeAscii( ( mode == ATTRIBUTE ) ? \"&#10;\" : \"\\n\" );" );
+        sc.addIndented( "break;" );
+        sc.add( "case '\\r':" );
+        sc.addIndented( "writeAscii( ( mode == ATTRIBUTE ) ? \"&#13;\" : \"\\r\" );" );
+        sc.addIndented( "break;" );
+        sc.add( "default:" );
+        sc.addIndented( "throw new IllegalStateException( \"character \" + (int) c + \" is not allowed in output\" );" );
+        sc.unindent();
+        sc.add( "}" );
+
+        method = newSerializerMethod( serializerClass, "writeAscii", null, true );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JClass( "String" ), "s" ) );
+        sc = method.getSourceCode();
+        sc.add( "for ( int i = 0, n = s.length(); i < n; i++ )" );
+        sc.add( "{" );
+        sc.addIndented( "write( s.charAt( i ) );" );
+        sc.add( "}" );
+
+        method = newSerializerMethod( serializerClass, "write", null, true );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( JType.INT, "b" ) );
+        sc = method.getSourceCode();
+        sc.add( "if ( position == buffer.length )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "out.write( buffer, 0, position );" );
+        sc.add( "position = 0;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "buffer[position++] = (byte) b;" );
+
+        method = newSerializerMethod( serializerClass, "write", null, true );
+        method.getModifiers().makePrivate();
+        method.addParameter( new JParameter( new JArrayType( JType.BYTE, useJava5 ), "bytes" ) );
+        sc = method.getSourceCode();
+        sc.add( "if ( bytes.length > buffer.length - position )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "out.write( buffer, 0, position );" );
+        sc.add( "position = 0;" );
+        sc.add( "if ( bytes.length > buffer.length )" );
+        sc.add( "{" );
+        sc.indent();
+        sc.add( "out.write( bytes );" );
+        sc.add( "return;" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.unindent();
+        sc.add( "}" );
+        sc.add( "System.arraycopy( bytes, 0, buffer, position, bytes.length );" );
+        sc.add( "position += bytes.length;" );
+    }
+
+    private void addSerializerField( JClass serializerClass, String name, JType type, String value, String comment )
+    {
+        JField field = new JField( type, name );
+        field.getModifiers().setStatic( true );
+        field.getModifiers().setFinal( true );
+        field.setInitString( value );
+        field.setComment( comment );
+        serializerClass.addField( field );
+    }
+
+    private JMethod newSerializerMethod( JClass serializerClass, String name, JType returnType, boolean io )
+    {
+        JMethod method = ( returnType == null ) ? new JMethod( name ) : new JMethod( name, returnType, null );
+
+        if ( io )
+        {
+            method.addException( new JClass( "java.io.IOException" ) );
+        }
+
+        serializerClass.addMethod( method );
+
+        return method;
+    }
+
+    private void writeCompactMarkup( JClass serializerClass, String name, String start, String end )
+    {
+        JMethod method = newSerializerMethod( serializerClass, name, null, true );
+        method.addParameter( new JParameter( new JClass( "String" ), "text" ) );
+
+        JSourceCode sc = method.getSourceCode();
+        sc.add( "closeStartTag();" );
+        if ( start.length() > 0 )
+        {
+            sc.add( "writeAscii( \"" + start + "\" );" );
+        }
+        sc.add( "writeEncoded( text, 0 );" );
+        if ( end.length() > 0 )
+        {
+            sc.add( "writeAscii( \"" + end + "\" );" );
+        }
+    }
+
+    private void writeIndentationProperties( JSourceCode sc )
+    {
+        sc.add(
+            "serializer.setProperty( \"http://xmlpull.org/v1/doc/properties.html#serializer-indentation\", \"  \" );" );
+
+        sc.add(
+            "serializer.setProperty( \"http://xmlpull.org/v1/doc/properties.html#serializer-line-separator\", \"\\n\" );" );
+    }
+
     private void writeAllClasses( Model objectModel, JClass jClass )
         throws ModelloException
     {
@@ -210,10 +768,10 @@ public class Xpp3WriterGenerator
 
         JSourceCode sc = marshall.getSourceCode();
 
-        ModelClassMetadata classMetadata = (ModelClassMetadata) modelClass.getMetadata( ModelClassMetadata.ID );
+        ModelClassMetadata classMetadata = modelClass.getMetadata( ModelClassMetadata.SLOT );
 
         String namespace = null;
-        XmlModelMetadata xmlModelMetadata = (XmlModelMetadata) modelClass.getModel().getMetadata( XmlModelMetadata.ID );
+        XmlModelMetadata xmlModelMetadata = modelClass.getModel().getMetadata( XmlModelMetadata.SLOT );
 
         // add namespace information for root element only
         if ( classMetadata.isRootElement() && ( xmlModelMetadata.getNamespace() != null ) )
@@ -246,9 +804,9 @@ public class Xpp3WriterGenerator
         // XML attributes
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -277,14 +835,14 @@ public class Xpp3WriterGenerator
 
         if ( contentField != null )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) contentField.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = contentField.getMetadata( XmlFieldMetadata.SLOT );
             sc.add( "serializer.text( " + getValue( contentField.getType(), contentValue, xmlFieldMetadata ) + " );" );
         }
 
         // XML tags
         for ( ModelField field : modelFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             if ( xmlFieldMetadata.isContent() )
             {
@@ -292,7 +850,7 @@ public class Xpp3WriterGenerator
                 continue;
             }
 
-            JavaFieldMetadata javaFieldMetadata = (JavaFieldMetadata) field.getMetadata( JavaFieldMetadata.ID );
+            JavaFieldMetadata javaFieldMetadata = field.getMetadata( JavaFieldMetadata.SLOT );
 
             String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -305,6 +863,8 @@ public class Xpp3WriterGenerator
                 continue;
             }
 
+            compactTagNames.add( fieldTagName );
+
             if ( field instanceof ModelAssociation )
             {
                 ModelAssociation association = (ModelAssociation) field;
@@ -325,10 +885,12 @@ public class Xpp3WriterGenerator
                     //MANY_MULTIPLICITY
 
                     XmlAssociationMetadata xmlAssociationMetadata =
-                        (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                        association.getMetadata( XmlAssociationMetadata.SLOT );
 
                     String valuesTagName = resolveTagName( fieldTagName, xmlAssociationMetadata );
 
+                    compactTagNames.add( valuesTagName );
+
                     type = association.getType();
                     String toType = association.getTo();
 
@@ -403,6 +965,10 @@ public class Xpp3WriterGenerator
 
                         if ( xmlAssociationMetadata.isMapExplode() )
                         {
+                            compactTagNames.add( singular( associationName ) );
+                            compactTagNames.add( "key" );
+                            compactTagNames.add( "value" );
+
                             sc.add( "serializer.startTag( NAMESPACE, \"" + singular( associationName ) + "\" );" );
                             sc.add(
                                 "serializer.startTag( NAMESPACE, \"key\" ).text( key ).endTag( NAMESPACE, \"key\" );" );
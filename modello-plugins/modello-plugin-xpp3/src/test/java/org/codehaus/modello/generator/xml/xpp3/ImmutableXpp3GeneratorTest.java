@@ -0,0 +1,102 @@
+package org.codehaus.modello.generator.xml.xpp3;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringReader;
+import java.util.Properties;
+
+import org.codehaus.modello.AbstractModelloJavaGeneratorTest;
+import org.codehaus.modello.ModelloException;
+import org.codehaus.modello.core.ModelloCore;
+import org.codehaus.modello.model.Model;
+import org.codehaus.plexus.util.IOUtil;
+
+public class ImmutableXpp3GeneratorTest
+    extends AbstractModelloJavaGeneratorTest
+{
+    public ImmutableXpp3GeneratorTest()
+    {
+        super( "immutable" );
+    }
+
+    public void testImmutable()
+        throws Throwable
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        Model model = modello.loadModel( getXmlResourceReader( "/immutable.mdo" ) );
+
+        Properties parameters = getModelloParameters( "1.0.0" );
+
+        modello.generate( model, "java", parameters );
+        modello.generate( model, "xpp3-reader", parameters );
+        modello.generate( model, "xpp3-writer", parameters );
+
+        compileGeneratedSources();
+
+        verifyCompiledGeneratedSources( "org.codehaus.modello.generator.xml.xpp3.Xpp3ImmutableVerifier" );
+    }
+
+    public void testImmutableReferringToMutable()
+        throws Throwable
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        String mdo = IOUtil.toString( getXmlResourceReader( "/immutable.mdo" ) );
+        mdo = mdo.replace( "<class java.immutable=\"true\" java.hashCache=\"true\">", "<class>" );
+
+        Model model = modello.loadModel( new StringReader( mdo ) );
+
+        try
+        {
+            modello.generate( model, "java", getModelloParameters( "1.0.0" ) );
+            fail( "an immutable class can't refer to a mutable one" );
+        }
+        catch ( ModelloException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().indexOf( "mutable class 'Dependency'" ) > 0 );
+        }
+    }
+
+    public void testImmutableWithDate()
+        throws Throwable
+    {
+        ModelloCore modello = (ModelloCore) lookup( ModelloCore.ROLE );
+
+        String mdo = IOUtil.toString( getXmlResourceReader( "/immutable.mdo" ) );
+        mdo = mdo.replace( "<type>boolean</type>", "<type>Date</type>" );
+
+        Model model = modello.loadModel( new StringReader( mdo ) );
+
+        try
+        {
+            modello.generate( model, "java", getModelloParameters( "1.0.0" ) );
+            fail( "a Date can be modified in place" );
+        }
+        catch ( ModelloException e )
+        {
+            assertTrue( e.getMessage(), e.getMessage().indexOf( "field 'optional' is a Date" ) > 0 );
+        }
+    }
+
+}
@@ -56,6 +56,8 @@ public class LocationsSourceXpp3GeneratorTest
         compileGeneratedSources();
 
         verifyCompiledGeneratedSources( "org.codehaus.modello.generator.xml.xpp3.Xpp3LocationsSourceVerifier" );
+
+        verifyCompiledGeneratedSources( "org.codehaus.modello.generator.xml.xpp3.Xpp3LocationModesVerifier" );
     }
 
 }
@@ -23,7 +23,12 @@ package org.codehaus.modello.generator.xml.xpp3;
  */
 
 import junit.framework.Assert;
+import org.codehaus.modello.test.features.AssociationFeatures;
 import org.codehaus.modello.test.features.Features;
+import org.codehaus.modello.test.features.Reference;
+import org.codehaus.modello.test.features.XmlAttributes;
+import org.codehaus.modello.test.features.XmlFeatures;
+import org.codehaus.modello.test.features.io.xpp3.ModelloFeaturesTestXpp3ItemVisitor;
 import org.codehaus.modello.test.features.io.xpp3.ModelloFeaturesTestXpp3Reader;
 import org.codehaus.modello.test.features.io.xpp3.ModelloFeaturesTestXpp3Writer;
 import org.codehaus.modello.verifier.Verifier;
@@ -35,6 +40,8 @@ import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 import org.custommonkey.xmlunit.Diff;
 import org.custommonkey.xmlunit.XMLUnit;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -44,6 +51,9 @@ import java.io.Reader;
 import java.io.StringReader;
 import java.io.StringWriter;
 import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * @author Herve Boutemy
@@ -62,6 +72,10 @@ public class Xpp3FeaturesVerifier
 
         verifyWriter( features );
 
+        verifyCompactWriter( features );
+
+        verifyCompactEncoding();
+
         verifyBadVersion();
 
         verifyWrongElement();
@@ -70,8 +84,12 @@ public class Xpp3FeaturesVerifier
 
         verifyWrongContent();
 
+        verifyPrimitiveText();
+
         verifyTransientElement();
 
+        verifyItemVisitor();
+
         verifyEncoding();
     }
 
@@ -140,6 +158,96 @@ public class Xpp3FeaturesVerifier
         }
     }
 
+    public void verifyCompactWriter( Features features )
+        throws Exception
+    {
+        ModelloFeaturesTestXpp3Writer writer = new ModelloFeaturesTestXpp3Writer();
+
+        StringWriter buffer = new StringWriter();
+
+        writer.write( buffer, features );
+
+        String indentedXml = buffer.toString();
+
+        writer.setCompact( true );
+
+        buffer = new StringWriter();
+
+        writer.write( buffer, features );
+
+        String compactXml = buffer.toString();
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        writer.write( stream, features );
+
+        String encoding = features.getModelEncoding();
+
+        Assert.assertEquals( compactXml, ( encoding != null ) ? stream.toString( encoding ) : stream.toString() );
+
+        if ( compactXml.indexOf( "\n  <" ) >= 0 )
+        {
+            throw new VerifierException( "compact writer result is indented" );
+        }
+
+        XMLUnit.setIgnoreWhitespace( true );
+        XMLUnit.setIgnoreComments( true );
+        Diff diff = XMLUnit.compareXML( indentedXml, compactXml );
+
+        if ( !diff.identical() )
+        {
+            System.err.println( compactXml );
+            throw new VerifierException( "compact writer result is not the same as indented content: " + diff );
+        }
+
+        if ( !compactXml.contains( "<fieldNoTrim>   do not trim this field   </fieldNoTrim>" ) )
+        {
+            throw new VerifierException( "fieldNoTrim was trimmed by compact writer..." );
+        }
+    }
+
+    public void verifyCompactEncoding()
+        throws Exception
+    {
+        String text = "a&b<c>d\"e'f\tg\nh\ri]]>k \u00e9\u20ac\ud83d\ude00";
+
+        Features features = new Features();
+        features.setModelEncoding( "UTF-8" );
+        features.setDescription( text );
+        features.setComment( "" );
+        XmlFeatures xmlFeatures = new XmlFeatures();
+        XmlAttributes attributes = new XmlAttributes();
+        attributes.setObjectString( text );
+        xmlFeatures.setAttributes( attributes );
+        features.setXmlFeatures( xmlFeatures );
+
+        ModelloFeaturesTestXpp3Writer writer = new ModelloFeaturesTestXpp3Writer();
+        writer.setCompact( true );
+
+        StringWriter buffer = new StringWriter();
+        writer.write( buffer, features );
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        writer.write( stream, features );
+
+        Assert.assertEquals( buffer.toString(), stream.toString( "UTF-8" ) );
+
+        Features read = new ModelloFeaturesTestXpp3Reader().read( new ByteArrayInputStream( stream.toByteArray() ) );
+        Assert.assertEquals( text.replace( '\r', '\n' ), read.getDescription() );
+        Assert.assertEquals( text, read.getXmlFeatures().getAttributes().getObjectString() );
+
+        features.setDescription( "bad \u0001 character" );
+        try
+        {
+            writer.write( new ByteArrayOutputStream(), features );
+            throw new VerifierException( "control character should not be written" );
+        }
+        catch ( IllegalStateException e )
+        {
+            Assert.assertEquals( "character 1 is not allowed in output", e.getMessage() );
+        }
+    }
+
     public void verifyBadVersion()
         throws Exception
     {
@@ -232,6 +340,62 @@ public class Xpp3FeaturesVerifier
         }
     }
 
+    public void verifyPrimitiveText()
+        throws Exception
+    {
+        ModelloFeaturesTestXpp3Reader reader = new ModelloFeaturesTestXpp3Reader();
+
+        String xml = "<features-demo><simpleTypes>"
+            + "<primitiveBoolean> TRUE </primitiveBoolean>"
+            + "<primitiveByte>+127</primitiveByte>"
+            + "<primitiveShort>\n  -32768\n</primitiveShort>"
+            + "<primitiveInt>-2147483648</primitiveInt>"
+            + "<primitiveLong><![CDATA[9223372036854775807]]></primitiveLong>"
+            + "</simpleTypes></features-demo>";
+
+        Features features = reader.read( new StringReader( xml ) );
+
+        Assert.assertTrue( features.getSimpleTypes().isPrimitiveBoolean() );
+        Assert.assertEquals( Byte.MAX_VALUE, features.getSimpleTypes().getPrimitiveByte() );
+        Assert.assertEquals( Short.MIN_VALUE, features.getSimpleTypes().getPrimitiveShort() );
+        Assert.assertEquals( Integer.MIN_VALUE, features.getSimpleTypes().getPrimitiveInt() );
+        Assert.assertEquals( Long.MAX_VALUE, features.getSimpleTypes().getPrimitiveLong() );
+
+        // empty boolean element keeps the default value
+        xml = "<features-demo><simpleTypes><primitiveBoolean/></simpleTypes></features-demo>";
+
+        Assert.assertTrue( reader.read( new StringReader( xml ) ).getSimpleTypes().isPrimitiveBoolean() );
+
+        // out of range values
+        xml = "<features-demo><simpleTypes><primitiveByte>128</primitiveByte></simpleTypes></features-demo>";
+
+        Assert.assertEquals( 0, reader.read( new StringReader( xml ), false ).getSimpleTypes().getPrimitiveByte() );
+
+        try
+        {
+            reader.read( new StringReader( xml ) );
+
+            throw new VerifierException( "Reading an out of range byte under strict option should fail." );
+        }
+        catch ( XmlPullParserException xppe )
+        {
+            checkExpectedFailure( xppe, "Unable to parse element 'primitiveByte', must be a byte" );
+        }
+
+        xml = "<features-demo><simpleTypes><primitiveInt>12a</primitiveInt></simpleTypes></features-demo>";
+
+        try
+        {
+            reader.read( new StringReader( xml ) );
+
+            throw new VerifierException( "Reading an invalid integer under strict option should fail." );
+        }
+        catch ( XmlPullParserException xppe )
+        {
+            checkExpectedFailure( xppe, "Unable to parse element 'primitiveInt', must be an integer" );
+        }
+    }
+
     public void verifyTransientElement()
         throws Exception
     {
@@ -281,6 +445,47 @@ public class Xpp3FeaturesVerifier
         }
     }
 
+    public void verifyItemVisitor()
+        throws Exception
+    {
+        ModelloFeaturesTestXpp3Reader reader = new ModelloFeaturesTestXpp3Reader();
+
+        final List<String> visited = new ArrayList<String>();
+
+        reader.setItemVisitor( "AssociationFeatures.listReferences", new ModelloFeaturesTestXpp3ItemVisitor()
+        {
+            public void visit( Object parent, Object item )
+            {
+                Assert.assertTrue( parent instanceof AssociationFeatures );
+                visited.add( ( (Reference) item ).getId() );
+            }
+        } );
+
+        Features features = reader.read( getClass().getResourceAsStream( "/features.xml" ) );
+
+        Assert.assertEquals( Arrays.asList( new String[] { "first", "second", "third" } ), visited );
+        Assert.assertTrue( features.getAssociationFeatures().getListReferences().isEmpty() );
+        Assert.assertEquals( 1, features.getAssociationFeatures().getSetReferences().size() );
+
+        // unregistering the visitor restores the default behaviour
+        reader.setItemVisitor( "AssociationFeatures.listReferences", null );
+
+        features = reader.read( getClass().getResourceAsStream( "/features.xml" ) );
+
+        Assert.assertEquals( 3, features.getAssociationFeatures().getListReferences().size() );
+
+        try
+        {
+            reader.setItemVisitor( "AssociationFeatures.unknown", null );
+
+            throw new VerifierException( "Registering a visitor for an unknown association should fail." );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            Assert.assertTrue( e.getMessage().indexOf( "AssociationFeatures.unknown" ) >= 0 );
+        }
+    }
+
     public void verifyEncoding()
         throws Exception
     {
@@ -0,0 +1,223 @@
+package org.codehaus.modello.generator.xml.xpp3;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.codehaus.modello.test.immutable.Dependency;
+import org.codehaus.modello.test.immutable.Project;
+import org.codehaus.modello.test.immutable.io.xpp3.ImmutableXpp3Reader;
+import org.codehaus.modello.test.immutable.io.xpp3.ImmutableXpp3Writer;
+import org.codehaus.modello.verifier.Verifier;
+
+/**
+ * Checks that <code>java.immutable</code> classes are read through their builder and copied by their
+ * <code>withX</code> methods, sharing unchanged values.
+ */
+public class Xpp3ImmutableVerifier
+    extends Verifier
+{
+    private static final String XML =
+        "<project name=\"modello\"><modules><module>core</module><module>plugins</module></modules>"
+            + "<dependencies><dependency><groupId>org.codehaus</groupId><artifactId>plexus</artifactId>"
+            + "<optional>true</optional></dependency>"
+            + "<dependency><groupId>junit</groupId><artifactId>junit</artifactId><type>pom</type></dependency>"
+            + "</dependencies><properties><key>value</key></properties></project>";
+
+    public void verify()
+        throws Exception
+    {
+        verifyClasses();
+
+        verifyRead();
+
+        verifyWith();
+
+        verifyBuilder();
+
+        verifyWrite();
+    }
+
+    private Project read( String xml )
+        throws Exception
+    {
+        return new ImmutableXpp3Reader().read( new StringReader( xml ), true );
+    }
+
+    private void verifyClasses()
+    {
+        Class[] classes = { Project.class, Dependency.class };
+
+        for ( int i = 0; i < classes.length; i++ )
+        {
+            Field[] fields = classes[i].getDeclaredFields();
+            for ( int j = 0; j < fields.length; j++ )
+            {
+                int modifiers = fields[j].getModifiers();
+                if ( !Modifier.isStatic( modifiers ) && !Modifier.isTransient( modifiers ) )
+                {
+                    Assert.assertTrue( fields[j].toString(), Modifier.isFinal( modifiers ) );
+                }
+            }
+
+            Method[] methods = classes[i].getMethods();
+            for ( int j = 0; j < methods.length; j++ )
+            {
+                Assert.assertFalse( methods[j].toString(), methods[j].getName().startsWith( "set" ) );
+                Assert.assertFalse( methods[j].toString(), methods[j].getName().startsWith( "add" ) );
+            }
+
+            Assert.assertEquals( 0, classes[i].getConstructors().length );
+        }
+    }
+
+    private void verifyRead()
+        throws Exception
+    {
+        Project project = read( XML );
+
+        Assert.assertEquals( "modello", project.getName() );
+        Assert.assertEquals( "1.0", project.getVersion() );
+
+        Assert.assertEquals( 2, project.getModules().size() );
+        Assert.assertEquals( "core", project.getModules().get( 0 ) );
+        Assert.assertEquals( "plugins", project.getModules().get( 1 ) );
+
+        Assert.assertEquals( 2, project.getDependencies().size() );
+        Dependency plexus = (Dependency) project.getDependencies().get( 0 );
+        Assert.assertEquals( "org.codehaus", plexus.getGroupId() );
+        Assert.assertEquals( "plexus", plexus.getArtifactId() );
+        Assert.assertEquals( "jar", plexus.getType() );
+        Assert.assertTrue( plexus.isOptional() );
+        Dependency junit = (Dependency) project.getDependencies().get( 1 );
+        Assert.assertEquals( "pom", junit.getType() );
+        Assert.assertFalse( junit.isOptional() );
+
+        Assert.assertEquals( "value", project.getProperties().get( "key" ) );
+
+        try
+        {
+            project.getDependencies().add( junit );
+            Assert.fail( "collections of immutable objects can't be changed" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+
+        try
+        {
+            project.getProperties().put( "other", "value" );
+            Assert.fail( "maps of immutable objects can't be changed" );
+        }
+        catch ( UnsupportedOperationException e )
+        {
+            // expected
+        }
+
+        Project empty = read( "<project/>" );
+        Assert.assertNull( empty.getName() );
+        Assert.assertTrue( empty.getModules().isEmpty() );
+        Assert.assertTrue( empty.getProperties().isEmpty() );
+    }
+
+    private void verifyWith()
+        throws Exception
+    {
+        Project project = read( XML );
+
+        Project renamed = project.withName( "renamed" );
+        Assert.assertNotSame( project, renamed );
+        Assert.assertEquals( "modello", project.getName() );
+        Assert.assertEquals( "renamed", renamed.getName() );
+
+        // unchanged values are shared
+        Assert.assertSame( project.getModules(), renamed.getModules() );
+        Assert.assertSame( project.getDependencies(), renamed.getDependencies() );
+        Assert.assertSame( project.getProperties(), renamed.getProperties() );
+
+        Assert.assertSame( renamed, renamed.withName( renamed.getName() ) );
+
+        // a new collection is copied
+        List modules = new ArrayList();
+        modules.add( "other" );
+        Project changed = project.withModules( modules );
+        modules.add( "ignored" );
+        Assert.assertEquals( 1, changed.getModules().size() );
+        Assert.assertSame( project.getDependencies(), changed.getDependencies() );
+
+        // changing a nested object copies the path to it, sharing the siblings
+        Dependency junit = (Dependency) project.getDependencies().get( 1 );
+        List dependencies = new ArrayList( project.getDependencies() );
+        dependencies.set( 1, junit.withType( "jar" ) );
+        Project updated = project.withDependencies( dependencies );
+        Assert.assertSame( project.getDependencies().get( 0 ), updated.getDependencies().get( 0 ) );
+        Assert.assertEquals( "jar", ( (Dependency) updated.getDependencies().get( 1 ) ).getType() );
+        Assert.assertEquals( "pom", junit.getType() );
+
+        // identifiers are kept, so the copy stays equal
+        Assert.assertEquals( junit, updated.getDependencies().get( 1 ) );
+        Assert.assertEquals( junit.hashCode(), updated.getDependencies().get( 1 ).hashCode() );
+        Assert.assertFalse( junit.equals( junit.withArtifactId( "junit-dep" ) ) );
+    }
+
+    private void verifyBuilder()
+    {
+        Dependency dependency = new Dependency.Builder().setGroupId( "g" ).setArtifactId( "a" ).build();
+        Assert.assertEquals( "jar", dependency.getType() );
+        Assert.assertEquals( "UTF-8", new Project.Builder().build().getModelEncoding() );
+
+        Project.Builder builder = new Project.Builder();
+        builder.setName( "built" ).addDependency( dependency ).addModule( "m" ).addProperty( "k", "v" );
+        Project project = builder.build();
+
+        // the builder can't change built objects
+        builder.addModule( "n" );
+        Assert.assertEquals( 1, project.getModules().size() );
+        Assert.assertEquals( "v", project.getProperties().get( "k" ) );
+        Assert.assertSame( dependency, project.getDependencies().get( 0 ) );
+    }
+
+    private void verifyWrite()
+        throws Exception
+    {
+        Project project = read( XML );
+
+        StringWriter first = new StringWriter();
+        new ImmutableXpp3Writer().write( first, project );
+
+        StringWriter second = new StringWriter();
+        new ImmutableXpp3Writer().write( second, read( first.toString() ) );
+
+        Assert.assertEquals( first.toString(), second.toString() );
+    }
+
+}
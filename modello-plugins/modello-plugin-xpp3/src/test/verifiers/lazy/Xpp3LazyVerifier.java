@@ -0,0 +1,287 @@
+package org.codehaus.modello.generator.xml.xpp3;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringReader;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.Assert;
+
+import org.codehaus.modello.generator.xml.xpp3.test.lazy.Descriptor;
+import org.codehaus.modello.generator.xml.xpp3.test.lazy.Entry;
+import org.codehaus.modello.generator.xml.xpp3.test.lazy.io.xpp3.LazyXpp3Reader;
+import org.codehaus.modello.verifier.Verifier;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+/**
+ * Checks that <code>java.lazy</code> associations are parsed on first access.
+ */
+public class Xpp3LazyVerifier
+    extends Verifier
+{
+    private static final String XML =
+        "<descriptor><name>lazy</name><entries>"
+            + "<entry id=\"a&amp;1\"><value>first &lt;one&gt;</value></entry>"
+            + "<entry id=\"b\"><value><![CDATA[second]]></value></entry>"
+            + "</entries><footer>end</footer></descriptor>";
+
+    public void verify()
+        throws Exception
+    {
+        verifyLoadOnAccess();
+
+        verifyReplaceBeforeLoad();
+
+        verifyClone();
+
+        verifyStrictErrors();
+
+        verifyEagerFallback();
+
+        verifyFailedLoad();
+
+        verifyLargeContent();
+
+        verifyDefaultEntities();
+
+        verifyConcurrentLoad();
+    }
+
+    private Descriptor read( String xml )
+        throws Exception
+    {
+        // strict reading parses eagerly, to report errors while reading
+        return new LazyXpp3Reader().read( new StringReader( xml ), false );
+    }
+
+    private static boolean isLoaded( Descriptor descriptor )
+        throws Exception
+    {
+        Field loader = Descriptor.class.getDeclaredField( "entriesLoader" );
+        loader.setAccessible( true );
+        return loader.get( descriptor ) == null;
+    }
+
+    private void verifyLoadOnAccess()
+        throws Exception
+    {
+        Descriptor descriptor = read( XML );
+
+        Assert.assertFalse( isLoaded( descriptor ) );
+        Assert.assertEquals( "lazy", descriptor.getName() );
+        Assert.assertEquals( "end", descriptor.getFooter() );
+
+        List entries = descriptor.getEntries();
+        Assert.assertEquals( 2, entries.size() );
+
+        Entry first = (Entry) entries.get( 0 );
+        Assert.assertEquals( "a&1", first.getId() );
+        Assert.assertEquals( "first <one>", first.getValue() );
+
+        Entry second = (Entry) entries.get( 1 );
+        Assert.assertEquals( "b", second.getId() );
+        Assert.assertEquals( "second", second.getValue() );
+
+        Assert.assertSame( entries, descriptor.getEntries() );
+        Assert.assertEquals( 2, descriptor.getEntries().size() );
+    }
+
+    private void verifyReplaceBeforeLoad()
+        throws Exception
+    {
+        Descriptor descriptor = read( XML );
+
+        descriptor.setEntries( new java.util.ArrayList() );
+        Assert.assertEquals( 0, descriptor.getEntries().size() );
+
+        descriptor = read( XML );
+        Entry entry = new Entry();
+        entry.setId( "c" );
+        descriptor.addEntry( entry );
+        Assert.assertEquals( 3, descriptor.getEntries().size() );
+        Assert.assertSame( entry, descriptor.getEntries().get( 2 ) );
+    }
+
+    private void verifyClone()
+        throws Exception
+    {
+        Descriptor descriptor = read( XML );
+
+        Descriptor copy = descriptor.clone();
+        Assert.assertEquals( 2, copy.getEntries().size() );
+        Assert.assertNotSame( descriptor.getEntries(), copy.getEntries() );
+        Assert.assertEquals( 2, descriptor.getEntries().size() );
+    }
+
+    private void verifyStrictErrors()
+        throws Exception
+    {
+        try
+        {
+            new LazyXpp3Reader().read( new StringReader( "<descriptor><entries><bogus/></entries></descriptor>" ),
+                                       true );
+            Assert.fail( "Unknown element should fail in strict mode" );
+        }
+        catch ( XmlPullParserException e )
+        {
+            Assert.assertTrue( e.getMessage(), e.getMessage().indexOf( "bogus" ) >= 0 );
+        }
+
+        Descriptor descriptor = new LazyXpp3Reader().read( new StringReader( XML ), true );
+        Assert.assertTrue( isLoaded( descriptor ) );
+        Assert.assertEquals( 2, descriptor.getEntries().size() );
+
+        descriptor = read( "<descriptor><entries><bogus/><entry/></entries></descriptor>" );
+        Assert.assertFalse( isLoaded( descriptor ) );
+        Assert.assertEquals( 1, descriptor.getEntries().size() );
+    }
+
+    private void verifyEagerFallback()
+        throws Exception
+    {
+        // the loader parser wouldn't know the declarations of the document type
+        Descriptor descriptor =
+            read( "<!DOCTYPE descriptor [<!ENTITY e \"entity\">]><descriptor><entries><entry id=\"a\"/></entries>"
+                + "</descriptor>" );
+        Assert.assertTrue( isLoaded( descriptor ) );
+        Assert.assertEquals( 1, descriptor.getEntries().size() );
+
+        descriptor = read( "<!DOCTYPE descriptor SYSTEM \"lazy.dtd\"><descriptor><entries><entry id=\"a\"/>"
+            + "</entries></descriptor>" );
+        Assert.assertTrue( isLoaded( descriptor ) );
+        Assert.assertEquals( "a", ( (Entry) descriptor.getEntries().get( 0 ) ).getId() );
+    }
+
+    private void verifyFailedLoad()
+    {
+        final Descriptor descriptor = new Descriptor();
+        final IllegalStateException failure = new IllegalStateException( "failed" );
+
+        descriptor.setEntriesLoader( new Runnable()
+        {
+            public void run()
+            {
+                descriptor.addEntry( new Entry() );
+                throw failure;
+            }
+        } );
+
+        // the partial content is never returned as if it were complete
+        for ( int i = 0; i < 2; i++ )
+        {
+            try
+            {
+                descriptor.getEntries();
+                Assert.fail( "a failed load must fail every access" );
+            }
+            catch ( IllegalStateException e )
+            {
+                Assert.assertSame( failure, e );
+            }
+        }
+    }
+
+    private void verifyLargeContent()
+        throws Exception
+    {
+        StringBuilder xml = new StringBuilder( "<descriptor><name>large</name><entries>" );
+        for ( int i = 0; i < 5000; i++ )
+        {
+            xml.append( "<entry id=\"" ).append( i ).append( "\"><value>v&amp;" ).append( i ).append( "</value></entry>" );
+        }
+        xml.append( "</entries><footer>end</footer></descriptor>" );
+
+        LazyXpp3Reader reader = new LazyXpp3Reader();
+        reader.setReuseParser( true );
+
+        for ( int n = 0; n < 2; n++ )
+        {
+            Descriptor descriptor = reader.read( new StringReader( xml.toString() ), false );
+
+            Assert.assertEquals( "end", descriptor.getFooter() );
+            Assert.assertEquals( 5000, descriptor.getEntries().size() );
+            Entry last = (Entry) descriptor.getEntries().get( 4999 );
+            Assert.assertEquals( "4999", last.getId() );
+            Assert.assertEquals( "v&4999", last.getValue() );
+        }
+    }
+
+    private void verifyDefaultEntities()
+        throws Exception
+    {
+        Descriptor descriptor = read( "<descriptor><entries><entry><value>a&nbsp;b</value></entry></entries></descriptor>" );
+
+        Assert.assertEquals( "a\u00a0b", ( (Entry) descriptor.getEntries().get( 0 ) ).getValue() );
+    }
+
+    private void verifyConcurrentLoad()
+        throws Exception
+    {
+        StringBuilder xml = new StringBuilder( "<descriptor><entries>" );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            xml.append( "<entry id=\"" ).append( i ).append( "\"/>" );
+        }
+        xml.append( "</entries></descriptor>" );
+
+        for ( int n = 0; n < 20; n++ )
+        {
+            final Descriptor descriptor = read( xml.toString() );
+            final List<Throwable> failures = new ArrayList<Throwable>();
+
+            Thread[] threads = new Thread[4];
+            for ( int i = 0; i < threads.length; i++ )
+            {
+                threads[i] = new Thread()
+                {
+                    public void run()
+                    {
+                        try
+                        {
+                            Assert.assertEquals( 1000, descriptor.getEntries().size() );
+                        }
+                        catch ( Throwable t )
+                        {
+                            synchronized ( failures )
+                            {
+                                failures.add( t );
+                            }
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+            for ( Thread thread : threads )
+            {
+                thread.join();
+            }
+
+            if ( !failures.isEmpty() )
+            {
+                throw new AssertionError( failures.get( 0 ) );
+            }
+        }
+    }
+}
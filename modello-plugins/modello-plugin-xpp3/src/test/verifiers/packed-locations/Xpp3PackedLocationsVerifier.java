@@ -0,0 +1,138 @@
+package org.codehaus.modello.generator.xml.xpp3;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.codehaus.modello.test.locationssrc.Location;
+import org.codehaus.modello.test.locationssrc.Model;
+import org.codehaus.modello.test.locationssrc.Source;
+import org.codehaus.modello.test.locationssrc.io.xpp3.LocationsSourceTestXpp3ReaderEx;
+import org.codehaus.modello.verifier.Verifier;
+
+public class Xpp3PackedLocationsVerifier
+    extends Verifier
+{
+
+    public void verify()
+        throws Exception
+    {
+        Source source = new Source();
+
+        LocationsSourceTestXpp3ReaderEx reader = new LocationsSourceTestXpp3ReaderEx();
+
+        Model model = reader.read( getClass().getResourceAsStream( "/locations.xml" ), true, source );
+
+        assertLocation( model.getLocation( "" ), -1, -1, source );
+        assertLocation( model.getLocation( "string" ), 4, 11, source );
+
+        Location list = model.getLocation( "flatListStrings" );
+        assertSame( list, model.getLocation( "flatListStrings" ) );
+        assertLocation( list.getLocation( new Integer( 0 ) ), 6, 19, source );
+        assertLocation( list.getLocation( new Integer( 1 ) ), 7, 19, source );
+        assertLocation( list.getLocation( new Integer( 2 ) ), 8, 19, source );
+        assertNull( list.getLocation( new Integer( 3 ) ) );
+
+        assertLocation( model.getLocation( "flatSetStrings" ).getLocation( "a" ), 10, 18, source );
+        assertLocation( model.getLocation( "explodedProperties" ).getLocation( "b" ), 38, 14, source );
+
+        assertLocation( model.getItems().get( 0 ).getLocation( "string" ), 45, 15, source );
+
+        // keys without a slot and locations from another source
+        Source other = new Source();
+        model.setLocation( "unknown", new Location( 1, 2, source ) );
+        model.setLocation( "string", new Location( 3, 4, other ) );
+        assertLocation( model.getLocation( "unknown" ), 1, 2, source );
+        assertLocation( model.getLocation( "string" ), 3, 4, other );
+        model.setLocation( "string", new Location( 5, 6, source ) );
+        assertLocation( model.getLocation( "string" ), 5, 6, source );
+
+        // locations holding nested locations are kept as set, under a field slot or a list position
+        Location nested = new Location( 9, 10, source );
+        nested.setLocation( new Integer( 0 ), new Location( 11, 12, source ) );
+        model.setLocation( "string", nested );
+        assertSame( nested, model.getLocation( "string" ) );
+        assertLocation( model.getLocation( "string" ).getLocation( new Integer( 0 ) ), 11, 12, source );
+        Location positions = new Location( 1, 1, source );
+        positions.setLocation( new Integer( 0 ), new Location( 2, 1, source ) );
+        positions.setLocation( new Integer( 1 ), nested );
+        assertSame( nested, positions.getLocation( new Integer( 1 ) ) );
+        assertLocation( positions.getLocation( new Integer( 0 ) ), 2, 1, source );
+        positions.setLocation( new Integer( 1 ), new Location( 3, 1, source ) );
+        assertLocation( positions.getLocation( new Integer( 1 ) ), 3, 1, source );
+        assertNull( positions.getLocation( new Integer( 1 ) ).getLocations() );
+        model.setLocation( "string", new Location( 5, 6, source ) );
+        assertLocation( model.getLocation( "string" ), 5, 6, source );
+
+        // list positions are kept in order, as the map they replace
+        Map<Object, Location> locations = list.getLocations();
+        assertEquals( Arrays.asList( new Object[] { new Integer( 0 ), new Integer( 1 ), new Integer( 2 ) } ),
+                      Arrays.asList( locations.keySet().toArray() ) );
+
+        // merge( target, source, indices ) picks target and source positions
+        Location target = new Location( 1, 1, source );
+        target.setLocation( new Integer( 0 ), new Location( 10, 1, source ) );
+        target.setLocation( new Integer( 1 ), new Location( 11, 1, source ) );
+        Location dominant = new Location( 2, 2, source );
+        dominant.setLocation( new Integer( 0 ), new Location( 20, 1, source ) );
+
+        Location merged = Location.merge( target, dominant, Arrays.asList( new Integer[] { new Integer( 1 ),
+            new Integer( ~0 ) } ) );
+        assertLocation( merged, 1, 1, source );
+        assertLocation( merged.getLocation( new Integer( 0 ) ), 11, 1, source );
+        assertLocation( merged.getLocation( new Integer( 1 ) ), 20, 1, source );
+
+        merged = Location.merge( target, dominant, true );
+        assertLocation( merged.getLocation( new Integer( 0 ) ), 20, 1, source );
+        assertLocation( merged.getLocation( new Integer( 1 ) ), 11, 1, source );
+
+        merged = Location.merge( target, dominant, false );
+        assertLocation( merged.getLocation( new Integer( 0 ) ), 10, 1, source );
+
+        // the clone doesn't share the packed arrays
+        Model copy = model.clone();
+        copy.setLocation( "string", new Location( 7, 8, source ) );
+        assertLocation( model.getLocation( "string" ), 5, 6, source );
+        assertLocation( copy.getLocation( "string" ), 7, 8, source );
+    }
+
+    private void assertLocation( Location location, int line, int column, Source src )
+        throws Exception
+    {
+        assertNotNull( location );
+
+        assertSame( src, location.getSource() );
+
+        if ( line >= 0 )
+        {
+            assertEquals( line, location.getLineNumber() );
+        }
+
+        if ( column >= 0 )
+        {
+            assertEquals( column, location.getColumnNumber() );
+        }
+    }
+
+}
@@ -0,0 +1,223 @@
+package org.codehaus.modello.generator.xml.xpp3;
+
+/*
+ * Copyright (c) 2004, Codehaus.org
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is furnished to do
+ * so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.Assert;
+
+import org.codehaus.modello.test.locationssrc.Item;
+import org.codehaus.modello.test.locationssrc.Location;
+import org.codehaus.modello.test.locationssrc.Model;
+import org.codehaus.modello.test.locationssrc.Source;
+import org.codehaus.modello.test.locationssrc.io.xpp3.LocationsSourceTestXpp3Reader;
+import org.codehaus.modello.test.locationssrc.io.xpp3.LocationsSourceTestXpp3ReaderEx;
+import org.codehaus.modello.verifier.Verifier;
+import org.codehaus.plexus.util.IOUtil;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
+
+public class Xpp3ParallelVerifier
+    extends Verifier
+{
+    private final ForkJoinPool pool = new ForkJoinPool( 4 );
+
+    public void verify()
+        throws Exception
+    {
+        try
+        {
+            verifyLocations( IOUtil.toString( getClass().getResourceAsStream( "/locations.xml" ), "UTF-8" ) );
+
+            verifyLocations( generate() );
+
+            verifyPlainReader();
+
+            verifyError();
+
+            verifyInternalSubset();
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    private String generate()
+    {
+        StringBuilder buffer = new StringBuilder();
+        buffer.append( "<?xml version=\"1.0\"?>\n<!DOCTYPE model SYSTEM \"model[1].dtd\">\n" );
+        buffer.append( "<model><string>s</string>\r\n  <items><!-- <item> in a comment -->\n" );
+        for ( int i = 0; i < 500; i++ )
+        {
+            if ( i % 7 == 0 )
+            {
+                buffer.append( "<item><string><![CDATA[<item>" ).append( i ).append( "]]></string></item>" );
+            }
+            else if ( i % 3 == 0 )
+            {
+                buffer.append( "  <item>\n    <string>" ).append( i ).append( "</string>\n  </item>\n" );
+            }
+            else
+            {
+                buffer.append( "<item ><string>" ).append( i ).append( "</string></item>" );
+            }
+        }
+        buffer.append( "<item/>\n</items>\n<wrappedListStrings><wrappedListString>a</wrappedListString>" );
+        buffer.append( "</wrappedListStrings></model>\n" );
+        return buffer.toString();
+    }
+
+    private void verifyLocations( String document )
+        throws Exception
+    {
+        Source source = new Source();
+
+        LocationsSourceTestXpp3ReaderEx reader = new LocationsSourceTestXpp3ReaderEx();
+        Model expected = reader.read( new StringReader( document ), true, source );
+
+        reader.setForkJoinPool( pool );
+        Model actual = reader.read( new StringReader( document ), true, source );
+
+        Assert.assertEquals( expected.getString(), actual.getString() );
+        Assert.assertEquals( expected.getWrappedListStrings(), actual.getWrappedListStrings() );
+        assertLocation( expected.getLocation( "wrappedListStrings" ).getLocation( Integer.valueOf( 0 ) ),
+                        actual.getLocation( "wrappedListStrings" ).getLocation( Integer.valueOf( 0 ) ) );
+
+        List<Item> expectedItems = expected.getItems();
+        List<Item> actualItems = actual.getItems();
+        Assert.assertEquals( expectedItems.size(), actualItems.size() );
+        for ( int i = 0; i < expectedItems.size(); i++ )
+        {
+            Item expectedItem = expectedItems.get( i );
+            Item actualItem = actualItems.get( i );
+
+            Assert.assertEquals( expectedItem.getString(), actualItem.getString() );
+            assertLocation( expectedItem.getLocation( "" ), actualItem.getLocation( "" ) );
+            assertLocation( expectedItem.getLocation( "string" ), actualItem.getLocation( "string" ) );
+            Assert.assertSame( source, actualItem.getLocation( "" ).getSource() );
+        }
+    }
+
+    private void assertLocation( Location expected, Location actual )
+    {
+        if ( expected == null )
+        {
+            Assert.assertNull( actual );
+            return;
+        }
+        Assert.assertEquals( expected.getLineNumber(), actual.getLineNumber() );
+        Assert.assertEquals( expected.getColumnNumber(), actual.getColumnNumber() );
+    }
+
+    private void verifyPlainReader()
+        throws Exception
+    {
+        String document = generate();
+
+        LocationsSourceTestXpp3Reader reader = new LocationsSourceTestXpp3Reader();
+        reader.setForkJoinPool( pool );
+        Model model = reader.read( new StringReader( document ) );
+
+        Assert.assertEquals( 501, model.getItems().size() );
+        Assert.assertEquals( "<item>0", model.getItems().get( 0 ).getString() );
+        Assert.assertEquals( "1", model.getItems().get( 1 ).getString() );
+        Assert.assertNull( model.getItems().get( 500 ).getString() );
+    }
+
+    private void verifyError()
+        throws Exception
+    {
+        String document = "<model>\n<items>\n<item><string>a</string></item>\n  <item><unknown/></item>\n</items></model>";
+
+        LocationsSourceTestXpp3Reader reader = new LocationsSourceTestXpp3Reader();
+        int line;
+        int column;
+        try
+        {
+            reader.read( new StringReader( document ), true );
+            Assert.fail( "Unknown element should fail in strict mode" );
+            return;
+        }
+        catch ( XmlPullParserException e )
+        {
+            line = e.getLineNumber();
+            column = e.getColumnNumber();
+        }
+
+        reader.setForkJoinPool( pool );
+        try
+        {
+            reader.read( new StringReader( document ), true );
+            Assert.fail( "Unknown element should fail in strict mode" );
+        }
+        catch ( XmlPullParserException e )
+        {
+            Assert.assertEquals( line, e.getLineNumber() );
+            Assert.assertEquals( column, e.getColumnNumber() );
+        }
+
+        Model model = reader.read( new StringReader( document ), false );
+        Assert.assertEquals( 2, model.getItems().size() );
+    }
+
+    private void verifyInternalSubset()
+        throws Exception
+    {
+        String document = "<?xml version=\"1.0\"?>\n<!DOCTYPE model [ <!ENTITY e \"x\"> ]>\n"
+            + "<model><items><item><string>a</string></item><item><string>b</string></item></items></model>";
+
+        // chunk parsers would miss the internal subset declarations: the document is read sequentially
+        ForkJoinPool unused = new ForkJoinPool( 2 );
+        try
+        {
+            LocationsSourceTestXpp3Reader reader = new LocationsSourceTestXpp3Reader();
+            reader.setForkJoinPool( unused );
+            Model model = reader.read( new StringReader( document ) );
+
+            Assert.assertEquals( 2, model.getItems().size() );
+            Assert.assertEquals( "b", model.getItems().get( 1 ).getString() );
+            Assert.assertEquals( 0, unused.getPoolSize() );
+        }
+        finally
+        {
+            unused.shutdown();
+        }
+
+        ForkJoinPool used = new ForkJoinPool( 2 );
+        try
+        {
+            LocationsSourceTestXpp3Reader reader = new LocationsSourceTestXpp3Reader();
+            reader.setForkJoinPool( used );
+            Model model = reader.read( new StringReader( document.replace( " [ <!ENTITY e \"x\"> ]", "" ) ) );
+
+            Assert.assertEquals( 2, model.getItems().size() );
+            Assert.assertTrue( used.getPoolSize() > 0 );
+        }
+        finally
+        {
+            used.shutdown();
+        }
+    }
+}
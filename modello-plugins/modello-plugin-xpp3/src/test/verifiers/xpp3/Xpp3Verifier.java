@@ -75,6 +75,8 @@ public class Xpp3Verifier
 
         verifyReader();
 
+        verifyReaderReuse();
+
         verifyReaderAliases();
 
         verifyReaderDefaultValue();
@@ -433,6 +435,100 @@ public class Xpp3Verifier
         assertModel( expected, actual );
     }
 
+    public void verifyReaderReuse()
+        throws IOException, XmlPullParserException
+    {
+        final MavenXpp3Reader reader = new MavenXpp3Reader();
+
+        reader.setReuseParser( true );
+
+        Assert.assertTrue( reader.getReuseParser() );
+
+        // ----------------------------------------------------------------------
+        // Test that the reused parser is properly reset between documents
+        // ----------------------------------------------------------------------
+
+        final String xml = "<mavenModel>\n" + "  <groupId>Laugst&oslash;l</groupId>\n" + "</mavenModel>";
+
+        final Model expected = new Model();
+
+        expected.setGroupId( "Laugst\u00f8l" );
+
+        assertModel( expected, reader.read( new StringReader( xml ) ) );
+
+        assertModel( expected, reader.read( new StringReader( xml ) ) );
+
+        try
+        {
+            reader.read( new StringReader( "<mavenModel><groupId>" ) );
+            Assert.fail( "Should have obtained a parse error for incomplete document" );
+        }
+        catch ( IOException e )
+        {
+            Assert.assertTrue( true );
+        }
+
+        assertModel( expected, reader.read( new StringReader( xml ) ) );
+
+        // ----------------------------------------------------------------------
+        // Test that the "add default entities" flag is still honored, and only by its reader
+        // ----------------------------------------------------------------------
+
+        MavenXpp3Reader other = new MavenXpp3Reader();
+
+        other.setReuseParser( true );
+
+        reader.setAddDefaultEntities( false );
+
+        try
+        {
+            reader.read( new StringReader( xml ) );
+            Assert.fail( "Should have obtained a parse error for undeclared entity" );
+        }
+        catch ( XmlPullParserException e )
+        {
+            Assert.assertTrue( true );
+        }
+        finally
+        {
+            reader.setAddDefaultEntities( true );
+        }
+
+        assertModel( expected, other.read( new StringReader( xml ) ) );
+
+        // ----------------------------------------------------------------------
+        // Test that a nested read on the same thread doesn't reset the parser in use
+        // ----------------------------------------------------------------------
+
+        Reader nesting = new java.io.FilterReader( new StringReader( xml ) )
+        {
+            private boolean nested;
+
+            public int read( char[] cbuf, int off, int len )
+                throws IOException
+            {
+                if ( !nested )
+                {
+                    nested = true;
+                    try
+                    {
+                        Model model = reader.read( new StringReader( "<mavenModel><groupId>nested</groupId></mavenModel>" ) );
+                        Assert.assertEquals( "nested", model.getGroupId() );
+                    }
+                    catch ( XmlPullParserException e )
+                    {
+                        throw new IOException( e.getMessage() );
+                    }
+                }
+                return super.read( cbuf, off, len );
+            }
+        };
+
+        assertModel( expected, reader.read( nesting ) );
+
+        assertModel( expected, reader.read( new StringReader( xml ) ) );
+    }
+
     public void verifyReaderAliases()
         throws IOException, XmlPullParserException
     {
@@ -108,8 +108,7 @@ public class XsdGenerator
             w.addAttribute( "xmlns:xs", "http://www.w3.org/2001/XMLSchema" );
             w.addAttribute( "elementFormDefault", "qualified" );
 
-            ModelClass root = objectModel.getClass( objectModel.getRoot( getGeneratedVersion() ),
-                                                    getGeneratedVersion() );
+            ModelClass root = getView().getClass( objectModel.getRoot( getGeneratedVersion() ) );
 
             String namespace = XsdModelHelper.getNamespace( root.getModel(), getGeneratedVersion() );
 
@@ -134,7 +133,7 @@ public class XsdGenerator
 
             // Element descriptors
             // Traverse from root so "abstract" models aren't included
-            int initialCapacity = objectModel.getClasses( getGeneratedVersion() ).size();
+            int initialCapacity = getView().getClasses().size();
             writeComplexTypeDescriptor( w, objectModel, root, new HashSet<ModelClass>( initialCapacity ) );
 
             w.endElement();
@@ -215,7 +214,7 @@ public class XsdGenerator
 
         if ( fields.size() > 0 )
         {
-            XsdClassMetadata xsdClassMetadata = (XsdClassMetadata) modelClass.getMetadata( XsdClassMetadata.ID );
+            XsdClassMetadata xsdClassMetadata = modelClass.getMetadata( XsdClassMetadata.SLOT );
             boolean compositorAll = XsdClassMetadata.COMPOSITOR_ALL.equals( xsdClassMetadata.getCompositor() );
 
             if ( !hasContentField )
@@ -232,7 +231,7 @@ public class XsdGenerator
 
             for ( ModelField field : fields )
             {
-                XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+                XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
                 String fieldTagName = resolveTagName( field, xmlFieldMetadata );
 
@@ -288,14 +287,14 @@ public class XsdGenerator
                     if ( isInnerAssociation( field ) )
                     {
                         ModelAssociation association = (ModelAssociation) field;
-                        ModelClass fieldModelClass = objectModel.getClass( association.getTo(), getGeneratedVersion() );
+                        ModelClass fieldModelClass = getView().getClass( association.getTo() );
 
                         toWrite.add( fieldModelClass );
 
                         if ( association.isManyMultiplicity() )
                         {
                             XmlAssociationMetadata xmlAssociationMetadata =
-                                (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                                association.getMetadata( XmlAssociationMetadata.SLOT );
 
                             if ( xmlAssociationMetadata.isWrappedItems() )
                             {
@@ -343,7 +342,7 @@ public class XsdGenerator
                             ModelAssociation association = (ModelAssociation) field;
 
                             XmlAssociationMetadata xmlAssociationMetadata =
-                                (XmlAssociationMetadata) association.getAssociationMetadata( XmlAssociationMetadata.ID );
+                                association.getMetadata( XmlAssociationMetadata.SLOT );
 
                             writeListElement( w, xmlFieldMetadata, xmlAssociationMetadata, field,
                                               getXsdType( "String" ) );
@@ -375,7 +374,7 @@ public class XsdGenerator
 
         for ( ModelField field : attributeFields )
         {
-            XmlFieldMetadata xmlFieldMetadata = (XmlFieldMetadata) field.getMetadata( XmlFieldMetadata.ID );
+            XmlFieldMetadata xmlFieldMetadata = field.getMetadata( XmlFieldMetadata.SLOT );
 
             w.startElement( "xs:attribute" );
 
@@ -39,9 +39,9 @@ public class XsdModelHelper
     public static String getNamespace( Model model, Version version )
         throws ModelloException
     {
-        XmlModelMetadata xmlModelMetadata = (XmlModelMetadata) model.getMetadata( XmlModelMetadata.ID );
+        XmlModelMetadata xmlModelMetadata = model.getMetadata( XmlModelMetadata.SLOT );
 
-        XsdModelMetadata xsdModelMetadata = (XsdModelMetadata) model.getMetadata( XsdModelMetadata.ID );
+        XsdModelMetadata xsdModelMetadata = model.getMetadata( XsdModelMetadata.SLOT );
 
         String namespace;
         if ( StringUtils.isNotEmpty( xsdModelMetadata.getNamespace() ) )
@@ -65,7 +65,7 @@ public class XsdModelHelper
 
     public static String getTargetNamespace( Model model, Version version, String namespace )
     {
-        XsdModelMetadata xsdModelMetadata = (XsdModelMetadata) model.getMetadata( XsdModelMetadata.ID );
+        XsdModelMetadata xsdModelMetadata = model.getMetadata( XsdModelMetadata.SLOT );
 
         String targetNamespace;
         if ( xsdModelMetadata.getTargetNamespace() == null )
@@ -17,6 +17,7 @@ package org.codehaus.modello.plugin.xsd.metadata;
  */
 
 import org.codehaus.modello.metadata.AssociationMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * XsdAssociationMetadata 
@@ -26,4 +27,6 @@ import org.codehaus.modello.metadata.AssociationMetadata;
 public class XsdAssociationMetadata implements AssociationMetadata
 {
     public static final String ID = XsdAssociationMetadata.class.getName();
+
+    public static final MetadataSlot<XsdAssociationMetadata> SLOT = MetadataSlot.of( XsdAssociationMetadata.class );
 }
@@ -17,6 +17,7 @@ package org.codehaus.modello.plugin.xsd.metadata;
  */
 
 import org.codehaus.modello.metadata.ClassMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * XsdClassMetadata
@@ -27,6 +28,8 @@ public class XsdClassMetadata implements ClassMetadata
 {
     public static final String ID = XsdClassMetadata.class.getName();
 
+    public static final MetadataSlot<XsdClassMetadata> SLOT = MetadataSlot.of( XsdClassMetadata.class );
+
     public static final String COMPOSITOR_ALL = "all";
 
     public static final String COMPOSITOR_SEQUENCE = "sequence";
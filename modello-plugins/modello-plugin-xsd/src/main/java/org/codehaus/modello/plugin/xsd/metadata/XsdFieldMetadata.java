@@ -17,6 +17,7 @@ package org.codehaus.modello.plugin.xsd.metadata;
  */
 
 import org.codehaus.modello.metadata.FieldMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * XsdFieldMetadata 
@@ -26,4 +27,6 @@ import org.codehaus.modello.metadata.FieldMetadata;
 public class XsdFieldMetadata implements FieldMetadata
 {
     public static final String ID = XsdFieldMetadata.class.getName();
+
+    public static final MetadataSlot<XsdFieldMetadata> SLOT = MetadataSlot.of( XsdFieldMetadata.class );
 }
@@ -17,6 +17,7 @@ package org.codehaus.modello.plugin.xsd.metadata;
  */
 
 import org.codehaus.modello.metadata.InterfaceMetadata;
+import org.codehaus.modello.metadata.MetadataSlot;
 
 /**
  * XsdFieldMetadata 
@@ -27,4 +28,6 @@ public class XsdInterfaceMetadata
     implements InterfaceMetadata
 {
     public static final String ID = XsdInterfaceMetadata.class.getName();
+
+    public static final MetadataSlot<XsdInterfaceMetadata> SLOT = MetadataSlot.of( XsdInterfaceMetadata.class );
 }
@@ -16,6 +16,7 @@ package org.codehaus.modello.plugin.xsd.metadata;
  * limitations under the License.
  */
 
+import org.codehaus.modello.metadata.MetadataSlot;
 import org.codehaus.modello.metadata.ModelMetadata;
 import org.codehaus.modello.model.Version;
 import org.codehaus.plexus.util.StringUtils;
@@ -29,6 +30,8 @@ public class XsdModelMetadata implements ModelMetadata
 {
     public static final String ID = XsdModelMetadata.class.getName();
 
+    public static final MetadataSlot<XsdModelMetadata> SLOT = MetadataSlot.of( XsdModelMetadata.class );
+
     private String namespace;
 
     private String targetNamespace;